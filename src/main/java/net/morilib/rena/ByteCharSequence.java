@@ -0,0 +1,146 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A CharSequence view of bytes which maps each byte to a character of U+0000-U+00FF.<br>
+ * Bytes are not copied nor decoded, hence indices of this sequence are byte offsets.
+ * Matchers of ByteRena match UTF-8 strings over this view,
+ * and matched bytes can be decoded by decode.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public final class ByteCharSequence implements CharSequence {
+
+	private final byte[] array;
+	private final ByteBuffer buffer;
+	private final int offset;
+	private final int length;
+
+	private ByteCharSequence(byte[] array, ByteBuffer buffer, int offset, int length) {
+		this.array = array;
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * creates a view of the given bytes.
+	 *
+	 * @param bytes bytes
+	 * @return a view
+	 */
+	public static ByteCharSequence of(byte[] bytes) {
+		return new ByteCharSequence(bytes, null, 0, bytes.length);
+	}
+
+	/**
+	 * creates a view of the part of the given bytes.
+	 *
+	 * @param bytes bytes
+	 * @param offset an offset of the part
+	 * @param length a length of the part
+	 * @return a view
+	 */
+	public static ByteCharSequence of(byte[] bytes, int offset, int length) {
+		if(offset < 0 || length < 0 || offset + length > bytes.length) {
+			throw new IndexOutOfBoundsException("offset=" + offset + ",length=" + length);
+		}
+		return new ByteCharSequence(bytes, null, offset, length);
+	}
+
+	/**
+	 * creates a view of the remaining bytes of the given buffer.<br>
+	 * The buffer may be direct and its position is not changed.
+	 *
+	 * @param buffer a buffer
+	 * @return a view
+	 */
+	public static ByteCharSequence of(ByteBuffer buffer) {
+		return new ByteCharSequence(null, buffer, buffer.position(), buffer.remaining());
+	}
+
+	/**
+	 * gets the byte of the given index.
+	 *
+	 * @param index an index
+	 * @return the byte
+	 */
+	public byte byteAt(int index) {
+		if(index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return array != null ? array[offset + index] : buffer.get(offset + index);
+	}
+
+	/**
+	 * decodes the bytes [start, end) as UTF-8.
+	 *
+	 * @param start a start index
+	 * @param end an end index
+	 * @return decoded string
+	 */
+	public String decode(int start, int end) {
+		if(start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("start=" + start + ",end=" + end);
+		} else if(array != null) {
+			return new String(array, offset + start, end - start, StandardCharsets.UTF_8);
+		} else {
+			ByteBuffer dup = buffer.duplicate();
+
+			dup.limit(offset + end);
+			dup.position(offset + start);
+			return StandardCharsets.UTF_8.decode(dup).toString();
+		}
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char)(byteAt(index) & 0xff);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return CharSequences.slice(this, start, end);
+	}
+
+	@Override
+	public String toString() {
+		return CharSequences.slice(this, 0, length).toString();
+	}
+
+	/**
+	 * converts the given string to a string whose characters are bytes of UTF-8 of the string.
+	 *
+	 * @param string a string
+	 * @return converted string
+	 */
+	static String toBytes(String string) {
+		return new String(string.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * converts the given string whose characters are bytes of UTF-8 to a decoded string.
+	 *
+	 * @param bytes a string of bytes
+	 * @return decoded string
+	 */
+	static String fromBytes(String bytes) {
+		return new String(bytes.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,302 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A class to create parser definition which matches bytes of UTF-8.<br>
+ * Matchers created by this class match a ByteCharSequence,
+ * hence bytes of byte[] and ByteBuffer are matched without decoding nor copying.
+ * Indices of results are byte offsets and
+ * matched strings given to actions are strings of bytes, each character of which is a byte,
+ * except that string matchers give the given string to actions.
+ * The matched string can be decoded by utf8.<br>
+ * Strings and keywords given to this class are encoded to UTF-8,
+ * but strings given to ThenMatcher.string and regular expressions match bytes as they are.
+ * Use then(string(...)) to match a string which has non-ASCII characters.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+public class ByteRena<A> extends Rena<A> {
+
+	/**
+	 * Constructs a class to create parser definition with default settings.
+	 */
+	public ByteRena() {}
+
+	/**
+	 * Constructs a class to create parser definition with a regular expression of bytes to ignore.
+	 *
+	 * @param toIgnore a regular expression to ignore
+	 */
+	public ByteRena(String toIgnore) {
+		super(toIgnore);
+	}
+
+	/**
+	 * Constructs a class to create parser definition with keywords.<br>
+	 * A longest keyword will be matched.
+	 *
+	 * @param keys an array of keywords
+	 */
+	public ByteRena(String[] keys) {
+		super(encode(keys));
+	}
+
+	/**
+	 * Constructs a class to create parser definition with keywords.<br>
+	 * A longest keyword will be matched.
+	 *
+	 * @param keys an array of keywords
+	 */
+	public ByteRena(List<String> keys) {
+		this(keys.toArray(new String[0]));
+	}
+
+	/**
+	 * Constructs a class to create parser definition with a regular expression of bytes to ignore and keywords.<br>
+	 * A longest keyword will be matched.
+	 *
+	 * @param toIgnore a regular expression to ignore
+	 * @param keys an array of keywords
+	 */
+	public ByteRena(String toIgnore, String[] keys) {
+		super(toIgnore, encode(keys));
+	}
+
+	/**
+	 * Constructs a class to create parser definition with a regular expression of bytes to ignore and keywords.<br>
+	 * A longest keyword will be matched.
+	 *
+	 * @param toIgnore a regular expression to ignore
+	 * @param keys an array of keywords
+	 */
+	public ByteRena(String toIgnore, List<String> keys) {
+		this(toIgnore, keys.toArray(new String[0]));
+	}
+
+	private static String[] encode(String[] keys) {
+		String[] result = new String[keys.length];
+
+		for(int i = 0; i < keys.length; i++) {
+			result[i] = keys[i] != null ? ByteCharSequence.toBytes(keys[i]) : null;
+		}
+		return result;
+	}
+
+	/**
+	 * wraps the given bytes to match by matchers of this class.
+	 *
+	 * @param bytes bytes
+	 * @return a sequence to match
+	 */
+	public static ByteCharSequence wrap(byte[] bytes) {
+		return ByteCharSequence.of(bytes);
+	}
+
+	/**
+	 * wraps the part of the given bytes to match by matchers of this class.
+	 *
+	 * @param bytes bytes
+	 * @param offset an offset of the part
+	 * @param length a length of the part
+	 * @return a sequence to match
+	 */
+	public static ByteCharSequence wrap(byte[] bytes, int offset, int length) {
+		return ByteCharSequence.of(bytes, offset, length);
+	}
+
+	/**
+	 * wraps the remaining bytes of the given buffer to match by matchers of this class.
+	 *
+	 * @param buffer a buffer
+	 * @return a sequence to match
+	 */
+	public static ByteCharSequence wrap(ByteBuffer buffer) {
+		return ByteCharSequence.of(buffer);
+	}
+
+	/**
+	 * creates an action which gives the matched string decoded from UTF-8 to the given action.
+	 *
+	 * @param action an action
+	 * @return an action
+	 */
+	public static<A> PatternAction<A> utf8(final PatternAction<A> action) {
+		return (str, syn, inherit) -> action.action(ByteCharSequence.fromBytes(str), syn, inherit);
+	}
+
+	/**
+	 * creates a matcher which matches with UTF-8 of a given string
+	 * and an action which executes when the pattern is matched.<br>
+	 * The action is given the string itself.
+	 *
+	 * @param string a string to be matched
+	 * @param action an action to execute
+	 * @return a matcher
+	 */
+	@Override
+	public LookaheadMatcher<A> string(final String string,
+			final PatternAction<A> action) {
+		return super.string(ByteCharSequence.toBytes(string),
+				action != null ? (str, syn, inherit) -> action.action(string, syn, inherit) : null);
+	}
+
+	/**
+	 * creates a matcher which matches UTF-8 of a given keyword.<br>
+	 * A longest keyword will be matched.
+	 *
+	 * @param key a string to be matched
+	 * @return a matcher
+	 */
+	@Override
+	public LookaheadMatcher<A> key(final String key) {
+		return super.key(ByteCharSequence.toBytes(key));
+	}
+
+	/**
+	 * creates a matcher which matches UTF-8 of one of the given keywords and executes the action of the keyword.<br>
+	 * A longest keyword will be matched.
+	 * The action is given the keyword itself.
+	 *
+	 * @param keys a map from keywords to actions
+	 * @return a matcher
+	 */
+	@Override
+	public LookaheadMatcher<A> keys(Map<String, PatternAction<A>> keys) {
+		Map<String, PatternAction<A>> encoded = new LinkedHashMap<String, PatternAction<A>>();
+
+		for(Map.Entry<String, PatternAction<A>> entry : keys.entrySet()) {
+			final String key = entry.getKey();
+			final PatternAction<A> action = entry.getValue();
+
+			encoded.put(ByteCharSequence.toBytes(key),
+					action != null ? (str, syn, inherit) -> action.action(key, syn, inherit) : null);
+		}
+		return super.keys(encoded);
+	}
+
+	/**
+	 * creates a matcher which matches with the given bytes
+	 * and an action which executes when the pattern is matched.
+	 *
+	 * @param bytes bytes to be matched
+	 * @param action an action to execute
+	 * @return a matcher
+	 */
+	public LookaheadMatcher<A> bytes(final byte[] bytes, final PatternAction<A> action) {
+		return super.string(new String(bytes, StandardCharsets.ISO_8859_1), action);
+	}
+
+	/**
+	 * creates a matcher which matches with the given bytes.
+	 *
+	 * @param bytes bytes to be matched
+	 * @return a matcher
+	 */
+	public LookaheadMatcher<A> bytes(final byte[] bytes) {
+		return bytes(bytes, null);
+	}
+
+	/**
+	 * creates a matcher which matches a byte in the range [from, to]
+	 * and an action which executes when the pattern is matched.
+	 *
+	 * @param from the smallest byte from 0 to 255
+	 * @param to the largest byte from 0 to 255
+	 * @param action an action to execute
+	 * @return a matcher
+	 */
+	public LookaheadMatcher<A> byteRange(final int from, final int to, final PatternAction<A> action) {
+		if(from < 0 || to > 0xff || from > to) {
+			throw new IllegalArgumentException("invalid range of bytes");
+		}
+		return then((match, index, attribute) -> {
+			int ch;
+
+			if(CharSequences.isEnd(match, index) ||
+					(ch = match.charAt(index)) < from || ch > to) {
+				return null;
+			} else {
+				String matched = String.valueOf((char)ch);
+
+				return new PatternResult<A>(matched,
+						index + 1,
+						action != null ? action.action(matched, null, attribute) : attribute);
+			}
+		});
+	}
+
+	/**
+	 * creates a matcher which matches a byte in the range [from, to].
+	 *
+	 * @param from the smallest byte from 0 to 255
+	 * @param to the largest byte from 0 to 255
+	 * @return a matcher
+	 */
+	public LookaheadMatcher<A> byteRange(int from, int to) {
+		return byteRange(from, to, null);
+	}
+
+	/**
+	 * creates a matcher which matches any byte.
+	 *
+	 * @return a matcher
+	 */
+	public LookaheadMatcher<A> anyByte() {
+		return byteRange(0, 0xff, null);
+	}
+
+	/**
+	 * creates a matcher which matches a well-formed UTF-8 sequence of a character
+	 * and an action which executes when the pattern is matched.<br>
+	 * The action is given the decoded character.
+	 *
+	 * @param action an action to execute
+	 * @return a matcher
+	 */
+	public LookaheadMatcher<A> utf8Char(final PatternAction<A> action) {
+		return then((match, index, attribute) -> {
+			int packed;
+			String matched;
+
+			if(CharSequences.isEnd(match, index)) {
+				return null;
+			}
+			packed = Utf8.decode(i -> CharSequences.isEnd(match, (int)i) ? -1 : match.charAt((int)i),
+					index,
+					Long.MAX_VALUE);
+			if(Utf8.isMalformed(packed)) {
+				return null;
+			}
+			matched = CharSequences.substring(match, index, index + Utf8.length(packed));
+			return new PatternResult<A>(matched,
+					index + Utf8.length(packed),
+					action != null ?
+							action.action(new String(Character.toChars(Utf8.codePoint(packed))), null, attribute) :
+							attribute);
+		});
+	}
+
+	/**
+	 * creates a matcher which matches a well-formed UTF-8 sequence of a character.
+	 *
+	 * @return a matcher
+	 */
+	public LookaheadMatcher<A> utf8Char() {
+		return utf8Char(null);
+	}
+
+}
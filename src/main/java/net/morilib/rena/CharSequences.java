@@ -0,0 +1,335 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utilities of matching primitives over CharSequence.<br>
+ * All methods do not copy the given sequence.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class CharSequences {
+
+	/**
+	 * A view of a sequence which ends at the given index.<br>
+	 * Indices of this view are the same as the original sequence.
+	 */
+	private static class Region implements Input {
+
+		private final CharSequence sequence;
+		private final int end;
+
+		private Region(CharSequence sequence, int end) {
+			this.sequence = sequence;
+			this.end = end;
+		}
+
+		public int length() {
+			return end;
+		}
+
+		public char charAt(int index) {
+			if(index < 0 || index >= end) {
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			}
+			return sequence.charAt(index);
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			if(end > this.end) {
+				throw new IndexOutOfBoundsException(Integer.toString(end));
+			}
+			return sequence.subSequence(start, end);
+		}
+
+		public String toString() {
+			return sequence.subSequence(0, end).toString();
+		}
+
+		public boolean fill(int index) {
+			return index < end && has(sequence, index);
+		}
+
+		public void examine(int index) {
+			CharSequences.examine(sequence, index);
+		}
+
+		public void release(int index) {
+			CharSequences.release(sequence, index);
+		}
+
+		public boolean isStable() {
+			return CharSequences.isStable(sequence);
+		}
+
+		public boolean canReadAhead() {
+			return CharSequences.canReadAhead(sequence);
+		}
+
+	}
+
+	/**
+	 * A view of the part of a sequence whose indices start with 0.
+	 */
+	private static class Slice implements CharSequence {
+
+		private final CharSequence sequence;
+		private final int start;
+		private final int end;
+
+		private Slice(CharSequence sequence, int start, int end) {
+			this.sequence = sequence;
+			this.start = start;
+			this.end = end;
+		}
+
+		public int length() {
+			return end - start;
+		}
+
+		public char charAt(int index) {
+			if(index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			}
+			return sequence.charAt(start + index);
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			return slice(this, start, end);
+		}
+
+		public String toString() {
+			char[] result = new char[end - start];
+
+			for(int i = start; i < end; i++) {
+				result[i - start] = sequence.charAt(i);
+			}
+			return new String(result);
+		}
+
+	}
+
+	private CharSequences() {}
+
+	/**
+	 * returns a view of the region [start, end) of the given sequence.
+	 *
+	 * @param sequence a sequence
+	 * @param start a start index of the region
+	 * @param end an end index of the region
+	 * @return a view
+	 */
+	static CharSequence region(CharSequence sequence, int start, int end) {
+		if(start < 0 || end > sequence.length() || start > end) {
+			throw new IndexOutOfBoundsException("start=" + start + ",end=" + end);
+		}
+		return end == sequence.length() ? sequence : new Region(sequence, end);
+	}
+
+	/**
+	 * returns a view of the part [start, end) of the given sequence
+	 * whose indices start with 0.<br>
+	 * This method can be used to implement CharSequence.subSequence.
+	 *
+	 * @param sequence a sequence
+	 * @param start a start index of the part
+	 * @param end an end index of the part
+	 * @return a view
+	 */
+	static CharSequence slice(CharSequence sequence, int start, int end) {
+		if(start < 0 || end > sequence.length() || start > end) {
+			throw new IndexOutOfBoundsException("start=" + start + ",end=" + end);
+		} else if(sequence instanceof Slice) {
+			Slice slice = (Slice)sequence;
+
+			return new Slice(slice.sequence, slice.start + start, slice.start + end);
+		}
+		return new Slice(sequence, start, end);
+	}
+
+	/**
+	 * returns the given sequence as an input, or null if the sequence is a plain CharSequence.<br>
+	 * A string is tested first because testing a final class is faster than testing an interface.
+	 *
+	 * @param sequence a sequence
+	 * @return the input or null
+	 */
+	static Input input(CharSequence sequence) {
+		return sequence instanceof String || !(sequence instanceof Input) ? null : (Input)sequence;
+	}
+
+	/**
+	 * tests whether the sequence has the character of the given index.<br>
+	 * A streaming input reads characters until the index.
+	 *
+	 * @param sequence a sequence
+	 * @param index an index which is not negative
+	 * @return true if the sequence has the character
+	 */
+	static boolean has(CharSequence sequence, int index) {
+		Input input = input(sequence);
+
+		return input != null ? input.fill(index) : index < sequence.length();
+	}
+
+	/**
+	 * tests whether the sequence has the given string at the given index.
+	 *
+	 * @param sequence a sequence
+	 * @param prefix a string to test
+	 * @param index an index
+	 * @return true if the sequence has the string
+	 */
+	static boolean startsWith(CharSequence sequence, String prefix, int index) {
+		if(sequence instanceof String) {
+			return ((String)sequence).startsWith(prefix, index);
+		} else if(index < 0 || (prefix.length() > 0 && !has(sequence, index + prefix.length() - 1))) {
+			examine(sequence, sequence.length());
+			return false;
+		}
+		for(int i = 0; i < prefix.length(); i++) {
+			if(sequence.charAt(index + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * matches the pattern from the given index of the sequence.<br>
+	 * A streaming input reads more characters while the pattern needs them.
+	 *
+	 * @param pattern a pattern
+	 * @param sequence a sequence
+	 * @param index an index
+	 * @return the end index of matching, or -1 if not matched
+	 */
+	static int lookingAt(Pattern pattern, CharSequence sequence, int index) {
+		Matcher matcher;
+		boolean found;
+
+		if(index > 0 && !has(sequence, index - 1)) {
+			return -1;
+		}
+		while(true) {
+			matcher = pattern.matcher(sequence);
+			matcher.region(index, sequence.length());
+			found = matcher.lookingAt();
+			if((matcher.hitEnd() || (found && matcher.requireEnd())) && fillMore(sequence)) {
+				continue;
+			} else if(matcher.hitEnd()) {
+				examine(sequence, sequence.length());
+			}
+			return found ? matcher.end() : -1;
+		}
+	}
+
+	private static boolean fillMore(CharSequence sequence) {
+		Input input = input(sequence);
+
+		return input != null && input.fillMore();
+	}
+
+	/**
+	 * gets the character of the given index of the sequence.
+	 *
+	 * @param sequence a sequence
+	 * @param index an index
+	 * @return the character, or -1 if the index is the end of the sequence
+	 */
+	static int charAt(CharSequence sequence, int index) {
+		if(index < 0 || !has(sequence, index)) {
+			examine(sequence, sequence.length());
+			return -1;
+		}
+		return sequence.charAt(index);
+	}
+
+	/**
+	 * tests whether the given index is the end of the sequence.
+	 *
+	 * @param sequence a sequence
+	 * @param index an index
+	 * @return true if the index is the end
+	 */
+	static boolean isEnd(CharSequence sequence, int index) {
+		examine(sequence, index);
+		return !has(sequence, index);
+	}
+
+	/**
+	 * notifies that the character of the given index is examined.<br>
+	 * An incremental text records the index.
+	 *
+	 * @param sequence a sequence
+	 * @param index an index
+	 */
+	static void examine(CharSequence sequence, int index) {
+		Input input = input(sequence);
+
+		if(input != null) {
+			input.examine(index);
+		}
+	}
+
+	/**
+	 * notifies that characters before the given index will not be referred.<br>
+	 * A streaming sequence discards the characters.
+	 *
+	 * @param sequence a sequence
+	 * @param index an index
+	 */
+	static void release(CharSequence sequence, int index) {
+		Input input = input(sequence);
+
+		if(input != null) {
+			input.release(index);
+		}
+	}
+
+	/**
+	 * tests whether the characters of the sequence are never changed and are all available.
+	 *
+	 * @param sequence a sequence
+	 * @return true if the sequence is stable
+	 */
+	static boolean isStable(CharSequence sequence) {
+		Input input = input(sequence);
+
+		return input != null ? input.isStable() : sequence instanceof String;
+	}
+
+	/**
+	 * tests whether matchers may read all characters of the sequence in advance.
+	 *
+	 * @param sequence a sequence
+	 * @return true if characters can be read in advance
+	 */
+	static boolean canReadAhead(CharSequence sequence) {
+		Input input = input(sequence);
+
+		return input == null || input.canReadAhead();
+	}
+
+	/**
+	 * gets the substring [start, end) of the sequence.
+	 *
+	 * @param sequence a sequence
+	 * @param start a start index
+	 * @param end an end index
+	 * @return the substring
+	 */
+	static String substring(CharSequence sequence, int start, int end) {
+		return sequence.subSequence(start, end).toString();
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A trie of strings whose edges are stored in sorted arrays of primitives.<br>
+ * Each string is associated with its index in the array given to the constructor.
+ * If the same string appears more than once, the first index is associated.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class CharTrie {
+
+	private static class Builder {
+
+		private final Map<Character, Builder> edges = new TreeMap<Character, Builder>();
+		private int value = -1;
+
+	}
+
+	// edges of the node n are labels[base[n]] ... labels[base[n + 1] - 1]
+	// and the target of the edge e is the node e + 1 because nodes are numbered in breadth-first order
+	private final int[] base;
+	private final char[] labels;
+	private final int[] values;
+
+	/**
+	 * constructs a trie of the given strings.
+	 *
+	 * @param keys strings
+	 */
+	CharTrie(String[] keys) {
+		Builder root = new Builder();
+		List<Builder> nodes = new ArrayList<Builder>();
+		int edges = 0;
+
+		for(int i = 0; i < keys.length; i++) {
+			Builder node = root;
+
+			for(int j = 0; j < keys[i].length(); j++) {
+				Builder next = node.edges.get(keys[i].charAt(j));
+
+				if(next == null) {
+					node.edges.put(keys[i].charAt(j), next = new Builder());
+				}
+				node = next;
+			}
+			if(node.value < 0) {
+				node.value = i;
+			}
+		}
+
+		// numbers nodes in breadth-first order
+		nodes.add(root);
+		for(int i = 0; i < nodes.size(); i++) {
+			nodes.addAll(nodes.get(i).edges.values());
+			edges += nodes.get(i).edges.size();
+		}
+		base = new int[nodes.size() + 1];
+		labels = new char[edges];
+		values = new int[nodes.size()];
+		for(int i = 0, e = 0; i < nodes.size(); i++) {
+			base[i] = e;
+			values[i] = nodes.get(i).value;
+			for(char label : nodes.get(i).edges.keySet()) {
+				labels[e++] = label;
+			}
+		}
+		base[nodes.size()] = edges;
+	}
+
+	private int next(int node, char ch) {
+		int low = base[node], high = base[node + 1] - 1;
+
+		while(low <= high) {
+			int mid = (low + high) >>> 1;
+
+			if(labels[mid] < ch) {
+				low = mid + 1;
+			} else if(labels[mid] > ch) {
+				high = mid - 1;
+			} else {
+				return mid + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * finds the least index of the strings which the sequence has at the given index.
+	 *
+	 * @param sequence a sequence
+	 * @param index an index
+	 * @return the least index of the strings, or -1 if no string matches
+	 */
+	int first(CharSequence sequence, int index) {
+		int result = values[0];
+
+		for(int node = 0, i = index, ch; base[node] < base[node + 1]; i++) {
+			if((ch = CharSequences.charAt(sequence, i)) < 0 || (node = next(node, (char)ch)) < 0) {
+				break;
+			} else if(values[node] >= 0 && (result < 0 || values[node] < result)) {
+				result = values[node];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * walks the trie along the sequence from the given index as deep as possible
+	 * and finds the index of the string of the node where the walk stops.<br>
+	 * A shorter string on the path is not found if the walk goes beyond it.
+	 *
+	 * @param sequence a sequence
+	 * @param index an index
+	 * @return the index of the string, or -1 if the node has no string
+	 */
+	int deepest(CharSequence sequence, int index) {
+		int node = 0;
+
+		for(int i = index, ch, next; base[node] < base[node + 1]; i++, node = next) {
+			if((ch = CharSequences.charAt(sequence, i)) < 0 || (next = next(node, (char)ch)) < 0) {
+				break;
+			}
+		}
+		return values[node];
+	}
+
+}
@@ -0,0 +1,695 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.function.Predicate;
+
+/**
+ * A compiler which translates nodes of combinators to specialized code.<br>
+ * Chains of sequences and alternations are flattened to loops over arrays,
+ * skipping of spaces is resolved to the pattern to ignore,
+ * and results of children are passed by a context instead of instances of PatternResult.
+ * The matched string of a child is created only if an action or the result refers to it.
+ * The compiled matcher behaves exactly like the original matcher.<br>
+ * A recognizer is compiled without actions and returns only the end index.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+final class Compiler<A> extends Translator<A, Compiler.Code<A>> {
+
+	/**
+	 * A context which holds the result of the last matching.
+	 */
+	static final class Context<A> {
+
+		private A attribute;
+		private String match;
+
+		private A act(PatternAction<A> action, CharSequence s, int start, int end, A inherited) {
+			return match != null ?
+					action.action(match, attribute, inherited) :
+						action.action(s, start, end, attribute, inherited);
+		}
+
+		private int result(int end, A attribute, String match) {
+			this.attribute = attribute;
+			this.match = match;
+			return end;
+		}
+
+	}
+
+	/**
+	 * A compiled code which returns the end index or -1 if it does not match.
+	 */
+	static abstract class Code<A> {
+
+		abstract int run(Context<A> ctx, CharSequence s, int index, A attribute);
+
+	}
+
+	static final class Skip {
+
+		private final SkipPolicy ignore;
+		private final OperationMatcher<?> matcher;
+
+		private Skip(SkipPolicy ignore, OperationMatcher<?> matcher) {
+			this.ignore = ignore;
+			this.matcher = matcher;
+		}
+
+		int skip(CharSequence s, int index) {
+			return matcher != null ? matcher.skipSpace(s, index) : Node.skip(ignore, s, index);
+		}
+
+	}
+
+	private static final class Literal<A> extends Code<A> {
+
+		private final String string;
+		private final PatternAction<A> action;
+
+		private Literal(String string, PatternAction<A> action) {
+			this.string = string;
+			this.action = action;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			if(!CharSequences.startsWith(s, string, index)) {
+				return -1;
+			} else if(action == Node.<A>none()) {
+				return ctx.result(index + string.length(), null, string);
+			} else {
+				return ctx.result(index + string.length(),
+						action != null ? action.action(s, index, index + string.length(), null, attribute) : attribute,
+						string);
+			}
+		}
+
+	}
+
+	private static final class Regex<A> extends Code<A> {
+
+		private final DfaRegex dfa;
+		private final PatternAction<A> action;
+
+		private Regex(DfaRegex dfa, PatternAction<A> action) {
+			this.dfa = dfa;
+			this.action = action;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int end = dfa.lookingAt(s, index);
+
+			if(end < 0) {
+				return -1;
+			}
+			return ctx.result(end,
+					action != null ? action.action(s, index, end, null, attribute) : attribute,
+					null);
+		}
+
+	}
+
+	private static final class Literals<A> extends Code<A> {
+
+		private final CharTrie trie;
+		private final Code<A>[] literals;
+
+		private Literals(CharTrie trie, Code<A>[] literals) {
+			this.trie = trie;
+			this.literals = literals;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int found = trie.first(s, index);
+
+			return found >= 0 ? literals[found].run(ctx, s, index, attribute) : -1;
+		}
+
+	}
+
+	private static final class Keyword<A> extends Code<A> {
+
+		private final String key;
+		private final Rena<A> rena;
+
+		private Keyword(String key, Rena<A> rena) {
+			this.key = key;
+			this.rena = rena;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int end = rena.matchKeyword(key, s, index);
+
+			return end >= 0 ? ctx.result(end, attribute, key) : -1;
+		}
+
+	}
+
+	private static final class NotKeyword<A> extends Code<A> {
+
+		private final Rena<A> rena;
+
+		private NotKeyword(Rena<A> rena) {
+			this.rena = rena;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			return rena.searchKeyword(s, index) == null ? ctx.result(index, attribute, "") : -1;
+		}
+
+	}
+
+	private static final class Keys<A> extends Code<A> {
+
+		private final Node.Keys<A> keys;
+
+		private Keys(Node.Keys<A> keys) {
+			this.keys = keys;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int found = keys.find(s, index);
+
+			return found >= 0 ? ctx.result(index + keys.keywords[found].key.length(), attribute, null) : -1;
+		}
+
+	}
+
+	private static final class Seq<A> extends Code<A> {
+
+		private final Code<A> head;
+		private final Code<A>[] steps;
+		private final PatternAction<A>[] actions;
+		private final Skip skip;
+
+		private Seq(Code<A> head, Code<A>[] steps, PatternAction<A>[] actions, Skip skip) {
+			this.head = head;
+			this.steps = steps;
+			this.actions = actions;
+			this.skip = skip;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int end = head.run(ctx, s, index, attribute);
+			A attr;
+
+			if(end < 0) {
+				return -1;
+			}
+			attr = ctx.attribute;
+			for(int i = 0; i < steps.length; i++) {
+				if((end = steps[i].run(ctx, s, skip.skip(s, end), attr)) < 0) {
+					return -1;
+				} else if(actions[i] != null) {
+					attr = actions[i].action(s, index, end, ctx.attribute, attr);
+				}
+			}
+			return ctx.result(end, attr, null);
+		}
+
+	}
+
+	private static final class Choice<A> extends Code<A> {
+
+		private final Code<A>[] alternatives;
+		private final Dispatch dispatch;
+
+		private Choice(Code<A>[] alternatives, Dispatch dispatch) {
+			this.alternatives = alternatives;
+			this.dispatch = dispatch;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			for(int i : dispatch.candidates(s, index)) {
+				int end = alternatives[i].run(ctx, s, index, attribute);
+
+				if(end >= 0) {
+					return end;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+	private static final class Repeat<A> extends Code<A> {
+
+		private final Code<A> pattern;
+		private final int countmin;
+		private final int countmax;
+		private final PatternAction<A> action;
+		private final Skip skip;
+
+		private Repeat(Code<A> pattern, int countmin, int countmax, PatternAction<A> action, Skip skip) {
+			this.pattern = pattern;
+			this.countmin = countmin;
+			this.countmax = countmax;
+			this.action = action;
+			this.skip = skip;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int last = index;
+			A attr = attribute;
+
+			for(int i = 0; countmax < 0 || i < countmax; i++) {
+				int start = skip.skip(s, last), end;
+
+				last = start;
+				if((end = pattern.run(ctx, s, start, attr)) < 0) {
+					if(i < countmin) {
+						return -1;
+					}
+					break;
+				}
+				if(action != null) {
+					attr = ctx.act(action, s, start, end, attr);
+				}
+				last = end;
+			}
+			return ctx.result(last, attr, null);
+		}
+
+	}
+
+	private static final class Delimit<A> extends Code<A> {
+
+		private final Code<A> pattern;
+		private final Code<A> delimiter;
+		private final PatternAction<A> action;
+		private final Skip skip;
+
+		private Delimit(Code<A> pattern, Code<A> delimiter, PatternAction<A> action, Skip skip) {
+			this.pattern = pattern;
+			this.delimiter = delimiter;
+			this.action = action;
+			this.skip = skip;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int last, start, end;
+			A attr = attribute;
+
+			if((last = pattern.run(ctx, s, index, attr)) < 0) {
+				return -1;
+			} else if(action != null) {
+				attr = ctx.act(action, s, index, last, attr);
+			}
+			while((end = delimiter.run(ctx, s, last, attr)) >= 0 &&
+					(end = pattern.run(ctx, s, start = skip.skip(s, end), attr)) >= 0) {
+				last = skip.skip(s, end);
+				if(action != null) {
+					attr = ctx.act(action, s, start, end, attr);
+				}
+			}
+			return ctx.result(last, attr, null);
+		}
+
+	}
+
+	private static final class Cond<A> extends Code<A> {
+
+		private final Code<A> pattern;
+		private final Predicate<A> cond;
+
+		private Cond(Code<A> pattern, Predicate<A> cond) {
+			this.pattern = pattern;
+			this.cond = cond;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int end = pattern.run(ctx, s, index, attribute);
+
+			return end >= 0 && cond.test(ctx.attribute) ? end : -1;
+		}
+
+	}
+
+	private static final class End<A> extends Code<A> {
+
+		private final Code<A> pattern;
+
+		private End(Code<A> pattern) {
+			this.pattern = pattern;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int end = pattern.run(ctx, s, index, attribute);
+
+			return end >= 0 && CharSequences.isEnd(s, end) ? end : -1;
+		}
+
+	}
+
+	private static final class Lookahead<A> extends Code<A> {
+
+		private final Code<A> pattern;
+		private final Code<A> matcher;
+		private final boolean negative;
+
+		private Lookahead(Code<A> pattern, Code<A> matcher, boolean negative) {
+			this.pattern = pattern;
+			this.matcher = matcher;
+			this.negative = negative;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int end = pattern.run(ctx, s, index, attribute);
+			A attr;
+			String match;
+			boolean matched;
+
+			if(end < 0) {
+				return -1;
+			}
+			attr = ctx.attribute;
+			match = ctx.match;
+			matched = matcher.run(ctx, s, end, attr) >= 0;
+			return matched != negative ? ctx.result(end, attr, match) : -1;
+		}
+
+	}
+
+	private static final class Action<A> extends Code<A> {
+
+		private final Code<A> matcher;
+		private final PatternAction<A> action;
+
+		private Action(Code<A> matcher, PatternAction<A> action) {
+			this.matcher = matcher;
+			this.action = action;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int end = matcher.run(ctx, s, index, attribute);
+
+			if(end < 0) {
+				return -1;
+			}
+			return ctx.result(end, ctx.act(action, s, index, end, attribute), ctx.match);
+		}
+
+	}
+
+	private static final class Init<A> extends Code<A> {
+
+		private final A init;
+
+		private Init(A init) {
+			this.init = init;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			return ctx.result(index, init, "");
+		}
+
+	}
+
+	private static final class Ref<A> extends Code<A> {
+
+		private Code<A> target;
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			return target.run(ctx, s, index, attribute);
+		}
+
+	}
+
+	private static final class Opaque<A> extends Code<A> {
+
+		private final PatternMatcher<A> matcher;
+
+		private Opaque(PatternMatcher<A> matcher) {
+			this.matcher = matcher;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			PatternResult<A> result = matcher.match(s, index, attribute);
+
+			return result != null ? ctx.result(result.getLastIndex(), result.getAttribute(), result.matchUnless(s, index)) : -1;
+		}
+
+	}
+
+	private static final class OpaqueLength<A> extends Code<A> {
+
+		private final PatternMatcher<A> matcher;
+
+		private OpaqueLength(PatternMatcher<A> matcher) {
+			this.matcher = matcher;
+		}
+
+		@Override
+		int run(Context<A> ctx, CharSequence s, int index, A attribute) {
+			int end = matcher.matchLength(s, index);
+
+			return end >= 0 ? ctx.result(end, attribute, null) : -1;
+		}
+
+	}
+
+	/**
+	 * A matcher which runs compiled code.
+	 */
+	static final class Compiled<A> implements PatternMatcher<A> {
+
+		private final Code<A> code;
+		final PatternMatcher<A> source;
+		private volatile Recognizer<A> recognizer;
+
+		private Compiled(Code<A> code, PatternMatcher<A> source) {
+			this.code = code;
+			this.source = source;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			Context<A> ctx = new Context<A>();
+			int end = code.run(ctx, match, index, attribute);
+
+			if(end < 0) {
+				return null;
+			} else if(ctx.match != null) {
+				return new PatternResult<A>(ctx.match, end, ctx.attribute);
+			} else {
+				return PatternResult.of(match, index, end, ctx.attribute);
+			}
+		}
+
+		@Override
+		public int matchLength(CharSequence match, int index) {
+			if(recognizer == null) {
+				recognizer = Compiler.recognizer(source);
+			}
+			return recognizer.matchLength(match, index);
+		}
+
+	}
+
+	/**
+	 * A recognizer which runs compiled code without actions.<br>
+	 * Contexts are reused by threads, hence recognizing does not allocate
+	 * unless a condition or a user-defined matcher allocates.
+	 */
+	static final class Recognizer<A> {
+
+		private final Code<A> code;
+		private final ThreadLocal<Context<A>> contexts = ThreadLocal.withInitial(Context::new);
+
+		private Recognizer(Code<A> code) {
+			this.code = code;
+		}
+
+		/**
+		 * recognizes the given string.
+		 *
+		 * @param match a string
+		 * @param index an index
+		 * @return the end index, or -1 if it does not match
+		 */
+		int matchLength(CharSequence match, int index) {
+			return code.run(contexts.get(), match, index, null);
+		}
+
+	}
+
+	private final boolean recognize;
+
+	private Compiler(boolean recognize) {
+		this.recognize = recognize;
+	}
+
+	/**
+	 * compiles the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return a compiled matcher
+	 */
+	static<A> PatternMatcher<A> compile(PatternMatcher<A> matcher) {
+		if(matcher instanceof Compiled) {
+			return matcher;
+		}
+		return new Compiled<A>(new Compiler<A>(false).translate(matcher), matcher);
+	}
+
+	/**
+	 * compiles the given matcher to a recognizer.<br>
+	 * Actions are dropped except in patterns of conditions
+	 * because conditions are tested by attributes.
+	 *
+	 * @param matcher a matcher
+	 * @return a recognizer
+	 */
+	static<A> Recognizer<A> recognizer(PatternMatcher<A> matcher) {
+		return new Recognizer<A>(new Compiler<A>(true).translate(matcher));
+	}
+
+	/*
+	 * returns the action which is compiled
+	 */
+	@Override
+	PatternAction<A> convert(PatternAction<A> action) {
+		return recognize ? null : action;
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	Code<A>[] newArray(int size) {
+		return new Code[size];
+	}
+
+	@Override
+	Code<A> literal(String string, PatternAction<A> action) {
+		return new Literal<A>(string, action);
+	}
+
+	@Override
+	Code<A> regex(DfaRegex dfa, PatternAction<A> action) {
+		return new Regex<A>(dfa, action);
+	}
+
+	@Override
+	Code<A> keyword(Node.Keyword<A> node) {
+		return recognize ? new Keyword<A>(node.key, node.rena) : new Opaque<A>(node);
+	}
+
+	@Override
+	Code<A> notKeyword(Node.NotKeyword<A> node) {
+		return recognize ? new NotKeyword<A>(node.rena) : new Opaque<A>(node);
+	}
+
+	@Override
+	Code<A> keys(Node.Keys<A> node) {
+		return recognize ? new Keys<A>(node) : new Opaque<A>(node);
+	}
+
+	@Override
+	Code<A> literals(CharTrie trie, Code<A>[] literals) {
+		return new Literals<A>(trie, literals);
+	}
+
+	@Override
+	Code<A> seq(Code<A> head, Code<A>[] steps, PatternAction<A>[] actions, Skip skip) {
+		return new Seq<A>(head, steps, actions, skip);
+	}
+
+	@Override
+	Code<A> choice(Code<A>[] alternatives, Dispatch dispatch) {
+		return new Choice<A>(alternatives, dispatch);
+	}
+
+	@Override
+	Code<A> repeat(Code<A> pattern, int countmin, int countmax, PatternAction<A> action, Skip skip) {
+		return new Repeat<A>(pattern, countmin, countmax, action, skip);
+	}
+
+	@Override
+	Code<A> delimit(Code<A> pattern, Code<A> delimiter, PatternAction<A> action, Skip skip) {
+		return new Delimit<A>(pattern, delimiter, action, skip);
+	}
+
+	@Override
+	Code<A> cond(Node.Cond<A> node) {
+		// the pattern of a condition is compiled with actions
+		return new Cond<A>(recognize ? new Compiler<A>(false).translate(node.pattern) : translate(node.pattern), node.cond);
+	}
+
+	@Override
+	Code<A> end(Code<A> pattern) {
+		return new End<A>(pattern);
+	}
+
+	@Override
+	Code<A> lookahead(Code<A> pattern, Code<A> matcher, boolean negative) {
+		return new Lookahead<A>(pattern, matcher, negative);
+	}
+
+	@Override
+	Code<A> action(Code<A> matcher, PatternAction<A> action) {
+		return recognize ? matcher : new Action<A>(matcher, action);
+	}
+
+	@Override
+	Code<A> init(A init) {
+		return new Init<A>(init);
+	}
+
+	@Override
+	Code<A> compiled(Compiled<A> matcher) {
+		return recognize ? translate(matcher.source) : matcher.code;
+	}
+
+	@Override
+	Code<A> opaque(PatternMatcher<A> matcher) {
+		return recognize && !(matcher instanceof Node) ? new OpaqueLength<A>(matcher) : new Opaque<A>(matcher);
+	}
+
+	@Override
+	Code<A> ref() {
+		return new Ref<A>();
+	}
+
+	@Override
+	void bind(Code<A> ref, Code<A> target) {
+		((Ref<A>)ref).target = target;
+	}
+
+	/**
+	 * creates a skipper which skips spaces like the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return a skipper
+	 */
+	static Skip skip(OperationMatcher<?> matcher) {
+		OperationMatcher<?> skipper = Node.skipper(matcher);
+
+		return skipper instanceof Node ? new Skip(((Node<?>)skipper).ignore(), null) : new Skip(null, skipper);
+	}
+
+}
@@ -0,0 +1,732 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A matcher which defers actions until matching succeeds.<br>
+ * Matching records a log of integers (indices of spans, alternatives which are chosen
+ * and counts of repetitions) in preorder of the derivation,
+ * and the log of a branch which fails is truncated.
+ * After matching succeeds, the log is replayed and actions are executed bottom-up
+ * only along the accepted derivation.
+ * Inherited attributes are passed as matching does.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+final class Deferred<A> implements PatternMatcher<A> {
+
+	/**
+	 * A log of matching.
+	 */
+	static final class Log {
+
+		private int[] log = new int[64];
+		private int size;
+		private int cursor;
+
+		private void push(int value) {
+			if(size >= log.length) {
+				int[] newLog = new int[log.length * 2];
+
+				System.arraycopy(log, 0, newLog, 0, size);
+				log = newLog;
+			}
+			log[size++] = value;
+		}
+
+		private int read() {
+			return log[cursor++];
+		}
+
+	}
+
+	/**
+	 * A step of deferred matching.
+	 */
+	static abstract class Step<A> {
+
+		/**
+		 * matches and records the log.<br>
+		 * The log may have garbage if it does not match.
+		 *
+		 * @return the end index or -1 if it does not match
+		 */
+		abstract int run(Log log, CharSequence s, int index);
+
+		/**
+		 * reads the log and executes actions.
+		 *
+		 * @return the synthesized attribute
+		 */
+		abstract A replay(Log log, CharSequence s, A attribute);
+
+	}
+
+	private static final class Literal<A> extends Step<A> {
+
+		private final String string;
+		private final PatternAction<A> action;
+
+		private Literal(String string, PatternAction<A> action) {
+			this.string = string;
+			this.action = action;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			if(!CharSequences.startsWith(s, string, index)) {
+				return -1;
+			} else if(action != null) {
+				log.push(index);
+			}
+			return index + string.length();
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			int start;
+
+			if(action == null) {
+				return attribute;
+			}
+			start = log.read();
+			return action.action(s, start, start + string.length(), null, attribute);
+		}
+
+	}
+
+	private static final class Regex<A> extends Step<A> {
+
+		private final DfaRegex dfa;
+		private final PatternAction<A> action;
+
+		private Regex(DfaRegex dfa, PatternAction<A> action) {
+			this.dfa = dfa;
+			this.action = action;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int end = dfa.lookingAt(s, index);
+
+			if(end >= 0 && action != null) {
+				log.push(index);
+				log.push(end);
+			}
+			return end;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return action != null ? action.action(s, log.read(), log.read(), null, attribute) : attribute;
+		}
+
+	}
+
+	private static final class Keyword<A> extends Step<A> {
+
+		private final String key;
+		private final Rena<A> rena;
+
+		private Keyword(String key, Rena<A> rena) {
+			this.key = key;
+			this.rena = rena;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			return rena.matchKeyword(key, s, index);
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return attribute;
+		}
+
+	}
+
+	private static final class NotKeyword<A> extends Step<A> {
+
+		private final Rena<A> rena;
+
+		private NotKeyword(Rena<A> rena) {
+			this.rena = rena;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			return rena.searchKeyword(s, index) == null ? index : -1;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return attribute;
+		}
+
+	}
+
+	private static final class Keys<A> extends Step<A> {
+
+		private final Node.Keys<A> keys;
+
+		private Keys(Node.Keys<A> keys) {
+			this.keys = keys;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int found = keys.find(s, index);
+
+			if(found < 0) {
+				return -1;
+			}
+			log.push(index);
+			log.push(found);
+			return index + keys.keywords[found].key.length();
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			int start = log.read(), found = log.read();
+			PatternAction<A> action = keys.actions[found];
+
+			return action != null ?
+					action.action(s, start, start + keys.keywords[found].key.length(), null, attribute) :
+						attribute;
+		}
+
+	}
+
+	private static final class Literals<A> extends Step<A> {
+
+		private final CharTrie trie;
+		private final Step<A>[] literals;
+
+		private Literals(CharTrie trie, Step<A>[] literals) {
+			this.trie = trie;
+			this.literals = literals;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int found = trie.first(s, index);
+
+			if(found < 0) {
+				return -1;
+			}
+			log.push(found);
+			return literals[found].run(log, s, index);
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return literals[log.read()].replay(log, s, attribute);
+		}
+
+	}
+
+	private static final class Seq<A> extends Step<A> {
+
+		private final Step<A> head;
+		private final Step<A>[] steps;
+		private final PatternAction<A>[] actions;
+		private final Compiler.Skip skip;
+
+		private Seq(Step<A> head, Step<A>[] steps, PatternAction<A>[] actions, Compiler.Skip skip) {
+			this.head = head;
+			this.steps = steps;
+			this.actions = actions;
+			this.skip = skip;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int end;
+
+			log.push(index);
+			if((end = head.run(log, s, index)) < 0) {
+				return -1;
+			}
+			for(int i = 0; i < steps.length; i++) {
+				if((end = steps[i].run(log, s, skip.skip(s, end))) < 0) {
+					return -1;
+				} else if(actions[i] != null) {
+					log.push(end);
+				}
+			}
+			return end;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			int start = log.read();
+			A attr = head.replay(log, s, attribute);
+
+			for(int i = 0; i < steps.length; i++) {
+				A syn = steps[i].replay(log, s, attr);
+
+				if(actions[i] != null) {
+					attr = actions[i].action(s, start, log.read(), syn, attr);
+				}
+			}
+			return attr;
+		}
+
+	}
+
+	private static final class Choice<A> extends Step<A> {
+
+		private final Step<A>[] alternatives;
+		private final Dispatch dispatch;
+
+		private Choice(Step<A>[] alternatives, Dispatch dispatch) {
+			this.alternatives = alternatives;
+			this.dispatch = dispatch;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int mark = log.size;
+
+			for(int i : dispatch.candidates(s, index)) {
+				int end;
+
+				log.push(i);
+				if((end = alternatives[i].run(log, s, index)) >= 0) {
+					return end;
+				}
+				log.size = mark;
+			}
+			return -1;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return alternatives[log.read()].replay(log, s, attribute);
+		}
+
+	}
+
+	private static final class Repeat<A> extends Step<A> {
+
+		private final Step<A> pattern;
+		private final int countmin;
+		private final int countmax;
+		private final PatternAction<A> action;
+		private final Compiler.Skip skip;
+
+		private Repeat(Step<A> pattern, int countmin, int countmax, PatternAction<A> action, Compiler.Skip skip) {
+			this.pattern = pattern;
+			this.countmin = countmin;
+			this.countmax = countmax;
+			this.action = action;
+			this.skip = skip;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int count = log.size, last = index, i;
+
+			log.push(0);
+			for(i = 0; countmax < 0 || i < countmax; i++) {
+				int start = skip.skip(s, last), mark = log.size, end;
+
+				last = start;
+				log.push(start);
+				if((end = pattern.run(log, s, start)) < 0) {
+					log.size = mark;
+					if(i < countmin) {
+						return -1;
+					}
+					break;
+				}
+				log.push(end);
+				last = end;
+			}
+			log.log[count] = i;
+			return last;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			int count = log.read();
+			A attr = attribute;
+
+			for(int i = 0; i < count; i++) {
+				int start = log.read();
+				A syn = pattern.replay(log, s, attr);
+				int end = log.read();
+
+				if(action != null) {
+					attr = action.action(s, start, end, syn, attr);
+				}
+			}
+			return attr;
+		}
+
+	}
+
+	private static final class Delimit<A> extends Step<A> {
+
+		private final Step<A> pattern;
+		private final Step<A> delimiter;
+		private final PatternAction<A> action;
+		private final Compiler.Skip skip;
+
+		private Delimit(Step<A> pattern, Step<A> delimiter, PatternAction<A> action, Compiler.Skip skip) {
+			this.pattern = pattern;
+			this.delimiter = delimiter;
+			this.action = action;
+			this.skip = skip;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int count = log.size, last, start, end, mark, i;
+
+			log.push(0);
+			log.push(index);
+			if((last = pattern.run(log, s, index)) < 0) {
+				return -1;
+			}
+			log.push(last);
+			for(i = 1;; i++) {
+				mark = log.size;
+				if((end = delimiter.run(log, s, last)) < 0) {
+					log.size = mark;
+					break;
+				}
+				log.push(start = skip.skip(s, end));
+				if((end = pattern.run(log, s, start)) < 0) {
+					log.size = mark;
+					break;
+				}
+				log.push(end);
+				last = skip.skip(s, end);
+			}
+			log.log[count] = i;
+			return last;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			int count = log.read();
+			A attr = attribute;
+
+			for(int i = 0; i < count; i++) {
+				int start, end;
+				A syn;
+
+				if(i > 0) {
+					// the attribute of a delimiter is discarded
+					delimiter.replay(log, s, attr);
+				}
+				start = log.read();
+				syn = pattern.replay(log, s, attr);
+				end = log.read();
+				if(action != null) {
+					attr = action.action(s, start, end, syn, attr);
+				}
+			}
+			return attr;
+		}
+
+	}
+
+	private static final class End<A> extends Step<A> {
+
+		private final Step<A> pattern;
+
+		private End(Step<A> pattern) {
+			this.pattern = pattern;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int end = pattern.run(log, s, index);
+
+			return end >= 0 && CharSequences.isEnd(s, end) ? end : -1;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return pattern.replay(log, s, attribute);
+		}
+
+	}
+
+	private static final class Lookahead<A> extends Step<A> {
+
+		private final Step<A> pattern;
+		private final Step<A> matcher;
+		private final boolean negative;
+
+		private Lookahead(Step<A> pattern, Step<A> matcher, boolean negative) {
+			this.pattern = pattern;
+			this.matcher = matcher;
+			this.negative = negative;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int end = pattern.run(log, s, index), mark = log.size;
+			boolean matched;
+
+			if(end < 0) {
+				return -1;
+			}
+			// the attribute of lookahead is discarded
+			matched = matcher.run(log, s, end) >= 0;
+			log.size = mark;
+			return matched != negative ? end : -1;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return pattern.replay(log, s, attribute);
+		}
+
+	}
+
+	private static final class Action<A> extends Step<A> {
+
+		private final Step<A> matcher;
+		private final PatternAction<A> action;
+
+		private Action(Step<A> matcher, PatternAction<A> action) {
+			this.matcher = matcher;
+			this.action = action;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int end;
+
+			log.push(index);
+			if((end = matcher.run(log, s, index)) >= 0) {
+				log.push(end);
+			}
+			return end;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			int start = log.read();
+			A syn = matcher.replay(log, s, attribute);
+
+			return action.action(s, start, log.read(), syn, attribute);
+		}
+
+	}
+
+	private static final class Init<A> extends Step<A> {
+
+		private final A init;
+
+		private Init(A init) {
+			this.init = init;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			return index;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return init;
+		}
+
+	}
+
+	private static final class Ref<A> extends Step<A> {
+
+		private Step<A> target;
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			return target.run(log, s, index);
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return target.replay(log, s, attribute);
+		}
+
+	}
+
+	/*
+	 * a matcher which is recognized while matching and is matched again while replaying
+	 */
+	private static final class Opaque<A> extends Step<A> {
+
+		private final PatternMatcher<A> matcher;
+
+		private Opaque(PatternMatcher<A> matcher) {
+			this.matcher = matcher;
+		}
+
+		@Override
+		int run(Log log, CharSequence s, int index) {
+			int end = matcher.matchLength(s, index);
+
+			if(end >= 0) {
+				log.push(index);
+			}
+			return end;
+		}
+
+		@Override
+		A replay(Log log, CharSequence s, A attribute) {
+			return matcher.match(s, log.read(), attribute).getAttribute();
+		}
+
+	}
+
+	/*
+	 * a translator from nodes to steps
+	 */
+	private static final class Builder<A> extends Translator<A, Step<A>> {
+
+		@Override
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Step<A>[] newArray(int size) {
+			return new Step[size];
+		}
+
+		@Override
+		Step<A> literal(String string, PatternAction<A> action) {
+			return new Literal<A>(string, action);
+		}
+
+		@Override
+		Step<A> regex(DfaRegex dfa, PatternAction<A> action) {
+			return new Regex<A>(dfa, action);
+		}
+
+		@Override
+		Step<A> keyword(Node.Keyword<A> node) {
+			return new Keyword<A>(node.key, node.rena);
+		}
+
+		@Override
+		Step<A> notKeyword(Node.NotKeyword<A> node) {
+			return new NotKeyword<A>(node.rena);
+		}
+
+		@Override
+		Step<A> keys(Node.Keys<A> node) {
+			return new Keys<A>(node);
+		}
+
+		@Override
+		Step<A> literals(CharTrie trie, Step<A>[] literals) {
+			return new Literals<A>(trie, literals);
+		}
+
+		@Override
+		Step<A> seq(Step<A> head, Step<A>[] steps, PatternAction<A>[] actions, Compiler.Skip skip) {
+			return new Seq<A>(head, steps, actions, skip);
+		}
+
+		@Override
+		Step<A> choice(Step<A>[] alternatives, Dispatch dispatch) {
+			return new Choice<A>(alternatives, dispatch);
+		}
+
+		@Override
+		Step<A> repeat(Step<A> pattern, int countmin, int countmax, PatternAction<A> action, Compiler.Skip skip) {
+			return new Repeat<A>(pattern, countmin, countmax, action, skip);
+		}
+
+		@Override
+		Step<A> delimit(Step<A> pattern, Step<A> delimiter, PatternAction<A> action, Compiler.Skip skip) {
+			return new Delimit<A>(pattern, delimiter, action, skip);
+		}
+
+		@Override
+		Step<A> cond(Node.Cond<A> node) {
+			throw new IllegalArgumentException("conditions cannot be deferred");
+		}
+
+		@Override
+		Step<A> end(Step<A> pattern) {
+			return new End<A>(pattern);
+		}
+
+		@Override
+		Step<A> lookahead(Step<A> pattern, Step<A> matcher, boolean negative) {
+			return new Lookahead<A>(pattern, matcher, negative);
+		}
+
+		@Override
+		Step<A> action(Step<A> matcher, PatternAction<A> action) {
+			return new Action<A>(matcher, action);
+		}
+
+		@Override
+		Step<A> init(A init) {
+			return new Init<A>(init);
+		}
+
+		@Override
+		Step<A> compiled(Compiler.Compiled<A> matcher) {
+			return translate(matcher.source);
+		}
+
+		@Override
+		Step<A> opaque(PatternMatcher<A> matcher) {
+			return new Opaque<A>(matcher);
+		}
+
+		@Override
+		Step<A> ref() {
+			return new Ref<A>();
+		}
+
+		@Override
+		void bind(Step<A> ref, Step<A> target) {
+			((Ref<A>)ref).target = target;
+		}
+
+	}
+
+	private final Step<A> step;
+	final PatternMatcher<A> source;
+
+	private Deferred(PatternMatcher<A> source) {
+		this.source = source;
+		this.step = new Builder<A>().translate(source);
+	}
+
+	/**
+	 * creates a matcher which defers actions of the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return a deferred matcher
+	 */
+	static<A> PatternMatcher<A> of(PatternMatcher<A> matcher) {
+		return matcher instanceof Deferred ? matcher : new Deferred<A>(matcher);
+	}
+
+	@Override
+	public PatternResult<A> match(CharSequence match, int index, A attribute) {
+		Log log = new Log();
+		int end = step.run(log, match, index);
+
+		return end >= 0 ? PatternResult.of(match, index, end, step.replay(log, match, attribute)) : null;
+	}
+
+	@Override
+	public int matchLength(CharSequence match, int index) {
+		return source.matchLength(match, index);
+	}
+
+}
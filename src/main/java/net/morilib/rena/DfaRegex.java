@@ -0,0 +1,887 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * A regular expression which is matched by a minimized DFA in linear time.<br>
+ * The DFA returns the same end index as lookingAt of java.util.regex
+ * because states keep threads in order of priority (leftmost-first semantics).
+ * Characters, escapes of classes, character classes, '.', groups, alternations
+ * and greedy or reluctant quantifiers are supported.
+ * Other constructs (e.g. back references, lookaround, anchors except '^' at the beginning,
+ * possessive quantifiers, quantifiers of patterns which may match an empty string, flags)
+ * are matched by java.util.regex
+ * and the reason of the fallback is reported.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public final class DfaRegex {
+
+	private static final int MAX_INSTRUCTIONS = 10000;
+	private static final int MAX_STATES = 4096;
+	private static final int FALLBACK = -2;
+
+	private static final int SET = 0;
+	private static final int SPLIT = 1;
+	private static final int JMP = 2;
+	private static final int MATCH = 3;
+
+	private static class Unsupported extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		private Unsupported(String message) {
+			super(message);
+		}
+
+	}
+
+	/*
+	 * a node of the syntax tree
+	 */
+	private static class Tree {
+
+		private final int type;
+		private final int[] set;
+		private final List<Tree> children;
+		private final int min;
+		private final int max;
+		private final boolean greedy;
+
+		private static final int CHARS = 0;
+		private static final int CONCAT = 1;
+		private static final int ALTERNATE = 2;
+		private static final int REPEAT = 3;
+
+		private Tree(int type, int[] set, List<Tree> children, int min, int max, boolean greedy) {
+			this.type = type;
+			this.set = set;
+			this.children = children;
+			this.min = min;
+			this.max = max;
+			this.greedy = greedy;
+		}
+
+	}
+
+	/*
+	 * a parser of the supported subset of regular expressions
+	 */
+	private static class Parser {
+
+		private final String regex;
+		private int ptr;
+
+		private Parser(String regex) {
+			this.regex = regex;
+		}
+
+		private Tree parse() throws Unsupported {
+			Tree result;
+
+			if(regex.startsWith("^")) {
+				// lookingAt always matches at the beginning of the region
+				ptr = 1;
+			}
+			result = alternate();
+			if(ptr < regex.length()) {
+				throw new Unsupported("unexpected character '" + regex.charAt(ptr) + "'");
+			}
+			return result;
+		}
+
+		private Tree alternate() throws Unsupported {
+			List<Tree> children = new ArrayList<Tree>();
+
+			children.add(concat());
+			while(ptr < regex.length() && regex.charAt(ptr) == '|') {
+				ptr++;
+				children.add(concat());
+			}
+			return children.size() == 1 ? children.get(0) : new Tree(Tree.ALTERNATE, null, children, 0, 0, true);
+		}
+
+		private Tree concat() throws Unsupported {
+			List<Tree> children = new ArrayList<Tree>();
+
+			while(ptr < regex.length() && regex.charAt(ptr) != '|' && regex.charAt(ptr) != ')') {
+				children.add(quantifier(atom()));
+			}
+			return new Tree(Tree.CONCAT, null, children, 0, 0, true);
+		}
+
+		private Tree quantifier(Tree atom) throws Unsupported {
+			int min, max;
+
+			if(ptr >= regex.length()) {
+				return atom;
+			}
+			switch(regex.charAt(ptr)) {
+			case '*':  min = 0;  max = -1;  ptr++;  break;
+			case '+':  min = 1;  max = -1;  ptr++;  break;
+			case '?':  min = 0;  max = 1;  ptr++;  break;
+			case '{':
+				ptr++;
+				min = number();
+				if(ptr < regex.length() && regex.charAt(ptr) == ',') {
+					ptr++;
+					max = ptr < regex.length() && regex.charAt(ptr) == '}' ? -1 : number();
+				} else {
+					max = min;
+				}
+				if(ptr >= regex.length() || regex.charAt(ptr) != '}' || (max >= 0 && max < min)) {
+					throw new Unsupported("invalid repetition");
+				}
+				ptr++;
+				break;
+			default:
+				return atom;
+			}
+
+			if(ptr < regex.length() && regex.charAt(ptr) == '+') {
+				throw new Unsupported("possessive quantifier");
+			} else if(ptr < regex.length() && regex.charAt(ptr) == '?') {
+				ptr++;
+				return repeat(atom, min, max, false);
+			}
+			return repeat(atom, min, max, true);
+		}
+
+		private Tree repeat(Tree atom, int min, int max, boolean greedy) throws Unsupported {
+			if(ptr < regex.length() && "*+?{".indexOf(regex.charAt(ptr)) >= 0) {
+				throw new Unsupported("nested quantifier");
+			} else if(nullable(atom)) {
+				// java.util.regex stops a loop by an iteration which matches an empty string
+				throw new Unsupported("repetition of empty pattern");
+			}
+			return new Tree(Tree.REPEAT, null, Arrays.asList(atom), min, max, greedy);
+		}
+
+		private static boolean nullable(Tree tree) {
+			switch(tree.type) {
+			case Tree.CHARS:
+				return false;
+			case Tree.CONCAT:
+				for(Tree child : tree.children) {
+					if(!nullable(child)) {
+						return false;
+					}
+				}
+				return true;
+			case Tree.ALTERNATE:
+				for(Tree child : tree.children) {
+					if(nullable(child)) {
+						return true;
+					}
+				}
+				return false;
+			default:
+				return tree.min == 0 || nullable(tree.children.get(0));
+			}
+		}
+
+		private int number() throws Unsupported {
+			int start = ptr;
+
+			while(ptr < regex.length() && regex.charAt(ptr) >= '0' && regex.charAt(ptr) <= '9') {
+				ptr++;
+			}
+			if(ptr == start || ptr - start > 5) {
+				throw new Unsupported("invalid repetition");
+			}
+			return Integer.parseInt(regex.substring(start, ptr));
+		}
+
+		private Tree atom() throws Unsupported {
+			char ch = regex.charAt(ptr++);
+			Tree result;
+
+			switch(ch) {
+			case '(':
+				if(regex.startsWith("?:", ptr)) {
+					ptr += 2;
+				} else if(ptr < regex.length() && regex.charAt(ptr) == '?') {
+					throw new Unsupported("special group");
+				}
+				result = alternate();
+				if(ptr >= regex.length() || regex.charAt(ptr) != ')') {
+					throw new Unsupported("unclosed group");
+				}
+				ptr++;
+				return result;
+			case '[':
+				return chars(charClass());
+			case '.':
+				return chars(Sets.DOT);
+			case '\\':
+				return chars(escape(false));
+			case '^':  case '$':
+				throw new Unsupported("anchor");
+			case '*':  case '+':  case '?':  case '{':
+				throw new Unsupported("dangling quantifier");
+			default:
+				if(Character.isSurrogate(ch)) {
+					throw new Unsupported("supplementary character");
+				}
+				return chars(Sets.of(ch, ch));
+			}
+		}
+
+		private static Tree chars(int[] set) {
+			return new Tree(Tree.CHARS, set, null, 0, 0, true);
+		}
+
+		private int[] charClass() throws Unsupported {
+			boolean negate = false;
+			int[] result = Sets.EMPTY;
+
+			if(ptr < regex.length() && regex.charAt(ptr) == '^') {
+				negate = true;
+				ptr++;
+			}
+			if(ptr < regex.length() && regex.charAt(ptr) == ']') {
+				throw new Unsupported("empty character class");
+			}
+			while(true) {
+				char ch;
+				int[] item;
+
+				if(ptr >= regex.length()) {
+					throw new Unsupported("unclosed character class");
+				} else if((ch = regex.charAt(ptr++)) == ']') {
+					break;
+				} else if(ch == '[' || (ch == '&' && regex.startsWith("&", ptr))) {
+					throw new Unsupported("nested character class");
+				} else if(Character.isSurrogate(ch)) {
+					throw new Unsupported("supplementary character");
+				} else if(ch == '\\') {
+					item = escape(true);
+				} else {
+					item = Sets.of(ch, ch);
+				}
+
+				if(ptr + 1 < regex.length() && regex.charAt(ptr) == '-' && regex.charAt(ptr + 1) != ']') {
+					char to;
+
+					if(item.length != 2 || item[0] != item[1]) {
+						throw new Unsupported("invalid range");
+					}
+					ptr++;
+					if((to = regex.charAt(ptr++)) == '\\') {
+						int[] end = escape(true);
+
+						if(end.length != 2 || end[0] != end[1]) {
+							throw new Unsupported("invalid range");
+						}
+						to = (char)end[0];
+					} else if(to == '[' || Character.isSurrogate(to)) {
+						throw new Unsupported("invalid range");
+					}
+					if(to < item[0]) {
+						throw new Unsupported("invalid range");
+					}
+					item = Sets.of(item[0], to);
+				}
+				result = Sets.union(result, item);
+			}
+			return negate ? Sets.negate(result) : result;
+		}
+
+		private int[] escape(boolean inClass) throws Unsupported {
+			char ch;
+
+			if(ptr >= regex.length()) {
+				throw new Unsupported("trailing backslash");
+			}
+			switch(ch = regex.charAt(ptr++)) {
+			case 'd':  return Sets.DIGIT;
+			case 'D':  return Sets.negate(Sets.DIGIT);
+			case 'w':  return Sets.WORD;
+			case 'W':  return Sets.negate(Sets.WORD);
+			case 's':  return Sets.SPACE;
+			case 'S':  return Sets.negate(Sets.SPACE);
+			case 't':  return Sets.of('\t', '\t');
+			case 'n':  return Sets.of('\n', '\n');
+			case 'r':  return Sets.of('\r', '\r');
+			case 'f':  return Sets.of('\f', '\f');
+			case 'e':  return Sets.of(0x1b, 0x1b);
+			case 'a':  return Sets.of(0x07, 0x07);
+			case 'x':  return hex(2);
+			case 'u':  return hex(4);
+			default:
+				if(Character.isLetterOrDigit(ch) || ch >= 128) {
+					throw new Unsupported("escape \\" + ch);
+				}
+				return Sets.of(ch, ch);
+			}
+		}
+
+		private int[] hex(int digits) throws Unsupported {
+			int value;
+
+			if(ptr + digits > regex.length()) {
+				throw new Unsupported("invalid hexadecimal escape");
+			}
+			try {
+				value = Integer.parseInt(regex.substring(ptr, ptr + digits), 16);
+			} catch(NumberFormatException e) {
+				throw new Unsupported("invalid hexadecimal escape");
+			}
+			if(Character.isSurrogate((char)value)) {
+				throw new Unsupported("supplementary character");
+			}
+			ptr += digits;
+			return Sets.of(value, value);
+		}
+
+	}
+
+	/*
+	 * sets of characters which are sorted arrays of inclusive ranges
+	 */
+	private static class Sets {
+
+		private static final int[] EMPTY = new int[0];
+		private static final int[] DIGIT = { '0', '9' };
+		private static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+		private static final int[] SPACE = { '\t', '\r', ' ', ' ' };
+		private static final int[] DOT = negate(new int[] {
+				'\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029 });
+
+		private static int[] of(int from, int to) {
+			return new int[] { from, to };
+		}
+
+		private static int[] union(int[] a, int[] b) {
+			List<int[]> ranges = new ArrayList<int[]>();
+			int[] result;
+			int size = 0;
+
+			for(int i = 0; i < a.length; i += 2) {
+				ranges.add(new int[] { a[i], a[i + 1] });
+			}
+			for(int i = 0; i < b.length; i += 2) {
+				ranges.add(new int[] { b[i], b[i + 1] });
+			}
+			ranges.sort((x, y) -> x[0] - y[0]);
+			result = new int[ranges.size() * 2];
+			for(int[] range : ranges) {
+				if(size > 0 && range[0] <= result[size - 1] + 1) {
+					result[size - 1] = Math.max(result[size - 1], range[1]);
+				} else {
+					result[size++] = range[0];
+					result[size++] = range[1];
+				}
+			}
+			return Arrays.copyOf(result, size);
+		}
+
+		private static int[] negate(int[] a) {
+			int[] result = new int[a.length + 2];
+			int next = 0, size = 0;
+
+			for(int i = 0; i < a.length; i += 2) {
+				if(a[i] > next) {
+					result[size++] = next;
+					result[size++] = a[i] - 1;
+				}
+				next = a[i + 1] + 1;
+			}
+			if(next <= Character.MAX_VALUE) {
+				result[size++] = next;
+				result[size++] = Character.MAX_VALUE;
+			}
+			return Arrays.copyOf(result, size);
+		}
+
+		private static boolean contains(int[] a, int ch) {
+			for(int i = 0; i < a.length; i += 2) {
+				if(a[i] <= ch && ch <= a[i + 1]) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static boolean intersects(int[] a, int from, int to) {
+			for(int i = 0; i < a.length; i += 2) {
+				if(a[i] <= to && from <= a[i + 1]) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+	/*
+	 * a program of a NFA whose threads are ordered by priority
+	 */
+	private static class Program {
+
+		private final List<int[]> code = new ArrayList<int[]>();
+		private final List<int[]> sets = new ArrayList<int[]>();
+
+		private int emit(int op, int arg1, int arg2) throws Unsupported {
+			if(code.size() >= MAX_INSTRUCTIONS) {
+				throw new Unsupported("too many instructions");
+			}
+			code.add(new int[] { op, arg1, arg2 });
+			return code.size() - 1;
+		}
+
+		private void emit(Tree tree) throws Unsupported {
+			switch(tree.type) {
+			case Tree.CHARS:
+				sets.add(tree.set);
+				emit(SET, sets.size() - 1, 0);
+				break;
+			case Tree.CONCAT:
+				for(Tree child : tree.children) {
+					emit(child);
+				}
+				break;
+			case Tree.ALTERNATE:
+				emitAlternate(tree.children, 0);
+				break;
+			case Tree.REPEAT:
+				for(int i = 0; i < tree.min; i++) {
+					emit(tree.children.get(0));
+				}
+				if(tree.max < 0) {
+					int split = emit(SPLIT, 0, 0), end;
+
+					emit(tree.children.get(0));
+					emit(JMP, split, 0);
+					end = code.size();
+					code.get(split)[1] = tree.greedy ? split + 1 : end;
+					code.get(split)[2] = tree.greedy ? end : split + 1;
+				} else {
+					List<Integer> splits = new ArrayList<Integer>();
+
+					for(int i = tree.min; i < tree.max; i++) {
+						splits.add(emit(SPLIT, 0, 0));
+						emit(tree.children.get(0));
+					}
+					for(int split : splits) {
+						code.get(split)[1] = tree.greedy ? split + 1 : code.size();
+						code.get(split)[2] = tree.greedy ? code.size() : split + 1;
+					}
+				}
+				break;
+			default:
+				throw new RuntimeException();
+			}
+		}
+
+		private void emitAlternate(List<Tree> children, int index) throws Unsupported {
+			if(index == children.size() - 1) {
+				emit(children.get(index));
+			} else {
+				int split = emit(SPLIT, 0, 0), jump;
+
+				emit(children.get(index));
+				jump = emit(JMP, 0, 0);
+				code.get(split)[1] = split + 1;
+				code.get(split)[2] = code.size();
+				emitAlternate(children, index + 1);
+				code.get(jump)[1] = code.size();
+			}
+		}
+
+		/*
+		 * adds threads reachable from the given pc in order of priority.
+		 * threads after MATCH are cut because they have lower priority than the match.
+		 */
+		private boolean closure(int pc, boolean[] visited, List<Integer> threads) {
+			List<Integer> stack = new ArrayList<Integer>();
+
+			stack.add(pc);
+			while(!stack.isEmpty()) {
+				int p = stack.remove(stack.size() - 1);
+				int[] inst;
+
+				if(visited[p]) {
+					continue;
+				}
+				visited[p] = true;
+				inst = code.get(p);
+				if(inst[0] == MATCH) {
+					threads.add(p);
+					return true;
+				} else if(inst[0] == SET) {
+					threads.add(p);
+				} else if(inst[0] == JMP) {
+					stack.add(inst[1]);
+				} else if(inst[0] == SPLIT) {
+					stack.add(inst[2]);
+					stack.add(inst[1]);
+				}
+			}
+			return false;
+		}
+
+	}
+
+	private final Pattern pattern;
+	private final String fallback;
+	private final int[] boundaries;
+	private final int[] asciiClasses;
+	private final int classes;
+	private final int[] table;
+	private final boolean[] accept;
+	private final boolean surrogates;
+
+	private DfaRegex(Pattern pattern, String fallback) {
+		this.pattern = pattern;
+		this.fallback = fallback;
+		this.boundaries = null;
+		this.asciiClasses = null;
+		this.classes = 0;
+		this.table = null;
+		this.accept = null;
+		this.surrogates = false;
+	}
+
+	private DfaRegex(Pattern pattern, int[] boundaries, int[] table, boolean[] accept, boolean surrogates) {
+		this.pattern = pattern;
+		this.fallback = null;
+		this.boundaries = boundaries;
+		this.asciiClasses = new int[128];
+		this.classes = boundaries.length;
+		this.table = table;
+		this.accept = accept;
+		this.surrogates = surrogates;
+		for(int ch = 0; ch < 128; ch++) {
+			asciiClasses[ch] = classOf(boundaries, ch);
+		}
+	}
+
+	/**
+	 * compiles the given regular expression.
+	 *
+	 * @param regex a regular expression
+	 * @return a compiled expression
+	 */
+	public static DfaRegex compile(String regex) {
+		return compile(Pattern.compile(regex));
+	}
+
+	/**
+	 * compiles the given pattern.<br>
+	 * If the pattern is not supported, the pattern will be matched by java.util.regex.
+	 *
+	 * @param pattern a pattern
+	 * @return a compiled expression
+	 */
+	public static DfaRegex compile(Pattern pattern) {
+		try {
+			if(pattern.flags() != 0) {
+				throw new Unsupported("flags");
+			}
+			return build(pattern, new Parser(pattern.pattern()).parse());
+		} catch(Unsupported e) {
+			return new DfaRegex(pattern, e.getMessage());
+		}
+	}
+
+	/**
+	 * lists regular expressions of the given matcher which are matched by java.util.regex.
+	 *
+	 * @param matcher a matcher
+	 * @return a list of "pattern: reason"
+	 */
+	public static List<String> fallbacks(PatternMatcher<?> matcher) {
+		List<String> result = new ArrayList<String>();
+
+		for(Grammar.Element element : Grammar.of(matcher).getElements()) {
+			if(element.getMatcher() instanceof Node.Regex) {
+				DfaRegex dfa = ((Node.Regex<?>)element.getMatcher()).dfa;
+
+				if(!dfa.isDfa()) {
+					result.add(dfa.pattern.pattern() + ": " + dfa.fallback);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static DfaRegex build(Pattern pattern, Tree tree) throws Unsupported {
+		Program program = new Program();
+		TreeSet<Integer> points = new TreeSet<Integer>();
+		int[] boundaries;
+		boolean[][] member;
+		Map<List<Integer>, Integer> ids = new HashMap<List<Integer>, Integer>();
+		List<List<Integer>> states = new ArrayList<List<Integer>>();
+		List<int[]> transitions = new ArrayList<int[]>();
+		List<Integer> start = new ArrayList<Integer>();
+		boolean surrogates = false;
+		int size = 0;
+
+		program.emit(tree);
+		program.emit(MATCH, 0, 0);
+
+		// classes of characters which are not distinguished by any set
+		points.add(0);
+		for(int[] set : program.sets) {
+			for(int i = 0; i < set.length; i += 2) {
+				points.add(set[i]);
+				if(set[i + 1] < Character.MAX_VALUE) {
+					points.add(set[i + 1] + 1);
+				}
+			}
+			surrogates |= Sets.intersects(set, Character.MIN_SURROGATE, Character.MAX_SURROGATE);
+		}
+		boundaries = new int[points.size()];
+		for(int point : points) {
+			boundaries[size++] = point;
+		}
+		member = new boolean[program.sets.size()][boundaries.length];
+		for(int s = 0; s < member.length; s++) {
+			for(int c = 0; c < boundaries.length; c++) {
+				member[s][c] = Sets.contains(program.sets.get(s), boundaries[c]);
+			}
+		}
+
+		// subset construction which keeps the order of threads
+		program.closure(0, new boolean[program.code.size()], start);
+		ids.put(start, 0);
+		states.add(start);
+		for(int i = 0; i < states.size(); i++) {
+			int[] next = new int[boundaries.length];
+
+			for(int c = 0; c < boundaries.length; c++) {
+				List<Integer> threads = new ArrayList<Integer>();
+				boolean[] visited = new boolean[program.code.size()];
+				Integer id;
+
+				for(int pc : states.get(i)) {
+					int[] inst = program.code.get(pc);
+
+					if(inst[0] == MATCH) {
+						break;
+					} else if(member[inst[1]][c] && program.closure(pc + 1, visited, threads)) {
+						break;
+					}
+				}
+				if(threads.isEmpty()) {
+					next[c] = -1;
+				} else if((id = ids.get(threads)) != null) {
+					next[c] = id;
+				} else {
+					if(states.size() >= MAX_STATES) {
+						throw new Unsupported("too many states");
+					}
+					ids.put(threads, states.size());
+					next[c] = states.size();
+					states.add(threads);
+				}
+			}
+			transitions.add(next);
+		}
+		return minimize(pattern, program, boundaries, states, transitions, surrogates);
+	}
+
+	private static DfaRegex minimize(Pattern pattern, Program program, int[] boundaries,
+			List<List<Integer>> states, List<int[]> transitions, boolean surrogates) {
+		int size = states.size(), classes = boundaries.length;
+		boolean[] accepting = new boolean[size];
+		boolean[] live = new boolean[size];
+		int[] block = new int[size];
+		boolean[] initial = new boolean[2];
+		int blocks;
+		int[] table;
+		boolean[] accept;
+
+		for(int i = 0; i < size; i++) {
+			List<Integer> threads = states.get(i);
+			int last = threads.get(threads.size() - 1);
+
+			accepting[i] = program.code.get(last)[0] == MATCH;
+			live[i] = accepting[i];
+		}
+
+		// states which cannot reach an accepting state are dead
+		for(boolean changed = true; changed;) {
+			changed = false;
+			for(int i = 0; i < size; i++) {
+				for(int c = 0; !live[i] && c < classes; c++) {
+					int next = transitions.get(i)[c];
+
+					if(next >= 0 && live[next]) {
+						live[i] = changed = true;
+					}
+				}
+			}
+		}
+
+		// partition refinement of live states
+		for(int i = 0; i < size; i++) {
+			block[i] = !live[i] ? -1 : accepting[i] ? 1 : 0;
+			if(live[i]) {
+				initial[block[i]] = true;
+			}
+		}
+		blocks = (initial[0] ? 1 : 0) + (initial[1] ? 1 : 0);
+		while(true) {
+			Map<List<Integer>, Integer> signatures = new HashMap<List<Integer>, Integer>();
+			int[] refined = new int[size];
+
+			for(int i = 0; i < size; i++) {
+				List<Integer> signature = new ArrayList<Integer>();
+
+				if(block[i] < 0) {
+					refined[i] = -1;
+					continue;
+				}
+				signature.add(block[i]);
+				for(int c = 0; c < classes; c++) {
+					int next = transitions.get(i)[c];
+
+					signature.add(next >= 0 ? block[next] : -1);
+				}
+				if(!signatures.containsKey(signature)) {
+					signatures.put(signature, signatures.size());
+				}
+				refined[i] = signatures.get(signature);
+			}
+			block = refined;
+			if(signatures.size() == blocks) {
+				break;
+			}
+			blocks = signatures.size();
+		}
+
+		// the start state is numbered 0
+		int[] number = new int[blocks];
+		int count = 0;
+
+		Arrays.fill(number, -1);
+		if(block[0] >= 0) {
+			number[block[0]] = count++;
+		}
+		for(int i = 0; i < size; i++) {
+			if(block[i] >= 0 && number[block[i]] < 0) {
+				number[block[i]] = count++;
+			}
+		}
+		table = new int[Math.max(count, 1) * classes];
+		accept = new boolean[Math.max(count, 1)];
+		Arrays.fill(table, -1);
+		for(int i = 0; i < size; i++) {
+			if(block[i] >= 0) {
+				int s = number[block[i]];
+
+				accept[s] = accepting[i];
+				for(int c = 0; c < classes; c++) {
+					int next = transitions.get(i)[c];
+
+					table[s * classes + c] = next >= 0 && block[next] >= 0 ? number[block[next]] : -1;
+				}
+			}
+		}
+		return new DfaRegex(pattern, boundaries, block[0] >= 0 ? table : null, accept, surrogates);
+	}
+
+	private static int classOf(int[] boundaries, int ch) {
+		int low = 0, high = boundaries.length - 1;
+
+		while(low < high) {
+			int mid = (low + high + 1) >>> 1;
+
+			if(boundaries[mid] <= ch) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * gets the pattern of this expression.
+	 *
+	 * @return the pattern
+	 */
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * tests whether this expression is matched by a DFA.
+	 *
+	 * @return true if this expression is matched by a DFA
+	 */
+	public boolean isDfa() {
+		return fallback == null;
+	}
+
+	/**
+	 * gets the reason why this expression is matched by java.util.regex.
+	 *
+	 * @return the reason, or null if this expression is matched by a DFA
+	 */
+	public String getFallbackReason() {
+		return fallback;
+	}
+
+	/**
+	 * matches this expression from the given index of the sequence.
+	 *
+	 * @param sequence a sequence
+	 * @param index an index
+	 * @return the end index of matching, or -1 if not matched
+	 */
+	public int lookingAt(CharSequence sequence, int index) {
+		int result;
+
+		if(fallback != null || (result = run(sequence, index)) == FALLBACK) {
+			return CharSequences.lookingAt(pattern, sequence, index);
+		}
+		return result;
+	}
+
+	private int run(CharSequence sequence, int index) {
+		int state = 0, last, ch;
+
+		if(table == null) {
+			return -1;
+		} else if(index > 0 && !CharSequences.has(sequence, index - 1)) {
+			return -1;
+		}
+		last = accept[0] ? index : -1;
+		for(int i = index; (ch = CharSequences.charAt(sequence, i)) >= 0; i++) {
+			if(surrogates && Character.isSurrogate((char)ch)) {
+				// java.util.regex matches a code point
+				return FALLBACK;
+			} else if((state = table[state * classes + (ch < 128 ? asciiClasses[ch] : classOf(boundaries, ch))]) < 0) {
+				return last;
+			} else if(accept[state]) {
+				last = i + 1;
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * returns the pattern of this expression.
+	 */
+	public String toString() {
+		return pattern.pattern();
+	}
+
+}
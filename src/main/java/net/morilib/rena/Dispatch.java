@@ -0,0 +1,168 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table of alternatives which can match by the first character.<br>
+ * Candidates are in order of the given alternatives.
+ * Characters which are not ASCII share one conservative list of candidates.
+ * <p>
+ * If lookahead of k characters is given and the alternatives are distinguished by k characters,
+ * the table is predictive: at most one alternative is a candidate
+ * except the last alternative which matches an empty string.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class Dispatch {
+
+	private final int[][] ascii = new int[128][];
+	private final int[] others;
+	private final int[] end;
+	private final List<String> conflicts;
+	private final LinearLookahead[] lookaheads;
+	private final int[][] predicted;
+	private final int[] unpredicted;
+
+	/**
+	 * constructs a table of the given alternatives by the first character.
+	 *
+	 * @param alternatives alternatives
+	 */
+	Dispatch(List<? extends PatternMatcher<?>> alternatives) {
+		this(alternatives, 0);
+	}
+
+	/**
+	 * constructs a table of the given alternatives.<br>
+	 * If k is positive and the alternatives are distinguished by k characters,
+	 * the table is predictive.
+	 *
+	 * @param alternatives alternatives
+	 * @param k the number of characters of lookahead, or 0 if not predictive
+	 */
+	Dispatch(List<? extends PatternMatcher<?>> alternatives, int k) {
+		Map<List<Integer>, int[]> shared = new HashMap<List<Integer>, int[]>();
+		int size = alternatives.size();
+		BitSet[] chars = new BitSet[size];
+		boolean[] always = new boolean[size];
+		List<LinearLookahead> list = k > 0 ? LinearLookahead.of(alternatives, k) : null;
+
+		conflicts = k > 0 ? LinearLookahead.conflicts(list, k) : Collections.<String>emptyList();
+		if(k > 0 && conflicts.isEmpty()) {
+			int last = list.get(size - 1).isNullable() ? size - 1 : -1;
+
+			lookaheads = list.toArray(new LinearLookahead[0]);
+			predicted = new int[size][];
+			for(int i = 0; i < size; i++) {
+				chars[i] = lookaheads[i].first();
+				predicted[i] = last >= 0 && i != last ? new int[] { i, last } : new int[] { i };
+			}
+			unpredicted = last >= 0 ? predicted[last] : new int[0];
+			if(last >= 0) {
+				// the last alternative is tried if no other alternative is predicted
+				chars[last] = new BitSet();
+			}
+		} else {
+			lookaheads = null;
+			predicted = null;
+			unpredicted = null;
+			for(int i = 0; i < size; i++) {
+				FirstSet first = FirstSet.of(alternatives.get(i));
+
+				chars[i] = first.getChars();
+				always[i] = first.isNullable();
+			}
+		}
+
+		for(char ch = 0; ch < 128; ch++) {
+			List<Integer> indices = new ArrayList<Integer>();
+
+			for(int i = 0; i < size; i++) {
+				if(always[i] || chars[i] == null || chars[i].get(ch)) {
+					indices.add(i);
+				}
+			}
+			ascii[ch] = share(shared, indices);
+		}
+		others = share(shared, select(chars, always, true));
+		end = share(shared, select(chars, always, false));
+	}
+
+	private static List<Integer> select(BitSet[] chars, boolean[] always, boolean nonAscii) {
+		List<Integer> indices = new ArrayList<Integer>();
+
+		for(int i = 0; i < chars.length; i++) {
+			if(always[i] || chars[i] == null || (nonAscii && chars[i].nextSetBit(128) >= 0)) {
+				indices.add(i);
+			}
+		}
+		return indices;
+	}
+
+	private static int[] share(Map<List<Integer>, int[]> shared, List<Integer> list) {
+		int[] result = shared.get(list);
+
+		if(result == null) {
+			result = new int[list.size()];
+			for(int i = 0; i < result.length; i++) {
+				result[i] = list.get(i);
+			}
+			shared.put(list, result);
+		}
+		return result;
+	}
+
+	/**
+	 * tests whether this table is predictive.
+	 *
+	 * @return true if this table is predictive
+	 */
+	boolean isPredictive() {
+		return lookaheads != null;
+	}
+
+	/**
+	 * gets reasons why this table is not predictive.
+	 *
+	 * @return reasons, or an empty list if this table is predictive or lookahead is not given
+	 */
+	List<String> getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * gets indices of alternatives which can match at the given index.
+	 *
+	 * @param match a string
+	 * @param index an index
+	 * @return indices of alternatives in order
+	 */
+	int[] candidates(CharSequence match, int index) {
+		int ch = CharSequences.charAt(match, index);
+		int[] result = ch < 0 ? end : ch < 128 ? ascii[ch] : others;
+
+		if(lookaheads != null) {
+			for(int i : result) {
+				if(lookaheads[i].admits(match, index)) {
+					return predicted[i];
+				}
+			}
+			return unpredicted;
+		}
+		return result;
+	}
+
+}
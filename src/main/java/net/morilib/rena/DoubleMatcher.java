@@ -0,0 +1,77 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A matcher whose attributes are double.<br>
+ * This matcher is also a PatternMatcher&lt;Double&gt; and can be combined with matchers of the generic API.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public final class DoubleMatcher extends PrimitiveMatcher<Double, DoubleMatcher, DoublePatternAction> {
+
+	static final PrimitiveType<Double, DoubleMatcher, DoublePatternAction> TYPE =
+			new PrimitiveType<Double, DoubleMatcher, DoublePatternAction>() {
+
+		@Override
+		DoubleMatcher matcher(PrimitiveNode node, SkipPolicy ignore) {
+			return new DoubleMatcher(node, ignore);
+		}
+
+		@Override
+		PrimitiveNode.LongAction convert(DoublePatternAction action) {
+			return (match, start, end, syn, inh) ->
+					Double.doubleToRawLongBits(action.action(CharSequences.substring(match, start, end), Double.longBitsToDouble(syn), Double.longBitsToDouble(inh)));
+		}
+
+		@Override
+		Double box(long value) {
+			return Double.longBitsToDouble(value);
+		}
+
+		@Override
+		long unbox(Double value) {
+			return value != null ? Double.doubleToRawLongBits(value) : 0;
+		}
+
+	};
+
+	private DoubleMatcher(PrimitiveNode node, SkipPolicy ignore) {
+		super(node, ignore, TYPE);
+	}
+
+	/**
+	 * matches the given string from the given index.<br>
+	 * The attribute is not boxed.
+	 *
+	 * @param match a string to be matched
+	 * @param index an index to start matching
+	 * @param attribute inherited attribute
+	 * @return matching result, or null if it does not match
+	 */
+	public DoubleResult matchDouble(CharSequence match, int index, double attribute) {
+		PrimitiveNode.Context ctx = new PrimitiveNode.Context(false);
+		int end = node.match(ctx, match, index, Double.doubleToRawLongBits(attribute));
+
+		return end >= 0 ? new DoubleResult(match, index, end, Double.longBitsToDouble(ctx.value)) : null;
+	}
+
+	/**
+	 * matches the given string from the beginning.<br>
+	 * The attribute is not boxed.
+	 *
+	 * @param match a string to be matched
+	 * @param attribute inherited attribute
+	 * @return matching result, or null if it does not match
+	 */
+	public DoubleResult parseDouble(CharSequence match, double attribute) {
+		return matchDouble(match, 0, attribute);
+	}
+
+}
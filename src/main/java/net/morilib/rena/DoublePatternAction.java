@@ -0,0 +1,30 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * An action which is invoked when a pattern is matched.<br>
+ * Attributes of this action are double and they are not boxed.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+@FunctionalInterface
+public interface DoublePatternAction {
+
+	/**
+	 * the action.
+	 *
+	 * @param match matched string
+	 * @param synthesized synthesized attribute
+	 * @param inherited inherited attribute
+	 * @return the result attribute
+	 */
+	public double action(String match, double synthesized, double inherited);
+
+}
@@ -0,0 +1,111 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A class to create parser definition whose attributes are double.<br>
+ * Matchers created by this class pass attributes as double and do not box them,
+ * except when they call matchers of the generic API.
+ * Keywords are not supported.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public class DoubleRena extends PrimitiveRena<Double, DoubleMatcher, DoublePatternAction> {
+
+	/**
+	 * Constructs a class to create parser definition with default settings.
+	 */
+	public DoubleRena() {
+		super(null, DoubleMatcher.TYPE);
+	}
+
+	/**
+	 * Constructs a class to create parser definition with a regular expression to ignore.
+	 *
+	 * @param toIgnore a regular expression to ignore
+	 */
+	public DoubleRena(String toIgnore) {
+		this(SkipPolicy.regex(toIgnore));
+	}
+
+	/**
+	 * Constructs a class to create parser definition with a policy to skip.<br>
+	 * Results of the policy are cached by positions.
+	 *
+	 * @param toIgnore a policy to skip
+	 */
+	public DoubleRena(SkipPolicy toIgnore) {
+		super(nonNull(toIgnore), DoubleMatcher.TYPE);
+	}
+
+	private static SkipPolicy nonNull(SkipPolicy toIgnore) {
+		if(toIgnore == null) {
+			throw new NullPointerException();
+		}
+		return toIgnore;
+	}
+
+	/**
+	 * A method which can refer a return value of the function itself.<br>
+	 * This method will be used for defining a pattern with recursion.
+	 *
+	 * @param func a function whose argument is a return value itself.
+	 * @return a matcher
+	 */
+	public static DoubleMatcher letrec(
+			final Function<PatternMatcher<Double>, PatternMatcher<Double>> func) {
+		List<DoubleMatcher> x = refs(DoubleMatcher.TYPE, 1);
+
+		return define(DoubleMatcher.TYPE, x, func.apply(x.get(0)));
+	}
+
+	/**
+	 * A method which can refer a return values of the function itself.<br>
+	 * This method will be used for defining a pattern with recursion.
+	 *
+	 * @param func1 a function whose first argument is a return values itself.
+	 * @param func2 a function whose second argument is a return values itself.
+	 * @return a matcher
+	 */
+	public static DoubleMatcher letrec(
+			final BiFunction<PatternMatcher<Double>, PatternMatcher<Double>, PatternMatcher<Double>> func1,
+			final BiFunction<PatternMatcher<Double>, PatternMatcher<Double>, PatternMatcher<Double>> func2) {
+		List<DoubleMatcher> x = refs(DoubleMatcher.TYPE, 2);
+
+		return define(DoubleMatcher.TYPE, x,
+				func1.apply(x.get(0), x.get(1)),
+				func2.apply(x.get(0), x.get(1)));
+	}
+
+	/**
+	 * A method which can refer a return values of the function itself.<br>
+	 * This method will be used for defining a pattern with recursion.
+	 *
+	 * @param func1 a function whose first argument is a return values itself.
+	 * @param func2 a function whose second argument is a return values itself.
+	 * @param func3 a function whose third argument is a return values itself.
+	 * @return a matcher
+	 */
+	public static DoubleMatcher letrec(
+			final Letrec3Function<Double> func1,
+			final Letrec3Function<Double> func2,
+			final Letrec3Function<Double> func3) {
+		List<DoubleMatcher> x = refs(DoubleMatcher.TYPE, 3);
+
+		return define(DoubleMatcher.TYPE, x,
+				func1.apply(x.get(0), x.get(1), x.get(2)),
+				func2.apply(x.get(0), x.get(1), x.get(2)),
+				func3.apply(x.get(0), x.get(1), x.get(2)));
+	}
+
+}
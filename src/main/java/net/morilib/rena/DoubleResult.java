@@ -0,0 +1,75 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A class of matching result whose attribute is double.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public class DoubleResult {
+
+	private final CharSequence input;
+	private final int startIndex;
+	private final int lastIndex;
+	private final double attribute;
+	private String match;
+
+	DoubleResult(CharSequence input, int startIndex, int lastIndex, double attribute) {
+		if(CharSequences.isStable(input)) {
+			this.input = input;
+		} else {
+			this.input = null;
+			this.match = CharSequences.substring(input, startIndex, lastIndex);
+		}
+		this.startIndex = startIndex;
+		this.lastIndex = lastIndex;
+		this.attribute = attribute;
+	}
+
+	/**
+	 * gets the matched string.
+	 *
+	 * @return matched string
+	 */
+	public String getMatch() {
+		if(match == null) {
+			match = CharSequences.substring(input, startIndex, lastIndex);
+		}
+		return match;
+	}
+
+	/**
+	 * gets the start index of matching.
+	 *
+	 * @return start index
+	 */
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	/**
+	 * gets the last index of matching.
+	 *
+	 * @return last index
+	 */
+	public int getLastIndex() {
+		return lastIndex;
+	}
+
+	/**
+	 * gets the attribute.
+	 *
+	 * @return attribute
+	 */
+	public double getAttribute() {
+		return attribute;
+	}
+
+}
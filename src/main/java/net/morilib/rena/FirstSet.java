@@ -0,0 +1,332 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A set of characters which a matcher can match at first.<br>
+ * The set is computed conservatively:
+ * a matcher which cannot be analyzed may begin with any character and may match an empty string.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class FirstSet {
+
+	/**
+	 * the set which contains all characters and an empty string.
+	 */
+	static final FirstSet ANY = new FirstSet(null, true);
+
+	private static final String META = "\\[](){}.*+?^$|";
+
+	private final BitSet chars;
+	private final boolean nullable;
+
+	private FirstSet(BitSet chars, boolean nullable) {
+		this.chars = chars;
+		this.nullable = nullable;
+	}
+
+	/**
+	 * computes the first set of the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return the first set
+	 */
+	static FirstSet of(PatternMatcher<?> matcher) {
+		return of(matcher, new IdentityHashMap<PatternMatcher<?>, FirstSet>());
+	}
+
+	/**
+	 * tests whether the matcher can match an empty string.
+	 *
+	 * @return true if the matcher can match an empty string
+	 */
+	boolean isNullable() {
+		return nullable;
+	}
+
+	/**
+	 * tests whether the matcher can begin with the given character.
+	 *
+	 * @param ch a character
+	 * @return true if the matcher can begin with the character
+	 */
+	boolean contains(char ch) {
+		return chars == null || chars.get(ch);
+	}
+
+	/**
+	 * gets the characters which the matcher can begin with.
+	 *
+	 * @return the set of characters, or null if any character
+	 */
+	BitSet getChars() {
+		return chars;
+	}
+
+	private static FirstSet of(PatternMatcher<?> matcher, Map<PatternMatcher<?>, FirstSet> visited) {
+		FirstSet result = visited.get(matcher);
+
+		if(result == null) {
+			// a recursive reference which is being computed is assumed to be any
+			visited.put(matcher, ANY);
+			result = compute(matcher, visited);
+			visited.put(matcher, result);
+		}
+		return result;
+	}
+
+	private static FirstSet compute(PatternMatcher<?> matcher, Map<PatternMatcher<?>, FirstSet> visited) {
+		PatternMatcher<?> m = matcher;
+
+		while(m instanceof Node.Then) {
+			m = ((Node.Then<?>)m).left;
+		}
+		if(m != matcher) {
+			FirstSet left = of(m, visited);
+
+			// the right side begins after spaces are skipped
+			return left.nullable ? ANY : left;
+		} else if(m instanceof Node.Literal) {
+			return string(((Node.Literal<?>)m).string);
+		} else if(m instanceof Node.Keyword) {
+			return string(((Node.Keyword<?>)m).key);
+		} else if(m instanceof Node.Regex) {
+			return regex(((Node.Regex<?>)m).pattern);
+		} else if(m instanceof Node.Literals) {
+			FirstSet result = null;
+
+			for(Node.Literal<?> literal : ((Node.Literals<?>)m).literals) {
+				result = union(result, of(literal, visited));
+			}
+			return result;
+		} else if(m instanceof Node.Keys) {
+			FirstSet result = null;
+
+			for(Node.Keyword<?> keyword : ((Node.Keys<?>)m).keywords) {
+				result = union(result, of(keyword, visited));
+			}
+			return result;
+		} else if(m instanceof Node.Or) {
+			return union(of(((Node.Or<?>)m).left, visited), of(((Node.Or<?>)m).right, visited));
+		} else if(m instanceof Node.Choice) {
+			FirstSet result = null;
+
+			for(PatternMatcher<?> alternative : ((Node.Choice<?>)m).alternatives) {
+				result = union(result, of(alternative, visited));
+			}
+			return result;
+		} else if(m instanceof Node.Times) {
+			Node.Times<?> times = (Node.Times<?>)m;
+			OperationMatcher<?> skipper = Node.skipper(times.pattern);
+			FirstSet pattern;
+
+			// spaces are skipped before the first repetition
+			if(!(skipper instanceof Node) || ((Node<?>)skipper).ignore() != null) {
+				return ANY;
+			}
+			pattern = of(times.pattern, visited);
+			return times.countmin > 0 ? pattern : new FirstSet(pattern.chars, true);
+		} else if(m instanceof Node.Delimit) {
+			return of(((Node.Delimit<?>)m).pattern, visited);
+		} else if(m instanceof Node.Cond) {
+			return of(((Node.Cond<?>)m).pattern, visited);
+		} else if(m instanceof Node.End) {
+			return of(((Node.End<?>)m).pattern, visited);
+		} else if(m instanceof Node.Lookahead) {
+			return of(((Node.Lookahead<?>)m).pattern, visited);
+		} else if(m instanceof Node.Action) {
+			return of(((Node.Action<?>)m).matcher, visited);
+		} else if(m instanceof Node.Wrap) {
+			return of(((Node.Wrap<?>)m).matcher, visited);
+		} else if(m instanceof Node.Token) {
+			return of(((Node.Token<?>)m).terminal, visited);
+		} else if(m instanceof RuleRef) {
+			PatternMatcher<?> target = ((RuleRef<?>)m).getTarget();
+
+			return target != null ? of(target, visited) : ANY;
+		} else if(m instanceof MemoTable.Memo) {
+			return of(((MemoTable.Memo<?>)m).matcher, visited);
+		} else if(m instanceof IncrementalText.Memo) {
+			return of(((IncrementalText.Memo<?>)m).matcher, visited);
+		} else if(m instanceof StackMachine) {
+			return of(((StackMachine<?>)m).matcher, visited);
+		} else if(m instanceof Compiler.Compiled) {
+			return of(((Compiler.Compiled<?>)m).source, visited);
+		} else if(m instanceof Deferred) {
+			return of(((Deferred<?>)m).source, visited);
+		} else {
+			return ANY;
+		}
+	}
+
+	private static FirstSet union(FirstSet a, FirstSet b) {
+		BitSet chars;
+
+		if(a == null) {
+			return b;
+		} else if(a.chars == null || b.chars == null) {
+			return new FirstSet(null, a.nullable || b.nullable);
+		}
+		chars = (BitSet)a.chars.clone();
+		chars.or(b.chars);
+		return new FirstSet(chars, a.nullable || b.nullable);
+	}
+
+	private static FirstSet string(String string) {
+		BitSet chars = new BitSet();
+
+		if(string.isEmpty()) {
+			return new FirstSet(chars, true);
+		}
+		chars.set(string.charAt(0));
+		return new FirstSet(chars, false);
+	}
+
+	/*
+	 * analyzes the first atom of a regular expression.
+	 * Patterns which begin with a group, a negated class or an unusual escape
+	 * and patterns which have an alternation are assumed to be any.
+	 */
+	private static FirstSet regex(Pattern pattern) {
+		String regex = pattern.pattern();
+		BitSet chars = new BitSet();
+		int next;
+
+		if(!isSimple(pattern) || (next = atom(regex, 0, chars)) < 0) {
+			return ANY;
+		} else if(next < regex.length() && "?*{".indexOf(regex.charAt(next)) >= 0) {
+			return ANY;
+		}
+		return new FirstSet(chars, false);
+	}
+
+	/**
+	 * tests whether the given pattern may be analyzed by {@link #atom(String, int, BitSet)}.
+	 *
+	 * @param pattern a pattern
+	 * @return true if the pattern has no flags and no alternation
+	 */
+	static boolean isSimple(Pattern pattern) {
+		return pattern.flags() == 0 && pattern.pattern().indexOf('|') < 0;
+	}
+
+	/**
+	 * analyzes an atom of a regular expression which is a character,
+	 * a character class or an escape of a class.
+	 *
+	 * @param regex a regular expression
+	 * @param index the index of the atom
+	 * @param chars a set to which characters of the atom are added
+	 * @return the index after the atom, or -1 if the atom cannot be analyzed
+	 */
+	static int atom(String regex, int index, BitSet chars) {
+		if(index >= regex.length()) {
+			return -1;
+		} else if(regex.charAt(index) == '[') {
+			return charClass(regex, index + 1, chars);
+		} else if(regex.charAt(index) == '\\') {
+			return escape(regex, index + 1, chars);
+		} else if(META.indexOf(regex.charAt(index)) < 0) {
+			chars.set(regex.charAt(index));
+			return index + 1;
+		} else {
+			return -1;
+		}
+	}
+
+	private static int charClass(String regex, int index, BitSet chars) {
+		int i = index;
+
+		if(i < regex.length() && regex.charAt(i) == '^') {
+			return -1;
+		}
+		for(boolean first = true; i < regex.length(); first = false) {
+			char ch = regex.charAt(i);
+			int from;
+
+			if(ch == ']') {
+				return first ? -1 : i + 1;
+			} else if(ch == '[' || (ch == '&' && i + 1 < regex.length() && regex.charAt(i + 1) == '&')) {
+				return -1;
+			} else if(ch == '\\') {
+				BitSet escaped = new BitSet();
+
+				if((i = escape(regex, i + 1, escaped)) < 0) {
+					return -1;
+				}
+				if(escaped.cardinality() != 1 || i >= regex.length() || regex.charAt(i) != '-') {
+					chars.or(escaped);
+					continue;
+				}
+				from = escaped.nextSetBit(0);
+			} else {
+				from = ch;
+				i++;
+			}
+
+			if(i + 1 < regex.length() && regex.charAt(i) == '-' && regex.charAt(i + 1) != ']') {
+				char to = regex.charAt(i + 1);
+
+				if(to == '\\' || to == '[' || to < from) {
+					return -1;
+				}
+				chars.set(from, to + 1);
+				i += 2;
+			} else {
+				chars.set(from);
+			}
+		}
+		return -1;
+	}
+
+	private static int escape(String regex, int index, BitSet chars) {
+		char ch;
+
+		if(index >= regex.length()) {
+			return -1;
+		}
+		switch(ch = regex.charAt(index)) {
+		case 'd':
+			chars.set('0', '9' + 1);
+			break;
+		case 'w':
+			chars.set('a', 'z' + 1);
+			chars.set('A', 'Z' + 1);
+			chars.set('0', '9' + 1);
+			chars.set('_');
+			break;
+		case 's':
+			chars.set(' ');
+			chars.set('\t');
+			chars.set('\n');
+			chars.set(0x0b);
+			chars.set('\f');
+			chars.set('\r');
+			break;
+		case 't':  chars.set('\t');  break;
+		case 'n':  chars.set('\n');  break;
+		case 'r':  chars.set('\r');  break;
+		case 'f':  chars.set('\f');  break;
+		default:
+			if(Character.isLetterOrDigit(ch) || ch >= 128) {
+				return -1;
+			}
+			chars.set(ch);
+			break;
+		}
+		return index + 1;
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A Spliterator which searches all patterns lazily.<br>
+ * A pattern is searched when the next result is requested.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+final class GlobalMatchSpliterator<A> extends Spliterators.AbstractSpliterator<PatternResult<A>> {
+
+	private final PatternMatcher<A> matcher;
+	private final CharSequence match;
+	private final A attribute;
+	private int index;
+
+	GlobalMatchSpliterator(PatternMatcher<A> matcher, CharSequence match, int index, A attribute) {
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		this.matcher = matcher;
+		this.match = match;
+		this.index = index;
+		this.attribute = attribute;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super PatternResult<A>> action) {
+		for(; !CharSequences.isEnd(match, index); index++) {
+			PatternResult<A> result;
+
+			CharSequences.release(match, index);
+			if((result = matcher.match(match, index, attribute)) != null) {
+				index = result.getLastIndex() > index ? result.getLastIndex() : index + 1;
+				action.accept(result);
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
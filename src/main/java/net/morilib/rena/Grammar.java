@@ -0,0 +1,322 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A view of the graph of matchers which are created by combinators.<br>
+ * Each distinct matcher is an element of the grammar
+ * and elements which are referred by some elements (e.g. recursive rules) appear only once.
+ * Matchers which are not created by combinators are elements of the kind OPAQUE.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public final class Grammar {
+
+	/**
+	 * Kinds of elements.
+	 */
+	public static enum Kind {
+
+		/** matches a string */
+		LITERAL,
+		/** matches a regular expression */
+		REGEX,
+		/** matches a keyword */
+		KEYWORD,
+		/** matches if any keyword does not match */
+		NOT_KEYWORD,
+		/** matches an empty string and returns the initial attribute */
+		INIT,
+		/** matches children in sequence */
+		SEQ,
+		/** matches one of children */
+		CHOICE,
+		/** repeats the child */
+		REPEAT,
+		/** repeats the first child delimited by the second child */
+		DELIMIT,
+		/** tests the attribute of the child */
+		COND,
+		/** matches the child and the end of the string */
+		END,
+		/** matches the first child followed by the second child */
+		LOOKAHEAD,
+		/** matches the first child not followed by the second child */
+		LOOKAHEAD_NOT,
+		/** executes an action after the child */
+		ACTION,
+		/** wraps the child */
+		WRAP,
+		/** refers to a rule of RuleSet */
+		REF,
+		/** memoizes the child */
+		MEMO,
+		/** a matcher which cannot be inspected */
+		OPAQUE
+
+	}
+
+	/**
+	 * An element of a grammar.
+	 */
+	public static final class Element {
+
+		private final int id;
+		private final PatternMatcher<?> matcher;
+		private final Kind kind;
+		private final String text;
+		private final boolean action;
+		private final List<Element> children = new ArrayList<Element>();
+
+		private Element(int id, PatternMatcher<?> matcher, Kind kind, String text, boolean action) {
+			this.id = id;
+			this.matcher = matcher;
+			this.kind = kind;
+			this.text = text;
+			this.action = action;
+		}
+
+		/**
+		 * gets the identifier of this element which is unique in the grammar.
+		 *
+		 * @return the identifier
+		 */
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * gets the matcher of this element.
+		 *
+		 * @return the matcher
+		 */
+		public PatternMatcher<?> getMatcher() {
+			return matcher;
+		}
+
+		/**
+		 * gets the kind of this element.
+		 *
+		 * @return the kind
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * gets the string of LITERAL, the regular expression of REGEX,
+		 * the keyword of KEYWORD or the name of REF.
+		 *
+		 * @return the text, or null if this element has no text
+		 */
+		public String getText() {
+			return text;
+		}
+
+		/**
+		 * gets the minimum count of REPEAT.
+		 *
+		 * @return the minimum count, or 0 if this element is not REPEAT
+		 */
+		public int getMin() {
+			return matcher instanceof Node.Times ? ((Node.Times<?>)matcher).countmin : 0;
+		}
+
+		/**
+		 * gets the maximum count of REPEAT.
+		 *
+		 * @return the maximum count, -1 if unbounded, or 0 if this element is not REPEAT
+		 */
+		public int getMax() {
+			return matcher instanceof Node.Times ? ((Node.Times<?>)matcher).countmax : 0;
+		}
+
+		/**
+		 * tests whether this element executes an action.
+		 *
+		 * @return true if this element executes an action
+		 */
+		public boolean hasAction() {
+			return action;
+		}
+
+		/**
+		 * gets the children of this element.
+		 *
+		 * @return the unmodifiable list of children
+		 */
+		public List<Element> getChildren() {
+			return Collections.unmodifiableList(children);
+		}
+
+		/**
+		 * returns the string representation of this element.
+		 */
+		public String toString() {
+			StringBuilder builder = new StringBuilder().append('#').append(id).append(' ').append(kind);
+
+			if(text != null) {
+				builder.append(' ').append(quote(text));
+			}
+			if(kind == Kind.REPEAT) {
+				builder.append(" {").append(getMin()).append(',');
+				if(getMax() >= 0) {
+					builder.append(getMax());
+				}
+				builder.append('}');
+			}
+			for(Element child : children) {
+				builder.append(" #").append(child.id);
+			}
+			if(action) {
+				builder.append(" !");
+			}
+			return builder.toString();
+		}
+
+	}
+
+	private final Element root;
+	private final List<Element> elements;
+
+	private Grammar(Element root, List<Element> elements) {
+		this.root = root;
+		this.elements = Collections.unmodifiableList(elements);
+	}
+
+	/**
+	 * creates a view of the grammar of the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return a view of the grammar
+	 */
+	public static Grammar of(PatternMatcher<?> matcher) {
+		Map<PatternMatcher<?>, Element> visited = new IdentityHashMap<PatternMatcher<?>, Element>();
+		List<Element> elements = new ArrayList<Element>();
+		List<Element> stack = new ArrayList<Element>();
+		Element root = element(matcher, visited, elements, stack);
+
+		// walks by an explicit stack because a grammar may be deeply nested
+		while(!stack.isEmpty()) {
+			Element element = stack.remove(stack.size() - 1);
+
+			for(PatternMatcher<?> child : children(element.matcher)) {
+				element.children.add(element(child, visited, elements, stack));
+			}
+		}
+		return new Grammar(root, elements);
+	}
+
+	private static Element element(PatternMatcher<?> matcher, Map<PatternMatcher<?>, Element> visited,
+			List<Element> elements, List<Element> stack) {
+		Element element = visited.get(matcher);
+
+		if(element == null) {
+			element = new Element(elements.size(), matcher, kind(matcher), text(matcher),
+					matcher instanceof Node && ((Node<?>)matcher).hasAction());
+			visited.put(matcher, element);
+			elements.add(element);
+			stack.add(element);
+		}
+		return element;
+	}
+
+	private static Kind kind(PatternMatcher<?> matcher) {
+		if(matcher instanceof Node) {
+			return ((Node<?>)matcher).kind();
+		} else if(matcher instanceof RuleRef) {
+			return Kind.REF;
+		} else if(matcher instanceof MemoTable.Memo || matcher instanceof IncrementalText.Memo) {
+			return Kind.MEMO;
+		} else if(matcher instanceof StackMachine || matcher instanceof Compiler.Compiled ||
+				matcher instanceof Deferred) {
+			return Kind.WRAP;
+		} else {
+			return Kind.OPAQUE;
+		}
+	}
+
+	private static String text(PatternMatcher<?> matcher) {
+		if(matcher instanceof Node) {
+			return ((Node<?>)matcher).text();
+		} else if(matcher instanceof RuleRef) {
+			return ((RuleRef<?>)matcher).getName();
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * gets the children of the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return the children
+	 */
+	static List<? extends PatternMatcher<?>> children(PatternMatcher<?> matcher) {
+		PatternMatcher<?> child = null;
+
+		if(matcher instanceof Node) {
+			return ((Node<?>)matcher).children();
+		} else if(matcher instanceof RuleRef) {
+			child = ((RuleRef<?>)matcher).getTarget();
+		} else if(matcher instanceof MemoTable.Memo) {
+			child = ((MemoTable.Memo<?>)matcher).matcher;
+		} else if(matcher instanceof IncrementalText.Memo) {
+			child = ((IncrementalText.Memo<?>)matcher).matcher;
+		} else if(matcher instanceof StackMachine) {
+			child = ((StackMachine<?>)matcher).matcher;
+		} else if(matcher instanceof Compiler.Compiled) {
+			child = ((Compiler.Compiled<?>)matcher).source;
+		} else if(matcher instanceof Deferred) {
+			child = ((Deferred<?>)matcher).source;
+		}
+		return child != null ? Collections.singletonList(child) : Collections.<PatternMatcher<?>>emptyList();
+	}
+
+	private static String quote(String text) {
+		return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	/**
+	 * gets the root element of this grammar.
+	 *
+	 * @return the root element
+	 */
+	public Element getRoot() {
+		return root;
+	}
+
+	/**
+	 * gets all elements of this grammar in order of identifiers.
+	 *
+	 * @return the unmodifiable list of elements
+	 */
+	public List<Element> getElements() {
+		return elements;
+	}
+
+	/**
+	 * returns the string representation of this grammar which lists all elements.
+	 */
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+
+		for(Element element : elements) {
+			builder.append(element).append('\n');
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,308 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * An editable text which keeps results of memoized rules between edits for incremental reparsing.<br>
+ * Results are held by columns of starting indices with lengths relative to the start,
+ * hence results after an edit are shifted without rewriting them.
+ * The text records the range which each rule examined while matching,
+ * and an edit discards only results whose examined range overlaps the edit.
+ * A memoized rule must depend only on the text after its starting index
+ * and on the identity of the inherited attribute.<br>
+ * A text must not be shared by threads.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public final class IncrementalText implements Input {
+
+	private static final Object FAILED = new Object();
+
+	private static class Key {
+
+		private final int rule;
+		private final Object attribute;
+
+		private Key(int rule, Object attribute) {
+			this.rule = rule;
+			this.attribute = attribute;
+		}
+
+		public int hashCode() {
+			return rule * 31 + System.identityHashCode(attribute);
+		}
+
+		public boolean equals(Object o) {
+			if(o instanceof Key) {
+				Key k = (Key)o;
+
+				return rule == k.rule && attribute == k.attribute;
+			}
+			return false;
+		}
+
+	}
+
+	private static class Entry {
+
+		private final int length;
+		private final int examined;
+		private final String match;
+		private final Object attribute;
+
+		private Entry(int length, int examined, String match, Object attribute) {
+			this.length = length;
+			this.examined = examined;
+			this.match = match;
+			this.attribute = attribute;
+		}
+
+	}
+
+	class Memo<A> implements PatternMatcher<A> {
+
+		private final int rule;
+		final PatternMatcher<A> matcher;
+		private final boolean synthesized;
+
+		private Memo(int rule, PatternMatcher<A> matcher, boolean synthesized) {
+			this.rule = rule;
+			this.matcher = matcher;
+			this.synthesized = synthesized;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A inherited) {
+			A attribute = synthesized ? null : inherited;
+			Key key = new Key(rule, attribute);
+			Map<Key, Entry> column;
+			Entry entry;
+			PatternResult<A> result;
+			int saved;
+
+			if(match != IncrementalText.this || index < 0 || index > text.length()) {
+				return matcher.match(match, index, attribute);
+			} else if((column = columns.get(index)) != null && (entry = column.get(key)) != null) {
+				hits++;
+				examine(index + entry.examined - 1);
+				return entry.attribute == FAILED ?
+						null :
+						new PatternResult<A>(entry.match, index + entry.length, (A)entry.attribute);
+			}
+
+			misses++;
+			saved = examined;
+			examined = index;
+			result = matcher.match(match, index, attribute);
+			entry = new Entry(result != null ? result.getLastIndex() - index : 0,
+					examined - index,
+					result != null ? result.getMatch() : null,
+					result != null ? result.getAttribute() : FAILED);
+			maxExamined = Math.max(maxExamined, entry.examined);
+			examined = Math.max(saved, examined);
+			if(column == null) {
+				columns.set(index, column = new HashMap<Key, Entry>());
+			}
+			column.put(key, entry);
+			size++;
+			return result;
+		}
+
+	}
+
+	private final StringBuilder text;
+	private final ArrayList<Map<Key, Entry>> columns = new ArrayList<Map<Key, Entry>>();
+	private int examined = 0;
+	private int maxExamined = 0;
+	private int rules = 0;
+	private int size = 0;
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * constructs an empty text.
+	 */
+	public IncrementalText() {
+		this("");
+	}
+
+	/**
+	 * constructs a text with the given content.
+	 *
+	 * @param text content
+	 */
+	public IncrementalText(CharSequence text) {
+		this.text = new StringBuilder(text);
+		columns.addAll(Collections.nCopies(this.text.length() + 1, null));
+	}
+
+	/**
+	 * creates a matcher whose results are kept by this text between edits.
+	 *
+	 * @param <A> attribute
+	 * @param matcher a matcher to memoize
+	 * @return a memoized matcher
+	 */
+	public <A> PatternMatcher<A> memoize(PatternMatcher<A> matcher) {
+		if(matcher == null) {
+			throw new NullPointerException();
+		}
+		return new Memo<A>(rules++, matcher, false);
+	}
+
+	/**
+	 * creates a matcher whose results are kept by this text between edits
+	 * and do not depend on the inherited attribute.<br>
+	 * The given matcher is matched with null as the inherited attribute,
+	 * hence a result is reused even if the inherited attribute is changed by an edit before it.
+	 *
+	 * @param <A> attribute
+	 * @param matcher a matcher to memoize
+	 * @return a memoized matcher
+	 */
+	public <A> PatternMatcher<A> memoizeSynthesized(PatternMatcher<A> matcher) {
+		if(matcher == null) {
+			throw new NullPointerException();
+		}
+		return new Memo<A>(rules++, matcher, true);
+	}
+
+	/**
+	 * replaces the part of this text and discards results which examined the part.<br>
+	 * Results after the part are kept and shifted.
+	 *
+	 * @param offset an offset of the part
+	 * @param removed a length of the part to remove
+	 * @param inserted a string to insert
+	 */
+	public void edit(int offset, int removed, CharSequence inserted) {
+		if(offset < 0 || removed < 0 || offset + removed > text.length()) {
+			throw new IndexOutOfBoundsException("offset=" + offset + ",removed=" + removed);
+		}
+
+		for(int i = Math.max(0, offset - maxExamined); i < offset; i++) {
+			Map<Key, Entry> column = columns.get(i);
+
+			if(column != null) {
+				for(Iterator<Entry> it = column.values().iterator(); it.hasNext();) {
+					if(i + it.next().examined > offset) {
+						it.remove();
+						size--;
+					}
+				}
+			}
+		}
+
+		for(int i = offset; i < offset + removed; i++) {
+			if(columns.get(i) != null) {
+				size -= columns.get(i).size();
+			}
+		}
+		columns.subList(offset, offset + removed).clear();
+		columns.addAll(offset, Collections.nCopies(inserted.length(), null));
+		text.replace(offset, offset + removed, inserted.toString());
+	}
+
+	/**
+	 * replaces all content of this text and discards all results.
+	 *
+	 * @param text content
+	 */
+	public void setText(CharSequence text) {
+		clear();
+		this.text.setLength(0);
+		this.text.append(text);
+		columns.clear();
+		columns.addAll(Collections.nCopies(this.text.length() + 1, null));
+	}
+
+	/**
+	 * discards all results and statistics.
+	 */
+	public void clear() {
+		Collections.fill(columns, null);
+		maxExamined = size = 0;
+		hits = misses = 0;
+	}
+
+	/**
+	 * gets the number of kept results.
+	 *
+	 * @return the number of kept results
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * gets the number of lookups which are found in kept results.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * gets the number of lookups which are not found in kept results.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * records that the character of the given index is examined.<br>
+	 * This method is called by matchers.
+	 *
+	 * @param index an index
+	 */
+	@Override
+	public void examine(int index) {
+		if(index >= examined) {
+			examined = index + 1;
+		}
+	}
+
+	@Override
+	public boolean canReadAhead() {
+		return false;
+	}
+
+	@Override
+	public int length() {
+		return text.length();
+	}
+
+	@Override
+	public char charAt(int index) {
+		examine(index);
+		return text.charAt(index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return CharSequences.slice(this, start, end);
+	}
+
+	@Override
+	public String toString() {
+		examine(text.length());
+		return text.toString();
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * An input which cooperates with matchers.<br>
+ * Matchers access inputs through CharSequences, which dispatches on this interface,
+ * hence a new kind of input implements this interface instead of being tested by its class.
+ * The default methods behave like a plain CharSequence.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+interface Input extends CharSequence {
+
+	/**
+	 * makes the character of the given index available.<br>
+	 * A streaming input reads characters until the index.
+	 *
+	 * @param index an index which is not negative
+	 * @return true if the input has the character of the index
+	 */
+	public default boolean fill(int index) {
+		return index < length();
+	}
+
+	/**
+	 * reads more characters.
+	 *
+	 * @return false if the input has no more characters
+	 */
+	public default boolean fillMore() {
+		return false;
+	}
+
+	/**
+	 * notifies that the character of the given index is examined.
+	 *
+	 * @param index an index
+	 */
+	public default void examine(int index) {
+	}
+
+	/**
+	 * notifies that characters before the given index will not be referred.
+	 *
+	 * @param index an index
+	 */
+	public default void release(int index) {
+	}
+
+	/**
+	 * tests whether the characters of this input are never changed and are all available.<br>
+	 * Matched strings of a stable input are created lazily and skipping over it is cached.
+	 *
+	 * @return true if this input is stable
+	 */
+	public default boolean isStable() {
+		return false;
+	}
+
+	/**
+	 * tests whether matchers may read all characters of this input in advance.<br>
+	 * A streaming input and an input which records examined characters return false.
+	 *
+	 * @return true if characters can be read in advance
+	 */
+	public default boolean canReadAhead() {
+		return true;
+	}
+
+	/**
+	 * returns the end of the token at the given index if the token is matched by the given terminal.
+	 *
+	 * @param kind an index of the terminal
+	 * @param index an index
+	 * @return the end of the token, -1 if the token is not matched, or -2 if no token begins at the index
+	 */
+	public default int tokenEnd(int kind, int index) {
+		return -2;
+	}
+
+	/**
+	 * returns the index after skipping spaces by the given policy which have been skipped in advance.
+	 *
+	 * @param policy a policy to skip
+	 * @param index an index
+	 * @return the index after skipping, or -1 if spaces at the index have not been skipped
+	 */
+	public default int skipped(SkipPolicy policy, int index) {
+		return -1;
+	}
+
+}
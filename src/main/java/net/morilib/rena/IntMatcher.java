@@ -0,0 +1,77 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A matcher whose attributes are int.<br>
+ * This matcher is also a PatternMatcher&lt;Integer&gt; and can be combined with matchers of the generic API.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public final class IntMatcher extends PrimitiveMatcher<Integer, IntMatcher, IntPatternAction> {
+
+	static final PrimitiveType<Integer, IntMatcher, IntPatternAction> TYPE =
+			new PrimitiveType<Integer, IntMatcher, IntPatternAction>() {
+
+		@Override
+		IntMatcher matcher(PrimitiveNode node, SkipPolicy ignore) {
+			return new IntMatcher(node, ignore);
+		}
+
+		@Override
+		PrimitiveNode.LongAction convert(IntPatternAction action) {
+			return (match, start, end, syn, inh) ->
+					(long)action.action(CharSequences.substring(match, start, end), (int)syn, (int)inh);
+		}
+
+		@Override
+		Integer box(long value) {
+			return (int)value;
+		}
+
+		@Override
+		long unbox(Integer value) {
+			return value != null ? (long)value : 0;
+		}
+
+	};
+
+	private IntMatcher(PrimitiveNode node, SkipPolicy ignore) {
+		super(node, ignore, TYPE);
+	}
+
+	/**
+	 * matches the given string from the given index.<br>
+	 * The attribute is not boxed.
+	 *
+	 * @param match a string to be matched
+	 * @param index an index to start matching
+	 * @param attribute inherited attribute
+	 * @return matching result, or null if it does not match
+	 */
+	public IntResult matchInt(CharSequence match, int index, int attribute) {
+		PrimitiveNode.Context ctx = new PrimitiveNode.Context(false);
+		int end = node.match(ctx, match, index, (long)attribute);
+
+		return end >= 0 ? new IntResult(match, index, end, (int)ctx.value) : null;
+	}
+
+	/**
+	 * matches the given string from the beginning.<br>
+	 * The attribute is not boxed.
+	 *
+	 * @param match a string to be matched
+	 * @param attribute inherited attribute
+	 * @return matching result, or null if it does not match
+	 */
+	public IntResult parseInt(CharSequence match, int attribute) {
+		return matchInt(match, 0, attribute);
+	}
+
+}
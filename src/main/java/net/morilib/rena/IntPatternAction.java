@@ -0,0 +1,30 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * An action which is invoked when a pattern is matched.<br>
+ * Attributes of this action are int and they are not boxed.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+@FunctionalInterface
+public interface IntPatternAction {
+
+	/**
+	 * the action.
+	 *
+	 * @param match matched string
+	 * @param synthesized synthesized attribute
+	 * @param inherited inherited attribute
+	 * @return the result attribute
+	 */
+	public int action(String match, int synthesized, int inherited);
+
+}
@@ -0,0 +1,225 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A report of alternations of rules which can be predicted by lookahead of k characters.<br>
+ * An alternation is predictive if every pair of alternatives is distinguished
+ * by the first k characters and no alternative except the last one matches an empty string.
+ * Lookahead is computed conservatively from strings, keywords, simple regular expressions
+ * and combinators, hence matchers which cannot be analyzed make alternations not predictive.
+ * <p>
+ * Alternations which are not in any rule are reported as the rule of the empty name.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @see PatternMatcher#predictive(int)
+ */
+public final class LLAnalysis {
+
+	private final int lookahead;
+	private final Map<String, List<String>> reasons = new LinkedHashMap<String, List<String>>();
+
+	private LLAnalysis(int lookahead) {
+		this.lookahead = lookahead;
+	}
+
+	/**
+	 * analyzes all rules of the given rule set.
+	 *
+	 * @param rules a rule set whose rules are all defined
+	 * @param lookahead the number of characters of lookahead
+	 * @return a report
+	 */
+	public static LLAnalysis of(RuleSet<?> rules, int lookahead) {
+		LLAnalysis result = create(lookahead);
+		List<PatternMatcher<?>> queue = new ArrayList<PatternMatcher<?>>();
+		Map<PatternMatcher<?>, Boolean> visited = new IdentityHashMap<PatternMatcher<?>, Boolean>();
+
+		for(String name : rules.getNames()) {
+			RuleRef<?> ref = (RuleRef<?>)rules.get(name);
+
+			visited.put(ref, true);
+			result.analyze(name, ref.getTarget(), queue, visited);
+		}
+		return result;
+	}
+
+	/**
+	 * analyzes the given matcher and the rules referred by the matcher.
+	 *
+	 * @param matcher a matcher whose rules are all defined
+	 * @param lookahead the number of characters of lookahead
+	 * @return a report
+	 */
+	public static LLAnalysis of(PatternMatcher<?> matcher, int lookahead) {
+		LLAnalysis result = create(lookahead);
+		List<PatternMatcher<?>> queue = new ArrayList<PatternMatcher<?>>();
+		Map<PatternMatcher<?>, Boolean> visited = new IdentityHashMap<PatternMatcher<?>, Boolean>();
+
+		if(!(matcher instanceof RuleRef)) {
+			result.analyze("", matcher, queue, visited);
+		} else {
+			queue.add(matcher);
+		}
+		while(!queue.isEmpty()) {
+			RuleRef<?> ref = (RuleRef<?>)queue.remove(0);
+
+			if(!visited.containsKey(ref)) {
+				visited.put(ref, true);
+				result.analyze(ref.getName(), ref.getResolved(), queue, visited);
+			}
+		}
+		return result;
+	}
+
+	private static LLAnalysis create(int lookahead) {
+		if(lookahead < 1) {
+			throw new IllegalArgumentException("lookahead must be positive");
+		}
+		return new LLAnalysis(lookahead);
+	}
+
+	/*
+	 * walks the body of a rule without entering other rules.
+	 */
+	private void analyze(String name, PatternMatcher<?> body, List<PatternMatcher<?>> queue,
+			Map<PatternMatcher<?>, Boolean> visited) {
+		List<String> list = new ArrayList<String>();
+		List<PatternMatcher<?>> stack = new ArrayList<PatternMatcher<?>>();
+		int choices = 0;
+
+		stack.add(body);
+		while(!stack.isEmpty()) {
+			PatternMatcher<?> matcher = stack.remove(stack.size() - 1);
+
+			if(matcher instanceof RuleRef) {
+				queue.add(matcher);
+			} else if(!visited.containsKey(matcher)) {
+				visited.put(matcher, true);
+				if(matcher instanceof Node.Or || matcher instanceof Node.Choice) {
+					List<PatternMatcher<?>> alternatives = new ArrayList<PatternMatcher<?>>();
+
+					flatten(matcher, alternatives, visited);
+					choices++;
+					for(String reason : LinearLookahead.conflicts(LinearLookahead.of(alternatives, lookahead), lookahead)) {
+						list.add("choice " + choices + ": " + reason);
+					}
+					stack.addAll(alternatives);
+				} else {
+					stack.addAll(Grammar.children(matcher));
+				}
+			}
+		}
+		reasons.put(name, list);
+	}
+
+	private static void flatten(PatternMatcher<?> matcher, List<PatternMatcher<?>> alternatives,
+			Map<PatternMatcher<?>, Boolean> visited) {
+		if(matcher instanceof Node.Or) {
+			visited.put(matcher, true);
+			flatten(((Node.Or<?>)matcher).left, alternatives, visited);
+			flatten(((Node.Or<?>)matcher).right, alternatives, visited);
+		} else if(matcher instanceof Node.Choice) {
+			visited.put(matcher, true);
+			for(PatternMatcher<?> alternative : ((Node.Choice<?>)matcher).alternatives) {
+				flatten(alternative, alternatives, visited);
+			}
+		} else {
+			alternatives.add(matcher);
+		}
+	}
+
+	/**
+	 * gets the number of characters of lookahead.
+	 *
+	 * @return the number of characters
+	 */
+	public int getLookahead() {
+		return lookahead;
+	}
+
+	/**
+	 * gets names of the analyzed rules.
+	 *
+	 * @return the list of names
+	 */
+	public List<String> getRules() {
+		return new ArrayList<String>(reasons.keySet());
+	}
+
+	/**
+	 * tests whether all alternations are predictive.
+	 *
+	 * @return true if all alternations are predictive
+	 */
+	public boolean isPredictive() {
+		return getNonPredictiveRules().isEmpty();
+	}
+
+	/**
+	 * tests whether all alternations of the given rule are predictive.
+	 *
+	 * @param rule a name of the rule
+	 * @return true if all alternations of the rule are predictive
+	 */
+	public boolean isPredictive(String rule) {
+		return getReasons(rule).isEmpty();
+	}
+
+	/**
+	 * gets names of the rules which have alternations which are not predictive.
+	 *
+	 * @return the list of names
+	 */
+	public List<String> getNonPredictiveRules() {
+		List<String> result = new ArrayList<String>();
+
+		for(Map.Entry<String, List<String>> entry : reasons.entrySet()) {
+			if(!entry.getValue().isEmpty()) {
+				result.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * gets reasons why alternations of the given rule are not predictive.
+	 *
+	 * @param rule a name of the rule
+	 * @return the list of reasons, or an empty list if the rule is predictive
+	 */
+	public List<String> getReasons(String rule) {
+		if(!reasons.containsKey(rule)) {
+			throw new IllegalArgumentException("rule is not found: " + rule);
+		}
+		return Collections.unmodifiableList(reasons.get(rule));
+	}
+
+	/**
+	 * returns the string representation of this report which lists all reasons.
+	 */
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+
+		for(Map.Entry<String, List<String>> entry : reasons.entrySet()) {
+			for(String reason : entry.getValue()) {
+				builder.append(entry.getKey()).append(": ").append(reason).append('\n');
+			}
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,328 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A matcher which splits a string into tokens before matching.<br>
+ * All terminals of a grammar (strings, regular expressions, keywords and tests of keywords)
+ * are collected and the string is tokenized once by the longest match of the terminals.
+ * Spaces are skipped once for each token.
+ * The terminals of the grammar are matched by looking up the token at the index,
+ * hence a terminal matches only if it matches the whole token.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+public final class Lexer<A> implements PatternMatcher<A> {
+
+	/**
+	 * A sequence of tokens.<br>
+	 * The sequence is also the tokenized string.
+	 */
+	public static final class Tokens implements Input {
+
+		private final CharSequence sequence;
+		private final SkipPolicy ignore;
+		private final int[] kinds;
+		private final int[] starts;
+		private final int[] ends;
+		private final int[] sets;
+		private final List<BitSet> kindSets;
+		private final int[] tokenAt;
+		private final int[] skipped;
+
+		private Tokens(CharSequence sequence, SkipPolicy ignore, int[] kinds, int[] starts, int[] ends, int[] sets,
+				List<BitSet> kindSets, int[] tokenAt, int[] skipped) {
+			this.sequence = sequence;
+			this.ignore = ignore;
+			this.kinds = kinds;
+			this.starts = starts;
+			this.ends = ends;
+			this.sets = sets;
+			this.kindSets = kindSets;
+			this.tokenAt = tokenAt;
+			this.skipped = skipped;
+		}
+
+		/**
+		 * gets the number of tokens.
+		 *
+		 * @return the number of tokens
+		 */
+		public int size() {
+			return kinds.length;
+		}
+
+		/**
+		 * gets the kind of the token which is the index of the first terminal matching the token.
+		 *
+		 * @param token the index of the token
+		 * @return the kind
+		 */
+		public int getKind(int token) {
+			return kinds[token];
+		}
+
+		/**
+		 * gets the start index of the token.
+		 *
+		 * @param token the index of the token
+		 * @return the start index
+		 */
+		public int getStart(int token) {
+			return starts[token];
+		}
+
+		/**
+		 * gets the end index of the token.
+		 *
+		 * @param token the index of the token
+		 * @return the end index
+		 */
+		public int getEnd(int token) {
+			return ends[token];
+		}
+
+		/**
+		 * gets the index after the last token.<br>
+		 * If the index is less than the length, the rest of the string cannot be tokenized.
+		 *
+		 * @return the index after the last token
+		 */
+		public int getLastIndex() {
+			for(int i = skipped.length - 1; i >= 0; i--) {
+				if(skipped[i] >= 0) {
+					return skipped[i];
+				}
+			}
+			return 0;
+		}
+
+		@Override
+		public int tokenEnd(int kind, int index) {
+			int token;
+
+			if(index < 0 || index >= tokenAt.length || (token = tokenAt[index]) < 0) {
+				return -2;
+			}
+			return kindSets.get(sets[token]).get(kind) ? ends[token] : -1;
+		}
+
+		@Override
+		public int skipped(SkipPolicy policy, int index) {
+			return policy == ignore && index >= 0 && index < skipped.length ? skipped[index] : -1;
+		}
+
+		@Override
+		public boolean isStable() {
+			return CharSequences.isStable(sequence);
+		}
+
+		@Override
+		public int length() {
+			return sequence.length();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return sequence.charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return sequence.subSequence(start, end);
+		}
+
+		@Override
+		public String toString() {
+			return sequence.toString();
+		}
+
+	}
+
+	private final PatternMatcher<A> matcher;
+	private final List<Node<A>> terminals;
+	private final SkipPolicy ignore;
+
+	private Lexer(PatternMatcher<A> matcher, List<Node<A>> terminals) {
+		Map<SkipPolicy, Integer> counts = new HashMap<SkipPolicy, Integer>();
+		SkipPolicy ignore = null;
+		int max = 0;
+
+		this.matcher = matcher;
+		this.terminals = Collections.unmodifiableList(terminals);
+
+		// spaces are skipped by the policy which most terminals use
+		for(Node<A> terminal : terminals) {
+			int count = counts.getOrDefault(terminal.ignore(), 0) + 1;
+
+			counts.put(terminal.ignore(), count);
+			if(count > max) {
+				max = count;
+				ignore = terminal.ignore();
+			}
+		}
+		this.ignore = ignore;
+	}
+
+	/**
+	 * creates a lexer of the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return a lexer
+	 */
+	static<A> Lexer<A> of(PatternMatcher<A> matcher) {
+		Map<Node<A>, Node<A>> tokens = new IdentityHashMap<Node<A>, Node<A>>();
+		List<Node<A>> terminals = new ArrayList<Node<A>>();
+		PatternMatcher<A> rewritten;
+
+		rewritten = Optimizer.optimize(matcher, terminal -> {
+			Node<A> token = tokens.get(terminal);
+
+			if(token == null) {
+				tokens.put(terminal, token = new Node.Token<A>(terminal, terminals.size()));
+				terminals.add(terminal);
+			}
+			return token;
+		});
+		return new Lexer<A>(rewritten, terminals);
+	}
+
+	/**
+	 * gets the terminals of the grammar in order of kinds.
+	 *
+	 * @return the unmodifiable list of terminals
+	 */
+	public List<PatternMatcher<A>> getTerminals() {
+		return Collections.<PatternMatcher<A>>unmodifiableList(terminals);
+	}
+
+	/**
+	 * splits the given string into tokens from the given index.<br>
+	 * Tokenizing stops at the index where no terminal matches a non-empty string.
+	 *
+	 * @param sequence a string
+	 * @param index an index
+	 * @return tokens
+	 */
+	public Tokens tokenize(CharSequence sequence, int index) {
+		int length = sequence.length(), count = 0;
+		int[] kinds = new int[16], starts = new int[16], ends = new int[16], sets = new int[16];
+		int[] tokenAt = new int[length + 1], skipped = new int[length + 1];
+		Map<BitSet, Integer> setIds = new HashMap<BitSet, Integer>();
+		List<BitSet> kindSets = new ArrayList<BitSet>();
+
+		Arrays.fill(tokenAt, -1);
+		Arrays.fill(skipped, -1);
+		skipped[index] = skip(sequence, index);
+		for(int next = skipped[index]; next < length; next = skipped[ends[count - 1]]) {
+			BitSet longest = new BitSet(), empty = new BitSet();
+			int end = next;
+			Integer id;
+
+			for(int kind = 0; kind < terminals.size(); kind++) {
+				Node<A> terminal = terminals.get(kind);
+				int e = end(terminal, sequence, next);
+
+				if(e < 0) {
+					continue;
+				} else if(terminal instanceof Node.NotKeyword) {
+					empty.set(kind);
+				} else if(e > end) {
+					end = e;
+					longest.clear();
+					longest.set(kind);
+				} else if(e == end) {
+					longest.set(kind);
+				}
+			}
+			if(end == next) {
+				break;
+			}
+
+			if(count == kinds.length) {
+				kinds = Arrays.copyOf(kinds, count * 2);
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+				sets = Arrays.copyOf(sets, count * 2);
+			}
+			kinds[count] = longest.nextSetBit(0);
+			longest.or(empty);
+			if((id = setIds.get(longest)) == null) {
+				setIds.put(longest, id = kindSets.size());
+				kindSets.add(longest);
+			}
+			starts[count] = next;
+			ends[count] = end;
+			sets[count] = id;
+			tokenAt[next] = count++;
+			skipped[end] = skip(sequence, end);
+		}
+		return new Tokens(sequence, ignore,
+				Arrays.copyOf(kinds, count), Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+				Arrays.copyOf(sets, count), kindSets, tokenAt, skipped);
+	}
+
+	private int skip(CharSequence sequence, int index) {
+		return Node.skip(ignore, sequence, index);
+	}
+
+	/*
+	 * computes the end of the terminal without running actions
+	 */
+	private static<A> int end(Node<A> terminal, CharSequence sequence, int index) {
+		PatternResult<A> result;
+
+		if(terminal instanceof Node.Literal) {
+			String string = ((Node.Literal<A>)terminal).string;
+
+			return CharSequences.startsWith(sequence, string, index) ? index + string.length() : -1;
+		} else if(terminal instanceof Node.Regex) {
+			return ((Node.Regex<A>)terminal).dfa.lookingAt(sequence, index);
+		} else {
+			// keywords have no actions
+			return (result = terminal.match(sequence, index, null)) != null ? result.getLastIndex() : -1;
+		}
+	}
+
+	/**
+	 * tokenizes the string and matches the grammar over the tokens.<br>
+	 * Inputs which cannot be read in advance, such as strings read from a Reader
+	 * or edited incrementally, are not tokenized.
+	 */
+	@Override
+	public PatternResult<A> match(CharSequence match, int index, A attribute) {
+		if(!isTokenizable(match, index)) {
+			return matcher.match(match, index, attribute);
+		}
+		return matcher.match(tokenize(match, index), index, attribute);
+	}
+
+	@Override
+	public int matchLength(CharSequence match, int index) {
+		if(!isTokenizable(match, index)) {
+			return matcher.matchLength(match, index);
+		}
+		return matcher.matchLength(tokenize(match, index), index);
+	}
+
+	private static boolean isTokenizable(CharSequence match, int index) {
+		return index <= match.length() && CharSequences.canReadAhead(match);
+	}
+
+}
@@ -0,0 +1,327 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A linear approximation of the first k characters which a matcher can match.<br>
+ * The i-th set contains the characters which can appear at the i-th position.
+ * A null set means any character or the end of the string.
+ * The approximation is conservative:
+ * if a set at some position is disjoint from the set of another matcher,
+ * no string can be matched by both matchers.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class LinearLookahead {
+
+	private final BitSet[] positions;
+	private final int min;
+	private final boolean fixed;
+
+	private LinearLookahead(BitSet[] positions, int min, boolean fixed) {
+		this.positions = positions;
+		this.min = min;
+		this.fixed = fixed;
+	}
+
+	private static LinearLookahead any(int k, int min) {
+		return new LinearLookahead(new BitSet[k], min, false);
+	}
+
+	/**
+	 * computes the lookahead of the given matchers.
+	 *
+	 * @param matchers matchers
+	 * @param k the number of characters
+	 * @return lookahead of the matchers in order
+	 */
+	static List<LinearLookahead> of(List<? extends PatternMatcher<?>> matchers, int k) {
+		Map<PatternMatcher<?>, LinearLookahead> visited = new IdentityHashMap<PatternMatcher<?>, LinearLookahead>();
+		List<LinearLookahead> result = new ArrayList<LinearLookahead>();
+
+		for(PatternMatcher<?> matcher : matchers) {
+			result.add(of(matcher, k, visited));
+		}
+		return result;
+	}
+
+	/**
+	 * finds reasons why the given alternatives cannot be predicted by the given lookahead.<br>
+	 * The last alternative may match an empty string because it is tried if others do not match.
+	 *
+	 * @param lookaheads lookahead of alternatives
+	 * @param k the number of characters
+	 * @return reasons, or an empty list if the alternatives can be predicted
+	 */
+	static List<String> conflicts(List<LinearLookahead> lookaheads, int k) {
+		List<String> result = new ArrayList<String>();
+
+		for(int i = 0; i < lookaheads.size(); i++) {
+			if(lookaheads.get(i).min == 0 && i < lookaheads.size() - 1) {
+				result.add("alternative #" + i + " can match an empty string");
+			}
+		}
+		for(int i = 0; i < lookaheads.size(); i++) {
+			for(int j = i + 1; j < lookaheads.size(); j++) {
+				if(lookaheads.get(i).min > 0 && lookaheads.get(j).min > 0 &&
+						!lookaheads.get(i).isDisjoint(lookaheads.get(j))) {
+					result.add("alternatives #" + i + " and #" + j + " are not distinguished by " +
+							k + (k > 1 ? " characters" : " character"));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * tests whether this lookahead can match an empty string.
+	 *
+	 * @return true if this lookahead can match an empty string
+	 */
+	boolean isNullable() {
+		return min == 0;
+	}
+
+	/**
+	 * gets the set of the first position.
+	 *
+	 * @return the set, or null if any character
+	 */
+	BitSet first() {
+		return positions[0];
+	}
+
+	/**
+	 * tests whether no string can be matched by both lookaheads.
+	 *
+	 * @param other a lookahead
+	 * @return true if the lookaheads are disjoint
+	 */
+	boolean isDisjoint(LinearLookahead other) {
+		for(int i = 0; i < positions.length; i++) {
+			if(positions[i] != null && other.positions[i] != null && !positions[i].intersects(other.positions[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * tests whether the string at the given index can be matched by this lookahead.
+	 *
+	 * @param match a string
+	 * @param index an index
+	 * @return true if the string can be matched
+	 */
+	boolean admits(CharSequence match, int index) {
+		for(int i = 0; i < positions.length; i++) {
+			int ch;
+
+			if(positions[i] == null) {
+				continue;
+			} else if((ch = CharSequences.charAt(match, index + i)) < 0 || !positions[i].get(ch)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static LinearLookahead of(PatternMatcher<?> matcher, int k, Map<PatternMatcher<?>, LinearLookahead> visited) {
+		LinearLookahead result = visited.get(matcher);
+
+		if(result == null) {
+			// a recursive reference which is being computed is assumed to be any
+			visited.put(matcher, any(k, 0));
+			result = compute(matcher, k, visited);
+			visited.put(matcher, result);
+		}
+		return result;
+	}
+
+	private static LinearLookahead compute(PatternMatcher<?> m, int k, Map<PatternMatcher<?>, LinearLookahead> visited) {
+		if(m instanceof Node.Then) {
+			List<PatternMatcher<?>> chain = new ArrayList<PatternMatcher<?>>();
+			PatternMatcher<?> head = m;
+			OperationMatcher<?> skipper;
+			boolean skip;
+			LinearLookahead result;
+
+			for(; head instanceof Node.Then; head = ((Node.Then<?>)head).left) {
+				chain.add(0, ((Node.Then<?>)head).right);
+			}
+			skipper = Node.skipper((OperationMatcher<?>)head);
+			skip = !(skipper instanceof Node) || ((Node<?>)skipper).ignore() != null;
+			result = of(head, k, visited);
+			for(PatternMatcher<?> right : chain) {
+				if(result.fixed && !skip && result.min >= k) {
+					break;
+				}
+				result = concat(result, of(right, k, visited), skip, k);
+			}
+			return result;
+		} else if(m instanceof Node.Literal) {
+			return string(((Node.Literal<?>)m).string, k);
+		} else if(m instanceof Node.Keyword) {
+			return string(((Node.Keyword<?>)m).key, k);
+		} else if(m instanceof Node.Regex) {
+			return regex(((Node.Regex<?>)m).pattern, k);
+		} else if(m instanceof Node.Init || m instanceof Node.NotKeyword) {
+			return new LinearLookahead(new BitSet[k], 0, true);
+		} else if(m instanceof Node.Literals) {
+			LinearLookahead result = null;
+
+			for(Node.Literal<?> literal : ((Node.Literals<?>)m).literals) {
+				result = union(result, of(literal, k, visited));
+			}
+			return result;
+		} else if(m instanceof Node.Keys) {
+			LinearLookahead result = null;
+
+			for(Node.Keyword<?> keyword : ((Node.Keys<?>)m).keywords) {
+				result = union(result, of(keyword, k, visited));
+			}
+			return result;
+		} else if(m instanceof Node.Or) {
+			return union(of(((Node.Or<?>)m).left, k, visited), of(((Node.Or<?>)m).right, k, visited));
+		} else if(m instanceof Node.Choice) {
+			LinearLookahead result = null;
+
+			for(PatternMatcher<?> alternative : ((Node.Choice<?>)m).alternatives) {
+				result = union(result, of(alternative, k, visited));
+			}
+			return result;
+		} else if(m instanceof Node.Times) {
+			Node.Times<?> times = (Node.Times<?>)m;
+			OperationMatcher<?> skipper = Node.skipper(times.pattern);
+			LinearLookahead pattern = of(times.pattern, k, visited);
+
+			if(times.countmin == 0) {
+				return any(k, 0);
+			} else if(!(skipper instanceof Node) || ((Node<?>)skipper).ignore() != null) {
+				// spaces are skipped before the first repetition
+				return any(k, pattern.min);
+			}
+			return prefix(pattern, k);
+		} else if(m instanceof Node.Delimit) {
+			return prefix(of(((Node.Delimit<?>)m).pattern, k, visited), k);
+		} else if(m instanceof Node.Cond) {
+			return of(((Node.Cond<?>)m).pattern, k, visited);
+		} else if(m instanceof Node.End) {
+			return of(((Node.End<?>)m).pattern, k, visited);
+		} else if(m instanceof Node.Lookahead) {
+			return of(((Node.Lookahead<?>)m).pattern, k, visited);
+		} else if(m instanceof Node.Action) {
+			return of(((Node.Action<?>)m).matcher, k, visited);
+		} else if(m instanceof Node.Wrap) {
+			return of(((Node.Wrap<?>)m).matcher, k, visited);
+		} else if(m instanceof Node.Token) {
+			return of(((Node.Token<?>)m).terminal, k, visited);
+		} else if(m instanceof RuleRef) {
+			PatternMatcher<?> target = ((RuleRef<?>)m).getTarget();
+
+			return target != null ? of(target, k, visited) : any(k, 0);
+		} else if(m instanceof MemoTable.Memo) {
+			return of(((MemoTable.Memo<?>)m).matcher, k, visited);
+		} else if(m instanceof IncrementalText.Memo) {
+			return of(((IncrementalText.Memo<?>)m).matcher, k, visited);
+		} else if(m instanceof StackMachine) {
+			return of(((StackMachine<?>)m).matcher, k, visited);
+		} else if(m instanceof Compiler.Compiled) {
+			return of(((Compiler.Compiled<?>)m).source, k, visited);
+		} else if(m instanceof Deferred) {
+			return of(((Deferred<?>)m).source, k, visited);
+		} else {
+			return any(k, 0);
+		}
+	}
+
+	private static LinearLookahead string(String string, int k) {
+		BitSet[] positions = new BitSet[k];
+
+		for(int i = 0; i < k && i < string.length(); i++) {
+			positions[i] = new BitSet();
+			positions[i].set(string.charAt(i));
+		}
+		return new LinearLookahead(positions, string.length(), true);
+	}
+
+	/*
+	 * analyzes atoms of a regular expression until a quantifier except + appears.
+	 */
+	private static LinearLookahead regex(Pattern pattern, int k) {
+		String regex = pattern.pattern();
+		BitSet[] positions = new BitSet[k];
+		int count = 0;
+
+		if(!FirstSet.isSimple(pattern)) {
+			return any(k, 0);
+		}
+		for(int i = 0; i < regex.length(); count++) {
+			BitSet chars = new BitSet();
+			int next = FirstSet.atom(regex, i, chars);
+
+			if(next < 0 || (next < regex.length() && "?*{".indexOf(regex.charAt(next)) >= 0)) {
+				return new LinearLookahead(positions, count, false);
+			} else if(count < k) {
+				positions[count] = chars;
+			}
+			if(next < regex.length() && regex.charAt(next) == '+') {
+				return new LinearLookahead(positions, count + 1, false);
+			}
+			i = next;
+		}
+		return new LinearLookahead(positions, count, true);
+	}
+
+	private static LinearLookahead union(LinearLookahead a, LinearLookahead b) {
+		BitSet[] positions;
+
+		if(a == null) {
+			return b;
+		}
+		positions = new BitSet[a.positions.length];
+		for(int i = 0; i < positions.length; i++) {
+			if(a.positions[i] != null && b.positions[i] != null) {
+				positions[i] = (BitSet)a.positions[i].clone();
+				positions[i].or(b.positions[i]);
+			}
+		}
+		return new LinearLookahead(positions, Math.min(a.min, b.min), a.fixed && b.fixed && a.min == b.min);
+	}
+
+	private static LinearLookahead prefix(LinearLookahead a, int k) {
+		BitSet[] positions = new BitSet[k];
+
+		for(int i = 0; i < k && i < a.min; i++) {
+			positions[i] = a.positions[i];
+		}
+		return new LinearLookahead(positions, a.min, false);
+	}
+
+	private static LinearLookahead concat(LinearLookahead a, LinearLookahead b, boolean skip, int k) {
+		BitSet[] positions = new BitSet[k];
+
+		for(int i = 0; i < k; i++) {
+			if(i < a.min) {
+				positions[i] = a.positions[i];
+			} else if(a.fixed && !skip) {
+				positions[i] = b.positions[i - a.min];
+			}
+		}
+		return new LinearLookahead(positions, a.min + b.min, a.fixed && !skip && b.fixed);
+	}
+
+}
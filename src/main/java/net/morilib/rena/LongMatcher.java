@@ -0,0 +1,77 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A matcher whose attributes are long.<br>
+ * This matcher is also a PatternMatcher&lt;Long&gt; and can be combined with matchers of the generic API.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public final class LongMatcher extends PrimitiveMatcher<Long, LongMatcher, LongPatternAction> {
+
+	static final PrimitiveType<Long, LongMatcher, LongPatternAction> TYPE =
+			new PrimitiveType<Long, LongMatcher, LongPatternAction>() {
+
+		@Override
+		LongMatcher matcher(PrimitiveNode node, SkipPolicy ignore) {
+			return new LongMatcher(node, ignore);
+		}
+
+		@Override
+		PrimitiveNode.LongAction convert(LongPatternAction action) {
+			return (match, start, end, syn, inh) ->
+					action.action(CharSequences.substring(match, start, end), syn, inh);
+		}
+
+		@Override
+		Long box(long value) {
+			return value;
+		}
+
+		@Override
+		long unbox(Long value) {
+			return value != null ? value : 0;
+		}
+
+	};
+
+	private LongMatcher(PrimitiveNode node, SkipPolicy ignore) {
+		super(node, ignore, TYPE);
+	}
+
+	/**
+	 * matches the given string from the given index.<br>
+	 * The attribute is not boxed.
+	 *
+	 * @param match a string to be matched
+	 * @param index an index to start matching
+	 * @param attribute inherited attribute
+	 * @return matching result, or null if it does not match
+	 */
+	public LongResult matchLong(CharSequence match, int index, long attribute) {
+		PrimitiveNode.Context ctx = new PrimitiveNode.Context(false);
+		int end = node.match(ctx, match, index, attribute);
+
+		return end >= 0 ? new LongResult(match, index, end, ctx.value) : null;
+	}
+
+	/**
+	 * matches the given string from the beginning.<br>
+	 * The attribute is not boxed.
+	 *
+	 * @param match a string to be matched
+	 * @param attribute inherited attribute
+	 * @return matching result, or null if it does not match
+	 */
+	public LongResult parseLong(CharSequence match, long attribute) {
+		return matchLong(match, 0, attribute);
+	}
+
+}
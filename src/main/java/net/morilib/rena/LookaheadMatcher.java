@@ -23,23 +23,7 @@ public interface LookaheadMatcher<A> extends ThenMatcher<A> {
 	 * @return this instance
 	 */
 	public default LookaheadMatcher<A> lookahead(final PatternMatcher<A> matcher) {
-		return new LookaheadMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result1 = LookaheadMatcher.this.match(match, index, attribute);
-
-				if(result1 == null) {
-					return null;
-				} else if(matcher.match(match, result1.getLastIndex(), result1.getAttribute()) == null) {
-					return null;
-				} else {
-					return result1;
-				}			
-			}
-
-			public int skipSpace(String match, int index) {
-				return LookaheadMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Lookahead<A>(this, matcher, false);
 	}
 
 	/**
@@ -49,23 +33,7 @@ public interface LookaheadMatcher<A> extends ThenMatcher<A> {
 	 * @return this instance
 	 */
 	public default LookaheadMatcher<A> lookaheadNot(final PatternMatcher<A> matcher) {
-		return new LookaheadMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result1 = LookaheadMatcher.this.match(match, index, attribute);
-
-				if(result1 == null) {
-					return null;
-				} else if(matcher.match(match, result1.getLastIndex(), result1.getAttribute()) != null) {
-					return null;
-				} else {
-					return result1;
-				}			
-			}
-
-			public int skipSpace(String match, int index) {
-				return LookaheadMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Lookahead<A>(this, matcher, true);
 	}
 
 }
@@ -0,0 +1,188 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongToIntFunction;
+
+/**
+ * A CharSequence of a memory-mapped file whose characters are decoded on demand.<br>
+ * UTF-8, ISO-8859-1 and US-ASCII are supported.
+ * Characters of UTF-8 are decoded by blocks and only one block is held in the heap.<br>
+ * An instance must not be shared by threads.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class MappedCharSequence implements CharSequence {
+
+	private static final long SEGMENT = 1L << 30;
+	private static final int BLOCK = 4096;
+
+	private final MappedByteBuffer[] segments;
+	private final long size;
+	private final Charset charset;
+	private final int length;
+	private final boolean ascii;
+	private final LongToIntFunction bytes = this::getByte;
+
+	// indices of blocks of UTF-8
+	private long[] blockBytes;
+	private int[] blockChars;
+	private int blocks;
+
+	// a decoded block of UTF-8
+	private char[] cache;
+	private int cacheStart = 0;
+	private int cacheEnd = 0;
+
+	private MappedCharSequence(MappedByteBuffer[] segments, long size, Charset charset) {
+		this.segments = segments;
+		this.size = size;
+		this.charset = charset;
+		this.ascii = charset.equals(StandardCharsets.US_ASCII);
+		if(charset.equals(StandardCharsets.UTF_8)) {
+			length = index();
+			cache = new char[BLOCK + 1];
+		} else if(size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("file is too large");
+		} else {
+			length = (int)size;
+		}
+	}
+
+	/**
+	 * maps the given file.
+	 *
+	 * @param path a path of the file
+	 * @param charset a charset of the file
+	 * @return a mapped sequence
+	 * @throws IOException I/O error
+	 */
+	static MappedCharSequence map(Path path, Charset charset) throws IOException {
+		if(!charset.equals(StandardCharsets.UTF_8) &&
+				!charset.equals(StandardCharsets.ISO_8859_1) &&
+				!charset.equals(StandardCharsets.US_ASCII)) {
+			throw new IllegalArgumentException("unsupported charset: " + charset);
+		}
+
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int)((size + SEGMENT - 1) / SEGMENT)];
+
+			for(int i = 0; i < segments.length; i++) {
+				long position = i * SEGMENT;
+
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						position,
+						Math.min(SEGMENT, size - position));
+			}
+			return new MappedCharSequence(segments, size, charset);
+		}
+	}
+
+	private int getByte(long position) {
+		return segments[(int)(position / SEGMENT)].get((int)(position % SEGMENT)) & 0xff;
+	}
+
+	private int index() {
+		long chars = 0;
+
+		blockBytes = new long[16];
+		blockChars = new int[16];
+		blocks = 0;
+		for(long position = 0; position < size;) {
+			int packed = Utf8.decode(bytes, position, size);
+
+			if(chars >= (long)blocks * BLOCK) {
+				if(blocks >= blockBytes.length) {
+					blockBytes = Arrays.copyOf(blockBytes, blocks * 2);
+					blockChars = Arrays.copyOf(blockChars, blocks * 2);
+				}
+				blockBytes[blocks] = position;
+				blockChars[blocks] = (int)chars;
+				blocks++;
+			}
+			position += Utf8.length(packed);
+			chars += Character.charCount(Utf8.codePoint(packed));
+			if(chars > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("file is too large");
+			}
+		}
+		return (int)chars;
+	}
+
+	private void decodeBlock(int block) {
+		long position = blockBytes[block];
+		long limit = block + 1 < blocks ? blockBytes[block + 1] : size;
+		int ptr = 0;
+
+		while(position < limit) {
+			int packed = Utf8.decode(bytes, position, size);
+
+			ptr += Character.toChars(Utf8.codePoint(packed), cache, ptr);
+			position += Utf8.length(packed);
+		}
+		cacheStart = blockChars[block];
+		cacheEnd = cacheStart + ptr;
+	}
+
+	/**
+	 * gets the charset of this sequence.
+	 *
+	 * @return the charset
+	 */
+	Charset getCharset() {
+		return charset;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		int b;
+
+		if(index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		} else if(cache == null) {
+			b = getByte(index);
+			return ascii && b >= 0x80 ? (char)Utf8.REPLACEMENT : (char)b;
+		} else if(index >= cacheStart && index < cacheEnd) {
+			return cache[index - cacheStart];
+		} else {
+			int block = index / BLOCK;
+
+			if(block >= blocks || index < blockChars[block]) {
+				block--;
+			}
+			decodeBlock(block);
+			return cache[index - cacheStart];
+		}
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return CharSequences.slice(this, start, end);
+	}
+
+	@Override
+	public String toString() {
+		return CharSequences.slice(this, 0, length).toString();
+	}
+
+}
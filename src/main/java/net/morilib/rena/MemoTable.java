@@ -0,0 +1,220 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A table of memoized matching results for packrat parsing.<br>
+ * Results are cached by the rule, the starting index and the identity of the inherited attribute.
+ * The table is valid while the same input is parsed and is cleared
+ * automatically when another input is given,
+ * hence statistics of the table are of the current input.<br>
+ * A table must not be shared by threads.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+public class MemoTable {
+
+	private static final Object FAILED = new Object();
+	private static final Object LENGTH = new Object();
+
+	private static final int BYTES_PER_ENTRY = 96;
+	private static final int BYTES_PER_STRING = 40;
+
+	private static class Key {
+
+		private final int rule;
+		private final int index;
+		private final Object attribute;
+
+		private Key(int rule, int index, Object attribute) {
+			this.rule = rule;
+			this.index = index;
+			this.attribute = attribute;
+		}
+
+		public int hashCode() {
+			return (rule * 31 + index) * 31 + System.identityHashCode(attribute);
+		}
+
+		public boolean equals(Object o) {
+			if(o instanceof Key) {
+				Key k = (Key)o;
+
+				return rule == k.rule && index == k.index && attribute == k.attribute;
+			}
+			return false;
+		}
+
+	}
+
+	class Memo<A> implements PatternMatcher<A> {
+
+		private final int rule;
+		final PatternMatcher<A> matcher;
+
+		private Memo(int rule, PatternMatcher<A> matcher) {
+			this.rule = rule;
+			this.matcher = matcher;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			Key key = new Key(rule, index, attribute);
+			PatternResult<A> result;
+			Object cached;
+
+			if(match != input) {
+				clear();
+				input = match;
+			} else if((cached = table.get(key)) != null) {
+				hits++;
+				return cached == FAILED ? null : (PatternResult<A>)cached;
+			}
+			misses++;
+			result = matcher.match(match, index, attribute);
+			if(table.size() < maxEntries) {
+				table.put(key, result != null ? result : FAILED);
+				estimatedBytes += BYTES_PER_ENTRY;
+				if(result != null) {
+					estimatedBytes += BYTES_PER_STRING + 2L * (result.getLastIndex() - result.getStartIndex());
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * recognizes by the memoized matcher.<br>
+		 * End indices are cached apart from results because actions are not executed.
+		 */
+		@Override
+		public int matchLength(CharSequence match, int index) {
+			Key key = new Key(rule, index, LENGTH);
+			Object cached;
+			int end;
+
+			if(match != input) {
+				clear();
+				input = match;
+			} else if((cached = table.get(key)) != null) {
+				hits++;
+				return (Integer)cached;
+			}
+			misses++;
+			end = matcher.matchLength(match, index);
+			if(table.size() < maxEntries) {
+				table.put(key, end);
+				estimatedBytes += BYTES_PER_ENTRY;
+			}
+			return end;
+		}
+
+	}
+
+	private final int maxEntries;
+	private Map<Key, Object> table = new HashMap<Key, Object>();
+	private CharSequence input;
+	private int rules = 0;
+	private long hits = 0;
+	private long misses = 0;
+	private long estimatedBytes = 0;
+
+	/**
+	 * constructs a memo table without limit of entries.
+	 */
+	public MemoTable() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * constructs a memo table with the maximum number of entries.<br>
+	 * Results are not cached if the table is full.
+	 *
+	 * @param maxEntries maximum number of entries
+	 */
+	public MemoTable(int maxEntries) {
+		if(maxEntries < 0) {
+			throw new IllegalArgumentException("maximum of entries must be non negative");
+		}
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * creates a matcher whose results are memoized by this table.
+	 *
+	 * @param <A> attribute
+	 * @param matcher a matcher to memoize
+	 * @return a memoized matcher
+	 */
+	public <A> PatternMatcher<A> memoize(PatternMatcher<A> matcher) {
+		if(matcher == null) {
+			throw new NullPointerException();
+		}
+		return new Memo<A>(rules++, matcher);
+	}
+
+	/**
+	 * clears all cached results and statistics.<br>
+	 * This method must be called if the content of the input is changed.
+	 */
+	public void clear() {
+		table.clear();
+		input = null;
+		hits = misses = estimatedBytes = 0;
+	}
+
+	/**
+	 * gets the number of cached results.
+	 *
+	 * @return the number of cached results
+	 */
+	public int size() {
+		return table.size();
+	}
+
+	/**
+	 * gets the maximum number of cached results.
+	 *
+	 * @return the maximum number of cached results
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * gets the number of lookups which are found in this table.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * gets the number of lookups which are not found in this table.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * gets the estimated heap size of this table in bytes.
+	 *
+	 * @return estimated bytes
+	 */
+	public long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+
+}
@@ -0,0 +1,1095 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Nodes of matchers which are created by combinators.<br>
+ * Each node matches by recursion of its children,
+ * and the structure of nodes can be walked by engines which do not use recursion.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+abstract class Node<A> implements LookaheadMatcher<A> {
+
+	// span actions because they do not refer the matched string
+	private static final SpanAction<Object> NONE = (input, start, end, syn, inherit) -> null;
+	private static final SpanAction<Object> IDENTITY = (input, start, end, syn, inherit) -> syn;
+
+	private volatile Compiler.Recognizer<A> recognizer;
+
+	/**
+	 * A node which matches a string.
+	 */
+	static final class Literal<A> extends Node<A> {
+
+		final String string;
+		final PatternAction<A> action;
+		final SkipPolicy ignore;
+
+		Literal(String string, PatternAction<A> action, SkipPolicy ignore) {
+			this.string = string;
+			this.action = action;
+			this.ignore = ignore;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			if(CharSequences.startsWith(match, string, index)) {
+				return new PatternResult<A>(string,
+						index + string.length(),
+						action != null ? action.action(match, index, index + string.length(), null, attribute) : attribute);
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skip(ignore, match, index);
+		}
+
+		@Override
+		SkipPolicy ignore() {
+			return ignore;
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.LITERAL;
+		}
+
+		@Override
+		String text() {
+			return string;
+		}
+
+		@Override
+		boolean hasAction() {
+			return action != null;
+		}
+
+	}
+
+	/**
+	 * A node which matches a regular expression.
+	 */
+	static final class Regex<A> extends Node<A> {
+
+		final Pattern pattern;
+		final DfaRegex dfa;
+		final PatternAction<A> action;
+		final SkipPolicy ignore;
+
+		Regex(Pattern pattern, PatternAction<A> action, SkipPolicy ignore) {
+			this.pattern = pattern;
+			this.dfa = DfaRegex.compile(pattern);
+			this.action = action;
+			this.ignore = ignore;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			int lastIndex = dfa.lookingAt(match, index);
+
+			if(lastIndex >= 0) {
+				return PatternResult.of(match,
+						index,
+						lastIndex,
+						action != null ? action.action(match, index, lastIndex, null, attribute) : attribute);
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skip(ignore, match, index);
+		}
+
+		@Override
+		SkipPolicy ignore() {
+			return ignore;
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.REGEX;
+		}
+
+		@Override
+		String text() {
+			return pattern.pattern();
+		}
+
+		@Override
+		boolean hasAction() {
+			return action != null;
+		}
+
+	}
+
+	/**
+	 * A node which matches a keyword.
+	 */
+	static final class Keyword<A> extends Node<A> {
+
+		final String key;
+		final Rena<A> rena;
+		final SkipPolicy ignore;
+
+		Keyword(String key, Rena<A> rena, SkipPolicy ignore) {
+			this.key = key;
+			this.rena = rena;
+			this.ignore = ignore;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			int lastIndex;
+
+			if((lastIndex = rena.matchKeyword(key, match, index)) >= 0) {
+				return new PatternResult<A>(key, lastIndex, attribute);
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skip(ignore, match, index);
+		}
+
+		@Override
+		SkipPolicy ignore() {
+			return ignore;
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.KEYWORD;
+		}
+
+		@Override
+		String text() {
+			return key;
+		}
+
+	}
+
+	/**
+	 * A node which matches if any keyword does not match.
+	 */
+	static final class NotKeyword<A> extends Node<A> {
+
+		final Rena<A> rena;
+		final SkipPolicy ignore;
+
+		NotKeyword(Rena<A> rena, SkipPolicy ignore) {
+			this.rena = rena;
+			this.ignore = ignore;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			if(rena.searchKeyword(match, index) == null) {
+				return new PatternResult<A>("", index, attribute);
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skip(ignore, match, index);
+		}
+
+		@Override
+		SkipPolicy ignore() {
+			return ignore;
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.NOT_KEYWORD;
+		}
+
+	}
+
+	/**
+	 * A node which matches an empty string and returns the initial attribute.
+	 */
+	static final class Init<A> extends Node<A> {
+
+		final A init;
+		final SkipPolicy ignore;
+
+		Init(A init, SkipPolicy ignore) {
+			this.init = init;
+			this.ignore = ignore;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			return new PatternResult<A>("", index, init);
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skip(ignore, match, index);
+		}
+
+		@Override
+		SkipPolicy ignore() {
+			return ignore;
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.INIT;
+		}
+
+	}
+
+	/**
+	 * A node which wraps a matcher with a pattern to ignore.
+	 */
+	static final class Wrap<A> extends Node<A> {
+
+		final PatternMatcher<A> matcher;
+		final SkipPolicy ignore;
+
+		Wrap(PatternMatcher<A> matcher, SkipPolicy ignore) {
+			this.matcher = matcher;
+			this.ignore = ignore;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			return matcher.match(match, index, attribute);
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skip(ignore, match, index);
+		}
+
+		@Override
+		SkipPolicy ignore() {
+			return ignore;
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.WRAP;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(matcher);
+		}
+
+	}
+
+	/**
+	 * A node which matches a terminal by tokens of a lexer.<br>
+	 * The terminal is matched by itself if the sequence is not tokenized at the index.
+	 */
+	static final class Token<A> extends Node<A> {
+
+		final Node<A> terminal;
+		final int kind;
+		final PatternAction<A> action;
+		final boolean nullable;
+
+		Token(Node<A> terminal, int kind) {
+			this.terminal = terminal;
+			this.kind = kind;
+			this.action = terminal instanceof Literal ?
+					((Literal<A>)terminal).action :
+					terminal instanceof Regex ? ((Regex<A>)terminal).action : null;
+			this.nullable = FirstSet.of(terminal).isNullable();
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			int lastIndex;
+			PatternResult<A> result;
+			Input input;
+
+			if((input = CharSequences.input(match)) == null || (lastIndex = input.tokenEnd(kind, index)) < -1) {
+				return terminal.match(match, index, attribute);
+			} else if(lastIndex < 0) {
+				// a terminal which can match an empty string may match before the token
+				result = nullable ? terminal.match(match, index, attribute) : null;
+				return result != null && result.getLastIndex() == index ? result : null;
+			} else if(terminal instanceof NotKeyword) {
+				return new PatternResult<A>("", index, attribute);
+			}
+			return PatternResult.of(match,
+					index,
+					lastIndex,
+					action != null ? action.action(match, index, lastIndex, null, attribute) : attribute);
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return terminal.skipSpace(match, index);
+		}
+
+		@Override
+		SkipPolicy ignore() {
+			return terminal.ignore();
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.WRAP;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(terminal);
+		}
+
+	}
+
+	/**
+	 * A node which wraps a matcher with an action.
+	 */
+	static final class Action<A> extends Node<A> {
+
+		final PatternMatcher<A> matcher;
+		final PatternAction<A> action;
+		final SkipPolicy ignore;
+
+		Action(PatternMatcher<A> matcher, PatternAction<A> action, SkipPolicy ignore) {
+			this.matcher = matcher;
+			this.action = action;
+			this.ignore = ignore;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			return apply(matcher.match(match, index, attribute), attribute);
+		}
+
+		PatternResult<A> apply(PatternResult<A> result, A attribute) {
+			if(result != null) {
+				return result.with(result.act(action, attribute));
+			} else {
+				return null;
+			}
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skip(ignore, match, index);
+		}
+
+		@Override
+		SkipPolicy ignore() {
+			return ignore;
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.ACTION;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(matcher);
+		}
+
+		@Override
+		boolean hasAction() {
+			return action != null;
+		}
+
+	}
+
+	/**
+	 * A node of sequence.
+	 */
+	static final class Then<A> extends Node<A> {
+
+		final OperationMatcher<A> left;
+		final PatternMatcher<A> right;
+		final PatternAction<A> action;
+
+		Then(OperationMatcher<A> left, PatternMatcher<A> right, PatternAction<A> action) {
+			this.left = left;
+			this.right = right;
+			this.action = action;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			PatternResult<A> result1 = left.match(match, index, attribute);
+
+			if(result1 == null) {
+				return null;
+			}
+			return apply(match, index, result1,
+					right.match(match, skipSpace(match, result1.getLastIndex()), result1.getAttribute()));
+		}
+
+		PatternResult<A> apply(CharSequence match, int index, PatternResult<A> result1, PatternResult<A> result2) {
+			if(result2 == null) {
+				return null;
+			} else {
+				return PatternResult.of(match,
+						index,
+						result2.getLastIndex(),
+						action != null ?
+								action.action(match, index, result2.getLastIndex(), result2.getAttribute(), result1.getAttribute()) :
+									result1.getAttribute());
+			}
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return left.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.SEQ;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(left, right);
+		}
+
+		@Override
+		boolean hasAction() {
+			return action != null;
+		}
+
+	}
+
+	/**
+	 * A node of alternation.
+	 */
+	static final class Or<A> extends Node<A> {
+
+		final OperationMatcher<A> left;
+		final PatternMatcher<A> right;
+
+		Or(OperationMatcher<A> left, PatternMatcher<A> right) {
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			PatternResult<A> result1;
+
+			if((result1 = left.match(match, index, attribute)) != null) {
+				return result1;
+			} else {
+				return right.match(match, index, attribute);
+			}
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return left.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.CHOICE;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(left, right);
+		}
+
+	}
+
+	/**
+	 * A node of alternation of many matchers.<br>
+	 * Only alternatives which can begin with the character at the index are tried.
+	 * If lookahead is given, the alternative is predicted by the lookahead if possible.
+	 */
+	static final class Choice<A> extends Node<A> {
+
+		final OperationMatcher<A> skipper;
+		final PatternMatcher<A>[] alternatives;
+		final int lookahead;
+		private volatile Dispatch dispatch;
+
+		Choice(OperationMatcher<A> skipper, List<PatternMatcher<A>> alternatives) {
+			this(skipper, alternatives, 0);
+		}
+
+		Choice(OperationMatcher<A> skipper, List<PatternMatcher<A>> alternatives, int lookahead) {
+			this.skipper = skipper;
+			this.alternatives = toArray(alternatives);
+			this.lookahead = lookahead;
+		}
+
+		/**
+		 * gets the table of alternatives.<br>
+		 * The table is created at first matching because rules may not be defined at construction.
+		 *
+		 * @return the table
+		 */
+		Dispatch dispatch() {
+			Dispatch result = dispatch;
+
+			if(result == null) {
+				dispatch = result = new Dispatch(Arrays.asList(alternatives), lookahead);
+			}
+			return result;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			for(int i : dispatch().candidates(match, index)) {
+				PatternResult<A> result = alternatives[i].match(match, index, attribute);
+
+				if(result != null) {
+					return result;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skipper.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.CHOICE;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(alternatives);
+		}
+
+	}
+
+	/**
+	 * A node of alternation of strings which are looked up by a trie.<br>
+	 * The first string in order of alternatives will be matched.
+	 */
+	static final class Literals<A> extends Node<A> {
+
+		final OperationMatcher<A> skipper;
+		final Literal<A>[] literals;
+		final CharTrie trie;
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Literals(OperationMatcher<A> skipper, List<Literal<A>> literals) {
+			String[] strings = new String[literals.size()];
+
+			this.literals = literals.toArray(new Literal[0]);
+			for(int i = 0; i < strings.length; i++) {
+				strings[i] = this.literals[i].string;
+			}
+			this.skipper = skipper;
+			this.trie = new CharTrie(strings);
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			int found = trie.first(match, index);
+
+			return found >= 0 ? literals[found].match(match, index, attribute) : null;
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skipper.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.CHOICE;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.<PatternMatcher<A>>asList(literals);
+		}
+
+	}
+
+	/**
+	 * A node which matches one of keywords by a walk of the trie of keywords.
+	 */
+	static final class Keys<A> extends Node<A> {
+
+		final OperationMatcher<A> skipper;
+		final Keyword<A>[] keywords;
+		final PatternAction<A>[] actions;
+		final Rena<A> rena;
+		private final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Keys(OperationMatcher<A> skipper, List<Keyword<A>> keywords, List<PatternAction<A>> actions) {
+			this.skipper = skipper;
+			this.keywords = keywords.toArray(new Keyword[0]);
+			this.actions = actions.toArray(new PatternAction[0]);
+			this.rena = this.keywords[0].rena;
+			for(int i = this.keywords.length - 1; i >= 0; i--) {
+				indices.put(this.keywords[i].key, i);
+			}
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			int found = find(match, index);
+			String key;
+
+			if(found < 0) {
+				return null;
+			}
+			key = keywords[found].key;
+			return new PatternResult<A>(key,
+					index + key.length(),
+					actions[found] != null ? actions[found].action(match, index, index + key.length(), null, attribute) : attribute);
+		}
+
+		/**
+		 * finds the keyword which matches at the given index.
+		 *
+		 * @param match a string
+		 * @param index an index
+		 * @return the index of the keyword, or -1 if no keyword matches
+		 */
+		int find(CharSequence match, int index) {
+			String key = rena.searchKeyword(match, index);
+			Integer found;
+
+			return key == null || (found = indices.get(key)) == null ? -1 : found;
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return skipper.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.CHOICE;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.<PatternMatcher<A>>asList(keywords);
+		}
+
+	}
+
+	/**
+	 * A node of repetition.
+	 */
+	static final class Times<A> extends Node<A> {
+
+		final OperationMatcher<A> pattern;
+		final int countmin;
+		final int countmax;
+		final PatternAction<A> action;
+
+		Times(OperationMatcher<A> pattern, int countmin, int countmax, PatternAction<A> action) {
+			this.pattern = pattern;
+			this.countmin = countmin;
+			this.countmax = countmax;
+			this.action = action;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			PatternResult<A> result;
+			int lastIndex = index;
+			A attr = attribute;
+
+			for(int i = 0; countmax < 0 || i < countmax; i++) {
+				lastIndex = skipSpace(match, lastIndex);
+				if((result = pattern.match(match, lastIndex, attr)) == null) {
+					return i < countmin ? null : PatternResult.of(match, index, lastIndex, attr);
+				}
+				lastIndex = result.getLastIndex();
+				if(action != null) {
+					attr = result.act(action, attr);
+				}
+			}
+			return PatternResult.of(match, index, lastIndex, attr);
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return pattern.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.REPEAT;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(pattern);
+		}
+
+		@Override
+		boolean hasAction() {
+			return action != null;
+		}
+
+	}
+
+	/**
+	 * A node of delimited repetition.
+	 */
+	static final class Delimit<A> extends Node<A> {
+
+		final OperationMatcher<A> pattern;
+		final PatternMatcher<A> delimiter;
+		final PatternAction<A> action;
+
+		Delimit(OperationMatcher<A> pattern, PatternMatcher<A> delimiter, PatternAction<A> action) {
+			this.pattern = pattern;
+			this.delimiter = delimiter;
+			this.action = action;
+		}
+
+		private PatternResult<A> isMatched(CharSequence match, int index, A attr) {
+			PatternResult<A> result;
+
+			if((result = delimiter.match(match, index, attr)) == null) {
+				return null;
+			}
+			return pattern.match(match, skipSpace(match, result.getLastIndex()), attr);
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			PatternResult<A> result;
+			int lastIndex;
+			A attr = attribute;
+
+			if((result = pattern.match(match, index, attr)) == null) {
+				return null;
+			}
+			lastIndex = result.getLastIndex();
+			if(action != null) {
+				attr = result.act(action, attr);
+			}
+			while(true) {
+				if((result = isMatched(match, lastIndex, attr)) == null) {
+					return PatternResult.of(match, index, lastIndex, attr);
+				}
+				lastIndex = skipSpace(match, result.getLastIndex());
+				if(action != null) {
+					attr = result.act(action, attr);
+				}
+			}
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return pattern.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.DELIMIT;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(pattern, delimiter);
+		}
+
+		@Override
+		boolean hasAction() {
+			return action != null;
+		}
+
+	}
+
+	/**
+	 * A node which tests the attribute of the result.
+	 */
+	static final class Cond<A> extends Node<A> {
+
+		final OperationMatcher<A> pattern;
+		final Predicate<A> cond;
+
+		Cond(OperationMatcher<A> pattern, Predicate<A> cond) {
+			this.pattern = pattern;
+			this.cond = cond;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			return apply(pattern.match(match, index, attribute));
+		}
+
+		PatternResult<A> apply(PatternResult<A> result) {
+			return result != null && cond.test(result.getAttribute()) ? result : null;
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return pattern.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.COND;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(pattern);
+		}
+
+	}
+
+	/**
+	 * A node which matches the end of the string.
+	 */
+	static final class End<A> extends Node<A> {
+
+		final OperationMatcher<A> pattern;
+
+		End(OperationMatcher<A> pattern) {
+			this.pattern = pattern;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			return apply(match, pattern.match(match, index, attribute));
+		}
+
+		PatternResult<A> apply(CharSequence match, PatternResult<A> result) {
+			return result != null && CharSequences.isEnd(match, result.getLastIndex()) ? result : null;
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return pattern.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return Grammar.Kind.END;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(pattern);
+		}
+
+	}
+
+	/**
+	 * A node of lookahead.
+	 */
+	static final class Lookahead<A> extends Node<A> {
+
+		final LookaheadMatcher<A> pattern;
+		final PatternMatcher<A> matcher;
+		final boolean negative;
+
+		Lookahead(LookaheadMatcher<A> pattern, PatternMatcher<A> matcher, boolean negative) {
+			this.pattern = pattern;
+			this.matcher = matcher;
+			this.negative = negative;
+		}
+
+		@Override
+		public PatternResult<A> match(CharSequence match, int index, A attribute) {
+			PatternResult<A> result1 = pattern.match(match, index, attribute);
+
+			if(result1 == null) {
+				return null;
+			}
+			return apply(result1, matcher.match(match, result1.getLastIndex(), result1.getAttribute()));
+		}
+
+		PatternResult<A> apply(PatternResult<A> result1, PatternResult<A> result2) {
+			return (result2 == null) == negative ? result1 : null;
+		}
+
+		@Override
+		public int skipSpace(CharSequence match, int index) {
+			return pattern.skipSpace(match, index);
+		}
+
+		@Override
+		Grammar.Kind kind() {
+			return negative ? Grammar.Kind.LOOKAHEAD_NOT : Grammar.Kind.LOOKAHEAD;
+		}
+
+		@Override
+		List<PatternMatcher<A>> children() {
+			return Arrays.asList(pattern, matcher);
+		}
+
+	}
+
+	/**
+	 * recognizes by the recognizer which is compiled at the first call.
+	 */
+	@Override
+	public int matchLength(CharSequence match, int index) {
+		if(recognizer == null) {
+			recognizer = Compiler.recognizer(this);
+		}
+		return recognizer.matchLength(match, index);
+	}
+
+	/**
+	 * gets the kind of this node.
+	 *
+	 * @return the kind
+	 */
+	abstract Grammar.Kind kind();
+
+	/**
+	 * gets the children of this node.
+	 *
+	 * @return the children
+	 */
+	List<PatternMatcher<A>> children() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * tests whether this node has an action.
+	 *
+	 * @return true if this node has an action
+	 */
+	boolean hasAction() {
+		return false;
+	}
+
+	/**
+	 * gets the string, the regular expression or the keyword of this node.
+	 *
+	 * @return the text or null
+	 */
+	String text() {
+		return null;
+	}
+
+	/**
+	 * gets the policy to skip of this node.<br>
+	 * This method is meaningful if this node skips spaces by itself.
+	 *
+	 * @return the policy to skip, or null if spaces are not skipped
+	 */
+	SkipPolicy ignore() {
+		return null;
+	}
+
+	/**
+	 * returns an action which returns the synthesized attribute.
+	 *
+	 * @return an action
+	 */
+	@SuppressWarnings("unchecked")
+	static<A> PatternAction<A> identity() {
+		return (PatternAction<A>)IDENTITY;
+	}
+
+	/**
+	 * returns an action which returns null as the attribute.
+	 *
+	 * @return an action
+	 */
+	@SuppressWarnings("unchecked")
+	static<A> PatternAction<A> none() {
+		return (PatternAction<A>)NONE;
+	}
+
+	/**
+	 * finds the matcher whose skipSpace is called by skipSpace of the given matcher.<br>
+	 * If the result is a node, spaces are skipped by the policy of {@link #ignore()}.
+	 *
+	 * @param matcher a matcher
+	 * @return the matcher which skips spaces
+	 */
+	static OperationMatcher<?> skipper(OperationMatcher<?> matcher) {
+		OperationMatcher<?> m = matcher;
+
+		while(true) {
+			if(m instanceof Then) {
+				m = ((Then<?>)m).left;
+			} else if(m instanceof Or) {
+				m = ((Or<?>)m).left;
+			} else if(m instanceof Choice) {
+				m = ((Choice<?>)m).skipper;
+			} else if(m instanceof Literals) {
+				m = ((Literals<?>)m).skipper;
+			} else if(m instanceof Keys) {
+				m = ((Keys<?>)m).skipper;
+			} else if(m instanceof Times) {
+				m = ((Times<?>)m).pattern;
+			} else if(m instanceof Delimit) {
+				m = ((Delimit<?>)m).pattern;
+			} else if(m instanceof Cond) {
+				m = ((Cond<?>)m).pattern;
+			} else if(m instanceof End) {
+				m = ((End<?>)m).pattern;
+			} else if(m instanceof Lookahead) {
+				m = ((Lookahead<?>)m).pattern;
+			} else {
+				return m;
+			}
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static<A> PatternMatcher<A>[] toArray(List<PatternMatcher<A>> list) {
+		return list.toArray(new PatternMatcher[0]);
+	}
+
+	/**
+	 * skips by the given policy.
+	 *
+	 * @param ignore a policy to skip, or null if nothing is skipped
+	 * @param match a string
+	 * @param index an index
+	 * @return an index after skipping
+	 */
+	static int skip(SkipPolicy ignore, CharSequence match, int index) {
+		int skipped;
+		Input input;
+
+		if((input = CharSequences.input(match)) != null && (skipped = input.skipped(ignore, index)) >= 0) {
+			return skipped;
+		} else if(ignore != null) {
+			return ignore.skip(match, index);
+		} else {
+			return index;
+		}
+	}
+
+}
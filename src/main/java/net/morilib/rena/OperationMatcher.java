@@ -25,7 +25,7 @@ public interface OperationMatcher<A> extends PatternMatcher<A> {
 	 * @param index a starting index
 	 * @return a last index of skipping
 	 */
-	public int skipSpace(String match, int index);
+	public int skipSpace(CharSequence match, int index);
 
 	/**
 	 * repeats to the given count.<br>
@@ -46,29 +46,7 @@ public interface OperationMatcher<A> extends PatternMatcher<A> {
 		} else if(countmax >= 0 && (countmin > countmax)) {
 			throw new IllegalArgumentException("minimum must be less than or equal to maximum");
 		}
-		return new OperationMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result;
-				int lastIndex = index;
-				A attr = attribute;
-
-				for(int i = 0; countmax < 0 || i < countmax; i++) {
-					lastIndex = skipSpace(match, lastIndex);
-					if((result = OperationMatcher.this.match(match, lastIndex, attr)) == null) {
-						return i < countmin ? null : new PatternResult<A>(match.substring(index, lastIndex), lastIndex, attr);
-					}
-					lastIndex = result.getLastIndex();
-					if(action != null) {
-						attr = action.action(result.getMatch(), result.getAttribute(), attr);
-					}
-				}
-				return new PatternResult<A>(match.substring(index, lastIndex), lastIndex, attr);
-			}
-
-			public int skipSpace(String match, int index) {
-				return OperationMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Times<A>(this, countmin, countmax, action);
 	}
 
 	/**
@@ -203,45 +181,7 @@ public interface OperationMatcher<A> extends PatternMatcher<A> {
 	 */
 	public default OperationMatcher<A> delimit(final PatternMatcher<A> delimiter,
 			final PatternAction<A> action) {
-		return new OperationMatcher<A>() {
-			private PatternResult<A> isMatched(String match, int index, A attr) {
-				PatternResult<A> result;
-				int lastIndex = index;
-
-				if((result = delimiter.match(match, index, attr)) == null) {
-					return null;
-				}
-				lastIndex = skipSpace(match, result.getLastIndex());
-				return OperationMatcher.this.match(match, lastIndex, attr);
-			}
-
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result;
-				int lastIndex;
-				A attr = attribute;
-
-				if((result = OperationMatcher.this.match(match, index, attr)) == null) {
-					return null;
-				}
-				lastIndex = result.getLastIndex();
-				if(action != null) {
-					attr = action.action(result.getMatch(), result.getAttribute(), attr);
-				}
-				while(true) {
-					if((result = isMatched(match, lastIndex, attr)) == null) {
-						return new PatternResult<A>(match.substring(index, lastIndex), lastIndex, attr);
-					}
-					lastIndex = skipSpace(match, result.getLastIndex());
-					if(action != null) {
-						attr = action.action(result.getMatch(), result.getAttribute(), attr);
-					}
-				}
-			}
-
-			public int skipSpace(String match, int index) {
-				return OperationMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Delimit<A>(this, delimiter, action);
 	}
 
 	/**
@@ -262,17 +202,7 @@ public interface OperationMatcher<A> extends PatternMatcher<A> {
 	 * @return a matcher
 	 */
 	public default OperationMatcher<A> cond(final Predicate<A> cond) {
-		return new OperationMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result = OperationMatcher.this.match(match, index, attribute);
-
-				return result != null && cond.test(result.getAttribute()) ? result : null;
-			}
-
-			public int skipSpace(String match, int index) {
-				return OperationMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Cond<A>(this, cond);
 	}
 
 	/**
@@ -281,17 +211,7 @@ public interface OperationMatcher<A> extends PatternMatcher<A> {
 	 * @return a matcher
 	 */
 	public default OperationMatcher<A> end() {
-		return new OperationMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result = OperationMatcher.this.match(match, index, attribute);
-
-				return result != null && match.length() == result.getLastIndex() ? result : null;
-			}
-
-			public int skipSpace(String match, int index) {
-				return OperationMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.End<A>(this);
 	}
 
 }
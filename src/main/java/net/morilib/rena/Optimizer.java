@@ -0,0 +1,333 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An optimizer which rewrites nodes of combinators to equivalent nodes.<br>
+ * The following rewritings are applied.
+ * <ul>
+ * <li>adjacent strings without skipping spaces between them are fused into a string</li>
+ * <li>nested alternations are flattened into an alternation of many matchers</li>
+ * <li>adjacent alternatives of strings are merged into a lookup of a trie</li>
+ * <li>adjacent alternatives of keywords are merged into a walk of the trie of keywords</li>
+ * <li>actions which return the synthesized attribute are dropped</li>
+ * </ul>
+ * The given matchers are not modified and the rewritten matchers return the same results.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+final class Optimizer<A> {
+
+	private final Map<PatternMatcher<A>, PatternMatcher<A>> optimized =
+			new IdentityHashMap<PatternMatcher<A>, PatternMatcher<A>>();
+	private final int lookahead;
+	private final Function<Node<A>, Node<A>> terminal;
+
+	private Optimizer(int lookahead, Function<Node<A>, Node<A>> terminal) {
+		this.lookahead = lookahead;
+		this.terminal = terminal;
+	}
+
+	/**
+	 * optimizes the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return an optimized matcher
+	 */
+	static<A> PatternMatcher<A> optimize(PatternMatcher<A> matcher) {
+		return new Optimizer<A>(0, null).visit(matcher);
+	}
+
+	/**
+	 * optimizes the given matcher and makes alternations predictive by the given lookahead.
+	 *
+	 * @param matcher a matcher
+	 * @param lookahead the number of characters of lookahead
+	 * @return an optimized matcher
+	 */
+	static<A> PatternMatcher<A> optimize(PatternMatcher<A> matcher, int lookahead) {
+		if(lookahead < 1) {
+			throw new IllegalArgumentException("lookahead must be positive");
+		}
+		return new Optimizer<A>(lookahead, null).visit(matcher);
+	}
+
+	/**
+	 * optimizes the given matcher and rewrites terminals by the given function.<br>
+	 * Terminals are strings, regular expressions, keywords and tests of keywords.
+	 *
+	 * @param matcher a matcher
+	 * @param terminal a function which rewrites a terminal
+	 * @return an optimized matcher
+	 */
+	static<A> PatternMatcher<A> optimize(PatternMatcher<A> matcher, Function<Node<A>, Node<A>> terminal) {
+		return new Optimizer<A>(0, terminal).visit(matcher);
+	}
+
+	private PatternMatcher<A> visit(PatternMatcher<A> matcher) {
+		PatternMatcher<A> result = optimized.get(matcher);
+
+		if(result == null) {
+			if(matcher instanceof RuleRef) {
+				RuleRef<A> ref = new RuleRef<A>(((RuleRef<A>)matcher).getName());
+
+				// registers before optimizing the target because rules may be recursive
+				optimized.put(matcher, ref);
+				ref.resolve(visit(((RuleRef<A>)matcher).getResolved()));
+				return ref;
+			}
+			result = rewrite(matcher);
+			optimized.put(matcher, result);
+		}
+		return result;
+	}
+
+	private OperationMatcher<A> operation(OperationMatcher<A> matcher) {
+		// nodes are rewritten to nodes and other matchers are not rewritten
+		return (OperationMatcher<A>)visit(matcher);
+	}
+
+	private PatternMatcher<A> rewrite(PatternMatcher<A> matcher) {
+		if(matcher instanceof Node.Then) {
+			return rewriteThen((Node.Then<A>)matcher);
+		} else if(matcher instanceof Node.Or || matcher instanceof Node.Choice) {
+			return rewriteChoice(matcher);
+		} else if(matcher instanceof Node.Action) {
+			Node.Action<A> node = (Node.Action<A>)matcher;
+			PatternMatcher<A> child = visit(node.matcher);
+
+			if(node.action == Node.<A>identity()) {
+				return new Node.Wrap<A>(child, node.ignore);
+			}
+			return child == node.matcher ? node : new Node.Action<A>(child, node.action, node.ignore);
+		} else if(matcher instanceof Node.Wrap) {
+			Node.Wrap<A> node = (Node.Wrap<A>)matcher;
+			PatternMatcher<A> child = visit(node.matcher);
+
+			return child == node.matcher ? node : new Node.Wrap<A>(child, node.ignore);
+		} else if(matcher instanceof Node.Times) {
+			Node.Times<A> node = (Node.Times<A>)matcher;
+			OperationMatcher<A> child = operation(node.pattern);
+
+			return child == node.pattern ? node : new Node.Times<A>(child, node.countmin, node.countmax, node.action);
+		} else if(matcher instanceof Node.Delimit) {
+			Node.Delimit<A> node = (Node.Delimit<A>)matcher;
+			OperationMatcher<A> child = operation(node.pattern);
+			PatternMatcher<A> delimiter = visit(node.delimiter);
+
+			return child == node.pattern && delimiter == node.delimiter ?
+					node :
+					new Node.Delimit<A>(child, delimiter, node.action);
+		} else if(matcher instanceof Node.Cond) {
+			Node.Cond<A> node = (Node.Cond<A>)matcher;
+			OperationMatcher<A> child = operation(node.pattern);
+
+			return child == node.pattern ? node : new Node.Cond<A>(child, node.cond);
+		} else if(matcher instanceof Node.End) {
+			Node.End<A> node = (Node.End<A>)matcher;
+			OperationMatcher<A> child = operation(node.pattern);
+
+			return child == node.pattern ? node : new Node.End<A>(child);
+		} else if(matcher instanceof Node.Lookahead) {
+			Node.Lookahead<A> node = (Node.Lookahead<A>)matcher;
+			LookaheadMatcher<A> child = (LookaheadMatcher<A>)visit(node.pattern);
+			PatternMatcher<A> lookahead = visit(node.matcher);
+
+			return child == node.pattern && lookahead == node.matcher ?
+					node :
+					new Node.Lookahead<A>(child, lookahead, node.negative);
+		} else if(matcher instanceof StackMachine) {
+			return new StackMachine<A>(visit(((StackMachine<A>)matcher).matcher));
+		} else if(terminal != null && (matcher instanceof Node.Literal || matcher instanceof Node.Regex ||
+				matcher instanceof Node.Keyword || matcher instanceof Node.NotKeyword)) {
+			return terminal.apply((Node<A>)matcher);
+		} else if(terminal != null && matcher instanceof Node.Literals) {
+			List<PatternMatcher<A>> alternatives = new ArrayList<PatternMatcher<A>>();
+
+			for(Node.Literal<A> literal : ((Node.Literals<A>)matcher).literals) {
+				alternatives.add(visit(literal));
+			}
+			return new Node.Choice<A>(operation(((Node.Literals<A>)matcher).skipper), alternatives);
+		} else {
+			return matcher;
+		}
+	}
+
+	private PatternMatcher<A> rewriteThen(Node.Then<A> matcher) {
+		List<Node.Then<A>> chain = new ArrayList<Node.Then<A>>();
+		PatternMatcher<A> head = matcher;
+		OperationMatcher<A> result;
+
+		// a chain of sequences is rewritten by a loop because the chain may be long
+		for(; head instanceof Node.Then && !optimized.containsKey(head); head = ((Node.Then<A>)head).left) {
+			chain.add(0, (Node.Then<A>)head);
+		}
+		result = operation((OperationMatcher<A>)head);
+		for(Node.Then<A> node : chain) {
+			PatternMatcher<A> right = visit(node.right);
+			OperationMatcher<A> fused;
+
+			if((fused = fuse(result, right, node.action)) != null) {
+				result = fused;
+			} else if(result == node.left && right == node.right) {
+				result = node;
+			} else {
+				result = new Node.Then<A>(result, right, node.action);
+			}
+			optimized.put(node, result);
+		}
+		return result;
+	}
+
+	private OperationMatcher<A> fuse(OperationMatcher<A> left, PatternMatcher<A> right, PatternAction<A> action) {
+		Node.Literal<A> literal;
+		OperationMatcher<?> skipper = Node.skipper(left);
+
+		if(!(right instanceof Node.Literal) || ((Node.Literal<A>)right).action != Node.<A>none()) {
+			return null;
+		} else if(!(skipper instanceof Node) || ((Node<?>)skipper).ignore() != null) {
+			return null;
+		}
+
+		literal = (Node.Literal<A>)right;
+		if(left instanceof Node.Literal) {
+			Node.Literal<A> node = (Node.Literal<A>)left;
+
+			if(node.action == null) {
+				return new Node.Literal<A>(node.string + literal.string, action, null);
+			} else if(node.action == Node.<A>none() && action == null) {
+				return new Node.Literal<A>(node.string + literal.string, node.action, null);
+			}
+		} else if(left instanceof Node.Then) {
+			Node.Then<A> node = (Node.Then<A>)left;
+
+			if(node.action == null && node.right instanceof Node.Literal &&
+					((Node.Literal<A>)node.right).action == Node.<A>none()) {
+				return new Node.Then<A>(node.left,
+						new Node.Literal<A>(((Node.Literal<A>)node.right).string + literal.string, Node.none(), null),
+						action);
+			}
+		}
+		return null;
+	}
+
+	private PatternMatcher<A> rewriteChoice(PatternMatcher<A> matcher) {
+		OperationMatcher<A> skipper = operation(first(matcher));
+		List<PatternMatcher<A>> alternatives = new ArrayList<PatternMatcher<A>>();
+		List<PatternMatcher<A>> merged = new ArrayList<PatternMatcher<A>>();
+		List<Node.Literal<A>> literals = new ArrayList<Node.Literal<A>>();
+		List<Node.Keyword<A>> keywords = new ArrayList<Node.Keyword<A>>();
+
+		flatten(matcher, alternatives);
+		for(PatternMatcher<A> alternative : alternatives) {
+			if(alternative instanceof Node.Literal) {
+				mergeKeywords(skipper, keywords, merged);
+				literals.add((Node.Literal<A>)alternative);
+			} else if(alternative instanceof Node.Keyword) {
+				merge(skipper, literals, merged);
+				if(!keywords.isEmpty() && (keywords.get(0).rena != ((Node.Keyword<A>)alternative).rena ||
+						keywords.get(0).ignore != ((Node.Keyword<A>)alternative).ignore)) {
+					mergeKeywords(skipper, keywords, merged);
+				}
+				keywords.add((Node.Keyword<A>)alternative);
+			} else {
+				merge(skipper, literals, merged);
+				mergeKeywords(skipper, keywords, merged);
+				merged.add(alternative);
+			}
+		}
+		merge(skipper, literals, merged);
+		mergeKeywords(skipper, keywords, merged);
+		if(merged.size() == 1 && (merged.get(0) instanceof Node.Literals || merged.get(0) instanceof Node.Keys)) {
+			return merged.get(0);
+		}
+		return new Node.Choice<A>(skipper, merged, lookahead);
+	}
+
+	private static<A> OperationMatcher<A> first(PatternMatcher<A> matcher) {
+		PatternMatcher<A> m = matcher;
+
+		while(m instanceof Node.Or || m instanceof Node.Choice) {
+			m = m instanceof Node.Or ? ((Node.Or<A>)m).left : ((Node.Choice<A>)m).skipper;
+		}
+		return (OperationMatcher<A>)m;
+	}
+
+	private void flatten(PatternMatcher<A> matcher, List<PatternMatcher<A>> alternatives) {
+		if(matcher instanceof Node.Or) {
+			flatten(((Node.Or<A>)matcher).left, alternatives);
+			flatten(((Node.Or<A>)matcher).right, alternatives);
+		} else if(matcher instanceof Node.Choice) {
+			for(PatternMatcher<A> alternative : ((Node.Choice<A>)matcher).alternatives) {
+				flatten(alternative, alternatives);
+			}
+		} else {
+			splice(visit(matcher), alternatives);
+		}
+	}
+
+	/*
+	 * adds the given rewritten alternative.
+	 * the children are not visited again because they have been rewritten
+	 * and rules referred by them may be being rewritten.
+	 */
+	private static<A> void splice(PatternMatcher<A> matcher, List<PatternMatcher<A>> alternatives) {
+		PatternMatcher<A> alternative = matcher;
+
+		// skipping spaces of an alternative is not referred except the first alternative
+		while(alternative instanceof Node.Wrap) {
+			alternative = ((Node.Wrap<A>)alternative).matcher;
+		}
+		if(alternative instanceof Node.Choice) {
+			for(PatternMatcher<A> child : ((Node.Choice<A>)alternative).alternatives) {
+				splice(child, alternatives);
+			}
+		} else if(alternative instanceof Node.Literals) {
+			for(Node.Literal<A> literal : ((Node.Literals<A>)alternative).literals) {
+				alternatives.add(literal);
+			}
+		} else {
+			alternatives.add(alternative);
+		}
+	}
+
+	private static<A> void merge(OperationMatcher<A> skipper, List<Node.Literal<A>> literals,
+			List<PatternMatcher<A>> merged) {
+		if(literals.size() == 1) {
+			merged.add(literals.get(0));
+		} else if(literals.size() > 1) {
+			merged.add(new Node.Literals<A>(merged.isEmpty() ? skipper : literals.get(0), literals));
+		}
+		literals.clear();
+	}
+
+	/*
+	 * keywords are exclusive each other because only the longest keyword matches,
+	 * hence adjacent keywords can be tested in any order.
+	 */
+	private static<A> void mergeKeywords(OperationMatcher<A> skipper, List<Node.Keyword<A>> keywords,
+			List<PatternMatcher<A>> merged) {
+		if(keywords.size() == 1) {
+			merged.add(keywords.get(0));
+		} else if(keywords.size() > 1) {
+			merged.add(new Node.Keys<A>(merged.isEmpty() ? skipper : keywords.get(0),
+					keywords, new ArrayList<PatternAction<A>>(Collections.nCopies(keywords.size(), null))));
+		}
+		keywords.clear();
+	}
+
+}
@@ -23,22 +23,6 @@ public interface OrMatcher<A> extends OperationMatcher<A> {
 	 * @return this instance
 	 */
 	public default OrMatcher<A> or(final PatternMatcher<A> matcher) {
-		return new ThenMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result1, result2;
-
-				if((result1 = OrMatcher.this.match(match, index, attribute)) != null) {
-					return result1;
-				} else if((result2 = matcher.match(match, index, attribute)) != null) {
-					return result2;
-				} else {
-					return null;
-				}			
-			}
-
-			public int skipSpace(String match, int index) {
-				return OrMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Or<A>(this, matcher);
 	}
 }
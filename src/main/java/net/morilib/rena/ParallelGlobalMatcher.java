@@ -0,0 +1,237 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiFunction;
+
+/**
+ * Searches all patterns in parallel.<br>
+ * The input is split at record boundaries and chunks are scanned by fork/join tasks.
+ * A match which straddles a split point is found by the scan of the preceding chunk,
+ * then the following chunk is rescanned from the end of the match
+ * until the rescan meets a position which the speculative scan has visited.
+ * Hence the results are the same as the sequential scan.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+final class ParallelGlobalMatcher<A> {
+
+	/**
+	 * the default minimum size of a chunk.
+	 */
+	static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+	private class Chunk extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int start;
+		private final int end;
+		private List<PatternResult<A>> results = new ArrayList<PatternResult<A>>();
+		private int stop;
+		private A partial;
+
+		private Chunk(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			stop = scan(start, end, results);
+			partial = fold(results);
+		}
+
+		private boolean isVisited(int index) {
+			int lo = 0, hi = results.size() - 1, found = -1;
+
+			if(index >= stop) {
+				return false;
+			}
+			while(lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+
+				if(results.get(mid).getStartIndex() < index) {
+					found = mid;
+					lo = mid + 1;
+				} else {
+					hi = mid - 1;
+				}
+			}
+			return found < 0 || results.get(found).getLastIndex() <= index;
+		}
+
+		private int resync(int index) {
+			List<PatternResult<A>> rescanned = new ArrayList<PatternResult<A>>();
+			int i = index;
+
+			while(i < end) {
+				if(isVisited(i)) {
+					for(PatternResult<A> result : results) {
+						if(result.getStartIndex() >= i) {
+							rescanned.add(result);
+						}
+					}
+					results = rescanned;
+					partial = fold(results);
+					return stop;
+				}
+
+				PatternResult<A> result = matcher.match(match, i, attribute);
+
+				if(result != null) {
+					rescanned.add(result);
+					i = next(i, result);
+				} else {
+					i++;
+				}
+			}
+			results = rescanned;
+			partial = fold(results);
+			return i;
+		}
+
+	}
+
+	private final PatternMatcher<A> matcher;
+	private final CharSequence match;
+	private final A attribute;
+	private final BiFunction<A, A, A> action;
+
+	ParallelGlobalMatcher(PatternMatcher<A> matcher, CharSequence match, A attribute, BiFunction<A, A, A> action) {
+		this.matcher = matcher;
+		this.match = match;
+		this.attribute = attribute;
+		this.action = action;
+	}
+
+	private static <A> int next(int index, PatternResult<A> result) {
+		return result.getLastIndex() > index ? result.getLastIndex() : index + 1;
+	}
+
+	private int scan(int start, int end, List<PatternResult<A>> results) {
+		int i = start;
+
+		while(i < end) {
+			PatternResult<A> result = matcher.match(match, i, attribute);
+
+			if(result != null) {
+				results.add(result);
+				i = next(i, result);
+			} else {
+				i++;
+			}
+		}
+		return i;
+	}
+
+	private A fold(List<PatternResult<A>> results) {
+		A result = null;
+
+		if(action == null || results.isEmpty()) {
+			return null;
+		}
+		result = results.get(0).getAttribute();
+		for(int i = 1; i < results.size(); i++) {
+			result = action.apply(results.get(i).getAttribute(), result);
+		}
+		return result;
+	}
+
+	private List<Chunk> split(int index, PatternMatcher<A> boundary, int chunkSize) {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		int start = index, length = match.length();
+
+		while(length - start > chunkSize) {
+			PatternResult<A> result = boundary.parsePart(match, start + chunkSize, null);
+			int end;
+
+			if(result == null || (end = result.getLastIndex()) >= length) {
+				break;
+			}
+			chunks.add(new Chunk(start, end));
+			start = end;
+		}
+		chunks.add(new Chunk(start, length));
+		return chunks;
+	}
+
+	private List<Chunk> scanAll(int index, PatternMatcher<A> boundary, int chunkSize) {
+		final List<Chunk> chunks = split(index, boundary, chunkSize);
+		RecursiveAction root = new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				ForkJoinTask.invokeAll(chunks);
+			}
+		};
+		int stop;
+
+		if(ForkJoinTask.inForkJoinPool()) {
+			root.invoke();
+		} else {
+			ForkJoinPool.commonPool().invoke(root);
+		}
+
+		stop = chunks.get(0).stop;
+		for(int i = 1; i < chunks.size(); i++) {
+			Chunk chunk = chunks.get(i);
+
+			stop = stop > chunk.start ? chunk.resync(stop) : chunk.stop;
+		}
+		return chunks;
+	}
+
+	/**
+	 * searches all patterns and returns a list of all attributes in order of the input.
+	 *
+	 * @param index an index to start matching
+	 * @param boundary a matcher of record boundaries
+	 * @param chunkSize minimum size of a chunk
+	 * @return a list of all attributes
+	 */
+	List<A> parseList(int index, PatternMatcher<A> boundary, int chunkSize) {
+		List<A> list = new ArrayList<A>();
+
+		for(Chunk chunk : scanAll(index, boundary, chunkSize)) {
+			for(PatternResult<A> result : chunk.results) {
+				list.add(result.getAttribute());
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * searches all patterns and combines all attributes by the associative action.
+	 *
+	 * @param index an index to start matching
+	 * @param boundary a matcher of record boundaries
+	 * @param chunkSize minimum size of a chunk
+	 * @param init initial attribute
+	 * @return combined attribute
+	 */
+	A parse(int index, PatternMatcher<A> boundary, int chunkSize, A init) {
+		A result = init;
+
+		for(Chunk chunk : scanAll(index, boundary, chunkSize)) {
+			if(!chunk.results.isEmpty()) {
+				result = action.apply(chunk.partial, result);
+			}
+		}
+		return result;
+	}
+
+}
@@ -27,4 +27,19 @@ public interface PatternAction<A> {
 	 */
 	public A action(String match, A attribute, A inheritedAttribute);
 
+	/**
+	 * a method of an action which receives the matched span of the input.<br>
+	 * By default, the matched string is created and passed to {@link #action(String, Object, Object)}.
+	 *
+	 * @param input the input string
+	 * @param start start index of the matched span
+	 * @param end end index of the matched span
+	 * @param attribute synthesized attribute
+	 * @param inheritedAttribute inherited attribute
+	 * @return new synthesized attribute
+	 */
+	public default A action(CharSequence input, int start, int end, A attribute, A inheritedAttribute) {
+		return action(CharSequences.substring(input, start, end), attribute, inheritedAttribute);
+	}
+
 }
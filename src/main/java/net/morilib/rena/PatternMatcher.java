@@ -8,9 +8,19 @@
  */
 package net.morilib.rena;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterators;
 import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A functional interface of matchers used in this framework.
@@ -31,7 +41,51 @@ public interface PatternMatcher<A> {
 	 * @param attribute inherited attribute
 	 * @return matched attribute or null
 	 */
-	public PatternResult<A> match(String match, int index, A attribute);
+	public PatternResult<A> match(CharSequence match, int index, A attribute);
+
+	/**
+	 * recognizes the given string from the given index without executing actions.<br>
+	 * Results and matched strings are not created, hence recognizing is faster than matching.
+	 * Patterns of conditions are matched with actions because conditions are tested by attributes,
+	 * and the inherited attribute is null.
+	 * Rules of RuleSet must be defined before recognizing.
+	 *
+	 * @param match a string to be matched
+	 * @param index an index to start matching
+	 * @return the end index of matching, or -1 if it does not match
+	 */
+	public default int matchLength(CharSequence match, int index) {
+		PatternResult<A> result = match(match, index, null);
+
+		return result != null ? result.getLastIndex() : -1;
+	}
+
+	/**
+	 * recognizes the given string from the beginning without executing actions.
+	 *
+	 * @param match a string to be matched
+	 * @return the end index of matching, or -1 if it does not match
+	 * @see #matchLength(CharSequence, int)
+	 */
+	public default int recognize(CharSequence match) {
+		return matchLength(match, 0);
+	}
+
+	/**
+	 * matches the region [start, end) of the given string.<br>
+	 * The string is not copied and indices of the result are indices of the given string.<br>
+	 * returns an instance of PatternResult if it matches,
+	 * or returns null if it does not match.
+	 *
+	 * @param match a string to be matched
+	 * @param start an index to start matching
+	 * @param end an end index of the region
+	 * @param attribute inherited attribute
+	 * @return matched attribute or null
+	 */
+	public default PatternResult<A> match(CharSequence match, int start, int end, A attribute) {
+		return match(CharSequences.region(match, start, end), start, attribute);
+	}
 
 	/**
 	 * matches the given string starts with 0.<br>
@@ -42,7 +96,7 @@ public interface PatternMatcher<A> {
 	 * @param attribute inherited attribute
 	 * @return matched attribute or null
 	 */
-	public default PatternResult<A> match(String match, A attribute) {
+	public default PatternResult<A> match(CharSequence match, A attribute) {
 		return match(match, 0, attribute);
 	}
 
@@ -53,7 +107,7 @@ public interface PatternMatcher<A> {
 	 * @param attribute inherited attribute
 	 * @return matched attribute or null
 	 */
-	public default PatternResult<A> parse(String match, A attribute) {
+	public default PatternResult<A> parse(CharSequence match, A attribute) {
 		return match(match, 0, attribute);
 	}
 
@@ -67,10 +121,11 @@ public interface PatternMatcher<A> {
 	 * @param attribute inherited attribute
 	 * @return matched attribute or null
 	 */
-	public default PatternResult<A> parsePart(String match, int index, A attribute) {
+	public default PatternResult<A> parsePart(CharSequence match, int index, A attribute) {
 		PatternResult<A> result;
 
-		for(int i = index; i < match.length(); i++) {
+		for(int i = index; !CharSequences.isEnd(match, i); i++) {
+			CharSequences.release(match, i);
 			result = match(match, i, attribute);
 			if(result != null) {
 				return result;
@@ -79,6 +134,21 @@ public interface PatternMatcher<A> {
 		return null;
 	}
 
+	/**
+	 * searches this pattern in the region [start, end) of the given string.<br>
+	 * returns an instance of PatternResult if the pattern found in the region.
+	 * or returns null if the pattern is not found.
+	 *
+	 * @param match a string to be matched
+	 * @param start an index to start matching
+	 * @param end an end index of the region
+	 * @param attribute inherited attribute
+	 * @return matched attribute or null
+	 */
+	public default PatternResult<A> parsePart(CharSequence match, int start, int end, A attribute) {
+		return parsePart(CharSequences.region(match, start, end), start, attribute);
+	}
+
 	/**
 	 * searches this pattern in the given string.<br>
 	 * returns an instance of PatternResult if the pattern found in the string.
@@ -88,7 +158,7 @@ public interface PatternMatcher<A> {
 	 * @param attribute inherited attribute
 	 * @return matched attribute or null
 	 */
-	public default PatternResult<A> parsePart(String match, A attribute) {
+	public default PatternResult<A> parsePart(CharSequence match, A attribute) {
 		return parsePart(match, 0, attribute);
 	}
 
@@ -102,11 +172,14 @@ public interface PatternMatcher<A> {
 	 * @param action an accumulator
 	 * @return accumulated attribute
 	 */
-	public default A parsePartGlobal(String match, int index, A init, BiFunction<A, A, A> action) {
+	public default A parsePartGlobal(CharSequence match, int index, A init, BiFunction<A, A, A> action) {
 		A attr = init;
 
-		for(int i = index; i < match.length();) {
-			PatternResult<A> result = match(match, i, attr);
+		for(int i = index; !CharSequences.isEnd(match, i);) {
+			PatternResult<A> result;
+
+			CharSequences.release(match, i);
+			result = match(match, i, attr);
 
 			if(result != null) {
 				attr = action.apply(result.getAttribute(), attr);
@@ -118,6 +191,21 @@ public interface PatternMatcher<A> {
 		return attr;
 	}
 
+	/**
+	 * searches all patterns in the region [start, end) of the given string.<br>
+	 * returns accumulated attribute by the given action.
+	 *
+	 * @param match a string to be matched
+	 * @param start an index to start matching
+	 * @param end an end index of the region
+	 * @param init initial attribute
+	 * @param action an accumulator
+	 * @return accumulated attribute
+	 */
+	public default A parsePartGlobal(CharSequence match, int start, int end, A init, BiFunction<A, A, A> action) {
+		return parsePartGlobal(CharSequences.region(match, start, end), start, init, action);
+	}
+
 	/**
 	 * searches all patterns in the given string.<br>
 	 * returns accumulated attribute by the given action.
@@ -127,7 +215,7 @@ public interface PatternMatcher<A> {
 	 * @param action an accumulator
 	 * @return accumulated attribute
 	 */
-	public default A parsePartGlobal(String match, A init, BiFunction<A, A, A> action) {
+	public default A parsePartGlobal(CharSequence match, A init, BiFunction<A, A, A> action) {
 		return parsePartGlobal(match, 0, init, action);
 	}
 
@@ -139,11 +227,14 @@ public interface PatternMatcher<A> {
 	 * @param index an index to start matching
 	 * @return a list of all attributes
 	 */
-	public default List<A> parsePartGlobalList(String match, int index) {
+	public default List<A> parsePartGlobalList(CharSequence match, int index) {
 		List<A> attr = new ArrayList<A>();
 
-		for(int i = index; i < match.length();) {
-			PatternResult<A> result = match(match, i, null);
+		for(int i = index; !CharSequences.isEnd(match, i);) {
+			PatternResult<A> result;
+
+			CharSequences.release(match, i);
+			result = match(match, i, null);
 
 			if(result != null) {
 				attr.add(result.getAttribute());
@@ -155,6 +246,19 @@ public interface PatternMatcher<A> {
 		return attr;
 	}
 
+	/**
+	 * searches all patterns in the region [start, end) of the given string.<br>
+	 * returns a list of all attributes.
+	 *
+	 * @param match a string to be matched
+	 * @param start an index to start matching
+	 * @param end an end index of the region
+	 * @return a list of all attributes
+	 */
+	public default List<A> parsePartGlobalList(CharSequence match, int start, int end) {
+		return parsePartGlobalList(CharSequences.region(match, start, end), start);
+	}
+
 	/**
 	 * searches all patterns in the given string.<br>
 	 * returns a list of all attributes.
@@ -162,8 +266,434 @@ public interface PatternMatcher<A> {
 	 * @param match a string to be matched
 	 * @return a list of all attributes
 	 */
-	public default List<A> parsePartGlobalList(String match) {
+	public default List<A> parsePartGlobalList(CharSequence match) {
 		return parsePartGlobalList(match, 0);
 	}
 
+	/**
+	 * searches all patterns in the given string from the given index lazily.<br>
+	 * A pattern is searched when the next result is requested,
+	 * hence the stream can be limited or stopped early.
+	 * The next search starts at the last index of the previous result,
+	 * or at the next index if the previous result is empty.
+	 *
+	 * @param match a string to be matched
+	 * @param index an index to start matching
+	 * @param attribute inherited attribute
+	 * @return a stream of results
+	 */
+	public default Stream<PatternResult<A>> parsePartGlobalStream(CharSequence match, int index, A attribute) {
+		return StreamSupport.stream(new GlobalMatchSpliterator<A>(this, match, index, attribute), false);
+	}
+
+	/**
+	 * searches all patterns in the given string lazily.<br>
+	 * A pattern is searched when the next result is requested.
+	 *
+	 * @param match a string to be matched
+	 * @param attribute inherited attribute
+	 * @return a stream of results
+	 */
+	public default Stream<PatternResult<A>> parsePartGlobalStream(CharSequence match, A attribute) {
+		return parsePartGlobalStream(match, 0, attribute);
+	}
+
+	/**
+	 * searches all patterns in the characters read from the given reader lazily.<br>
+	 * Characters are read on demand and characters before the current match are discarded.
+	 * An IOException is thrown as UncheckedIOException by operations of the stream.
+	 *
+	 * @param reader a reader to be matched
+	 * @param maxLookback maximum number of characters to hold
+	 * @param attribute inherited attribute
+	 * @return a stream of results
+	 */
+	public default Stream<PatternResult<A>> parsePartGlobalStream(Reader reader, int maxLookback, A attribute) {
+		return parsePartGlobalStream(new ReaderCharSequence(reader, maxLookback), 0, attribute);
+	}
+
+	/**
+	 * searches all patterns in the given string from the given index lazily.<br>
+	 * A pattern is searched when the next result is requested.
+	 *
+	 * @param match a string to be matched
+	 * @param index an index to start matching
+	 * @param attribute inherited attribute
+	 * @return an iterator of results
+	 */
+	public default Iterator<PatternResult<A>> parsePartGlobalIterator(CharSequence match, int index, A attribute) {
+		return Spliterators.iterator(new GlobalMatchSpliterator<A>(this, match, index, attribute));
+	}
+
+	/**
+	 * searches all patterns in the given string lazily.<br>
+	 * A pattern is searched when the next result is requested.
+	 *
+	 * @param match a string to be matched
+	 * @param attribute inherited attribute
+	 * @return an iterator of results
+	 */
+	public default Iterator<PatternResult<A>> parsePartGlobalIterator(CharSequence match, A attribute) {
+		return parsePartGlobalIterator(match, 0, attribute);
+	}
+
+	/**
+	 * searches all patterns in the given string from the given index in parallel.<br>
+	 * The string is split at the end of the given boundary matcher found after every chunkSize characters,
+	 * and chunks are scanned by fork/join tasks of the current pool or the common pool.
+	 * A match which straddles a split point is handled as same as the sequential scan.<br>
+	 * The given initial attribute is inherited by every match,
+	 * and attributes are combined by the given action which must be associative.
+	 * The matcher and the string must be able to be used by threads.
+	 *
+	 * @param match a string to be matched
+	 * @param index an index to start matching
+	 * @param boundary a matcher of record boundaries
+	 * @param chunkSize minimum size of a chunk
+	 * @param init initial attribute
+	 * @param action an associative accumulator
+	 * @return accumulated attribute
+	 */
+	public default A parsePartGlobalParallel(CharSequence match, int index, PatternMatcher<A> boundary,
+			int chunkSize, A init, BiFunction<A, A, A> action) {
+		if(chunkSize <= 0) {
+			throw new IllegalArgumentException("size of a chunk must be positive");
+		}
+		return new ParallelGlobalMatcher<A>(this, match, init, action).parse(index, boundary, chunkSize, init);
+	}
+
+	/**
+	 * searches all patterns in the given string in parallel.<br>
+	 * The string is split at the end of the given boundary matcher.
+	 * The given initial attribute is inherited by every match,
+	 * and attributes are combined by the given action which must be associative.
+	 *
+	 * @param match a string to be matched
+	 * @param boundary a matcher of record boundaries
+	 * @param init initial attribute
+	 * @param action an associative accumulator
+	 * @return accumulated attribute
+	 */
+	public default A parsePartGlobalParallel(CharSequence match, PatternMatcher<A> boundary,
+			A init, BiFunction<A, A, A> action) {
+		return parsePartGlobalParallel(match, 0, boundary, ParallelGlobalMatcher.DEFAULT_CHUNK_SIZE, init, action);
+	}
+
+	/**
+	 * searches all patterns in the given string from the given index in parallel.<br>
+	 * The string is split at the end of the given boundary matcher found after every chunkSize characters,
+	 * and chunks are scanned by fork/join tasks of the current pool or the common pool.
+	 * returns a list of all attributes in order of the string.
+	 * The matcher and the string must be able to be used by threads.
+	 *
+	 * @param match a string to be matched
+	 * @param index an index to start matching
+	 * @param boundary a matcher of record boundaries
+	 * @param chunkSize minimum size of a chunk
+	 * @return a list of all attributes
+	 */
+	public default List<A> parsePartGlobalListParallel(CharSequence match, int index, PatternMatcher<A> boundary,
+			int chunkSize) {
+		if(chunkSize <= 0) {
+			throw new IllegalArgumentException("size of a chunk must be positive");
+		}
+		return new ParallelGlobalMatcher<A>(this, match, null, null).parseList(index, boundary, chunkSize);
+	}
+
+	/**
+	 * searches all patterns in the given string in parallel.<br>
+	 * The string is split at the end of the given boundary matcher.
+	 * returns a list of all attributes in order of the string.
+	 *
+	 * @param match a string to be matched
+	 * @param boundary a matcher of record boundaries
+	 * @return a list of all attributes
+	 */
+	public default List<A> parsePartGlobalListParallel(CharSequence match, PatternMatcher<A> boundary) {
+		return parsePartGlobalListParallel(match, 0, boundary, ParallelGlobalMatcher.DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * matches the given file starts with 0.<br>
+	 * The file is mapped to memory and characters are decoded on demand,
+	 * hence the file is not read into the heap.
+	 * UTF-8, ISO-8859-1 and US-ASCII are supported.<br>
+	 * returns an instance of PatternResult if it matches,
+	 * or returns null if it does not match.
+	 *
+	 * @param path a path of the file to be matched
+	 * @param charset a charset of the file
+	 * @param attribute inherited attribute
+	 * @return matched attribute or null
+	 * @throws IOException I/O error
+	 */
+	public default PatternResult<A> parseFile(Path path, Charset charset, A attribute) throws IOException {
+		return match(MappedCharSequence.map(path, charset), 0, attribute);
+	}
+
+	/**
+	 * matches the given file of UTF-8 starts with 0.<br>
+	 * The file is mapped to memory and characters are decoded on demand.<br>
+	 * returns an instance of PatternResult if it matches,
+	 * or returns null if it does not match.
+	 *
+	 * @param path a path of the file to be matched
+	 * @param attribute inherited attribute
+	 * @return matched attribute or null
+	 * @throws IOException I/O error
+	 */
+	public default PatternResult<A> parseFile(Path path, A attribute) throws IOException {
+		return parseFile(path, StandardCharsets.UTF_8, attribute);
+	}
+
+	/**
+	 * searches all patterns in the given file.<br>
+	 * The file is mapped to memory and characters are decoded on demand.
+	 * UTF-8, ISO-8859-1 and US-ASCII are supported.<br>
+	 * returns accumulated attribute by the given action.
+	 *
+	 * @param path a path of the file to be matched
+	 * @param charset a charset of the file
+	 * @param init initial attribute
+	 * @param action an accumulator
+	 * @return accumulated attribute
+	 * @throws IOException I/O error
+	 */
+	public default A parsePartGlobal(Path path, Charset charset, A init, BiFunction<A, A, A> action) throws IOException {
+		return parsePartGlobal(MappedCharSequence.map(path, charset), 0, init, action);
+	}
+
+	/**
+	 * searches all patterns in the given file of UTF-8.<br>
+	 * The file is mapped to memory and characters are decoded on demand.<br>
+	 * returns accumulated attribute by the given action.
+	 *
+	 * @param path a path of the file to be matched
+	 * @param init initial attribute
+	 * @param action an accumulator
+	 * @return accumulated attribute
+	 * @throws IOException I/O error
+	 */
+	public default A parsePartGlobal(Path path, A init, BiFunction<A, A, A> action) throws IOException {
+		return parsePartGlobal(path, StandardCharsets.UTF_8, init, action);
+	}
+
+	/**
+	 * searches all patterns in the given file.<br>
+	 * The file is mapped to memory and characters are decoded on demand.
+	 * UTF-8, ISO-8859-1 and US-ASCII are supported.<br>
+	 * returns a list of all attributes.
+	 *
+	 * @param path a path of the file to be matched
+	 * @param charset a charset of the file
+	 * @return a list of all attributes
+	 * @throws IOException I/O error
+	 */
+	public default List<A> parsePartGlobalList(Path path, Charset charset) throws IOException {
+		return parsePartGlobalList(MappedCharSequence.map(path, charset), 0);
+	}
+
+	/**
+	 * searches all patterns in the given file of UTF-8.<br>
+	 * The file is mapped to memory and characters are decoded on demand.<br>
+	 * returns a list of all attributes.
+	 *
+	 * @param path a path of the file to be matched
+	 * @return a list of all attributes
+	 * @throws IOException I/O error
+	 */
+	public default List<A> parsePartGlobalList(Path path) throws IOException {
+		return parsePartGlobalList(path, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * matches the characters read from the given reader.<br>
+	 * Characters are read on demand and held in a sliding buffer.
+	 * An IllegalStateException is thrown if the matcher refers a character
+	 * which is more than the given maximum lookback behind the last read character.<br>
+	 * returns an instance of PatternResult if it matches,
+	 * or returns null if it does not match.
+	 *
+	 * @param reader a reader to be matched
+	 * @param maxLookback maximum number of characters to hold
+	 * @param attribute inherited attribute
+	 * @return matched attribute or null
+	 * @throws IOException I/O error
+	 */
+	public default PatternResult<A> parse(Reader reader, int maxLookback, A attribute) throws IOException {
+		try {
+			return match(new ReaderCharSequence(reader, maxLookback), 0, attribute);
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * matches the characters read from the given reader.<br>
+	 * Characters are read on demand and all characters of the match are held.<br>
+	 * returns an instance of PatternResult if it matches,
+	 * or returns null if it does not match.
+	 *
+	 * @param reader a reader to be matched
+	 * @param attribute inherited attribute
+	 * @return matched attribute or null
+	 * @throws IOException I/O error
+	 */
+	public default PatternResult<A> parse(Reader reader, A attribute) throws IOException {
+		return parse(reader, Integer.MAX_VALUE, attribute);
+	}
+
+	/**
+	 * searches all patterns in the characters read from the given reader.<br>
+	 * Characters are read on demand and characters before the current match are discarded.
+	 * An IllegalStateException is thrown if the matcher refers a character
+	 * which is more than the given maximum lookback behind the last read character.<br>
+	 * returns accumulated attribute by the given action.
+	 *
+	 * @param reader a reader to be matched
+	 * @param maxLookback maximum number of characters to hold
+	 * @param init initial attribute
+	 * @param action an accumulator
+	 * @return accumulated attribute
+	 * @throws IOException I/O error
+	 */
+	public default A parsePartGlobal(Reader reader, int maxLookback, A init, BiFunction<A, A, A> action)
+			throws IOException {
+		try {
+			return parsePartGlobal(new ReaderCharSequence(reader, maxLookback), 0, init, action);
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * searches all patterns in the characters read from the given reader.<br>
+	 * Characters are read on demand and characters before the current match are discarded.<br>
+	 * returns accumulated attribute by the given action.
+	 *
+	 * @param reader a reader to be matched
+	 * @param init initial attribute
+	 * @param action an accumulator
+	 * @return accumulated attribute
+	 * @throws IOException I/O error
+	 */
+	public default A parsePartGlobal(Reader reader, A init, BiFunction<A, A, A> action) throws IOException {
+		return parsePartGlobal(reader, Integer.MAX_VALUE, init, action);
+	}
+
+	/**
+	 * searches all patterns in the characters read from the given reader.<br>
+	 * Characters are read on demand and characters before the current match are discarded.
+	 * An IllegalStateException is thrown if the matcher refers a character
+	 * which is more than the given maximum lookback behind the last read character.<br>
+	 * returns a list of all attributes.
+	 *
+	 * @param reader a reader to be matched
+	 * @param maxLookback maximum number of characters to hold
+	 * @return a list of all attributes
+	 * @throws IOException I/O error
+	 */
+	public default List<A> parsePartGlobalList(Reader reader, int maxLookback) throws IOException {
+		try {
+			return parsePartGlobalList(new ReaderCharSequence(reader, maxLookback), 0);
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * searches all patterns in the characters read from the given reader.<br>
+	 * Characters are read on demand and characters before the current match are discarded.<br>
+	 * returns a list of all attributes.
+	 *
+	 * @param reader a reader to be matched
+	 * @return a list of all attributes
+	 * @throws IOException I/O error
+	 */
+	public default List<A> parsePartGlobalList(Reader reader) throws IOException {
+		return parsePartGlobalList(reader, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * returns a matcher which matches this pattern by an explicit stack in the heap
+	 * instead of recursion of Java.<br>
+	 * Deeply nested input does not cause StackOverflowError
+	 * if the nesting consists of combinators and rules of RuleSet.
+	 * User-defined matchers and memoized matchers are called by recursion.
+	 *
+	 * @return a matcher
+	 */
+	public default PatternMatcher<A> iterative() {
+		return this instanceof StackMachine ? this : new StackMachine<A>(this);
+	}
+
+	/**
+	 * returns a matcher which is rewritten from combinators of this pattern to equivalent combinators.<br>
+	 * Adjacent strings are fused, nested alternations are flattened,
+	 * alternatives of strings are looked up by a trie and actions of {@link Rena#I} are dropped.
+	 * Rules of RuleSet must be defined before optimizing.
+	 *
+	 * @return an optimized matcher
+	 */
+	public default PatternMatcher<A> optimize() {
+		return Optimizer.optimize(this);
+	}
+
+	/**
+	 * returns a matcher which is optimized like {@link #optimize()}
+	 * and whose alternations are predicted by the given number of characters.<br>
+	 * An alternation which is distinguished by the lookahead tries only one alternative
+	 * (and the last alternative if it matches an empty string),
+	 * other alternations try alternatives in order.
+	 * The results are the same as this pattern.
+	 * Alternations which cannot be predicted are reported by {@link LLAnalysis}.
+	 *
+	 * @param lookahead the number of characters of lookahead
+	 * @return an optimized matcher
+	 */
+	public default PatternMatcher<A> predictive(int lookahead) {
+		return Optimizer.optimize(this, lookahead);
+	}
+
+	/**
+	 * returns a matcher which is compiled from combinators of this pattern.<br>
+	 * Sequences and alternations are flattened and results of children are not allocated,
+	 * hence the compiled matcher is faster than this pattern and returns the same results.
+	 * Rules of RuleSet must be defined before compiling.
+	 * User-defined matchers and memoized matchers are called as they are.
+	 *
+	 * @return a compiled matcher
+	 */
+	public default PatternMatcher<A> compile() {
+		return Compiler.compile(this);
+	}
+
+	/**
+	 * returns a matcher which executes actions only along the derivation which is accepted.<br>
+	 * Matching records spans and choices in a log, and actions are executed after matching succeeds,
+	 * hence actions of branches which fail are not executed.
+	 * The results are the same as this pattern if actions do not have side effects.
+	 * User-defined matchers and memoized matchers are recognized while matching and matched again after.
+	 * Rules of RuleSet must be defined before deferring.
+	 *
+	 * @return a matcher which defers actions
+	 * @throws IllegalArgumentException if this pattern has a condition which tests attributes
+	 */
+	public default PatternMatcher<A> deferred() {
+		return Deferred.of(this);
+	}
+
+	/**
+	 * returns a matcher which splits a string into tokens by terminals of this pattern
+	 * and matches this pattern over the tokens.<br>
+	 * Terminals are matched by the longest match, hence a terminal does not match
+	 * a part of a longer token (e.g. a string "if" does not match "ifx" if an identifier matches "ifx").
+	 * Rules of RuleSet must be defined before creating a lexer.
+	 *
+	 * @return a lexer
+	 */
+	public default Lexer<A> lexer() {
+		return Lexer.of(this);
+	}
+
 }
@@ -17,6 +17,8 @@ package net.morilib.rena;
 public class PatternResult<A> {
 
 	private String match;
+	private CharSequence input;
+	private int startIndex;
 	private int lastIndex;
 	private A attribute;
 
@@ -29,15 +31,88 @@ public class PatternResult<A> {
 	 */
 	public PatternResult(String match, int lastIndex, A attribute) {
 		this.match = match;
+		this.startIndex = lastIndex - match.length();
 		this.lastIndex = lastIndex;
 		this.attribute = attribute;
 	}
 
+	/**
+	 * constructs matching result whose matched string is created when it is referred.<br>
+	 * The input must not be changed after matching.
+	 *
+	 * @param input the input string
+	 * @param startIndex start index of matching
+	 * @param lastIndex last index of matching
+	 * @param attribute attribute
+	 */
+	public PatternResult(CharSequence input, int startIndex, int lastIndex, A attribute) {
+		this.input = input;
+		this.startIndex = startIndex;
+		this.lastIndex = lastIndex;
+		this.attribute = attribute;
+	}
+
+	/**
+	 * creates matching result of the span of the given input.<br>
+	 * The matched string is created lazily if the input is immutable.
+	 *
+	 * @param input the input string
+	 * @param startIndex start index of matching
+	 * @param lastIndex last index of matching
+	 * @param attribute attribute
+	 * @return matching result
+	 */
+	static<A> PatternResult<A> of(CharSequence input, int startIndex, int lastIndex, A attribute) {
+		if(CharSequences.isStable(input)) {
+			return new PatternResult<A>(input, startIndex, lastIndex, attribute);
+		}
+		return new PatternResult<A>(CharSequences.substring(input, startIndex, lastIndex), lastIndex, attribute);
+	}
+
+	/**
+	 * creates matching result which has the same span and the given attribute.
+	 *
+	 * @param attribute attribute
+	 * @return matching result
+	 */
+	PatternResult<A> with(A attribute) {
+		return input != null ?
+				new PatternResult<A>(input, startIndex, lastIndex, attribute) :
+				new PatternResult<A>(match, lastIndex, attribute);
+	}
+
+	/**
+	 * executes the given action with the matched span and the attribute of this result.
+	 *
+	 * @param action an action
+	 * @param inheritedAttribute inherited attribute
+	 * @return new synthesized attribute
+	 */
+	A act(PatternAction<A> action, A inheritedAttribute) {
+		return input != null ?
+				action.action(input, startIndex, lastIndex, attribute, inheritedAttribute) :
+				action.action(match, attribute, inheritedAttribute);
+	}
+
+	/**
+	 * gets the matched string if it is not the span of the given input from the given index.
+	 *
+	 * @param input the input string
+	 * @param startIndex start index
+	 * @return the matched string, or null if the matched string is the span
+	 */
+	String matchUnless(CharSequence input, int startIndex) {
+		return this.input == input && this.startIndex == startIndex ? null : getMatch();
+	}
+
 	/**
 	 * gets matched string.
 	 * @return matched string
 	 */
 	public String getMatch() {
+		if(match == null) {
+			match = CharSequences.substring(input, startIndex, lastIndex);
+		}
 		return match;
 	}
 
@@ -46,7 +121,7 @@ public class PatternResult<A> {
 	 * @return matched start index
 	 */
 	public int getStartIndex() {
-		return lastIndex - match.length();
+		return startIndex;
 	}
 
 	/**
@@ -66,6 +141,6 @@ public class PatternResult<A> {
 	}
 
 	public String toString() {
-		return "match=" + match + ",lastIndex=" + lastIndex + ",attribute=" + attribute;
+		return "match=" + getMatch() + ",lastIndex=" + lastIndex + ",attribute=" + attribute;
 	}
 }
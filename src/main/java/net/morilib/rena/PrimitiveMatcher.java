@@ -0,0 +1,405 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A base class of matchers whose attributes are primitives.<br>
+ * Combinators of this class pass attributes as primitives and do not box them.
+ * This class is also a matcher of the generic API whose attributes are boxed,
+ * and matchers of the generic API can be combined with this matcher.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> boxed attribute
+ * @param <M> matcher
+ * @param <F> action
+ */
+public abstract class PrimitiveMatcher<A, M extends PrimitiveMatcher<A, M, F>, F> implements PatternMatcher<A> {
+
+	final PrimitiveNode node;
+	final SkipPolicy ignore;
+	final PrimitiveType<A, M, F> type;
+
+	PrimitiveMatcher(PrimitiveNode node, SkipPolicy ignore, PrimitiveType<A, M, F> type) {
+		this.node = node;
+		this.ignore = ignore;
+		this.type = type;
+	}
+
+	/**
+	 * matches the given string with a boxed attribute.
+	 */
+	@Override
+	public PatternResult<A> match(CharSequence match, int index, A attribute) {
+		PrimitiveNode.Context ctx = new PrimitiveNode.Context(false);
+		int end = node.match(ctx, match, index, type.unbox(attribute));
+
+		return end >= 0 ? PatternResult.of(match, index, end, type.box(ctx.value)) : null;
+	}
+
+	@Override
+	public int matchLength(CharSequence match, int index) {
+		return node.match(new PrimitiveNode.Context(true), match, index, 0);
+	}
+
+	/**
+	 * creates a matcher which succeeds the given matcher
+	 * and execute the given action when matches.
+	 *
+	 * @param matcher a successor matcher
+	 * @param action an action
+	 * @return a matcher
+	 */
+	public M then(PatternMatcher<A> matcher, F action) {
+		return type.matcher(new PrimitiveNode.Then(node, type.node(matcher), type.action(action), ignore), ignore);
+	}
+
+	/**
+	 * creates a matcher which succeeds the given matcher.
+	 *
+	 * @param matcher a successor matcher
+	 * @return a matcher
+	 */
+	public M then(PatternMatcher<A> matcher) {
+		return type.matcher(new PrimitiveNode.Then(node, type.node(matcher), PrimitiveNode.SYNTHESIZED, ignore),
+				ignore);
+	}
+
+	/**
+	 * creates a matcher which matches the given string
+	 * and execute the given action when matches.<br>
+	 * The synthesized attribute of the string is zero.
+	 *
+	 * @param aString a successor string
+	 * @param action an action
+	 * @return a matcher
+	 */
+	public M string(String aString, F action) {
+		return type.matcher(new PrimitiveNode.Then(node,
+				new PrimitiveNode.Literal(aString, PrimitiveNode.ZERO),
+				type.action(action),
+				ignore), ignore);
+	}
+
+	/**
+	 * creates a matcher which matches the given string.
+	 *
+	 * @param aString a successor string
+	 * @return a matcher
+	 */
+	public M string(String aString) {
+		return string(aString, null);
+	}
+
+	/**
+	 * creates a matcher which succeeds the given regex
+	 * and execute the given action when matches.<br>
+	 * The synthesized attribute of the regex is zero.
+	 *
+	 * @param regex a successor regex
+	 * @param action an action
+	 * @return a matcher
+	 */
+	public M regex(String regex, F action) {
+		return type.matcher(new PrimitiveNode.Then(node,
+				new PrimitiveNode.Regex(DfaRegex.compile(regex), PrimitiveNode.ZERO),
+				type.action(action),
+				ignore), ignore);
+	}
+
+	/**
+	 * creates a matcher which succeeds the given regex.
+	 *
+	 * @param regex a successor regex
+	 * @return a matcher
+	 */
+	public M regex(String regex) {
+		return regex(regex, null);
+	}
+
+	/**
+	 * repeats the given pattern to the given count after this pattern.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param countmin minimum of repetition
+	 * @param countmax maximum of repetition
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M thenTimes(int countmin, int countmax, PatternMatcher<A> pattern, F action) {
+		return then(type.cast(pattern).times(countmin, countmax, action));
+	}
+
+	/**
+	 * repeats the given pattern to the given count after this pattern.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param countmin minimum of repetition
+	 * @param countmax maximum of repetition
+	 * @param pattern a matcher
+	 * @return a matcher
+	 */
+	public M thenTimes(int countmin, int countmax, PatternMatcher<A> pattern) {
+		return then(type.cast(pattern).times(countmin, countmax));
+	}
+
+	/**
+	 * a shortcut of 'thenTimes(0, 1, pattern, action)'.
+	 *
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M thenMaybe(PatternMatcher<A> pattern, F action) {
+		return thenTimes(0, 1, pattern, action);
+	}
+
+	/**
+	 * a shortcut of 'thenTimes(0, 1, pattern)'.
+	 *
+	 * @param pattern a matcher
+	 * @return a matcher
+	 */
+	public M thenMaybe(PatternMatcher<A> pattern) {
+		return thenTimes(0, 1, pattern);
+	}
+
+	/**
+	 * a shortcut of 'thenTimes(0, -1, pattern, action)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M thenZeroOrMore(PatternMatcher<A> pattern, F action) {
+		return thenTimes(0, -1, pattern, action);
+	}
+
+	/**
+	 * a shortcut of 'thenTimes(0, -1, pattern)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @return a matcher
+	 */
+	public M thenZeroOrMore(PatternMatcher<A> pattern) {
+		return thenTimes(0, -1, pattern);
+	}
+
+	/**
+	 * a shortcut of 'thenTimes(1, -1, pattern, action)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M thenOneOrMore(PatternMatcher<A> pattern, F action) {
+		return thenTimes(1, -1, pattern, action);
+	}
+
+	/**
+	 * a shortcut of 'thenTimes(1, -1, pattern)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @return a matcher
+	 */
+	public M thenOneOrMore(PatternMatcher<A> pattern) {
+		return thenTimes(1, -1, pattern);
+	}
+
+	/**
+	 * matches a string which is delimited by the given matcher after this pattern.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param delimiter a pattern of delimiter
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M thenDelimit(PatternMatcher<A> pattern, PatternMatcher<A> delimiter, F action) {
+		return then(type.cast(pattern).delimit(delimiter, action));
+	}
+
+	/**
+	 * matches a string which is delimited by the given matcher after this pattern.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param delimiter a pattern of delimiter
+	 * @return a matcher
+	 */
+	public M thenDelimit(PatternMatcher<A> pattern, PatternMatcher<A> delimiter) {
+		return then(type.cast(pattern).delimit(delimiter));
+	}
+
+	/**
+	 * repeats to the given count.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param countmin minimum of repetition
+	 * @param countmax maximum of repetition
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M times(int countmin, int countmax, F action) {
+		return times(countmin, countmax, type.action(action));
+	}
+
+	/**
+	 * repeats to the given count.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param countmin minimum of repetition
+	 * @param countmax maximum of repetition
+	 * @return a matcher
+	 */
+	public M times(int countmin, int countmax) {
+		return times(countmin, countmax, PrimitiveNode.SYNTHESIZED);
+	}
+
+	private M times(int countmin, int countmax, PrimitiveNode.LongAction action) {
+		if(countmin < 0) {
+			throw new IllegalArgumentException("minimum of repetition must be non negative");
+		} else if(countmin == 0 && countmax == 0) {
+			throw new IllegalArgumentException("both minimum and maximum must not be all zero");
+		} else if(countmax >= 0 && (countmin > countmax)) {
+			throw new IllegalArgumentException("minimum must be less than or equal to maximum");
+		}
+		return type.matcher(new PrimitiveNode.Times(node, countmin, countmax, action, ignore), ignore);
+	}
+
+	/**
+	 * a shortcut of 'times(0, 1, action)'.
+	 *
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M maybe(F action) {
+		return times(0, 1, action);
+	}
+
+	/**
+	 * a shortcut of 'times(0, 1)'.
+	 *
+	 * @return a matcher
+	 */
+	public M maybe() {
+		return times(0, 1);
+	}
+
+	/**
+	 * a shortcut of 'times(0, -1, action)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M zeroOrMore(F action) {
+		return times(0, -1, action);
+	}
+
+	/**
+	 * a shortcut of 'times(0, -1)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @return a matcher
+	 */
+	public M zeroOrMore() {
+		return times(0, -1);
+	}
+
+	/**
+	 * a shortcut of 'times(1, -1, action)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M oneOrMore(F action) {
+		return times(1, -1, action);
+	}
+
+	/**
+	 * a shortcut of 'times(1, -1)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @return a matcher
+	 */
+	public M oneOrMore() {
+		return times(1, -1);
+	}
+
+	/**
+	 * matches a string which is delimited by the given matcher.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param delimiter a pattern of delimiter
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M delimit(PatternMatcher<A> delimiter, F action) {
+		return type.matcher(new PrimitiveNode.Delimit(node, type.node(delimiter), type.action(action), ignore),
+				ignore);
+	}
+
+	/**
+	 * matches a string which is delimited by the given matcher.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param delimiter a pattern of delimiter
+	 * @return a matcher
+	 */
+	public M delimit(PatternMatcher<A> delimiter) {
+		return type.matcher(new PrimitiveNode.Delimit(node, type.node(delimiter), PrimitiveNode.SYNTHESIZED, ignore),
+				ignore);
+	}
+
+	/**
+	 * creates a matcher which matches this pattern or the given matcher.
+	 *
+	 * @param matcher an alternate matcher
+	 * @return a matcher
+	 */
+	public M or(PatternMatcher<A> matcher) {
+		return type.matcher(new PrimitiveNode.Or(new PrimitiveNode[] { node, type.node(matcher) }), ignore);
+	}
+
+	/**
+	 * creates a matcher which matches this pattern if the given matcher matches after this pattern.
+	 *
+	 * @param matcher a matcher of lookahead
+	 * @return a matcher
+	 */
+	public M lookahead(PatternMatcher<A> matcher) {
+		return type.matcher(new PrimitiveNode.Lookahead(node, type.node(matcher), false), ignore);
+	}
+
+	/**
+	 * creates a matcher which matches this pattern if the given matcher does not match after this pattern.
+	 *
+	 * @param matcher a matcher of lookahead
+	 * @return a matcher
+	 */
+	public M lookaheadNot(PatternMatcher<A> matcher) {
+		return type.matcher(new PrimitiveNode.Lookahead(node, type.node(matcher), true), ignore);
+	}
+
+	/**
+	 * creates a matcher which matches if this pattern matches the end of the string.
+	 *
+	 * @return a matcher
+	 */
+	public M end() {
+		return type.matcher(new PrimitiveNode.End(node), ignore);
+	}
+
+}
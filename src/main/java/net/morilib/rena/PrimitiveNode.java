@@ -0,0 +1,370 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * Nodes of combinators whose attributes are primitives.<br>
+ * Attributes are held as bits of long (doubles are converted by Double.doubleToRawLongBits),
+ * and results are passed by a context, hence attributes are not boxed.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+abstract class PrimitiveNode {
+
+	/**
+	 * An action whose attributes are bits of long.
+	 */
+	@FunctionalInterface
+	interface LongAction {
+
+		long action(CharSequence match, int start, int end, long attribute, long inheritedAttribute);
+
+	}
+
+	/**
+	 * A context which holds the synthesized attribute of the last matching.
+	 */
+	static final class Context {
+
+		long value;
+		final boolean recognize;
+
+		Context(boolean recognize) {
+			this.recognize = recognize;
+		}
+
+	}
+
+	static final LongAction SYNTHESIZED = (match, start, end, syn, inherit) -> syn;
+	static final LongAction ZERO = (match, start, end, syn, inherit) -> 0;
+
+	/**
+	 * A node which matches a string.
+	 */
+	static final class Literal extends PrimitiveNode {
+
+		private final String string;
+		private final LongAction action;
+
+		Literal(String string, LongAction action) {
+			this.string = string;
+			this.action = action;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			int end = index + string.length();
+
+			if(!CharSequences.startsWith(s, string, index)) {
+				return -1;
+			}
+			ctx.value = action != null && !ctx.recognize ? action.action(s, index, end, 0, attribute) : attribute;
+			return end;
+		}
+
+	}
+
+	/**
+	 * A node which matches a regular expression.
+	 */
+	static final class Regex extends PrimitiveNode {
+
+		private final DfaRegex dfa;
+		private final LongAction action;
+
+		Regex(DfaRegex dfa, LongAction action) {
+			this.dfa = dfa;
+			this.action = action;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			int end = dfa.lookingAt(s, index);
+
+			if(end < 0) {
+				return -1;
+			}
+			ctx.value = action != null && !ctx.recognize ? action.action(s, index, end, 0, attribute) : attribute;
+			return end;
+		}
+
+	}
+
+	/**
+	 * A node which matches an empty string and returns the initial attribute.
+	 */
+	static final class Init extends PrimitiveNode {
+
+		private final long init;
+
+		Init(long init) {
+			this.init = init;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			ctx.value = init;
+			return index;
+		}
+
+	}
+
+	/**
+	 * A node of sequence.
+	 */
+	static final class Then extends PrimitiveNode {
+
+		private final PrimitiveNode left;
+		private final PrimitiveNode right;
+		private final LongAction action;
+		private final SkipPolicy ignore;
+
+		Then(PrimitiveNode left, PrimitiveNode right, LongAction action, SkipPolicy ignore) {
+			this.left = left;
+			this.right = right;
+			this.action = action;
+			this.ignore = ignore;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			int end;
+			long attr;
+
+			if((end = left.match(ctx, s, index, attribute)) < 0) {
+				return -1;
+			}
+			attr = ctx.value;
+			if((end = right.match(ctx, s, Node.skip(ignore, s, end), attr)) < 0) {
+				return -1;
+			}
+			ctx.value = action != null && !ctx.recognize ? action.action(s, index, end, ctx.value, attr) : attr;
+			return end;
+		}
+
+	}
+
+	/**
+	 * A node of alternation.
+	 */
+	static final class Or extends PrimitiveNode {
+
+		private final PrimitiveNode[] alternatives;
+
+		Or(PrimitiveNode[] alternatives) {
+			this.alternatives = alternatives;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			for(PrimitiveNode alternative : alternatives) {
+				int end = alternative.match(ctx, s, index, attribute);
+
+				if(end >= 0) {
+					return end;
+				}
+			}
+			return -1;
+		}
+
+	}
+
+	/**
+	 * A node of repetition.
+	 */
+	static final class Times extends PrimitiveNode {
+
+		private final PrimitiveNode pattern;
+		private final int countmin;
+		private final int countmax;
+		private final LongAction action;
+		private final SkipPolicy ignore;
+
+		Times(PrimitiveNode pattern, int countmin, int countmax, LongAction action, SkipPolicy ignore) {
+			this.pattern = pattern;
+			this.countmin = countmin;
+			this.countmax = countmax;
+			this.action = action;
+			this.ignore = ignore;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			int last = index;
+			long attr = attribute;
+
+			for(int i = 0; countmax < 0 || i < countmax; i++) {
+				int start = Node.skip(ignore, s, last), end;
+
+				last = start;
+				if((end = pattern.match(ctx, s, start, attr)) < 0) {
+					if(i < countmin) {
+						return -1;
+					}
+					break;
+				}
+				if(action != null && !ctx.recognize) {
+					attr = action.action(s, start, end, ctx.value, attr);
+				}
+				last = end;
+			}
+			ctx.value = attr;
+			return last;
+		}
+
+	}
+
+	/**
+	 * A node of delimited repetition.
+	 */
+	static final class Delimit extends PrimitiveNode {
+
+		private final PrimitiveNode pattern;
+		private final PrimitiveNode delimiter;
+		private final LongAction action;
+		private final SkipPolicy ignore;
+
+		Delimit(PrimitiveNode pattern, PrimitiveNode delimiter, LongAction action, SkipPolicy ignore) {
+			this.pattern = pattern;
+			this.delimiter = delimiter;
+			this.action = action;
+			this.ignore = ignore;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			int last, start, end;
+			long attr = attribute;
+
+			if((last = pattern.match(ctx, s, index, attr)) < 0) {
+				return -1;
+			} else if(action != null && !ctx.recognize) {
+				attr = action.action(s, index, last, ctx.value, attr);
+			}
+			while((end = delimiter.match(ctx, s, last, attr)) >= 0 &&
+					(end = pattern.match(ctx, s, start = Node.skip(ignore, s, end), attr)) >= 0) {
+				last = Node.skip(ignore, s, end);
+				if(action != null && !ctx.recognize) {
+					attr = action.action(s, start, end, ctx.value, attr);
+				}
+			}
+			ctx.value = attr;
+			return last;
+		}
+
+	}
+
+	/**
+	 * A node which matches if the pattern matches the end of the string.
+	 */
+	static final class End extends PrimitiveNode {
+
+		private final PrimitiveNode pattern;
+
+		End(PrimitiveNode pattern) {
+			this.pattern = pattern;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			int end = pattern.match(ctx, s, index, attribute);
+
+			return end >= 0 && CharSequences.isEnd(s, end) ? end : -1;
+		}
+
+	}
+
+	/**
+	 * A node of lookahead.
+	 */
+	static final class Lookahead extends PrimitiveNode {
+
+		private final PrimitiveNode pattern;
+		private final PrimitiveNode matcher;
+		private final boolean negative;
+
+		Lookahead(PrimitiveNode pattern, PrimitiveNode matcher, boolean negative) {
+			this.pattern = pattern;
+			this.matcher = matcher;
+			this.negative = negative;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			int end = pattern.match(ctx, s, index, attribute);
+			long attr;
+
+			if(end < 0) {
+				return -1;
+			}
+			attr = ctx.value;
+			if((matcher.match(ctx, s, end, attr) >= 0) == negative) {
+				return -1;
+			}
+			ctx.value = attr;
+			return end;
+		}
+
+	}
+
+	/**
+	 * A node which refers a node which is defined later.
+	 */
+	static final class Ref extends PrimitiveNode {
+
+		PrimitiveNode target;
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			return target.match(ctx, s, index, attribute);
+		}
+
+	}
+
+	/**
+	 * A node which calls a matcher of the generic API with boxed attributes.
+	 */
+	static final class Boxed<A> extends PrimitiveNode {
+
+		private final PatternMatcher<A> matcher;
+		private final PrimitiveType<A, ?, ?> type;
+
+		Boxed(PatternMatcher<A> matcher, PrimitiveType<A, ?, ?> type) {
+			this.matcher = matcher;
+			this.type = type;
+		}
+
+		@Override
+		int match(Context ctx, CharSequence s, int index, long attribute) {
+			PatternResult<A> result;
+
+			if(ctx.recognize) {
+				ctx.value = attribute;
+				return matcher.matchLength(s, index);
+			} else if((result = matcher.match(s, index, type.box(attribute))) == null) {
+				return -1;
+			}
+			ctx.value = type.unbox(result.getAttribute());
+			return result.getLastIndex();
+		}
+
+	}
+
+	/**
+	 * matches the given string and puts the synthesized attribute to the context.
+	 *
+	 * @param ctx a context
+	 * @param s a string to be matched
+	 * @param index an index
+	 * @param attribute inherited attribute
+	 * @return the end index, or -1 if it does not match
+	 */
+	abstract int match(Context ctx, CharSequence s, int index, long attribute);
+
+}
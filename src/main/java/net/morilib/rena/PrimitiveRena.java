@@ -0,0 +1,366 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A base class to create matchers whose attributes are primitives.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> boxed attribute
+ * @param <M> matcher
+ * @param <F> action
+ */
+public abstract class PrimitiveRena<A, M extends PrimitiveMatcher<A, M, F>, F> {
+
+	private final SkipPolicy skipPolicy;
+	private final PrimitiveType<A, M, F> type;
+
+	PrimitiveRena(SkipPolicy skipPolicy, PrimitiveType<A, M, F> type) {
+		this.skipPolicy = skipPolicy != null ? SkipPolicy.cached(skipPolicy) : null;
+		this.type = type;
+	}
+
+	private M matcher(PrimitiveNode node) {
+		return type.matcher(node, skipPolicy);
+	}
+
+	/**
+	 * wraps the given matcher.<br>
+	 * A matcher of the generic API is called with boxed attributes.
+	 *
+	 * @param matcher a matcher
+	 * @return a matcher
+	 */
+	public M then(PatternMatcher<A> matcher) {
+		return matcher(type.node(matcher));
+	}
+
+	/**
+	 * creates a matcher which matches with a given string
+	 * and an action which executes when the pattern is matched.<br>
+	 * The synthesized attribute which is passed to the action is zero.
+	 *
+	 * @param string a string to be matched
+	 * @param action an action to execute
+	 * @return a matcher
+	 */
+	public M string(String string, F action) {
+		return matcher(new PrimitiveNode.Literal(string, type.action(action)));
+	}
+
+	/**
+	 * creates a matcher which matches with a given string.
+	 *
+	 * @param string a string to be matched
+	 * @return a matcher
+	 */
+	public M string(String string) {
+		return string(string, null);
+	}
+
+	/**
+	 * creates a matcher which matches with a given regular expression
+	 * and an action which executes when the pattern is matched.<br>
+	 * The synthesized attribute which is passed to the action is zero.
+	 *
+	 * @param regex a regular expression to be matched
+	 * @param action an action to execute
+	 * @return a matcher
+	 */
+	public M regex(String regex, F action) {
+		return matcher(new PrimitiveNode.Regex(DfaRegex.compile(regex), type.action(action)));
+	}
+
+	/**
+	 * creates a matcher which matches with a given regular expression.
+	 *
+	 * @param regex a regular expression to be matched
+	 * @return a matcher
+	 */
+	public M regex(String regex) {
+		return regex(regex, null);
+	}
+
+	/**
+	 * sets the attribute to the given value.
+	 *
+	 * @param attr an attribute to set
+	 * @return a matcher
+	 */
+	public M attr(A attr) {
+		return matcher(new PrimitiveNode.Init(type.unbox(attr)));
+	}
+
+	/**
+	 * creates a matcher which matches when one of the given matchers matches.
+	 *
+	 * @param arg1 a matcher
+	 * @param arg2 a matcher
+	 * @return a matcher of alternation
+	 */
+	public M or(PatternMatcher<A> arg1, PatternMatcher<A> arg2) {
+		return or(Arrays.asList(arg1, arg2));
+	}
+
+	/**
+	 * creates a matcher which matches when one of the given matchers matches.
+	 *
+	 * @param arg1 a matcher
+	 * @param arg2 a matcher
+	 * @param arg3 a matcher
+	 * @return a matcher of alternation
+	 */
+	public M or(PatternMatcher<A> arg1, PatternMatcher<A> arg2, PatternMatcher<A> arg3) {
+		return or(Arrays.asList(arg1, arg2, arg3));
+	}
+
+	/**
+	 * creates a matcher which matches when one of the given matchers matches.
+	 *
+	 * @param arg1 a matcher
+	 * @param arg2 a matcher
+	 * @param arg3 a matcher
+	 * @param arg4 a matcher
+	 * @return a matcher of alternation
+	 */
+	public M or(PatternMatcher<A> arg1, PatternMatcher<A> arg2, PatternMatcher<A> arg3, PatternMatcher<A> arg4) {
+		return or(Arrays.asList(arg1, arg2, arg3, arg4));
+	}
+
+	/**
+	 * creates a matcher which matches when one of matchers in the given list matches.
+	 *
+	 * @param args a list of matchers
+	 * @return a matcher of alternation
+	 */
+	public M or(List<? extends PatternMatcher<A>> args) {
+		PrimitiveNode[] alternatives = new PrimitiveNode[args.size()];
+
+		if(args.size() == 0) {
+			throw new IllegalArgumentException("too few arguments");
+		}
+		for(int i = 0; i < alternatives.length; i++) {
+			alternatives[i] = type.node(args.get(i));
+		}
+		return matcher(new PrimitiveNode.Or(alternatives));
+	}
+
+	/**
+	 * repeats the given patterns to the given count.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param countmin minimum of repetition
+	 * @param countmax maximum of repetition
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @param init an initial attribute
+	 * @return a matcher
+	 */
+	public M times(int countmin, int countmax, PatternMatcher<A> pattern, F action, A init) {
+		return attr(init).then(times(countmin, countmax, pattern, action));
+	}
+
+	/**
+	 * repeats the given patterns to the given count.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param countmin minimum of repetition
+	 * @param countmax maximum of repetition
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M times(int countmin, int countmax, PatternMatcher<A> pattern, F action) {
+		return then(pattern).times(countmin, countmax, action);
+	}
+
+	/**
+	 * repeats the given patterns to the given count.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param countmin minimum of repetition
+	 * @param countmax maximum of repetition
+	 * @param pattern a matcher
+	 * @return a matcher
+	 */
+	public M times(int countmin, int countmax, PatternMatcher<A> pattern) {
+		return then(pattern).times(countmin, countmax);
+	}
+
+	/**
+	 * a shortcut of 'times(0, 1, pattern, action)'.
+	 *
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M maybe(PatternMatcher<A> pattern, F action) {
+		return times(0, 1, pattern, action);
+	}
+
+	/**
+	 * a shortcut of 'times(0, 1, pattern)'.
+	 *
+	 * @param pattern a matcher
+	 * @return a matcher
+	 */
+	public M maybe(PatternMatcher<A> pattern) {
+		return times(0, 1, pattern);
+	}
+
+	/**
+	 * a shortcut of 'times(0, -1, pattern, action, init)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @param init an initial attribute
+	 * @return a matcher
+	 */
+	public M zeroOrMore(PatternMatcher<A> pattern, F action, A init) {
+		return times(0, -1, pattern, action, init);
+	}
+
+	/**
+	 * a shortcut of 'times(0, -1, pattern, action)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M zeroOrMore(PatternMatcher<A> pattern, F action) {
+		return times(0, -1, pattern, action);
+	}
+
+	/**
+	 * a shortcut of 'times(0, -1, pattern)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @return a matcher
+	 */
+	public M zeroOrMore(PatternMatcher<A> pattern) {
+		return times(0, -1, pattern);
+	}
+
+	/**
+	 * a shortcut of 'times(1, -1, pattern, action, init)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @param init an initial attribute
+	 * @return a matcher
+	 */
+	public M oneOrMore(PatternMatcher<A> pattern, F action, A init) {
+		return times(1, -1, pattern, action, init);
+	}
+
+	/**
+	 * a shortcut of 'times(1, -1, pattern, action)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M oneOrMore(PatternMatcher<A> pattern, F action) {
+		return times(1, -1, pattern, action);
+	}
+
+	/**
+	 * a shortcut of 'times(1, -1, pattern)'.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @return a matcher
+	 */
+	public M oneOrMore(PatternMatcher<A> pattern) {
+		return times(1, -1, pattern);
+	}
+
+	/**
+	 * matches a string which is delimited by the given pattern.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param delimiter a pattern of delimiter
+	 * @param action an action to be invoked
+	 * @param init an initial attribute
+	 * @return a matcher
+	 */
+	public M delimit(PatternMatcher<A> pattern, PatternMatcher<A> delimiter, F action, A init) {
+		return attr(init).then(delimit(pattern, delimiter, action));
+	}
+
+	/**
+	 * matches a string which is delimited by the given pattern.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param delimiter a pattern of delimiter
+	 * @param action an action to be invoked
+	 * @return a matcher
+	 */
+	public M delimit(PatternMatcher<A> pattern, PatternMatcher<A> delimiter, F action) {
+		return then(pattern).delimit(delimiter, action);
+	}
+
+	/**
+	 * matches a string which is delimited by the given pattern.<br>
+	 * This method is NOT backtracking.
+	 *
+	 * @param pattern a matcher
+	 * @param delimiter a pattern of delimiter
+	 * @return a matcher
+	 */
+	public M delimit(PatternMatcher<A> pattern, PatternMatcher<A> delimiter) {
+		return then(pattern).delimit(delimiter);
+	}
+
+	/**
+	 * creates matchers which refer rules which are defined later.
+	 *
+	 * @param type a type
+	 * @param count the number of rules
+	 * @return matchers
+	 */
+	static<A, M extends PrimitiveMatcher<A, M, F>, F> List<M> refs(PrimitiveType<A, M, F> type, int count) {
+		List<M> refs = new ArrayList<M>();
+
+		for(int i = 0; i < count; i++) {
+			refs.add(type.matcher(new PrimitiveNode.Ref(), null));
+		}
+		return refs;
+	}
+
+	/**
+	 * defines the rules which are referred by the given matchers.
+	 *
+	 * @param type a type
+	 * @param refs matchers which refer rules
+	 * @param rules rules
+	 * @return the first rule
+	 */
+	@SafeVarargs
+	static<A, M extends PrimitiveMatcher<A, M, F>, F> M define(PrimitiveType<A, M, F> type,
+			List<M> refs,
+			PatternMatcher<A>... rules) {
+		for(int i = 0; i < rules.length; i++) {
+			((PrimitiveNode.Ref)refs.get(i).node).target = type.node(rules[i]);
+		}
+		return type.cast(rules[0]);
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A type of primitive attributes which converts attributes and actions to bits of long.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> boxed attribute
+ * @param <M> matcher
+ * @param <F> action
+ */
+abstract class PrimitiveType<A, M extends PrimitiveMatcher<A, M, F>, F> {
+
+	/**
+	 * creates a matcher of the given node.
+	 *
+	 * @param node a node
+	 * @param ignore a policy to skip
+	 * @return a matcher
+	 */
+	abstract M matcher(PrimitiveNode node, SkipPolicy ignore);
+
+	/**
+	 * converts the given action to an action of bits of long.
+	 *
+	 * @param action an action which is not null
+	 * @return an action
+	 */
+	abstract PrimitiveNode.LongAction convert(F action);
+
+	/**
+	 * boxes the given bits.
+	 *
+	 * @param value bits
+	 * @return a boxed value
+	 */
+	abstract A box(long value);
+
+	/**
+	 * unboxes the given value.<br>
+	 * null is converted to zero.
+	 *
+	 * @param value a boxed value
+	 * @return bits
+	 */
+	abstract long unbox(A value);
+
+	/**
+	 * converts the given action which may be null.
+	 *
+	 * @param action an action
+	 * @return an action or null
+	 */
+	PrimitiveNode.LongAction action(F action) {
+		return action != null ? convert(action) : null;
+	}
+
+	/**
+	 * gets the node of the given matcher.<br>
+	 * A matcher of the generic API is called with boxed attributes.
+	 *
+	 * @param matcher a matcher
+	 * @return a node
+	 */
+	@SuppressWarnings("unchecked")
+	PrimitiveNode node(PatternMatcher<A> matcher) {
+		if(matcher == null) {
+			throw new NullPointerException();
+		} else if(matcher instanceof PrimitiveMatcher && ((PrimitiveMatcher<A, ?, ?>)matcher).type == this) {
+			return ((PrimitiveMatcher<A, ?, ?>)matcher).node;
+		}
+		return new PrimitiveNode.Boxed<A>(matcher, this);
+	}
+
+	/**
+	 * converts the given matcher to a matcher of this type.
+	 *
+	 * @param matcher a matcher
+	 * @return a matcher
+	 */
+	@SuppressWarnings("unchecked")
+	M cast(PatternMatcher<A> matcher) {
+		if(matcher instanceof PrimitiveMatcher && ((PrimitiveMatcher<A, ?, ?>)matcher).type == this) {
+			return (M)matcher;
+		}
+		return matcher(node(matcher), null);
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * A CharSequence which reads characters from a Reader on demand.<br>
+ * Characters are held in a sliding buffer.
+ * Characters before a released index and characters more than the maximum lookback
+ * behind the last read character are discarded,
+ * and an access to discarded characters throws IllegalStateException.<br>
+ * length() returns the number of characters which have been read,
+ * hence the end of the input must be tested by CharSequences.isEnd.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class ReaderCharSequence implements Input {
+
+	private static final int CHUNK = 8192;
+
+	private final Reader reader;
+	private final int maxLookback;
+	private final int capacity;
+	private char[] buffer;
+	private int base = 0;
+	private int count = 0;
+	private boolean eof = false;
+
+	/**
+	 * constructs a sequence of the given reader.
+	 *
+	 * @param reader a reader
+	 * @param maxLookback maximum number of characters to hold
+	 */
+	ReaderCharSequence(Reader reader, int maxLookback) {
+		if(maxLookback <= 0) {
+			throw new IllegalArgumentException("maximum of lookback must be positive");
+		}
+		this.reader = reader;
+		this.maxLookback = maxLookback;
+		this.capacity = (int)Math.min((long)maxLookback + CHUNK, Integer.MAX_VALUE - 8);
+		this.buffer = new char[Math.min(CHUNK, capacity)];
+	}
+
+	/**
+	 * reads characters until the character of the given index is available.
+	 *
+	 * @param index an index
+	 * @return true if the character of the index is available
+	 */
+	@Override
+	public boolean fill(int index) {
+		while(index >= base + count) {
+			if(!fillMore()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * reads more characters.
+	 *
+	 * @return false if the reader reaches the end
+	 */
+	@Override
+	public boolean fillMore() {
+		int read;
+
+		if(eof) {
+			return false;
+		} else if(count == buffer.length) {
+			if(count < capacity) {
+				buffer = Arrays.copyOf(buffer, (int)Math.min((long)buffer.length * 2, capacity));
+			} else if(count > maxLookback) {
+				discard(count - maxLookback);
+			} else {
+				throw new IllegalStateException("buffer overflow");
+			}
+		}
+
+		try {
+			read = reader.read(buffer, count, buffer.length - count);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if(read < 0) {
+			eof = true;
+			return false;
+		}
+		count += read;
+		return true;
+	}
+
+	/**
+	 * tests whether the reader reaches the end.
+	 *
+	 * @return true if the reader reaches the end
+	 */
+	boolean isEof() {
+		return eof;
+	}
+
+	/**
+	 * discards characters before the given index.
+	 *
+	 * @param index an index
+	 */
+	@Override
+	public void release(int index) {
+		if(index > base) {
+			discard(Math.min(index - base, count));
+		}
+	}
+
+	private void discard(int size) {
+		System.arraycopy(buffer, size, buffer, 0, count - size);
+		base += size;
+		count -= size;
+	}
+
+	@Override
+	public boolean canReadAhead() {
+		return false;
+	}
+
+	@Override
+	public int length() {
+		return base + count;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if(index < base) {
+			throw new IllegalStateException("lookback exceeded: " + index);
+		} else if(!fill(index)) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return buffer[index - base];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if(start < base) {
+			throw new IllegalStateException("lookback exceeded: " + start);
+		} else if(end > start && !fill(end - 1)) {
+			throw new IndexOutOfBoundsException(Integer.toString(end));
+		}
+		return new String(buffer, start - base, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(buffer, 0, count);
+	}
+
+}
@@ -9,12 +9,11 @@
 package net.morilib.rena;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -25,71 +24,16 @@ import java.util.regex.Pattern;
  */
 public class Rena<A> {
 
-	private abstract class RenaImpl implements LookaheadMatcher<A> {
-		@Override
-		public int skipSpace(String match, int index) {
-			if(patternToIgnore != null) {
-				Matcher matcherRe = patternToIgnore.matcher(match.substring(index));
-
-				return matcherRe.lookingAt() ? index + matcherRe.end() : index;
-			} else {
-				return index;
-			}
-		}
-	}
-
-	private class InitAttr extends RenaImpl {
-
-		private A init;
-
-		private InitAttr(A init) {
-			this.init = init;
-		}
-
-		@Override
-		public PatternResult<A> match(String match, int index, A attribute) {
-			return new PatternResult<A>(match, index, init);
-		}
-
-	}
-
-	private static class TrieNode {
-
-		private Map<Integer, TrieNode> edges = new HashMap<Integer, TrieNode>();
-		private String matched = null;
-
-		private boolean contains(int ch) {
-			return edges.containsKey(ch);
-		}
-
-		private TrieNode get(int ch) {
-			if(!contains(ch) || edges.get(ch) == null) {
-				throw new RuntimeException();
-			}
-			return edges.get(ch);
-		}
-
-	}
-
-	@FunctionalInterface
-	private static interface ILetrec<A> {
-		public A apply(ILetrec<A> f);
-	}
-
-	@FunctionalInterface
-	private static interface ILetrecn<A> {
-		public List<A> apply(ILetrecn<A> f);
-	}
-
 	private static final String REAL_NO_SIGN =
 			"(?:[0-9]+(?:\\.[0-9]+)?|\\.[0-9]+)(?:[eE][\\+\\-]?[0-9]+)?";
 	private static final String REAL_WITH_SIGN =
 			"[\\+\\-]?(?:[0-9]+(?:\\.[0-9]+)?|\\.[0-9]+)(?:[eE][\\+\\-]?[0-9]+)?";
 
-	private Pattern patternToIgnore;
-	private TrieNode node;
+	private SkipPolicy skipPolicy;
+	private String[] keys;
+	private CharTrie node;
 
-	public final PatternAction<A> I = (str, syn, inherit) -> syn;
+	public final PatternAction<A> I = Node.identity();
 
 	/**
 	 * Constructs a class to create parser definition with default settings.
@@ -102,7 +46,20 @@ public class Rena<A> {
 	 * @param toIgnore a regular expression to ignore
 	 */
 	public Rena(String toIgnore) {
-		patternToIgnore = Pattern.compile(toIgnore);
+		this(SkipPolicy.regex(toIgnore));
+	}
+
+	/**
+	 * Constructs a class to create parser definition with a policy to skip.<br>
+	 * Results of the policy are cached by positions.
+	 *
+	 * @param toIgnore a policy to skip
+	 */
+	public Rena(SkipPolicy toIgnore) {
+		if(toIgnore == null) {
+			throw new NullPointerException();
+		}
+		skipPolicy = SkipPolicy.cached(toIgnore);
 	}
 
 	/**
@@ -112,10 +69,7 @@ public class Rena<A> {
 	 * @param keys an array of keywords
 	 */
 	public Rena(String[] keys) {
-		node = new TrieNode();
-		for(String key : keys) {
-			addKeyword(key);
-		}
+		addKeywords(keys);
 	}
 
 	/**
@@ -137,10 +91,7 @@ public class Rena<A> {
 	 */
 	public Rena(String toIgnore, String[] keys) {
 		this(toIgnore);
-		node = new TrieNode();
-		for(String key : keys) {
-			addKeyword(key);
-		}
+		addKeywords(keys);
 	}
 
 	/**
@@ -154,45 +105,49 @@ public class Rena<A> {
 		this(toIgnore, keys.toArray(new String[0]));
 	}
 
-	private void addKeyword(String key) {
-		TrieNode node = this.node;
+	/**
+	 * Constructs a class to create parser definition with a policy to skip and keywords.<br>
+	 * A longest keyword will be matched.
+	 *
+	 * @param toIgnore a policy to skip
+	 * @param keys an array of keywords
+	 */
+	public Rena(SkipPolicy toIgnore, String[] keys) {
+		this(toIgnore);
+		addKeywords(keys);
+	}
 
-		if(node == null) {
-			throw new IllegalStateException();
-		} else if(key == null || key.equals("")) {
-			throw new IllegalArgumentException("key must not be empty");
-		}
-		for(int i = 0; i < key.length(); i++) {
-			int ch = key.charAt(i);
+	/**
+	 * Constructs a class to create parser definition with a policy to skip and keywords.<br>
+	 * A longest keyword will be matched.
+	 *
+	 * @param toIgnore a policy to skip
+	 * @param keys an array of keywords
+	 */
+	public Rena(SkipPolicy toIgnore, List<String> keys) {
+		this(toIgnore, keys.toArray(new String[0]));
+	}
 
-			if(!node.contains(ch)) {
-				node.edges.put(ch, new TrieNode());
+	private void addKeywords(String[] keys) {
+		for(String key : keys) {
+			if(key == null || key.equals("")) {
+				throw new IllegalArgumentException("key must not be empty");
 			}
-			node = node.get(ch);
 		}
-		node.matched = key;
+		this.keys = keys.clone();
+		this.node = new CharTrie(this.keys);
 	}
 
-	private String searchKeyword(String toMatch, int index) {
-		TrieNode node = this.node;
-		int i;
+	String searchKeyword(CharSequence toMatch, int index) {
+		int result;
 
 		if(node == null) {
 			return null;
 		}
-		for(i = index; i < toMatch.length(); i++) {
-			int ch = toMatch.charAt(i);
-
-			if(node.contains(ch)) {
-				node = node.get(ch);
-			} else {
-				return node.matched;
-			}
-		}
-		return node.matched;
+		return (result = node.deepest(toMatch, index)) >= 0 ? keys[result] : null;
 	}
 
-	private int matchKeyword(String key, String toMatch, int index) {
+	int matchKeyword(String key, CharSequence toMatch, int index) {
 		String result = searchKeyword(toMatch, index);
 
 		return result != null && result.equals(key) ? index + result.length() : -1;
@@ -207,20 +162,7 @@ public class Rena<A> {
 	 */
 	public LookaheadMatcher<A> then(final PatternMatcher<A> matcher,
 			final PatternAction<A> action) {
-		return new RenaImpl() {
-			@Override
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result = matcher.match(match, index, attribute);
-
-				if(result != null) {
-					return new PatternResult<A>(result.getMatch(),
-							result.getLastIndex(),
-							action.action(result.getMatch(), result.getAttribute(), attribute));
-				} else {
-					return null;
-				}
-			}
-		};
+		return new Node.Action<A>(matcher, action, skipPolicy);
 	}
 
 	/**
@@ -230,12 +172,7 @@ public class Rena<A> {
 	 * @return a matcher
 	 */
 	public LookaheadMatcher<A> then(final PatternMatcher<A> matcher) {
-		return new RenaImpl() {
-			@Override
-			public PatternResult<A> match(String match, int index, A attribute) {
-				return matcher.match(match, index, attribute);
-			}
-		};
+		return new Node.Wrap<A>(matcher, skipPolicy);
 	}
 
 	/**
@@ -248,18 +185,7 @@ public class Rena<A> {
 	 */
 	public LookaheadMatcher<A> string(final String string,
 			final PatternAction<A> action) {
-		return new RenaImpl() {
-			@Override
-			public PatternResult<A> match(String match, int index, A attribute) {
-				if(match.startsWith(string, index)) {
-					return new PatternResult<A>(string,
-							index + string.length(),
-							action != null ? action.action(string, null, attribute) : attribute);
-				} else {
-					return null;
-				}
-			}
-		};
+		return new Node.Literal<A>(string, action, skipPolicy);
 	}
 
 	/**
@@ -282,24 +208,7 @@ public class Rena<A> {
 	 */
 	public LookaheadMatcher<A> regex(final String regex,
 			final PatternAction<A> action) {
-		final Pattern pattern = Pattern.compile(regex);
-
-		return new RenaImpl() {
-			@Override
-			public PatternResult<A> match(String match, int index, A attribute) {
-				String toMatch = match.substring(index);
-				Matcher matcher = pattern.matcher(toMatch);
-
-				if(matcher.lookingAt()) {
-					return new PatternResult<A>(match.substring(index, index + matcher.end()),
-							index + matcher.end(),
-							action != null ? action.action(match.substring(index, index + matcher.end()),
-									null, attribute) : attribute);
-				} else {
-					return null;
-				}
-			}
-		};
+		return new Node.Regex<A>(Pattern.compile(regex), action, skipPolicy);
 	}
 
 	/**
@@ -320,18 +229,30 @@ public class Rena<A> {
 	 * @return a matcher
 	 */
 	public LookaheadMatcher<A> key(final String key) {
-		return new RenaImpl() {
-			@Override
-			public PatternResult<A> match(String match, int index, A attribute) {
-				int lastIndex;
-
-				if((lastIndex = matchKeyword(key, match, index)) >= 0) {
-					return new PatternResult<A>(key, lastIndex, attribute);
-				} else {
-					return null;
-				}
-			}
-		};
+		return new Node.Keyword<A>(key, this, skipPolicy);
+	}
+
+	/**
+	 * creates a matcher which matches one of the given keywords and executes the action of the keyword.<br>
+	 * A longest keyword will be matched by one walk of the keywords,
+	 * hence this matcher is faster than an alternation of key(String).
+	 * A keyword which has a null action returns the inherited attribute.
+	 *
+	 * @param keys a map from keywords to actions
+	 * @return a matcher
+	 */
+	public LookaheadMatcher<A> keys(Map<String, PatternAction<A>> keys) {
+		List<Node.Keyword<A>> keywords = new ArrayList<Node.Keyword<A>>();
+		List<PatternAction<A>> actions = new ArrayList<PatternAction<A>>();
+
+		if(keys.isEmpty()) {
+			throw new IllegalArgumentException("too few arguments");
+		}
+		for(Map.Entry<String, PatternAction<A>> entry : keys.entrySet()) {
+			keywords.add(new Node.Keyword<A>(entry.getKey(), this, skipPolicy));
+			actions.add(entry.getValue());
+		}
+		return new Node.Keys<A>(keywords.get(0), keywords, actions);
 	}
 
 	/**
@@ -340,16 +261,7 @@ public class Rena<A> {
 	 * @return a matcher
 	 */
 	public LookaheadMatcher<A> notKey() {
-		return new RenaImpl() {
-			@Override
-			public PatternResult<A> match(String match, int index, A attribute) {
-				if(searchKeyword(match, index) == null) {
-					return new PatternResult<A>("", index, attribute);
-				} else {
-					return null;
-				}
-			}
-		};
+		return new Node.NotKeyword<A>(this, skipPolicy);
 	}
 
 	/**
@@ -373,12 +285,11 @@ public class Rena<A> {
 		return string(id)
 				.lookahead((str, index, attr) -> {
 					PatternResult<A> result = new PatternResult<A>("", index, null);
-					if(index == str.length()) {
+					if(CharSequences.isEnd(str, index)) {
 						return result;
-					} else if(patternToIgnore == null && node == null) {
+					} else if(skipPolicy == null && node == null) {
 						return result;
-					} else if(patternToIgnore != null &&
-							patternToIgnore.matcher(str.substring(index)).lookingAt()) {
+					} else if(skipPolicy != null && skipPolicy.matches(str, index)) {
 						return result;
 					} else if(node != null && searchKeyword(str, index) != null) {
 						return result;
@@ -408,7 +319,7 @@ public class Rena<A> {
 	 * @return a matcher of alternation
 	 */
 	public OrMatcher<A> or(PatternMatcher<A> arg1, PatternMatcher<A> arg2) {
-		return then(arg1).or(arg2);
+		return or(Arrays.asList(arg1, arg2));
 	}
 
 	/**
@@ -422,7 +333,7 @@ public class Rena<A> {
 	public OrMatcher<A> or(PatternMatcher<A> arg1,
 			PatternMatcher<A> arg2,
 			PatternMatcher<A> arg3) {
-		return then(arg1).or(arg2).or(arg3);
+		return or(Arrays.asList(arg1, arg2, arg3));
 	}
 
 	/**
@@ -438,26 +349,21 @@ public class Rena<A> {
 			PatternMatcher<A> arg2,
 			PatternMatcher<A> arg3,
 			PatternMatcher<A> arg4) {
-		return then(arg1).or(arg2).or(arg3).or(arg4);
+		return or(Arrays.asList(arg1, arg2, arg3, arg4));
 	}
 
 	/**
-	 * creates a matcher which matches when one of matchers in the given list matches.
+	 * creates a matcher which matches when one of matchers in the given list matches.<br>
+	 * Matchers which cannot begin with the character at the index are not tried.
 	 *
 	 * @param args a list of matchers
 	 * @return a matcher of alternation
 	 */
 	public OrMatcher<A> or(List<PatternMatcher<A>> args) {
-		OrMatcher<A> result;
-
 		if(args.size() == 0) {
 			throw new IllegalArgumentException("too few arguments");
 		}
-		result = then(args.get(0));
-		for(int i = 1; i < args.size(); i++) {
-			result = result.or(args.get(i));
-		}
-		return result;
+		return new Node.Choice<A>(then(args.get(0)), args);
 	}
 
 	/**
@@ -473,7 +379,7 @@ public class Rena<A> {
 	 */
 	public OperationMatcher<A> times(int countmin, int countmax, PatternMatcher<A> pattern,
 			PatternAction<A> action, A init) {
-		return new InitAttr(init).then(then(pattern).times(countmin, countmax, action),
+		return new Node.Init<A>(init, skipPolicy).then(then(pattern).times(countmin, countmax, action),
 				(str, syn, inherit) -> syn);
 	}
 
@@ -517,7 +423,7 @@ public class Rena<A> {
 	 */
 	public OperationMatcher<A> atLeast(int count, PatternMatcher<A> pattern,
 			PatternAction<A> action, A init) {
-		return new InitAttr(init).then(then(pattern).atLeast(count, action),
+		return new Node.Init<A>(init, skipPolicy).then(then(pattern).atLeast(count, action),
 				(str, syn, inherit) -> syn);
 	}
 
@@ -559,7 +465,7 @@ public class Rena<A> {
 	 */
 	public OperationMatcher<A> atMost(int count, PatternMatcher<A> pattern,
 			PatternAction<A> action, A init) {
-		return new InitAttr(init).then(then(pattern).atMost(count, action),
+		return new Node.Init<A>(init, skipPolicy).then(then(pattern).atMost(count, action),
 				(str, syn, inherit) -> syn);
 	}
 
@@ -623,7 +529,7 @@ public class Rena<A> {
 	 */
 	public OperationMatcher<A> zeroOrMore(PatternMatcher<A> pattern,
 			PatternAction<A> action, A init) {
-		return new InitAttr(init).then(then(pattern).zeroOrMore(action),
+		return new Node.Init<A>(init, skipPolicy).then(then(pattern).zeroOrMore(action),
 				(str, syn, inherit) -> syn);
 	}
 
@@ -661,7 +567,7 @@ public class Rena<A> {
 	 */
 	public OperationMatcher<A> oneOrMore(PatternMatcher<A> pattern,
 			PatternAction<A> action, A init) {
-		return new InitAttr(init).then(then(pattern).oneOrMore(action),
+		return new Node.Init<A>(init, skipPolicy).then(then(pattern).oneOrMore(action),
 				(str, syn, inherit) -> syn);
 	}
 
@@ -700,7 +606,7 @@ public class Rena<A> {
 	 */
 	public OperationMatcher<A> delimit(PatternMatcher<A> pattern, PatternMatcher<A> delimiter,
 			PatternAction<A> action, A init) {
-		return new InitAttr(init).then(then(pattern).delimit(delimiter, action),
+		return new Node.Init<A>(init, skipPolicy).then(then(pattern).delimit(delimiter, action),
 				(str, syn, inherit) -> syn);
 	}
 
@@ -731,13 +637,14 @@ public class Rena<A> {
 	}
 
 	/**
-	 * sets the attribute to the given value.
+	 * sets the attribute to the given value.<br>
+	 * The matcher matches an empty string, hence the matched string of the result is "".
 	 *
 	 * @param attr an attribute to set
 	 * @return a matcher
 	 */
 	public LookaheadMatcher<A> attr(A attr) {
-		return new InitAttr(attr);
+		return new Node.Init<A>(attr, skipPolicy);
 	}
 
 	/**
@@ -750,10 +657,11 @@ public class Rena<A> {
 	 */
 	public static<A> PatternMatcher<A> letrec(
 			final Function<PatternMatcher<A>, PatternMatcher<A>> func) {
-		ILetrec<PatternMatcher<A>> f = g -> g.apply(g);
-		ILetrec<PatternMatcher<A>> h = g -> func.apply((match, index, attr) -> g.apply(g).match(match, index, attr));
+		RuleSet<A> rules = new RuleSet<A>();
+		PatternMatcher<A> x1 = rules.ref("1");
 
-		return f.apply(h);
+		rules.define("1", func.apply(x1));
+		return rules.get("1");
 	}
 
 	/**
@@ -768,18 +676,13 @@ public class Rena<A> {
 	public static<A> PatternMatcher<A> letrec(
 			final BiFunction<PatternMatcher<A>, PatternMatcher<A>, PatternMatcher<A>> func1,
 			final BiFunction<PatternMatcher<A>, PatternMatcher<A>, PatternMatcher<A>> func2) {
-		ILetrecn<PatternMatcher<A>> f = g -> g.apply(g);
-		ILetrecn<PatternMatcher<A>> h = g -> {
-			List<PatternMatcher<A>> result = new ArrayList<PatternMatcher<A>>();
-			PatternMatcher<A> x1 = (match, index, attr) -> g.apply(g).get(0).match(match, index, attr);
-			PatternMatcher<A> x2 = (match, index, attr) -> g.apply(g).get(1).match(match, index, attr);
-
-			result.add(func1.apply(x1, x2));
-			result.add(func2.apply(x1, x2));
-			return result;
-		};
+		RuleSet<A> rules = new RuleSet<A>();
+		PatternMatcher<A> x1 = rules.ref("1");
+		PatternMatcher<A> x2 = rules.ref("2");
 
-		return f.apply(h).get(0);
+		rules.define("1", func1.apply(x1, x2));
+		rules.define("2", func2.apply(x1, x2));
+		return rules.get("1");
 	}
 
 	/**
@@ -796,20 +699,15 @@ public class Rena<A> {
 			final Letrec3Function<A> func1,
 			final Letrec3Function<A> func2,
 			final Letrec3Function<A> func3) {
-		ILetrecn<PatternMatcher<A>> f = g -> g.apply(g);
-		ILetrecn<PatternMatcher<A>> h = g -> {
-			List<PatternMatcher<A>> result = new ArrayList<PatternMatcher<A>>();
-			PatternMatcher<A> x1 = (match, index, attr) -> g.apply(g).get(0).match(match, index, attr);
-			PatternMatcher<A> x2 = (match, index, attr) -> g.apply(g).get(1).match(match, index, attr);
-			PatternMatcher<A> x3 = (match, index, attr) -> g.apply(g).get(2).match(match, index, attr);
+		RuleSet<A> rules = new RuleSet<A>();
+		PatternMatcher<A> x1 = rules.ref("1");
+		PatternMatcher<A> x2 = rules.ref("2");
+		PatternMatcher<A> x3 = rules.ref("3");
 
-			result.add(func1.apply(x1, x2, x3));
-			result.add(func2.apply(x1, x2, x3));
-			result.add(func3.apply(x1, x2, x3));
-			return result;
-		};
-
-		return f.apply(h).get(0);
+		rules.define("1", func1.apply(x1, x2, x3));
+		rules.define("2", func2.apply(x1, x2, x3));
+		rules.define("3", func3.apply(x1, x2, x3));
+		return rules.get("1");
 	}
 
 	/**
@@ -828,22 +726,17 @@ public class Rena<A> {
 			final Letrec4Function<A> func2,
 			final Letrec4Function<A> func3,
 			final Letrec4Function<A> func4) {
-		ILetrecn<PatternMatcher<A>> f = g -> g.apply(g);
-		ILetrecn<PatternMatcher<A>> h = g -> {
-			List<PatternMatcher<A>> result = new ArrayList<PatternMatcher<A>>();
-			PatternMatcher<A> x1 = (match, index, attr) -> g.apply(g).get(0).match(match, index, attr);
-			PatternMatcher<A> x2 = (match, index, attr) -> g.apply(g).get(1).match(match, index, attr);
-			PatternMatcher<A> x3 = (match, index, attr) -> g.apply(g).get(2).match(match, index, attr);
-			PatternMatcher<A> x4 = (match, index, attr) -> g.apply(g).get(3).match(match, index, attr);
-
-			result.add(func1.apply(x1, x2, x3, x4));
-			result.add(func2.apply(x1, x2, x3, x4));
-			result.add(func3.apply(x1, x2, x3, x4));
-			result.add(func4.apply(x1, x2, x3, x4));
-			return result;
-		};
+		RuleSet<A> rules = new RuleSet<A>();
+		PatternMatcher<A> x1 = rules.ref("1");
+		PatternMatcher<A> x2 = rules.ref("2");
+		PatternMatcher<A> x3 = rules.ref("3");
+		PatternMatcher<A> x4 = rules.ref("4");
 
-		return f.apply(h).get(0);
+		rules.define("1", func1.apply(x1, x2, x3, x4));
+		rules.define("2", func2.apply(x1, x2, x3, x4));
+		rules.define("3", func3.apply(x1, x2, x3, x4));
+		rules.define("4", func4.apply(x1, x2, x3, x4));
+		return rules.get("1");
 	}
 
 	/**
@@ -864,24 +757,19 @@ public class Rena<A> {
 			final Letrec5Function<A> func3,
 			final Letrec5Function<A> func4,
 			final Letrec5Function<A> func5) {
-		ILetrecn<PatternMatcher<A>> f = g -> g.apply(g);
-		ILetrecn<PatternMatcher<A>> h = g -> {
-			List<PatternMatcher<A>> result = new ArrayList<PatternMatcher<A>>();
-			PatternMatcher<A> x1 = (match, index, attr) -> g.apply(g).get(0).match(match, index, attr);
-			PatternMatcher<A> x2 = (match, index, attr) -> g.apply(g).get(1).match(match, index, attr);
-			PatternMatcher<A> x3 = (match, index, attr) -> g.apply(g).get(2).match(match, index, attr);
-			PatternMatcher<A> x4 = (match, index, attr) -> g.apply(g).get(3).match(match, index, attr);
-			PatternMatcher<A> x5 = (match, index, attr) -> g.apply(g).get(4).match(match, index, attr);
-
-			result.add(func1.apply(x1, x2, x3, x4, x5));
-			result.add(func2.apply(x1, x2, x3, x4, x5));
-			result.add(func3.apply(x1, x2, x3, x4, x5));
-			result.add(func4.apply(x1, x2, x3, x4, x5));
-			result.add(func5.apply(x1, x2, x3, x4, x5));
-			return result;
-		};
-
-		return f.apply(h).get(0);
+		RuleSet<A> rules = new RuleSet<A>();
+		PatternMatcher<A> x1 = rules.ref("1");
+		PatternMatcher<A> x2 = rules.ref("2");
+		PatternMatcher<A> x3 = rules.ref("3");
+		PatternMatcher<A> x4 = rules.ref("4");
+		PatternMatcher<A> x5 = rules.ref("5");
+
+		rules.define("1", func1.apply(x1, x2, x3, x4, x5));
+		rules.define("2", func2.apply(x1, x2, x3, x4, x5));
+		rules.define("3", func3.apply(x1, x2, x3, x4, x5));
+		rules.define("4", func4.apply(x1, x2, x3, x4, x5));
+		rules.define("5", func5.apply(x1, x2, x3, x4, x5));
+		return rules.get("1");
 	}
 
 }
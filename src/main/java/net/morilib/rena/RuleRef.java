@@ -0,0 +1,68 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A forward reference of a rule which will be resolved after construction.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+final class RuleRef<A> implements PatternMatcher<A> {
+
+	private final String name;
+	private PatternMatcher<A> target;
+	private MemoTable memo;
+
+	RuleRef(String name) {
+		this.name = name;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	PatternMatcher<A> getTarget() {
+		return target;
+	}
+
+	void resolve(PatternMatcher<A> target) {
+		if(this.target != null) {
+			throw new IllegalStateException("rule is already defined: " + name);
+		}
+		this.target = memo != null ? memo.memoize(target) : target;
+	}
+
+	void memoize(MemoTable memo) {
+		if(this.memo == null) {
+			this.memo = memo;
+			if(target != null) {
+				target = memo.memoize(target);
+			}
+		}
+	}
+
+	PatternMatcher<A> getResolved() {
+		if(target == null) {
+			throw new IllegalStateException("rule is not defined: " + name);
+		}
+		return target;
+	}
+
+	@Override
+	public PatternResult<A> match(CharSequence match, int index, A attribute) {
+		return getResolved().match(match, index, attribute);
+	}
+
+	@Override
+	public int matchLength(CharSequence match, int index) {
+		return getResolved().matchLength(match, index);
+	}
+
+}
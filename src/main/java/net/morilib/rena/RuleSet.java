@@ -0,0 +1,148 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of named rules which can refer each other.<br>
+ * A rule can be referred by ref before it is defined,
+ * and the reference is resolved when the rule is defined.
+ * Recursive call of a rule costs only one indirection.
+ *
+ * <pre>
+ * Rena&lt;Integer&gt; r = new Rena&lt;Integer&gt;();
+ * RuleSet&lt;Integer&gt; rules = new RuleSet&lt;Integer&gt;();
+ * rules.define("paren", r.string("(").then(rules.ref("paren")).string(")").maybe());
+ * PatternMatcher&lt;Integer&gt; paren = rules.get("paren");
+ * </pre>
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+public class RuleSet<A> {
+
+	private Map<String, RuleRef<A>> rules = new LinkedHashMap<String, RuleRef<A>>();
+	private MemoTable memoAll;
+
+	/**
+	 * gets a reference of the rule of the given name.<br>
+	 * The rule need not be defined yet.
+	 *
+	 * @param name a name of the rule
+	 * @return a matcher which refers the rule
+	 */
+	public PatternMatcher<A> ref(String name) {
+		RuleRef<A> ref;
+
+		if(name == null) {
+			throw new NullPointerException();
+		} else if((ref = rules.get(name)) == null) {
+			ref = new RuleRef<A>(name);
+			rules.put(name, ref);
+			if(memoAll != null) {
+				ref.memoize(memoAll);
+			}
+		}
+		return ref;
+	}
+
+	/**
+	 * defines the rule of the given name.
+	 *
+	 * @param name a name of the rule
+	 * @param matcher a matcher of the rule
+	 * @return this instance
+	 */
+	public RuleSet<A> define(String name, PatternMatcher<A> matcher) {
+		if(matcher == null) {
+			throw new NullPointerException();
+		}
+		((RuleRef<A>)ref(name)).resolve(matcher);
+		return this;
+	}
+
+	/**
+	 * memoizes results of the rules of the given names by the given table.<br>
+	 * The rules may be defined after calling this method.
+	 *
+	 * @param table a memo table
+	 * @param names names of the rules
+	 * @return this instance
+	 */
+	public RuleSet<A> memoize(MemoTable table, String... names) {
+		if(table == null) {
+			throw new NullPointerException();
+		}
+		for(String name : names) {
+			((RuleRef<A>)ref(name)).memoize(table);
+		}
+		return this;
+	}
+
+	/**
+	 * memoizes results of all rules of this set by the given table.<br>
+	 * Rules which will be defined after calling this method are also memoized.
+	 *
+	 * @param table a memo table
+	 * @return this instance
+	 */
+	public RuleSet<A> memoizeAll(MemoTable table) {
+		if(table == null) {
+			throw new NullPointerException();
+		}
+		memoAll = table;
+		for(RuleRef<A> ref : rules.values()) {
+			ref.memoize(table);
+		}
+		return this;
+	}
+
+	/**
+	 * tests whether the rule of the given name is defined.
+	 *
+	 * @param name a name of the rule
+	 * @return true if the rule is defined
+	 */
+	public boolean isDefined(String name) {
+		return rules.containsKey(name) && rules.get(name).getTarget() != null;
+	}
+
+	/**
+	 * gets the rule of the given name.<br>
+	 * All rules referred in this set must be defined.
+	 *
+	 * @param name a name of the rule
+	 * @return a matcher of the rule
+	 */
+	public PatternMatcher<A> get(String name) {
+		for(RuleRef<A> ref : rules.values()) {
+			if(ref.getTarget() == null) {
+				throw new IllegalStateException("rule is not defined: " + ref.getName());
+			}
+		}
+		if(!rules.containsKey(name)) {
+			throw new IllegalArgumentException("rule is not found: " + name);
+		}
+		return rules.get(name);
+	}
+
+	/**
+	 * gets names of all rules in this set in order of definition or reference.
+	 *
+	 * @return a list of names
+	 */
+	public List<String> getNames() {
+		return new ArrayList<String>(rules.keySet());
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * Implementations of {@link SkipPolicy}.<br>
+ * Characters are scanned by hand-coded loops without allocation.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class SkipPolicies {
+
+	static final SkipPolicy WHITESPACE = (match, index) -> {
+		int i = index, ch;
+
+		while((ch = CharSequences.charAt(match, i)) >= 0 && (ch == ' ' || (ch >= '\t' && ch <= '\r'))) {
+			i++;
+		}
+		return i;
+	};
+
+	static final SkipPolicy UNICODE_WHITESPACE = (match, index) -> {
+		int i = index, ch;
+
+		while((ch = CharSequences.charAt(match, i)) >= 0 &&
+				(Character.isWhitespace((char)ch) || Character.isSpaceChar((char)ch))) {
+			i++;
+		}
+		return i;
+	};
+
+	private SkipPolicies() {}
+
+	/**
+	 * A policy which skips a regular expression.
+	 */
+	static final class Regex implements SkipPolicy {
+
+		private final DfaRegex dfa;
+
+		Regex(DfaRegex dfa) {
+			this.dfa = dfa;
+		}
+
+		@Override
+		public int skip(CharSequence match, int index) {
+			int lastIndex = dfa.lookingAt(match, index);
+
+			return lastIndex >= 0 ? lastIndex : index;
+		}
+
+		@Override
+		public boolean matches(CharSequence match, int index) {
+			return dfa.lookingAt(match, index) >= 0;
+		}
+
+	}
+
+	/**
+	 * A policy which skips a comment to the end of the line.
+	 */
+	static final class LineComment implements SkipPolicy {
+
+		private final String start;
+
+		LineComment(String start) {
+			this.start = start;
+		}
+
+		@Override
+		public int skip(CharSequence match, int index) {
+			int i, ch;
+
+			if(!CharSequences.startsWith(match, start, index)) {
+				return index;
+			}
+			for(i = index + start.length(); (ch = CharSequences.charAt(match, i)) >= 0; i++) {
+				if(ch == '\n' || ch == '\r') {
+					break;
+				}
+			}
+			return i;
+		}
+
+	}
+
+	/**
+	 * A policy which skips a block comment.
+	 */
+	static final class BlockComment implements SkipPolicy {
+
+		private final String start;
+		private final String end;
+		private final boolean nested;
+
+		BlockComment(String start, String end, boolean nested) {
+			this.start = start;
+			this.end = end;
+			this.nested = nested;
+		}
+
+		@Override
+		public int skip(CharSequence match, int index) {
+			int i, depth = 1;
+
+			if(!CharSequences.startsWith(match, start, index)) {
+				return index;
+			}
+			for(i = index + start.length(); depth > 0;) {
+				if(CharSequences.startsWith(match, end, i)) {
+					depth--;
+					i += end.length();
+				} else if(nested && CharSequences.startsWith(match, start, i)) {
+					depth++;
+					i += start.length();
+				} else if(CharSequences.charAt(match, i) >= 0) {
+					i++;
+				} else {
+					// a comment which is not closed
+					return index;
+				}
+			}
+			return i;
+		}
+
+	}
+
+	/**
+	 * A policy which skips policies repeatedly.
+	 */
+	static final class Any implements SkipPolicy {
+
+		private final SkipPolicy[] policies;
+
+		Any(SkipPolicy[] policies) {
+			this.policies = policies;
+		}
+
+		@Override
+		public int skip(CharSequence match, int index) {
+			for(int i = index, next;; i = next) {
+				next = i;
+				for(SkipPolicy policy : policies) {
+					next = policy.skip(match, next);
+				}
+				if(next == i) {
+					return i;
+				}
+			}
+		}
+
+		@Override
+		public boolean matches(CharSequence match, int index) {
+			for(SkipPolicy policy : policies) {
+				if(policy.matches(match, index)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * A policy which caches results of a policy in a direct-mapped table.<br>
+	 * Each thread has its own table of the last input, hence skipping does not allocate
+	 * while the same input is matched.
+	 * The input is held weakly, hence the table does not keep an input reachable
+	 * after matching it returns.
+	 */
+	static final class Cached implements SkipPolicy {
+
+		private static final int SIZE = 64;
+		private static final int EMPTY = Integer.MIN_VALUE;
+
+		private static final class Table {
+
+			private Reference<CharSequence> match = new WeakReference<CharSequence>(null);
+			private final int[] indices = new int[SIZE];
+			private final int[] lastIndices = new int[SIZE];
+
+		}
+
+		private final SkipPolicy policy;
+		private final ThreadLocal<Table> tables = ThreadLocal.withInitial(Table::new);
+
+		Cached(SkipPolicy policy) {
+			this.policy = policy;
+		}
+
+		@Override
+		public int skip(CharSequence match, int index) {
+			int slot = index & (SIZE - 1), lastIndex;
+			Table table;
+
+			if(index == EMPTY || !CharSequences.isStable(match)) {
+				return policy.skip(match, index);
+			} else if((table = tables.get()).match.get() != match) {
+				table.match = new WeakReference<CharSequence>(match);
+				Arrays.fill(table.indices, EMPTY);
+			} else if(table.indices[slot] == index) {
+				return table.lastIndices[slot];
+			}
+			lastIndex = policy.skip(match, index);
+			table.indices[slot] = index;
+			table.lastIndices[slot] = lastIndex;
+			return lastIndex;
+		}
+
+		@Override
+		public boolean matches(CharSequence match, int index) {
+			return policy.matches(match, index);
+		}
+
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.regex.Pattern;
+
+/**
+ * A functional interface of policies to skip spaces and comments between tokens.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+@FunctionalInterface
+public interface SkipPolicy {
+
+	/**
+	 * a method to skip.
+	 *
+	 * @param match a string
+	 * @param index an index
+	 * @return the index after skipping, or the given index if nothing is skipped
+	 */
+	public int skip(CharSequence match, int index);
+
+	/**
+	 * tests whether this policy matches at the given index.<br>
+	 * By default, the policy matches if a character is skipped.
+	 *
+	 * @param match a string
+	 * @param index an index
+	 * @return true if this policy matches
+	 */
+	public default boolean matches(CharSequence match, int index) {
+		return skip(match, index) > index;
+	}
+
+	/**
+	 * creates a policy which skips the given regular expression.<br>
+	 * The expression is matched by {@link DfaRegex}.
+	 *
+	 * @param regex a regular expression
+	 * @return a policy
+	 */
+	public static SkipPolicy regex(String regex) {
+		return regex(Pattern.compile(regex));
+	}
+
+	/**
+	 * creates a policy which skips the given pattern.<br>
+	 * The pattern is matched by {@link DfaRegex}.
+	 *
+	 * @param pattern a pattern
+	 * @return a policy
+	 */
+	public static SkipPolicy regex(Pattern pattern) {
+		return new SkipPolicies.Regex(DfaRegex.compile(pattern));
+	}
+
+	/**
+	 * creates a policy which skips ASCII whitespaces (space, tab, newlines, vertical tab and form feed).
+	 *
+	 * @return a policy
+	 */
+	public static SkipPolicy whitespace() {
+		return SkipPolicies.WHITESPACE;
+	}
+
+	/**
+	 * creates a policy which skips Unicode whitespaces and space separators.
+	 *
+	 * @return a policy
+	 */
+	public static SkipPolicy unicodeWhitespace() {
+		return SkipPolicies.UNICODE_WHITESPACE;
+	}
+
+	/**
+	 * creates a policy which skips a comment from the given string to the end of the line.<br>
+	 * The newline is not skipped.
+	 *
+	 * @param start the beginning of comments
+	 * @return a policy
+	 */
+	public static SkipPolicy lineComment(String start) {
+		if(start == null || start.isEmpty()) {
+			throw new IllegalArgumentException("start must not be empty");
+		}
+		return new SkipPolicies.LineComment(start);
+	}
+
+	/**
+	 * creates a policy which skips a block comment.<br>
+	 * A comment which is not closed is not skipped.
+	 *
+	 * @param start the beginning of comments
+	 * @param end the end of comments
+	 * @param nested true if comments can be nested
+	 * @return a policy
+	 */
+	public static SkipPolicy blockComment(String start, String end, boolean nested) {
+		if(start == null || start.isEmpty() || end == null || end.isEmpty()) {
+			throw new IllegalArgumentException("start and end must not be empty");
+		}
+		return new SkipPolicies.BlockComment(start, end, nested);
+	}
+
+	/**
+	 * creates a policy which skips the given policies repeatedly until no policy skips.
+	 *
+	 * @param policies policies
+	 * @return a policy
+	 */
+	public static SkipPolicy any(SkipPolicy... policies) {
+		return new SkipPolicies.Any(policies.clone());
+	}
+
+	/**
+	 * creates a policy which caches results of the given policy by positions.<br>
+	 * Skipping at the same index of the same string again is a lookup of the cache.
+	 * Only stable inputs such as java.lang.String and regions of it are cached
+	 * because other sequences may be changed.
+	 * The cache holds the last input of each thread weakly.
+	 *
+	 * @param policy a policy
+	 * @return a policy
+	 */
+	public static SkipPolicy cached(SkipPolicy policy) {
+		return policy instanceof SkipPolicies.Cached ? policy : new SkipPolicies.Cached(policy);
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+/**
+ * A functional interface of actions which receive the matched span instead of the matched string.<br>
+ * The matched string is not created if the action does not create it.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+@FunctionalInterface
+public interface SpanAction<A> extends PatternAction<A> {
+
+	/**
+	 * a method of an action.
+	 *
+	 * @param input the input string
+	 * @param start start index of the matched span
+	 * @param end end index of the matched span
+	 * @param attribute synthesized attribute
+	 * @param inheritedAttribute inherited attribute
+	 * @return new synthesized attribute
+	 */
+	public A action(CharSequence input, int start, int end, A attribute, A inheritedAttribute);
+
+	/**
+	 * calls the action with the whole of the given string as the span.
+	 */
+	public default A action(String match, A attribute, A inheritedAttribute) {
+		return action(match, 0, match.length(), attribute, inheritedAttribute);
+	}
+
+	/**
+	 * returns the given action as an action which can be passed to combinators.
+	 *
+	 * @param action an action
+	 * @return the action
+	 */
+	public static<A> SpanAction<A> of(SpanAction<A> action) {
+		return action;
+	}
+
+}
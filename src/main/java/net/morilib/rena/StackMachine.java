@@ -0,0 +1,230 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+
+/**
+ * An engine which matches nodes of combinators by an explicit stack in the heap.<br>
+ * Each call of a child node pushes a frame instead of a frame of Java,
+ * hence the depth of nesting is bounded by the heap and not by the size of the thread stack.
+ * The results are the same as matching by recursion.
+ * Matchers which are not nodes (e.g. user-defined matchers, memoized matchers)
+ * are called by recursion of Java.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+final class StackMachine<A> implements PatternMatcher<A> {
+
+	private static class Frame<A> {
+
+		private PatternMatcher<A> node;
+		private int index;
+		private A attribute;
+		private int state;
+		private PatternResult<A> result1;
+		private int lastIndex;
+		private A attr;
+		private int count;
+		private int[] candidates;
+
+	}
+
+	final PatternMatcher<A> matcher;
+
+	/**
+	 * constructs an engine which matches the given matcher.
+	 *
+	 * @param matcher a matcher
+	 */
+	StackMachine(PatternMatcher<A> matcher) {
+		this.matcher = matcher;
+	}
+
+	@Override
+	public PatternResult<A> match(CharSequence match, int index, A attribute) {
+		ArrayList<Frame<A>> stack = new ArrayList<Frame<A>>();
+		PatternResult<A> result = null;
+		int sp = 0;
+
+		sp = push(stack, sp, matcher, index, attribute);
+		while(sp > 0) {
+			Frame<A> frame = stack.get(sp - 1);
+			PatternMatcher<A> node = frame.node;
+			int state = frame.state++;
+
+			if(node instanceof Node.Then) {
+				Node.Then<A> then = (Node.Then<A>)node;
+
+				if(state == 0) {
+					sp = push(stack, sp, then.left, frame.index, frame.attribute);
+					continue;
+				} else if(state == 1) {
+					if((frame.result1 = result) != null) {
+						sp = push(stack, sp, then.right,
+								then.skipSpace(match, result.getLastIndex()),
+								result.getAttribute());
+						continue;
+					}
+				} else {
+					result = then.apply(match, frame.index, frame.result1, result);
+				}
+			} else if(node instanceof Node.Or) {
+				Node.Or<A> or = (Node.Or<A>)node;
+
+				if(state == 0) {
+					sp = push(stack, sp, or.left, frame.index, frame.attribute);
+					continue;
+				} else if(state == 1 && result == null) {
+					sp = push(stack, sp, or.right, frame.index, frame.attribute);
+					continue;
+				}
+			} else if(node instanceof Node.Choice) {
+				Node.Choice<A> choice = (Node.Choice<A>)node;
+
+				if(state == 0) {
+					frame.candidates = choice.dispatch().candidates(match, frame.index);
+				}
+				if((state == 0 || result == null) && state < frame.candidates.length) {
+					sp = push(stack, sp, choice.alternatives[frame.candidates[state]], frame.index, frame.attribute);
+					continue;
+				}
+				result = state == 0 ? null : result;
+			} else if(node instanceof Node.Times) {
+				Node.Times<A> times = (Node.Times<A>)node;
+
+				if(state == 0) {
+					frame.lastIndex = frame.index;
+					frame.attr = frame.attribute;
+				} else if(result == null) {
+					result = frame.count < times.countmin ?
+							null :
+							PatternResult.of(match, frame.index, frame.lastIndex, frame.attr);
+					sp = pop(stack, sp);
+					continue;
+				} else {
+					frame.lastIndex = result.getLastIndex();
+					if(times.action != null) {
+						frame.attr = result.act(times.action, frame.attr);
+					}
+					frame.count++;
+				}
+
+				if(times.countmax < 0 || frame.count < times.countmax) {
+					frame.lastIndex = times.skipSpace(match, frame.lastIndex);
+					sp = push(stack, sp, times.pattern, frame.lastIndex, frame.attr);
+					continue;
+				}
+				result = PatternResult.of(match, frame.index, frame.lastIndex, frame.attr);
+			} else if(node instanceof Node.Delimit) {
+				Node.Delimit<A> delimit = (Node.Delimit<A>)node;
+
+				if(state == 0) {
+					frame.attr = frame.attribute;
+					sp = push(stack, sp, delimit.pattern, frame.index, frame.attr);
+					continue;
+				} else if(state % 2 == 0 && result != null) {
+					// a delimiter is matched
+					sp = push(stack, sp, delimit.pattern,
+							delimit.skipSpace(match, result.getLastIndex()),
+							frame.attr);
+					continue;
+				} else if(result != null) {
+					// a pattern is matched
+					frame.lastIndex = state == 1 ?
+							result.getLastIndex() :
+							delimit.skipSpace(match, result.getLastIndex());
+					if(delimit.action != null) {
+						frame.attr = result.act(delimit.action, frame.attr);
+					}
+					sp = push(stack, sp, delimit.delimiter, frame.lastIndex, frame.attr);
+					continue;
+				} else if(state > 1) {
+					result = PatternResult.of(match, frame.index, frame.lastIndex, frame.attr);
+				}
+			} else if(node instanceof Node.Cond) {
+				if(state == 0) {
+					sp = push(stack, sp, ((Node.Cond<A>)node).pattern, frame.index, frame.attribute);
+					continue;
+				}
+				result = ((Node.Cond<A>)node).apply(result);
+			} else if(node instanceof Node.End) {
+				if(state == 0) {
+					sp = push(stack, sp, ((Node.End<A>)node).pattern, frame.index, frame.attribute);
+					continue;
+				}
+				result = ((Node.End<A>)node).apply(match, result);
+			} else if(node instanceof Node.Lookahead) {
+				Node.Lookahead<A> lookahead = (Node.Lookahead<A>)node;
+
+				if(state == 0) {
+					sp = push(stack, sp, lookahead.pattern, frame.index, frame.attribute);
+					continue;
+				} else if(state == 1) {
+					if((frame.result1 = result) != null) {
+						sp = push(stack, sp, lookahead.matcher, result.getLastIndex(), result.getAttribute());
+						continue;
+					}
+				} else {
+					result = lookahead.apply(frame.result1, result);
+				}
+			} else if(node instanceof Node.Action) {
+				if(state == 0) {
+					sp = push(stack, sp, ((Node.Action<A>)node).matcher, frame.index, frame.attribute);
+					continue;
+				}
+				result = ((Node.Action<A>)node).apply(result, frame.attribute);
+			} else if(node instanceof Node.Wrap || node instanceof RuleRef || node instanceof StackMachine) {
+				// tail call
+				PatternMatcher<A> next = node instanceof Node.Wrap ? ((Node.Wrap<A>)node).matcher :
+					node instanceof RuleRef ? ((RuleRef<A>)node).getResolved() : ((StackMachine<A>)node).matcher;
+
+				frame.node = next;
+				frame.state = 0;
+				continue;
+			} else {
+				result = node.match(match, frame.index, frame.attribute);
+			}
+			sp = pop(stack, sp);
+		}
+		return result;
+	}
+
+	private static<A> int push(ArrayList<Frame<A>> stack, int sp, PatternMatcher<A> node, int index, A attribute) {
+		Frame<A> frame;
+
+		if(sp < stack.size()) {
+			frame = stack.get(sp);
+		} else {
+			stack.add(frame = new Frame<A>());
+		}
+		frame.node = node;
+		frame.index = index;
+		frame.attribute = attribute;
+		frame.state = 0;
+		frame.result1 = null;
+		frame.attr = null;
+		frame.count = 0;
+		frame.candidates = null;
+		return sp + 1;
+	}
+
+	private static<A> int pop(ArrayList<Frame<A>> stack, int sp) {
+		Frame<A> frame = stack.get(sp - 1);
+
+		frame.node = null;
+		frame.attribute = null;
+		frame.result1 = null;
+		frame.attr = null;
+		frame.candidates = null;
+		return sp - 1;
+	}
+
+}
@@ -0,0 +1,221 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A parser of an append-only file which parses only bytes appended after the last poll.<br>
+ * The file is parsed by records which end with a match of the boundary matcher.
+ * A partial record at the end of the file is not parsed until its boundary is appended.
+ * All patterns in the records are searched as parsePartGlobal,
+ * and the offset of the last committed record and the accumulated attribute
+ * can be saved in a checkpoint file to resume after restart.<br>
+ * A parser must not be shared by threads.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ */
+public class TailParser<A> {
+
+	private static final int CHUNK = 1 << 20;
+	private static final String OFFSET = "offset";
+	private static final String ATTRIBUTE = "attribute";
+
+	private final Path path;
+	private final Charset charset;
+	private final PatternMatcher<A> matcher;
+	private final PatternMatcher<A> boundary;
+	private final BiFunction<A, A, A> action;
+	private Path checkpoint;
+	private Function<A, String> encoder;
+	private long offset = 0;
+	private A attribute;
+
+	/**
+	 * constructs a parser of the given file.
+	 *
+	 * @param path a path of the file
+	 * @param charset a charset of the file
+	 * @param matcher a matcher to search
+	 * @param boundary a matcher of record boundaries
+	 * @param init initial attribute
+	 * @param action an accumulator
+	 */
+	public TailParser(Path path, Charset charset, PatternMatcher<A> matcher, PatternMatcher<A> boundary,
+			A init, BiFunction<A, A, A> action) {
+		this.path = path;
+		this.charset = charset;
+		this.matcher = matcher;
+		this.boundary = boundary;
+		this.attribute = init;
+		this.action = action;
+	}
+
+	/**
+	 * constructs a parser of the given file of UTF-8.
+	 *
+	 * @param path a path of the file
+	 * @param matcher a matcher to search
+	 * @param boundary a matcher of record boundaries
+	 * @param init initial attribute
+	 * @param action an accumulator
+	 */
+	public TailParser(Path path, PatternMatcher<A> matcher, PatternMatcher<A> boundary,
+			A init, BiFunction<A, A, A> action) {
+		this(path, StandardCharsets.UTF_8, matcher, boundary, init, action);
+	}
+
+	/**
+	 * sets the checkpoint file which is saved by each poll.<br>
+	 * If the checkpoint file exists, the offset and the attribute are restored from the file.
+	 *
+	 * @param checkpoint a path of the checkpoint file
+	 * @param encoder a function to convert an attribute to a string
+	 * @param decoder a function to convert a string to an attribute
+	 * @throws IOException I/O error
+	 */
+	public void setCheckpoint(Path checkpoint, Function<A, String> encoder,
+			Function<String, A> decoder) throws IOException {
+		this.checkpoint = checkpoint;
+		this.encoder = encoder;
+		if(Files.exists(checkpoint)) {
+			Properties properties = new Properties();
+
+			try(Reader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+			try {
+				offset = Long.parseLong(properties.getProperty(OFFSET));
+			} catch(NumberFormatException e) {
+				throw new IllegalArgumentException("invalid checkpoint: " + checkpoint);
+			}
+			attribute = decoder.apply(properties.getProperty(ATTRIBUTE));
+		}
+	}
+
+	/**
+	 * parses records appended after the last committed record.
+	 *
+	 * @return accumulated attribute
+	 * @throws IOException I/O error
+	 */
+	public A poll() throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int chunk = CHUNK;
+
+			if(size < offset) {
+				throw new IllegalStateException("file is truncated: " + path);
+			}
+			while(offset < size) {
+				ByteBuffer bytes = ByteBuffer.allocate((int)Math.min(chunk, size - offset));
+				CharsetDecoder decoder = decoder();
+				CharBuffer chars;
+				int end;
+
+				while(bytes.hasRemaining() && channel.read(bytes, offset + bytes.position()) >= 0);
+				bytes.flip();
+				chars = CharBuffer.allocate((int)(bytes.remaining() * (double)decoder.maxCharsPerByte()) + 1);
+				decoder.decode(bytes, chars, false);
+				chars.flip();
+				if((end = lastBoundary(chars)) < 0) {
+					if(offset + chunk >= size) {
+						break;
+					}
+					chunk = (int)Math.min(chunk * 2L, Integer.MAX_VALUE - 8);
+					continue;
+				}
+				attribute = matcher.parsePartGlobal(chars, 0, end, attribute, action);
+				offset += byteLength(bytes, end);
+			}
+		}
+		save();
+		return attribute;
+	}
+
+	private CharsetDecoder decoder() {
+		return charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	private int lastBoundary(CharSequence text) {
+		int end = -1;
+
+		for(int i = 0; i < text.length();) {
+			PatternResult<A> result = boundary.parsePart(text, i, null);
+
+			if(result == null) {
+				break;
+			}
+			end = result.getLastIndex();
+			i = end > i ? end : i + 1;
+		}
+		return end;
+	}
+
+	private int byteLength(ByteBuffer bytes, int end) {
+		// decodes the bytes again until the given number of characters is filled
+		bytes.rewind();
+		decoder().decode(bytes, CharBuffer.allocate(end), false);
+		return bytes.position();
+	}
+
+	private void save() throws IOException {
+		Properties properties = new Properties();
+		Path temp;
+
+		if(checkpoint == null) {
+			return;
+		}
+		properties.setProperty(OFFSET, Long.toString(offset));
+		properties.setProperty(ATTRIBUTE, encoder.apply(attribute));
+		temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+		try(Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+			properties.store(writer, null);
+		}
+		Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * gets the byte offset of the end of the last committed record.
+	 *
+	 * @return the offset
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * gets the accumulated attribute.
+	 *
+	 * @return the attribute
+	 */
+	public A getAttribute() {
+		return attribute;
+	}
+
+}
@@ -8,7 +8,6 @@
  */
 package net.morilib.rena;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -21,39 +20,17 @@ public interface ThenMatcher<A> extends OrMatcher<A> {
 
 	/**
 	 * creates a matcher which succeeds the given matcher
-	 * and execute the given action when matches.
+	 * and execute the given action when matches.<br>
+	 * The action is given the matched string from the beginning of this matcher
+	 * to the end of the given matcher like {@link #string(String, PatternAction)},
+	 * not the whole input.
 	 *
 	 * @param matcher a successor matcher
 	 * @param action an action
 	 * @return a matcher
 	 */
 	public default ThenMatcher<A> then(final PatternMatcher<A> matcher, final PatternAction<A> action) {
-		return new ThenMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result1 = ThenMatcher.this.match(match, index, attribute), result2;
-				int lastIndexNew;
-
-				if(result1 == null) {
-					return null;
-				}
-				lastIndexNew = skipSpace(match, result1.getLastIndex());
-				if((result2 = matcher.match(match, lastIndexNew, result1.getAttribute())) == null) {
-					return null;
-				} else {
-					String matched = match.substring(index, result2.getLastIndex());
-
-					return new PatternResult<A>(matched,
-							result2.getLastIndex(),
-							action != null ?
-									action.action(match, result2.getAttribute(), result1.getAttribute()) :
-										result1.getAttribute());
-				}
-			}
-
-			public int skipSpace(String match, int index) {
-				return ThenMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Then<A>(this, matcher, action);
 	}
 
 	/**
@@ -75,32 +52,7 @@ public interface ThenMatcher<A> extends OrMatcher<A> {
 	 * @return a matcher
 	 */
 	public default ThenMatcher<A> string(String aString, final PatternAction<A> action) {
-		return new ThenMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result1 = ThenMatcher.this.match(match, index, attribute);
-				int lastIndexNew;
-
-				if(result1 == null) {
-					return null;
-				}
-				lastIndexNew = skipSpace(match, result1.getLastIndex());
-				if(match.startsWith(aString, lastIndexNew)) {
-					String matched = match.substring(index, lastIndexNew + aString.length());
-
-					return new PatternResult<A>(matched,
-							lastIndexNew + aString.length(),
-							action != null ?
-									action.action(matched, null, result1.getAttribute()) :
-										result1.getAttribute());
-				} else {
-					return null;
-				}
-			}
-
-			public int skipSpace(String match, int index) {
-				return ThenMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Then<A>(this, new Node.Literal<A>(aString, Node.none(), null), action);
 	}
 
 	/**
@@ -115,42 +67,17 @@ public interface ThenMatcher<A> extends OrMatcher<A> {
 
 	/**
 	 * creates a matcher which succeeds the given matcher
-	 * and execute the given action when matches.
+	 * and execute the given action when matches.<br>
+	 * The action is given the matched string from the beginning of this matcher
+	 * to the end of the given regex like {@link #string(String, PatternAction)},
+	 * not the whole input.
 	 *
 	 * @param regex a successor regex
 	 * @param action an action
 	 * @return a matcher
 	 */
 	public default ThenMatcher<A> regex(final String regex, final PatternAction<A> action) {
-		final Pattern pattern = Pattern.compile(regex);
-
-		return new ThenMatcher<A>() {
-			public PatternResult<A> match(String match, int index, A attribute) {
-				PatternResult<A> result1 = ThenMatcher.this.match(match, index, attribute);
-				int lastIndexNew;
-
-				if(result1 == null) {
-					return null;
-				}
-				lastIndexNew = skipSpace(match, result1.getLastIndex());
-
-				String toMatch = match.substring(lastIndexNew);
-				Matcher matcher = pattern.matcher(toMatch);
-				if(matcher.lookingAt()) {
-					return new PatternResult<A>(match.substring(index, lastIndexNew + matcher.end()),
-							lastIndexNew + matcher.end(),
-							action != null ?
-									action.action(match, null, result1.getAttribute()) :
-										result1.getAttribute());
-				} else {
-					return null;
-				}
-			}
-
-			public int skipSpace(String match, int index) {
-				return ThenMatcher.this.skipSpace(match, index);
-			}
-		};
+		return new Node.Then<A>(this, new Node.Regex<A>(Pattern.compile(regex), Node.none(), null), action);
 	}
 
 	/**
@@ -0,0 +1,219 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A walk of the graph of nodes which is shared by engines translating nodes to their own steps.<br>
+ * The walk flattens chains of sequences and alternations, builds dispatch of alternations,
+ * resolves skipping of spaces and ties rules by references,
+ * and the engine creates its steps by the factory methods.
+ * Each matcher is translated once, hence shared and recursive matchers are shared by the steps.
+ *
+ * @author Yuichiro MORIGUCHI
+ * @param <A> attribute
+ * @param <T> step
+ */
+abstract class Translator<A, T> {
+
+	private final Map<PatternMatcher<A>, T> translated = new IdentityHashMap<PatternMatcher<A>, T>();
+
+	abstract T[] newArray(int size);
+
+	abstract T literal(String string, PatternAction<A> action);
+
+	abstract T regex(DfaRegex dfa, PatternAction<A> action);
+
+	abstract T keyword(Node.Keyword<A> node);
+
+	abstract T notKeyword(Node.NotKeyword<A> node);
+
+	abstract T keys(Node.Keys<A> node);
+
+	abstract T literals(CharTrie trie, T[] literals);
+
+	abstract T seq(T head, T[] steps, PatternAction<A>[] actions, Compiler.Skip skip);
+
+	abstract T choice(T[] alternatives, Dispatch dispatch);
+
+	abstract T repeat(T pattern, int countmin, int countmax, PatternAction<A> action, Compiler.Skip skip);
+
+	abstract T delimit(T pattern, T delimiter, PatternAction<A> action, Compiler.Skip skip);
+
+	abstract T cond(Node.Cond<A> node);
+
+	abstract T end(T pattern);
+
+	abstract T lookahead(T pattern, T matcher, boolean negative);
+
+	abstract T action(T matcher, PatternAction<A> action);
+
+	abstract T init(A init);
+
+	abstract T compiled(Compiler.Compiled<A> matcher);
+
+	abstract T opaque(PatternMatcher<A> matcher);
+
+	/**
+	 * creates a reference to a rule whose step is bound later.
+	 *
+	 * @return a reference
+	 */
+	abstract T ref();
+
+	/**
+	 * binds the step of the rule to the reference.
+	 *
+	 * @param ref a reference
+	 * @param target the step of the rule
+	 */
+	abstract void bind(T ref, T target);
+
+	/**
+	 * converts an action of terminals, sequences and repetitions.<br>
+	 * By default, the action is used as it is.
+	 *
+	 * @param action an action
+	 * @return an action
+	 */
+	PatternAction<A> convert(PatternAction<A> action) {
+		return action;
+	}
+
+	/**
+	 * translates the given matcher.
+	 *
+	 * @param matcher a matcher
+	 * @return the step
+	 */
+	final T translate(PatternMatcher<A> matcher) {
+		T step = translated.get(matcher);
+
+		if(step == null) {
+			if(matcher instanceof RuleRef) {
+				T ref = ref();
+
+				// registers before translating the target because rules may be recursive
+				translated.put(matcher, ref);
+				bind(ref, translate(((RuleRef<A>)matcher).getResolved()));
+				return ref;
+			}
+			step = create(matcher);
+			translated.put(matcher, step);
+		}
+		return step;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T create(PatternMatcher<A> matcher) {
+		if(matcher instanceof Node.Literal) {
+			Node.Literal<A> node = (Node.Literal<A>)matcher;
+
+			return literal(node.string, convert(node.action));
+		} else if(matcher instanceof Node.Regex) {
+			Node.Regex<A> node = (Node.Regex<A>)matcher;
+
+			return regex(node.dfa, convert(node.action));
+		} else if(matcher instanceof Node.Keyword) {
+			return keyword((Node.Keyword<A>)matcher);
+		} else if(matcher instanceof Node.NotKeyword) {
+			return notKeyword((Node.NotKeyword<A>)matcher);
+		} else if(matcher instanceof Node.Keys) {
+			return keys((Node.Keys<A>)matcher);
+		} else if(matcher instanceof Node.Then) {
+			List<Node.Then<A>> chain = new ArrayList<Node.Then<A>>();
+			PatternMatcher<A> head = matcher;
+			T[] steps;
+			PatternAction<A>[] actions;
+
+			for(; head instanceof Node.Then && !translated.containsKey(head); head = ((Node.Then<A>)head).left) {
+				chain.add(0, (Node.Then<A>)head);
+			}
+			steps = newArray(chain.size());
+			actions = newActions(chain.size());
+			for(int i = 0; i < steps.length; i++) {
+				steps[i] = translate(chain.get(i).right);
+				actions[i] = convert(chain.get(i).action);
+			}
+			return seq(translate(head), steps, actions, Compiler.skip(chain.get(0).left));
+		} else if(matcher instanceof Node.Or || matcher instanceof Node.Choice) {
+			List<PatternMatcher<A>> matchers = new ArrayList<PatternMatcher<A>>();
+			List<T> alternatives = new ArrayList<T>();
+
+			flatten(matcher, matchers, alternatives);
+			return choice(alternatives.toArray(newArray(alternatives.size())), new Dispatch(matchers,
+					matcher instanceof Node.Choice ? ((Node.Choice<A>)matcher).lookahead : 0));
+		} else if(matcher instanceof Node.Literals) {
+			Node.Literals<A> node = (Node.Literals<A>)matcher;
+			T[] literals = newArray(node.literals.length);
+
+			for(int i = 0; i < literals.length; i++) {
+				literals[i] = translate(node.literals[i]);
+			}
+			return literals(node.trie, literals);
+		} else if(matcher instanceof Node.Times) {
+			Node.Times<A> node = (Node.Times<A>)matcher;
+
+			return repeat(translate(node.pattern), node.countmin, node.countmax, convert(node.action),
+					Compiler.skip(node.pattern));
+		} else if(matcher instanceof Node.Delimit) {
+			Node.Delimit<A> node = (Node.Delimit<A>)matcher;
+
+			return delimit(translate(node.pattern), translate(node.delimiter), convert(node.action),
+					Compiler.skip(node.pattern));
+		} else if(matcher instanceof Node.Cond) {
+			return cond((Node.Cond<A>)matcher);
+		} else if(matcher instanceof Node.End) {
+			return end(translate(((Node.End<A>)matcher).pattern));
+		} else if(matcher instanceof Node.Lookahead) {
+			Node.Lookahead<A> node = (Node.Lookahead<A>)matcher;
+
+			return lookahead(translate(node.pattern), translate(node.matcher), node.negative);
+		} else if(matcher instanceof Node.Action) {
+			Node.Action<A> node = (Node.Action<A>)matcher;
+
+			return action(translate(node.matcher), node.action);
+		} else if(matcher instanceof Node.Init) {
+			return init(((Node.Init<A>)matcher).init);
+		} else if(matcher instanceof Node.Wrap) {
+			return translate(((Node.Wrap<A>)matcher).matcher);
+		} else if(matcher instanceof StackMachine) {
+			return translate(((StackMachine<A>)matcher).matcher);
+		} else if(matcher instanceof Compiler.Compiled) {
+			return compiled((Compiler.Compiled<A>)matcher);
+		} else {
+			return opaque(matcher);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void flatten(PatternMatcher<A> matcher, List<PatternMatcher<A>> matchers, List<T> alternatives) {
+		if(matcher instanceof Node.Or && !translated.containsKey(matcher)) {
+			flatten(((Node.Or<A>)matcher).left, matchers, alternatives);
+			flatten(((Node.Or<A>)matcher).right, matchers, alternatives);
+		} else if(matcher instanceof Node.Choice && !translated.containsKey(matcher)) {
+			for(PatternMatcher<A> alternative : ((Node.Choice<A>)matcher).alternatives) {
+				flatten(alternative, matchers, alternatives);
+			}
+		} else {
+			matchers.add(matcher);
+			alternatives.add(translate(matcher));
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static<A> PatternAction<A>[] newActions(int size) {
+		return new PatternAction[size];
+	}
+
+}
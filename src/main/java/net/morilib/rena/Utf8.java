@@ -0,0 +1,109 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ */
+package net.morilib.rena;
+
+import java.util.function.LongToIntFunction;
+
+/**
+ * A decoder of UTF-8 which decodes a code point at an arbitrary position.<br>
+ * A malformed byte is decoded to U+FFFD and consumes one byte.
+ *
+ * @author Yuichiro MORIGUCHI
+ */
+final class Utf8 {
+
+	/**
+	 * the replacement character of malformed input.
+	 */
+	static final int REPLACEMENT = 0xfffd;
+
+	private static final int LENGTH_SHIFT = 21;
+	private static final int CODE_POINT_MASK = (1 << LENGTH_SHIFT) - 1;
+
+	private Utf8() {}
+
+	/**
+	 * decodes a code point at the given position.<br>
+	 * The result is packed and can be unpacked by codePoint and length.
+	 *
+	 * @param bytes a function which returns a byte (0-255) at the position
+	 * @param position a position
+	 * @param limit a limit of positions
+	 * @return a packed code point and length of bytes
+	 */
+	static int decode(LongToIntFunction bytes, long position, long limit) {
+		int b0 = bytes.applyAsInt(position), len, min, max, cp;
+
+		if(b0 < 0x80) {
+			return pack(b0, 1);
+		} else if(b0 >= 0xc2 && b0 <= 0xdf) {
+			len = 2;  min = 0x80;  max = 0xbf;  cp = b0 & 0x1f;
+		} else if(b0 >= 0xe0 && b0 <= 0xef) {
+			len = 3;  cp = b0 & 0x0f;
+			min = b0 == 0xe0 ? 0xa0 : 0x80;
+			max = b0 == 0xed ? 0x9f : 0xbf;
+		} else if(b0 >= 0xf0 && b0 <= 0xf4) {
+			len = 4;  cp = b0 & 0x07;
+			min = b0 == 0xf0 ? 0x90 : 0x80;
+			max = b0 == 0xf4 ? 0x8f : 0xbf;
+		} else {
+			return pack(REPLACEMENT, 1);
+		}
+
+		if(position + len > limit) {
+			return pack(REPLACEMENT, 1);
+		}
+		for(int i = 1; i < len; i++) {
+			int b = bytes.applyAsInt(position + i);
+
+			if(b < min || b > max) {
+				return pack(REPLACEMENT, 1);
+			}
+			cp = (cp << 6) | (b & 0x3f);
+			min = 0x80;
+			max = 0xbf;
+		}
+		return pack(cp, len);
+	}
+
+	/**
+	 * gets the code point of the packed result.
+	 *
+	 * @param packed a packed result of decode
+	 * @return the code point
+	 */
+	static int codePoint(int packed) {
+		return packed & CODE_POINT_MASK;
+	}
+
+	/**
+	 * gets the length of bytes of the packed result.
+	 *
+	 * @param packed a packed result of decode
+	 * @return the length of bytes
+	 */
+	static int length(int packed) {
+		return packed >>> LENGTH_SHIFT;
+	}
+
+	/**
+	 * tests whether the packed result is decoded from a malformed byte.
+	 *
+	 * @param packed a packed result of decode
+	 * @return true if the byte is malformed
+	 */
+	static boolean isMalformed(int packed) {
+		return codePoint(packed) == REPLACEMENT && length(packed) == 1;
+	}
+
+	private static int pack(int codePoint, int length) {
+		return (length << LENGTH_SHIFT) | codePoint;
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ByteRenaTest extends TestCaseBase {
+
+	private static ByteCharSequence bytes(String string) {
+		return ByteRena.wrap(string.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public void testString001() {
+		ByteRena<String> r = new ByteRena<String>();
+		PatternMatcher<String> matcher = r.string("あい", (m, s, i) -> m);
+		PatternResult<String> result = matcher.match(bytes("あいう"), "");
+
+		assertEquals(result.getLastIndex(), 6);
+		assertEquals(result.getAttribute(), "あい");
+		assertNull(matcher.match(bytes("あう"), ""));
+	}
+
+	public void testString002() {
+		ByteRena<String> r = new ByteRena<String>(" +");
+		PatternMatcher<String> matcher = r.then(r.string("GET")).then(r.string("/ü")).end();
+
+		assertNotNull(matcher.parse(bytes("GET  /ü"), ""));
+		assertNull(matcher.parse(bytes("GET  /u"), ""));
+	}
+
+	public void testKey001() {
+		ByteRena<String> r = new ByteRena<String>(new String[] { "α", "αβ" });
+
+		assertEquals(r.key("αβ").match(bytes("αβ"), "").getLastIndex(), 4);
+		assertNull(r.key("α").match(bytes("αβ"), ""));
+		assertEquals(r.key("α").match(bytes("αx"), "").getLastIndex(), 2);
+	}
+
+	public void testKeys001() {
+		ByteRena<String> r = new ByteRena<String>(new String[] { "α", "αβ", "if" });
+		Map<String, PatternAction<String>> keys = new LinkedHashMap<String, PatternAction<String>>();
+		PatternMatcher<String> matcher;
+
+		keys.put("α", (m, s, i) -> i + m);
+		keys.put("αβ", null);
+		keys.put("if", (m, s, i) -> i + m);
+		matcher = r.keys(keys);
+		assertEquals(matcher.match(bytes("αx"), "").getLastIndex(), 2);
+		assertEquals(matcher.match(bytes("αx"), ">").getAttribute(), ">α");
+		assertEquals(matcher.match(bytes("αβ"), ">").getLastIndex(), 4);
+		assertEquals(matcher.match(bytes("αβ"), ">").getAttribute(), ">");
+		assertEquals(matcher.match(bytes("if"), ">").getAttribute(), ">if");
+		assertNull(matcher.match(bytes("β"), ""));
+	}
+
+	public void testByteRange001() {
+		ByteRena<Integer> r = new ByteRena<Integer>();
+		PatternMatcher<Integer> matcher = r.oneOrMore(r.byteRange('0', '9',
+				(m, s, i) -> i * 10 + m.charAt(0) - '0'));
+		PatternResult<Integer> result = matcher.match(bytes("765x"), 0);
+
+		assertEquals(result.getAttribute().intValue(), 765);
+		assertEquals(result.getLastIndex(), 3);
+		assertArgumentException(() -> r.byteRange(1, 256));
+		assertArgumentException(() -> r.byteRange(2, 1));
+	}
+
+	public void testBytes001() {
+		ByteRena<String> r = new ByteRena<String>();
+		byte[] input = new byte[] { 1, (byte)0xff, 0x41 };
+		PatternMatcher<String> matcher = r.bytes(new byte[] { 1, (byte)0xff }).then(r.anyByte()).end();
+
+		assertNotNull(matcher.parse(ByteRena.wrap(input), ""));
+		assertNull(matcher.parse(ByteRena.wrap(input, 0, 2), ""));
+	}
+
+	public void testUtf8Char001() {
+		ByteRena<String> r = new ByteRena<String>();
+		PatternMatcher<String> matcher = r.utf8Char((m, s, i) -> i + m);
+
+		assertEquals(matcher.match(bytes("😀"), "").getAttribute(), "😀");
+		assertEquals(matcher.match(bytes("😀"), "").getLastIndex(), 4);
+		assertEquals(matcher.match(bytes("�"), "").getLastIndex(), 3);
+		assertNull(matcher.match(ByteRena.wrap(new byte[] { (byte)0xe3, (byte)0x81 }), ""));
+		assertNull(matcher.match(ByteRena.wrap(new byte[] { (byte)0x80 }), ""));
+	}
+
+	public void testDelimit001() {
+		ByteRena<String> r = new ByteRena<String>();
+		PatternMatcher<String> matcher = r.delimit(r.oneOrMore(r.byteRange(0x80, 0xff)),
+				r.string(","),
+				ByteRena.utf8((m, s, i) -> i + "[" + m + "]"),
+				"").end();
+
+		assertEquals(matcher.parse(bytes("あい,う"), "").getAttribute(), "[あい][う]");
+	}
+
+	public void testByteBuffer001() {
+		ByteRena<String> r = new ByteRena<String>(" +");
+		ByteBuffer buffer = ByteBuffer.allocateDirect(32);
+		List<String> list;
+
+		buffer.put("xx 765 346".getBytes(StandardCharsets.US_ASCII));
+		buffer.flip();
+		buffer.position(2);
+		list = r.regex("[0-9]+", (m, s, i) -> m).parsePartGlobalList(ByteRena.wrap(buffer));
+		assertEquals(list.size(), 2);
+		assertEquals(list.get(0), "765");
+		assertEquals(list.get(1), "346");
+		assertEquals(buffer.position(), 2);
+	}
+
+	public void testDecode001() {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+		ByteCharSequence seq;
+
+		buffer.put("aあい".getBytes(StandardCharsets.UTF_8));
+		buffer.flip();
+		seq = ByteCharSequence.of(buffer);
+		assertEquals(seq.length(), 7);
+		assertEquals(seq.decode(1, 7), "あい");
+		assertEquals(ByteCharSequence.of("aあ".getBytes(StandardCharsets.UTF_8)).decode(0, 4), "aあ");
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.util.Collections;
+
+public class CompilerTest extends TestCaseBase {
+
+	private static<A> void same(PatternMatcher<A> matcher, String input, A attribute) {
+		same(matcher, matcher.compile(), input, attribute);
+	}
+
+	public void testExpr001() {
+		PatternMatcher<Integer> matcher = expr();
+		String[] inputs = { "1+2*3", "(1 + 2) * 3 ", "4-6/2", "(1+2", "((7))", "1+", "", " 1" };
+
+		for(String input : inputs) {
+			same(matcher, input, null);
+		}
+		assertEquals(matcher.compile().parse("(1 + 2) * 3", null).getAttribute().intValue(), 9);
+	}
+
+	public void testTimes001() {
+		Rena<String> r = new Rena<String>(" ");
+		PatternMatcher<String> matcher = r.times(2, 3, r.regex("[a-z]", (m, s, i) -> m), (m, s, i) -> i + s);
+		String[] inputs = { "a", "a b", "a b c d", "a b ", "ab" };
+
+		for(String input : inputs) {
+			same(matcher, input, "");
+		}
+		same(r.zeroOrMore(r.string("a")), "aa a", "");
+		same(r.then(r.oneOrMore(r.string("a"))).string("b"), "a a b", "");
+	}
+
+	public void testDelimit001() {
+		Rena<String> r = new Rena<String>(" *");
+		PatternMatcher<String> matcher = r.delimit(r.regex("[a-z]+"), r.string(","),
+				(m, s, i) -> i + "[" + m + "]", "");
+		String[] inputs = { "a, bc ,d,", "a", ",", "a ,", "" };
+
+		for(String input : inputs) {
+			same(matcher, input, "");
+		}
+	}
+
+	public void testLookahead001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.string("a", (m, s, i) -> m).lookahead(r.string("b", (m, s, i) -> "x"));
+		PatternMatcher<String> matcherNot = r.string("a").lookaheadNot(r.string("b"));
+
+		same(matcher, "ab", "");
+		same(matcher, "ac", "");
+		same(matcherNot, "ab", "");
+		same(matcherNot, "ac", "");
+		match("ab", matcher.compile(), "a", "", "a");
+	}
+
+	public void testCond001() {
+		Rena<Integer> r = new Rena<Integer>();
+		PatternMatcher<Integer> matcher = r.regex("[0-9]+", (m, s, i) -> Integer.parseInt(m))
+				.cond(x -> x > 10)
+				.end();
+
+		same(matcher, "11", 0);
+		same(matcher, "9", 0);
+		same(matcher, "11a", 0);
+	}
+
+	public void testKeyword001() {
+		Rena<String> r = new Rena<String>("[ ]+", new String[] { "if", "ifelse" });
+		PatternMatcher<String> matcher = r.key("if").then(r.notKey()).then(r.regex("[a-z]+"), (m, s, i) -> s);
+
+		same(matcher, "if x", "");
+		same(matcher, "ifelse x", "");
+		same(matcher, "if ifelse", "");
+	}
+
+	public void testMemo001() {
+		Rena<Integer> r = new Rena<Integer>();
+		MemoTable memo = new MemoTable();
+		PatternMatcher<Integer> matcher = r.then(memo.memoize(r.regex("[0-9]+", (m, s, i) -> Integer.parseInt(m))))
+				.string(";")
+				.then(r.attr(5), (m, s, i) -> i + s);
+
+		same(matcher, "12;", 0);
+		same(matcher, "12", 0);
+		assertEquals(Grammar.of(matcher.compile()).getRoot().getKind(), Grammar.Kind.WRAP);
+	}
+
+	private static<A> void recognize(PatternMatcher<A> matcher, String input) {
+		PatternResult<A> expected = matcher.match(input, 0, null);
+		int lastIndex = expected != null ? expected.getLastIndex() : -1;
+
+		assertEquals(matcher.matchLength(input, 0), lastIndex);
+		assertEquals(matcher.compile().matchLength(input, 0), lastIndex);
+		assertEquals(matcher.recognize(new StringBuilder(input)), lastIndex);
+	}
+
+	public void testRecognize001() {
+		PatternMatcher<Integer> matcher = expr();
+		String[] inputs = { "1+2*3", "(1 + 2) * 3 ", "4-6/2", "(1+2", "((7))", "1+", "", " 1" };
+
+		for(String input : inputs) {
+			recognize(matcher, input);
+			recognize(r(matcher), input);
+		}
+		assertEquals(matcher.lexer().matchLength("(1 + 2) * 3", 0), 11);
+		assertEquals(matcher.lexer().matchLength("(1 + 2 * 3", 0), -1);
+	}
+
+	private static<A> PatternMatcher<A> r(PatternMatcher<A> matcher) {
+		return (match, index, attribute) -> matcher.match(match, index, attribute);
+	}
+
+	public void testRecognize002() {
+		Rena<Integer> r = new Rena<Integer>("[ ]+", new String[] { "if", "ifelse" });
+		PatternMatcher<Integer> number = r.regex("[0-9]+", (m, s, i) -> {
+			throw new RuntimeException();
+		});
+		PatternMatcher<Integer> cond = r.regex("[0-9]+", (m, s, i) -> Integer.parseInt(m)).cond(x -> x > 10);
+		PatternMatcher<Integer> keys = r.then(r.key("if")).then(r.notKey()).then(number);
+		PatternMatcher<Integer> matcher = r.delimit(number, r.string(","), (m, s, i) -> {
+			throw new RuntimeException();
+		}, 0);
+
+		assertEquals(matcher.matchLength("1, 2,3;", 0), 6);
+		assertEquals(matcher.recognize(";"), -1);
+		assertEquals(cond.recognize("11"), 2);
+		assertEquals(cond.recognize("9"), -1);
+		assertEquals(keys.recognize("if 1"), 4);
+		assertEquals(keys.recognize("if ifelse"), -1);
+		assertEquals(r.then(r.key("if")).then(r.key("ifelse")).recognize("if ifelse"), 9);
+		assertEquals(r.keys(Collections.<String, PatternAction<Integer>>singletonMap("if", null)).recognize("if"), 2);
+		assertEquals(r.keys(Collections.<String, PatternAction<Integer>>singletonMap("if", null)).recognize("ifelse"), -1);
+	}
+
+	public void testUndefined001() {
+		RuleSet<String> rules = new RuleSet<String>();
+
+		try {
+			rules.ref("x").compile();
+			fail();
+		} catch(IllegalStateException e) {
+			// ok
+		}
+	}
+
+}
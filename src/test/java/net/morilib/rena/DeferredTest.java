@@ -0,0 +1,111 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DeferredTest extends TestCaseBase {
+
+	private static<A> void same(PatternMatcher<A> matcher, String input, A attribute) {
+		same(matcher, matcher.deferred(), input, attribute);
+	}
+
+	public void testExpr001() {
+		PatternMatcher<Integer> matcher = expr();
+		String[] inputs = { "1+2*3", "(1 + 2) * 3 ", "4-6/2", "(1+2", "((7))", "1+", "", " 1" };
+
+		for(String input : inputs) {
+			same(matcher, input, null);
+		}
+		assertEquals(matcher.deferred().parse("(1 + 2) * 3", null).getAttribute().intValue(), 9);
+	}
+
+	public void testFailedBranch001() {
+		Rena<String> r = new Rena<String>(" ");
+		List<String> called = new ArrayList<String>();
+		PatternMatcher<String> matcher = r.or(
+				r.regex("[a-z]+", (m, s, i) -> {
+					called.add(m);
+					return m;
+				}).string(";"),
+				r.regex("[a-z]+", (m, s, i) -> "id " + m).string("."));
+
+		match("abc.", matcher, "abc.", "", "id abc");
+		assertEquals(called.size(), 1);
+		called.clear();
+		match("abc.", matcher.deferred(), "abc.", "", "id abc");
+		assertEquals(called.size(), 0);
+		match("abc ;", matcher.deferred(), "abc ;", "", "abc");
+		assertEquals(called.size(), 1);
+	}
+
+	public void testInherit001() {
+		Rena<String> r = new Rena<String>(" ");
+		PatternMatcher<String> item = r.regex("[a-z]+", (m, s, i) -> i + "<" + m + ">");
+		PatternMatcher<String> matcher = r.then(r.string("("))
+				.then(r.attr("["))
+				.thenZeroOrMore(r.then(item).string(","), (m, s, i) -> s)
+				.then(r.delimit(item, r.string("|"), (m, s, i) -> s + "!"), (m, s, i) -> i + s)
+				.string(")");
+
+		same(matcher, "(a, b, c|d|e)", "");
+		same(matcher, "(a|b", "");
+		same(r.times(2, 3, item, (m, s, i) -> i + s), "a b c d", "x");
+		same(r.times(2, 3, item, (m, s, i) -> i + s), "a", "x");
+	}
+
+	public void testLookahead001() {
+		Rena<String> r = new Rena<String>();
+		int[] count = new int[1];
+		PatternMatcher<String> ahead = r.regex("[0-9]", (m, s, i) -> {
+			count[0]++;
+			return m;
+		});
+		PatternMatcher<String> matcher = r.regex("[a-z]+", (m, s, i) -> m).lookahead(ahead);
+
+		same(matcher, "ab1", "");
+		same(matcher, "ab", "");
+		count[0] = 0;
+		match("ab1", matcher.deferred(), "ab", "", "ab");
+		assertEquals(count[0], 0);
+		same(r.regex("[a-z]+", (m, s, i) -> m).lookaheadNot(ahead), "ab;", "");
+	}
+
+	public void testKeyword001() {
+		Rena<String> r = new Rena<String>("[ ]+", new String[] { "if", "ifelse" });
+		PatternMatcher<String> matcher = r.key("if").then(r.notKey()).then(r.regex("[a-z]+"), (m, s, i) -> s);
+
+		same(matcher, "if x", "");
+		same(matcher, "ifelse x", "");
+		same(matcher, "if ifelse", "");
+		same(matcher.optimize(), "if x", "");
+	}
+
+	public void testOpaque001() {
+		Rena<Integer> r = new Rena<Integer>();
+		MemoTable memo = new MemoTable();
+		PatternMatcher<Integer> matcher = r.then(memo.memoize(r.regex("[0-9]+", (m, s, i) -> i + Integer.parseInt(m))))
+				.string(";")
+				.then(r.attr(5), (m, s, i) -> i + s);
+
+		same(matcher, "12;", 3);
+		same(matcher, "12", 3);
+		same(matcher.compile(), "12;", 3);
+		assertEquals(Grammar.of(matcher.deferred()).getRoot().getKind(), Grammar.Kind.WRAP);
+	}
+
+	public void testCond001() {
+		Rena<Integer> r = new Rena<Integer>();
+		PatternMatcher<Integer> matcher = r.regex("[0-9]+", (m, s, i) -> Integer.parseInt(m)).cond(x -> x > 10);
+
+		assertArgumentException(() -> matcher.deferred());
+	}
+
+}
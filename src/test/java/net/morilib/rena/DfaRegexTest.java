@@ -0,0 +1,204 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class DfaRegexTest extends TestCaseBase {
+
+	private static final String[] INPUTS = {
+			"", "a", "ab", "abc", "aab", "abab", "ba", "0", "123", "12.5e-3", "x1_y", "  \t\n",
+			"if", "ifx", "\r\n", "\n", "a\nb", "あい", "-", "[]", "\\", "aaaaaaaaaa", "abcabc",
+			"𠮷a"
+	};
+
+	private static int lookingAt(Pattern pattern, String input, int index) {
+		Matcher matcher = pattern.matcher(input);
+
+		matcher.region(index, input.length());
+		return matcher.lookingAt() ? matcher.end() : -1;
+	}
+
+	private static void same(String regex) {
+		DfaRegex dfa = DfaRegex.compile(regex);
+
+		assertTrue(regex + ": " + dfa.getFallbackReason(), dfa.isDfa());
+		for(String input : INPUTS) {
+			for(int i = 0; i <= input.length(); i++) {
+				assertEquals(regex + " " + input + " " + i,
+						dfa.lookingAt(input, i),
+						lookingAt(dfa.getPattern(), input, i));
+			}
+		}
+	}
+
+	private static void fallback(String regex, String reason) {
+		DfaRegex dfa = DfaRegex.compile(regex);
+
+		assertFalse(dfa.isDfa());
+		assertEquals(dfa.getFallbackReason(), reason);
+		for(String input : INPUTS) {
+			assertEquals(dfa.lookingAt(input, 0), lookingAt(dfa.getPattern(), input, 0));
+		}
+	}
+
+	public void testSame001() {
+		same("a");
+		same("abc");
+		same("a*");
+		same("a+b");
+		same("a?b?");
+		same("[0-9]+");
+		same("[0-9]+(?:\\.[0-9]+)?(?:[eE][\\+\\-]?[0-9]+)?");
+		same("[a-zA-Z_][a-zA-Z0-9_]*");
+		same("\\w+");
+		same("\\s*");
+		same("\\S\\D\\W");
+		same("[^a-c]+");
+		same("[\\d\\-]+");
+		same("[-a]");
+		same("[a-]+");
+		same(".*");
+		same(".+b");
+		same("\\r\\n|\\r|\\n");
+		same("[\\u3042-\\u3093]+");
+		same("\\x41|a");
+		same("^ab");
+	}
+
+	public void testSame002() {
+		same("a|ab");
+		same("ab|a");
+		same("(a|ab)(c|bcd)?");
+		same("(?:a|b)*c");
+		same("a*?");
+		same("a+?");
+		same("a??b");
+		same("(a+)*");
+		same("(a|b)*?b");
+		same("a{2}");
+		same("a{2,}");
+		same("a{1,3}");
+		same("a{0,3}?");
+		same("(ab){1,2}c?");
+		same("if|ifx|i");
+		same("()");
+		same("");
+	}
+
+	public void testSame003() {
+		same("b|a[ab]*|c??");
+		same("a[ab]*|b");
+		same("(?:ab|a)(?:b|c)*");
+	}
+
+	public void testRandom001() {
+		String[] atoms = { "a", "b", "c", "[ab]", "[^a]", "." };
+		String[] quantifiers = { "", "", "*", "+", "?", "*?", "+?", "??", "{2}", "{1,2}", "{0,2}?" };
+		String[] inputs = { "", "a", "b", "c", "aa", "ab", "ba", "abc", "aab", "bab", "cab", "abab", "aaba", "bcbca" };
+		Random random = new Random(765);
+
+		for(int i = 0; i < 2000; i++) {
+			String regex = randomRegex(random, atoms, quantifiers, 3);
+			DfaRegex dfa = DfaRegex.compile(regex);
+
+			for(String input : inputs) {
+				assertEquals(regex + " " + input, dfa.lookingAt(input, 0), lookingAt(dfa.getPattern(), input, 0));
+			}
+		}
+	}
+
+	private static String randomRegex(Random random, String[] atoms, String[] quantifiers, int depth) {
+		StringBuilder b = new StringBuilder();
+		int alternatives = random.nextInt(3) + 1;
+
+		for(int i = 0; i < alternatives; i++) {
+			int length = random.nextInt(4);
+
+			b.append(i > 0 ? "|" : "");
+			for(int j = 0; j < length; j++) {
+				if(depth > 0 && random.nextInt(4) == 0) {
+					b.append("(?:").append(randomRegex(random, atoms, quantifiers, depth - 1)).append(")");
+				} else {
+					b.append(atoms[random.nextInt(atoms.length)]);
+				}
+				b.append(quantifiers[random.nextInt(quantifiers.length)]);
+			}
+		}
+		return b.toString();
+	}
+
+	public void testFallback001() {
+		fallback("(a)\\1", "escape \\1");
+		fallback("a$", "anchor");
+		fallback("a(?=b)", "special group");
+		fallback("a*+", "possessive quantifier");
+		fallback("\\bab", "escape \\b");
+		fallback("\\p{Alpha}+", "escape \\p");
+		fallback("[a[b]]", "nested character class");
+		fallback("[a-z&&[^b]]", "nested character class");
+		fallback("a{1000}{1000}", "nested quantifier");
+		fallback("(?:a{100}){100}b{10000}", "too many instructions");
+		fallback("(a*)*", "repetition of empty pattern");
+		fallback("(?:|a)*", "repetition of empty pattern");
+		fallback("(?:a??)*", "repetition of empty pattern");
+		fallback("(?:|a)+", "repetition of empty pattern");
+		fallback("(?:a?b?){2}", "repetition of empty pattern");
+		assertEquals(DfaRegex.compile("(?:|a)*").lookingAt("aa", 0), 0);
+	}
+
+	public void testFallback002() {
+		DfaRegex dfa = DfaRegex.compile(Pattern.compile("a", Pattern.CASE_INSENSITIVE));
+
+		assertFalse(dfa.isDfa());
+		assertEquals(dfa.getFallbackReason(), "flags");
+		assertEquals(dfa.lookingAt("A", 0), 1);
+	}
+
+	public void testSurrogate001() {
+		DfaRegex dfa = DfaRegex.compile(".");
+
+		assertTrue(dfa.isDfa());
+		assertEquals(dfa.lookingAt("𠮷", 0), 2);
+		assertEquals(DfaRegex.compile("[a-z]").lookingAt("𠮷", 0), -1);
+	}
+
+	public void testLinear001() {
+		DfaRegex dfa = DfaRegex.compile("(?:a|a)*(?:a+)*b");
+		StringBuilder b = new StringBuilder();
+
+		for(int i = 0; i < 100000; i++) {
+			b.append('a');
+		}
+		assertTrue(dfa.isDfa());
+		assertEquals(dfa.lookingAt(b.toString() + "c", 0), -1);
+		assertEquals(dfa.lookingAt(b.toString() + "b", 0), 100001);
+	}
+
+	public void testReader001() {
+		DfaRegex dfa = DfaRegex.compile("[0-9]+");
+		ReaderCharSequence seq = new ReaderCharSequence(new StringReader("12345a"), 16);
+
+		assertEquals(dfa.lookingAt(seq, 0), 5);
+		assertEquals(dfa.lookingAt(seq, 5), -1);
+	}
+
+	public void testFallbacks001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.regex("[0-9]+").then(r.regex("(a)\\1")).then(r.regex("a$"));
+
+		assertEquals(DfaRegex.fallbacks(matcher), Arrays.asList("a$: anchor", "(a)\\1: escape \\1"));
+		match("12aaa", matcher, null, null);
+	}
+
+}
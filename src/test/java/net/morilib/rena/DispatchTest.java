@@ -0,0 +1,65 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DispatchTest extends TestCaseBase {
+
+	public void testCandidates001() {
+		Rena<String> r = new Rena<String>();
+		Dispatch dispatch = new Dispatch(Arrays.asList(r.string("a"), r.regex("[a-c]"),
+				r.maybe(r.string("b")), r.string("あ")));
+
+		assertTrue(Arrays.equals(dispatch.candidates("a", 0), new int[] { 0, 1, 2 }));
+		assertTrue(Arrays.equals(dispatch.candidates("b", 0), new int[] { 1, 2 }));
+		assertTrue(Arrays.equals(dispatch.candidates("z", 0), new int[] { 2 }));
+		assertTrue(Arrays.equals(dispatch.candidates("あ", 0), new int[] { 2, 3 }));
+		assertTrue(Arrays.equals(dispatch.candidates("a", 1), new int[] { 2 }));
+	}
+
+	public void testOrder001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.or(r.string("a", (m, s, i) -> "1"),
+				r.regex("[a-z]+", (m, s, i) -> "2"),
+				r.string("ab", (m, s, i) -> "3"),
+				r.attr("4"));
+
+		match("a", matcher, "", "1");
+		match("abc", matcher, "a", "", "1");
+		match("bc", matcher, "", "2");
+		match("", matcher, "", "4");
+		match("9", matcher, "", 0, "", "4");
+	}
+
+	public void testStatements001() {
+		Rena<Integer> r = new Rena<Integer>(" *");
+		List<PatternMatcher<Integer>> statements = new ArrayList<PatternMatcher<Integer>>();
+		PatternMatcher<Integer> matcher;
+
+		for(int i = 0; i < 40; i++) {
+			final int n = i;
+
+			statements.add(r.string("s" + i).string(";", (m, s, x) -> n));
+		}
+		statements.add(r.regex("[0-9]+", (m, s, i) -> -Integer.parseInt(m)).string(";"));
+		matcher = r.then(r.or(statements)).end();
+
+		match("s12;", matcher, 0, 12);
+		match("s39 ;", matcher, 0, 39);
+		match("7;", matcher, 0, -7);
+		nomatch("t1;", matcher);
+		assertEquals(matcher.iterative().match("s3;", 0).getAttribute().intValue(), 3);
+		assertEquals(matcher.compile().match("s3;", 0).getAttribute().intValue(), 3);
+		assertNull(matcher.compile().match("x", 0));
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class FirstSetTest extends TestCaseBase {
+
+	private static void first(PatternMatcher<?> matcher, String contained, String notContained, boolean nullable) {
+		FirstSet first = FirstSet.of(matcher);
+
+		for(char ch : contained.toCharArray()) {
+			assertTrue(first.contains(ch));
+		}
+		for(char ch : notContained.toCharArray()) {
+			assertFalse(first.contains(ch));
+		}
+		assertEquals(first.isNullable(), nullable);
+	}
+
+	public void testString001() {
+		Rena<String> r = new Rena<String>(new String[] { "if" });
+
+		first(r.string("abc"), "a", "bc", false);
+		first(r.string(""), "", "a", true);
+		first(r.key("if"), "i", "f", false);
+		first(r.string("a").string("b"), "a", "b", false);
+	}
+
+	public void testRegex001() {
+		Rena<String> r = new Rena<String>();
+
+		first(r.regex("[0-9]+"), "0159", "a+", false);
+		first(r.regex("[a-cx\\-]"), "abcx-", "dy", false);
+		first(r.regex("\\d\\.\\d"), "09", ".", false);
+		first(r.regex("\\w+"), "azAZ09_", "-", false);
+		first(r.regex("\\+"), "+", "\\", false);
+		first(r.regex("x[0-9]*"), "x", "0", false);
+		first(r.regex("[0-9]*"), "0a", "", true);
+		first(r.regex("a|b"), "ac", "", true);
+		first(r.regex("[^a]"), "ab", "", true);
+		first(r.regex("(?:a)"), "ab", "", true);
+		first(r.regex("\\p{Alpha}"), "ab", "", true);
+	}
+
+	public void testComposite001() {
+		Rena<String> r = new Rena<String>();
+		Rena<String> s = new Rena<String>(" ");
+
+		first(r.or(r.string("a"), r.regex("[0-9]")), "a5", "b", false);
+		first(r.zeroOrMore(r.string("a")), "a", "b", true);
+		first(r.then(r.oneOrMore(r.string("a"))), "a", "b", false);
+		first(s.then(s.oneOrMore(s.string("a"))), "a ", "", true);
+		first(r.then(r.maybe(r.string("a"))).string("b"), "ab", "", true);
+		first(r.string("a").lookahead(r.string("b")).cond(x -> true).end(), "a", "b", false);
+		first((str, index, attr) -> null, "ab", "", true);
+	}
+
+	public void testRule001() {
+		Rena<Integer> r = new Rena<Integer>();
+		RuleSet<Integer> rules = new RuleSet<Integer>();
+
+		rules.define("e", r.or(r.string("x"), r.string("(").then(rules.ref("e")).string(")")));
+		rules.define("l", r.or(r.then(rules.ref("l")).string("y"), r.string("z")));
+		first(rules.get("e"), "x(", ")", false);
+		first(rules.get("l"), "yz", "", true);
+	}
+
+}
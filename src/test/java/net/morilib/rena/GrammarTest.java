@@ -0,0 +1,95 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GrammarTest extends TestCaseBase {
+
+	private static List<Grammar.Element> find(Grammar grammar, Grammar.Kind kind) {
+		List<Grammar.Element> result = new ArrayList<Grammar.Element>();
+
+		for(Grammar.Element element : grammar.getElements()) {
+			if(element.getKind() == kind) {
+				result.add(element);
+			}
+		}
+		return result;
+	}
+
+	public void testOf001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.string("a").then(r.regex("[0-9]+"), (m, s, i) -> s).end();
+		Grammar grammar = Grammar.of(matcher);
+		Grammar.Element root = grammar.getRoot();
+		Grammar.Element seq = root.getChildren().get(0);
+
+		assertEquals(root.getKind(), Grammar.Kind.END);
+		assertEquals(seq.getKind(), Grammar.Kind.SEQ);
+		assertTrue(seq.hasAction());
+		assertEquals(seq.getChildren().get(0).getKind(), Grammar.Kind.LITERAL);
+		assertEquals(seq.getChildren().get(0).getText(), "a");
+		assertEquals(seq.getChildren().get(1).getKind(), Grammar.Kind.REGEX);
+		assertEquals(seq.getChildren().get(1).getText(), "[0-9]+");
+		assertEquals(grammar.toString(),
+				"#0 END #1\n" +
+				"#1 SEQ #2 #3 !\n" +
+				"#2 LITERAL \"a\"\n" +
+				"#3 REGEX \"[0-9]+\"\n");
+	}
+
+	public void testOf002() {
+		Rena<Integer> r = new Rena<Integer>(new String[] { "if" });
+		RuleSet<Integer> rules = new RuleSet<Integer>();
+		Grammar grammar;
+
+		rules.define("e", r.or(r.key("if"),
+				r.string("(").then(rules.ref("e")).string(")")));
+		rules.define("list", r.zeroOrMore(rules.ref("e")));
+		grammar = Grammar.of(rules.get("list"));
+
+		assertEquals(find(grammar, Grammar.Kind.REF).size(), 2);
+		assertEquals(find(grammar, Grammar.Kind.KEYWORD).get(0).getText(), "if");
+		assertEquals(find(grammar, Grammar.Kind.CHOICE).size(), 1);
+		assertEquals(find(grammar, Grammar.Kind.REPEAT).get(0).getMin(), 0);
+		assertEquals(find(grammar, Grammar.Kind.REPEAT).get(0).getMax(), -1);
+		assertEquals(grammar.getRoot().getKind(), Grammar.Kind.REF);
+		assertEquals(grammar.getRoot().getText(), "list");
+		for(Grammar.Element ref : find(grammar, Grammar.Kind.REF)) {
+			if(ref.getText().equals("e")) {
+				assertEquals(ref.getChildren().get(0).getKind(), Grammar.Kind.CHOICE);
+			}
+		}
+	}
+
+	public void testOf003() {
+		Rena<String> r = new Rena<String>();
+		MemoTable memo = new MemoTable();
+		PatternMatcher<String> opaque = (str, index, attr) -> null;
+		Grammar grammar = Grammar.of(memo.memoize(r.then(opaque).lookaheadNot(r.notKey())).iterative());
+
+		assertEquals(grammar.getRoot().getKind(), Grammar.Kind.WRAP);
+		assertEquals(grammar.getElements().get(1).getKind(), Grammar.Kind.MEMO);
+		assertEquals(grammar.getElements().get(2).getKind(), Grammar.Kind.LOOKAHEAD_NOT);
+		assertEquals(find(grammar, Grammar.Kind.OPAQUE).get(0).getMatcher(), opaque);
+		assertEquals(find(grammar, Grammar.Kind.NOT_KEYWORD).size(), 1);
+	}
+
+	public void testDeep001() {
+		Rena<String> r = new Rena<String>();
+		ThenMatcher<String> matcher = r.string("a");
+
+		for(int i = 0; i < 100000; i++) {
+			matcher = matcher.string("a");
+		}
+		assertEquals(Grammar.of(matcher).getElements().size(), 200001);
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class IncrementalTextTest extends TestCaseBase {
+
+	private static String lines(int count) {
+		StringBuilder b = new StringBuilder();
+
+		for(int i = 0; i < count; i++) {
+			b.append(i).append('\n');
+		}
+		return b.toString();
+	}
+
+	private static PatternMatcher<Integer> sum(IncrementalText text) {
+		Rena<Integer> r = new Rena<Integer>();
+		PatternMatcher<Integer> line = text.memoizeSynthesized(
+				r.regex("[0-9]+", (m, s, i) -> Integer.parseInt(m)).string("\n"));
+
+		return r.zeroOrMore(line, (m, s, i) -> s + i, 0).end();
+	}
+
+	public void testEdit001() {
+		IncrementalText text = new IncrementalText(lines(1000));
+		PatternMatcher<Integer> matcher = sum(text);
+		long misses;
+
+		assertEquals(matcher.parse(text, 0).getAttribute().intValue(), 499500);
+		misses = text.getMisses();
+		assertEquals(misses, 1001);
+
+		// "500\n" -> "1500\n"
+		text.edit(text.toString().indexOf("\n500\n") + 1, 0, "1");
+		assertEquals(matcher.parse(text, 0).getAttribute().intValue(), 500500);
+		assertTrue(text.getMisses() - misses <= 3);
+	}
+
+	public void testEdit002() {
+		IncrementalText text = new IncrementalText("1\n2\n3\n");
+		PatternMatcher<Integer> matcher = sum(text);
+
+		assertEquals(matcher.parse(text, 0).getAttribute().intValue(), 6);
+		text.edit(2, 2, "");
+		assertEquals(text.toString(), "1\n3\n");
+		assertEquals(matcher.parse(text, 0).getAttribute().intValue(), 4);
+		text.edit(4, 0, "10\n");
+		assertEquals(matcher.parse(text, 0).getAttribute().intValue(), 14);
+		text.edit(0, 1, "x");
+		assertNull(matcher.parse(text, 0));
+	}
+
+	public void testEdit003() {
+		// the result of "12" examines the following character
+		IncrementalText text = new IncrementalText("12\n");
+		PatternMatcher<Integer> matcher = sum(text);
+
+		assertEquals(matcher.parse(text, 0).getAttribute().intValue(), 12);
+		text.edit(2, 0, "3");
+		assertEquals(matcher.parse(text, 0).getAttribute().intValue(), 123);
+	}
+
+	public void testMemoize001() {
+		Rena<String> r = new Rena<String>();
+		IncrementalText text = new IncrementalText("aaab");
+		PatternMatcher<String> a = text.memoize(r.regex("a+", (m, s, i) -> i + m));
+
+		assertEquals(a.match(text, "x").getAttribute(), "xaaa");
+		assertEquals(a.match(text, "y").getAttribute(), "yaaa");
+		assertEquals(text.size(), 2);
+		text.edit(3, 1, "a");
+		assertEquals(text.size(), 0);
+		assertEquals(a.match(text, "x").getAttribute(), "xaaaa");
+		text.setText("b");
+		assertNull(a.match(text, "x"));
+		assertEquals(text.getHits(), 0);
+	}
+
+	public void testEditOutOfRange001() {
+		IncrementalText text = new IncrementalText("abc");
+
+		try {
+			text.edit(2, 2, "");
+			fail();
+		} catch(IndexOutOfBoundsException e) {
+			// ok
+		}
+	}
+
+}
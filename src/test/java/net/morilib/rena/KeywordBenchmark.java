@@ -0,0 +1,131 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * compares the trie of keywords with the trie of hash maps which was used before.<br>
+ * Run by the main method.
+ */
+public class KeywordBenchmark {
+
+	private static final int KEYS = 20000;
+	private static final int LOOKUPS = 2000000;
+
+	private static class TrieNode {
+
+		private Map<Integer, TrieNode> edges = new HashMap<Integer, TrieNode>();
+		private String matched = null;
+
+	}
+
+	private static TrieNode hashTrie(String[] keys) {
+		TrieNode root = new TrieNode();
+
+		for(String key : keys) {
+			TrieNode node = root;
+
+			for(int i = 0; i < key.length(); i++) {
+				int ch = key.charAt(i);
+
+				if(!node.edges.containsKey(ch)) {
+					node.edges.put(ch, new TrieNode());
+				}
+				node = node.edges.get(ch);
+			}
+			node.matched = key;
+		}
+		return root;
+	}
+
+	private static String search(TrieNode root, CharSequence toMatch, int index) {
+		TrieNode node = root;
+
+		for(int i = index; i < toMatch.length(); i++) {
+			int ch = toMatch.charAt(i);
+
+			if(node.edges.containsKey(ch)) {
+				node = node.edges.get(ch);
+			} else {
+				return node.matched;
+			}
+		}
+		return node.matched;
+	}
+
+	private static String[] keys(Random random) {
+		String[] keys = new String[KEYS];
+
+		for(int i = 0; i < keys.length; i++) {
+			StringBuilder builder = new StringBuilder();
+			int length = 3 + random.nextInt(10);
+
+			for(int j = 0; j < length; j++) {
+				builder.append((char)('a' + random.nextInt(26)));
+			}
+			keys[i] = builder.toString();
+		}
+		return keys;
+	}
+
+	private static long used() {
+		Runtime runtime = Runtime.getRuntime();
+
+		for(int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	public static void main(String[] args) {
+		Random random = new Random(1);
+		String[] keys = keys(random);
+		String text;
+		int[] indices = new int[LOOKUPS];
+		StringBuilder builder = new StringBuilder();
+		long before, hashMemory, trieMemory, time;
+		TrieNode hash;
+		Rena<Object> rena;
+		int found = 0;
+
+		for(int i = 0; i < 10000; i++) {
+			builder.append(keys[random.nextInt(keys.length)]).append(' ');
+		}
+		text = builder.toString();
+		for(int i = 0; i < indices.length; i++) {
+			indices[i] = random.nextInt(text.length());
+		}
+
+		before = used();
+		hash = hashTrie(keys);
+		hashMemory = used() - before;
+		before = used();
+		rena = new Rena<Object>(keys);
+		trieMemory = used() - before;
+		System.out.printf("memory: HashMap %,d bytes, CharTrie %,d bytes%n", hashMemory, trieMemory);
+
+		for(int round = 0; round < 5; round++) {
+			time = System.nanoTime();
+			for(int index : indices) {
+				found += search(hash, text, index) != null ? 1 : 0;
+			}
+			System.out.printf("lookup: HashMap %d ms%n", (System.nanoTime() - time) / 1000000);
+			time = System.nanoTime();
+			for(int index : indices) {
+				found += rena.searchKeyword(text, index) != null ? 1 : 0;
+			}
+			System.out.printf("lookup: CharTrie %d ms%n", (System.nanoTime() - time) / 1000000);
+		}
+		System.out.println(found);
+	}
+
+}
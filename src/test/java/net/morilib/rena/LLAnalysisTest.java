@@ -0,0 +1,114 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.util.Arrays;
+
+public class LLAnalysisTest extends TestCaseBase {
+
+	private static RuleSet<String> statements() {
+		Rena<String> r = new Rena<String>();
+		RuleSet<String> rules = new RuleSet<String>();
+
+		rules.define("stmt", r.or(r.string("if", (m, s, i) -> "if"),
+				r.string("in", (m, s, i) -> "in"),
+				r.regex("i[0-9]", (m, s, i) -> "var"),
+				r.then(r.regex("[a-z]+")).string("=", (m, s, i) -> "assign"))
+				.or(r.attr("empty")));
+		return rules;
+	}
+
+	public void testExpr001() {
+		LLAnalysis analysis = LLAnalysis.of(exprRules(), 1);
+
+		assertTrue(analysis.isPredictive());
+		assertEquals(analysis.getRules(), Arrays.asList("term", "expr", "factor"));
+		assertEquals(analysis.toString(), "");
+	}
+
+	public void testStatements001() {
+		LLAnalysis analysis1 = LLAnalysis.of(statements(), 1);
+		LLAnalysis analysis2 = LLAnalysis.of(statements().get("stmt"), 2);
+
+		assertFalse(analysis1.isPredictive("stmt"));
+		assertEquals(analysis1.getNonPredictiveRules(), Arrays.asList("stmt"));
+		assertTrue(analysis1.getReasons("stmt").contains(
+				"choice 1: alternatives #0 and #1 are not distinguished by 1 character"));
+		assertFalse(analysis2.isPredictive());
+		assertEquals(analysis2.getReasons("stmt"), Arrays.asList(
+				"choice 1: alternatives #0 and #3 are not distinguished by 2 characters",
+				"choice 1: alternatives #1 and #3 are not distinguished by 2 characters",
+				"choice 1: alternatives #2 and #3 are not distinguished by 2 characters"));
+	}
+
+	public void testReasons001() {
+		Rena<String> r = new Rena<String>();
+		LLAnalysis analysis = LLAnalysis.of(r.or(r.maybe(r.string("a")), r.string("b")), 1);
+
+		assertEquals(analysis.getReasons(""), Arrays.asList("choice 1: alternative #0 can match an empty string"));
+		try {
+			analysis.getReasons("none");
+			fail();
+		} catch(IllegalArgumentException e) {
+			// ok
+		}
+		try {
+			LLAnalysis.of(r.string("a"), 0);
+			fail();
+		} catch(IllegalArgumentException e) {
+			// ok
+		}
+	}
+
+	public void testPredictive001() {
+		PatternMatcher<Integer> matcher = exprRules().get("expr");
+		String[] inputs = { "1+2*3", "(1 + 2) * 3", "4-6/2", "(1+2", "((7))", "1+", "" };
+
+		for(String input : inputs) {
+			PatternResult<Integer> expected = matcher.match(input, 0);
+
+			for(PatternMatcher<Integer> m : Arrays.asList(matcher.predictive(1),
+					matcher.predictive(1).compile(), matcher.predictive(2).iterative())) {
+				PatternResult<Integer> actual = m.match(input, 0);
+
+				if(expected == null) {
+					assertNull(actual);
+				} else {
+					assertEquals(actual.getAttribute(), expected.getAttribute());
+					assertEquals(actual.getLastIndex(), expected.getLastIndex());
+				}
+			}
+		}
+	}
+
+	public void testPredictive002() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.or(r.string("ab", (m, s, i) -> "1"),
+				r.then(r.string("ac")).string("d", (m, s, i) -> "2"),
+				r.regex("b[0-9]", (m, s, i) -> "3"),
+				r.attr("4"));
+		int[] count = new int[1];
+		PatternMatcher<String> counted = r.or(r.then(r.regex("[a-z]x"), (m, s, i) -> "" + ++count[0]),
+				r.regex("[0-9]", (m, s, i) -> "5"));
+
+		assertTrue(LLAnalysis.of(matcher, 2).isPredictive());
+		assertFalse(LLAnalysis.of(matcher, 1).isPredictive());
+		for(String input : new String[] { "ab", "acd", "ac", "b1", "bb", "", "x" }) {
+			PatternResult<String> expected = matcher.match(input, "");
+			PatternResult<String> actual = matcher.predictive(2).match(input, "");
+
+			assertEquals(actual.getAttribute(), expected.getAttribute());
+			assertEquals(actual.getLastIndex(), expected.getLastIndex());
+		}
+		assertNull(counted.predictive(2).match("ay", ""));
+		assertEquals(count[0], 0);
+		match("1", counted.predictive(2), "", "5");
+	}
+
+}
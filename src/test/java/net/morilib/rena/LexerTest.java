@@ -0,0 +1,83 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class LexerTest extends TestCaseBase {
+
+	private static<A> void same(PatternMatcher<A> matcher, String input, A attribute) {
+		same(matcher, matcher.lexer(), input, attribute);
+	}
+
+	public void testExpr001() {
+		PatternMatcher<Integer> matcher = expr();
+		String[] inputs = { "1+2*3", "(1 + 2) * 3 ", "4-6/2", "(1+2", "((7))", "1+", "", " 1", "1 2", "  (1 + 2) * 3" };
+
+		for(String input : inputs) {
+			same(matcher, input, null);
+		}
+		assertEquals(matcher.lexer().parse("(1 + 2) * 3", null).getAttribute().intValue(), 9);
+	}
+
+	public void testTokenize001() {
+		Lexer<Integer> lexer = expr().lexer();
+		Lexer.Tokens tokens = lexer.tokenize(" 12 *(3)", 0);
+
+		assertEquals(lexer.getTerminals().size(), 7);
+		assertEquals(tokens.size(), 5);
+		assertEquals(tokens.getStart(0), 1);
+		assertEquals(tokens.getEnd(0), 3);
+		assertEquals(tokens.getStart(1), 4);
+		assertEquals(tokens.getEnd(4), 8);
+		assertEquals(tokens.getLastIndex(), 8);
+		assertEquals(lexer.getTerminals().get(tokens.getKind(0)).match("12", 0, null).getMatch(), "12");
+		assertEquals(lexer.getTerminals().get(tokens.getKind(1)).match("*", 0, null).getMatch(), "*");
+		assertEquals(lexer.tokenize("1 ?", 0).getLastIndex(), 2);
+	}
+
+	public void testLongest001() {
+		Rena<String> r = new Rena<String>(" +");
+		PatternMatcher<String> matcher = r.or(
+				r.string("if").then(r.regex("[a-z]+", (m, s, i) -> "if " + m)),
+				r.regex("[a-z]+", (m, s, i) -> "id " + m));
+
+		same(matcher, "if x", "");
+		match("ifx", matcher.lexer(), "", "id ifx");
+	}
+
+	public void testKeyword001() {
+		Rena<String> r = new Rena<String>(" +", new String[] { "if", "then", "else" });
+		PatternMatcher<String> id = r.then(r.notKey()).regex("[a-z]+", (m, s, i) -> i + "<" + m + ">");
+		PatternMatcher<String> matcher = r.then(r.key("if")).then(id).then(r.key("then")).then(id).end();
+
+		same(matcher, "if a then b", "");
+		same(matcher, "if then then b", "");
+		same(matcher, "if ifa then b", "");
+		match("if a then  b", matcher.lexer(), "", "<a><b>");
+	}
+
+	public void testNullable001() {
+		Rena<String> r = new Rena<String>(" ");
+		PatternMatcher<String> matcher = r.then(r.regex("[a-z]*", (m, s, i) -> i + m))
+				.then(r.regex("[0-9]+", (m, s, i) -> i + "|" + m));
+
+		same(matcher, "ab 12", "");
+		same(matcher, "12", "");
+	}
+
+	public void testNoSkip001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.delimit(r.regex("[a-z]+"), r.string(","),
+				(m, s, i) -> i + "[" + m + "]", "");
+
+		same(matcher, "a,bc,d", "");
+		same(matcher, "a,,b", "");
+		same(matcher, "", "");
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MappedCharSequenceTest extends TestCaseBase {
+
+	private Path write(byte[] bytes) throws IOException {
+		Path path = Files.createTempFile("rena", ".txt");
+
+		path.toFile().deleteOnExit();
+		Files.write(path, bytes);
+		return path;
+	}
+
+	private void assertSequence(String expected, CharSequence actual) {
+		assertEquals(expected.length(), actual.length());
+		for(int i = 0; i < expected.length(); i++) {
+			assertEquals(expected.charAt(i), actual.charAt(i));
+		}
+		// random access
+		for(int i = expected.length() - 1; i >= 0; i -= 997) {
+			assertEquals(expected.charAt(i), actual.charAt(i));
+		}
+		assertEquals(expected, actual.toString());
+	}
+
+	public void testUtf8001() throws IOException {
+		StringBuilder builder = new StringBuilder();
+
+		for(int i = 0; i < 5000; i++) {
+			builder.append("aéあ😀");
+		}
+		String expected = builder.toString();
+		Path path = write(expected.getBytes(StandardCharsets.UTF_8));
+
+		assertSequence(expected, MappedCharSequence.map(path, StandardCharsets.UTF_8));
+	}
+
+	public void testUtf8002() throws IOException {
+		byte[] bytes = new byte[] { 'a', (byte)0xff, 'b', (byte)0xe3, (byte)0x81, 'c', (byte)0xe3 };
+		Path path = write(bytes);
+
+		assertSequence("a�b��c�", MappedCharSequence.map(path, StandardCharsets.UTF_8));
+	}
+
+	public void testLatin001() throws IOException {
+		Path path = write("café".getBytes(StandardCharsets.ISO_8859_1));
+
+		assertSequence("café", MappedCharSequence.map(path, StandardCharsets.ISO_8859_1));
+		assertSequence("caf�", MappedCharSequence.map(path, StandardCharsets.US_ASCII));
+	}
+
+	public void testSubSequence001() throws IOException {
+		Path path = write("0123456789".getBytes(StandardCharsets.UTF_8));
+		CharSequence seq = MappedCharSequence.map(path, StandardCharsets.UTF_8);
+
+		assertEquals(seq.subSequence(2, 8).toString(), "234567");
+		assertEquals(seq.subSequence(2, 8).subSequence(1, 3).toString(), "34");
+	}
+
+	public void testParseFile001() throws IOException {
+		Rena<Integer> r = new Rena<Integer>("[ \n]+");
+		PatternMatcher<Integer> matcher = r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x));
+		Path path = write("あ 1 22\n333 い 4444\n".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(matcher.parsePartGlobal(path, 0, (x, a) -> x + a), Integer.valueOf(4800));
+		assertEquals(matcher.parsePartGlobalList(path).size(), 4);
+		assertNull(matcher.parseFile(path, 0));
+	}
+
+	public void testParseFile002() throws IOException {
+		Rena<Integer> r = new Rena<Integer>(" +");
+		PatternMatcher<Integer> matcher = r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x))
+				.string("+").regex("[0-9]+", (x, a, b) -> b + Integer.parseInt(x.substring(x.lastIndexOf(' ') + 1)))
+				.end();
+		Path path = write("12 + 34".getBytes(StandardCharsets.ISO_8859_1));
+
+		assertEquals(matcher.parseFile(path, StandardCharsets.ISO_8859_1, 0).getAttribute(), Integer.valueOf(46));
+	}
+
+}
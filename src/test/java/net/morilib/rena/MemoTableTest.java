@@ -0,0 +1,93 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class MemoTableTest extends TestCaseBase {
+
+	private PatternMatcher<String> grammar(final int[] count, MemoTable table) {
+		final Rena<String> r = new Rena<String>();
+		RuleSet<String> rules = new RuleSet<String>();
+
+		if(table != null) {
+			rules.memoize(table, "atom");
+		}
+		rules.define("expr", r.or(
+				r.then(rules.ref("atom")).string("+"),
+				r.then(rules.ref("atom")).string("-"),
+				r.then(rules.ref("atom"))));
+		rules.define("atom", (match, index, attr) -> {
+			count[0]++;
+			return r.or(r.string("(").then(rules.ref("expr")).string(")"), r.string("a"))
+					.match(match, index, attr);
+		});
+		return rules.get("expr");
+	}
+
+	private String nest(int depth) {
+		StringBuilder builder = new StringBuilder();
+
+		for(int i = 0; i < depth; i++) {
+			builder.append("(");
+		}
+		builder.append("a");
+		for(int i = 0; i < depth; i++) {
+			builder.append(")");
+		}
+		return builder.toString();
+	}
+
+	public void testMemoize001() {
+		int[] count1 = new int[1], count2 = new int[1];
+		MemoTable table = new MemoTable();
+		PatternMatcher<String> plain = grammar(count1, null);
+		PatternMatcher<String> memo = grammar(count2, table);
+		String input = nest(8);
+
+		match(input, plain, "", "");
+		match(input, memo, "", "");
+		assertEquals(count2[0], 9);
+		assertTrue(count1[0] > 1000);
+		assertEquals(table.size(), 9);
+		assertEquals(table.getMisses(), 9);
+		assertTrue(table.getHits() > 0);
+		assertTrue(table.getEstimatedBytes() > 0);
+	}
+
+	public void testMemoize002() {
+		int[] count = new int[1];
+		MemoTable table = new MemoTable();
+		PatternMatcher<String> memo = grammar(count, table);
+
+		match("(a)+", memo, "(a)+", "", "");
+		nomatch("((a)", memo);
+		assertEquals(table.size(), 3);
+		nomatch("b", memo);
+	}
+
+	public void testMemoize003() {
+		int[] count = new int[1];
+		MemoTable table = new MemoTable(2);
+		PatternMatcher<String> memo = grammar(count, table);
+
+		match(nest(4), memo, "", "");
+		assertEquals(table.size(), 2);
+	}
+
+	public void testMemoizeAll001() {
+		final Rena<String> r = new Rena<String>();
+		RuleSet<String> rules = new RuleSet<String>();
+		MemoTable table = new MemoTable();
+
+		rules.memoizeAll(table);
+		rules.define("paren", r.then(r.string("(").then(rules.ref("paren")).string(")")).maybe());
+		match("(())", rules.get("paren"), "", "");
+		assertEquals(table.size(), 3);
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.util.Arrays;
+
+public class OptimizerTest extends TestCaseBase {
+
+	private static<A> void same(PatternMatcher<A> matcher, String input, A attribute) {
+		PatternMatcher<A> optimized = matcher.optimize();
+
+		for(PatternMatcher<A> m : Arrays.asList(optimized, optimized.compile(), optimized.iterative())) {
+			same(matcher, m, input, attribute);
+		}
+	}
+
+	public void testFuse001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.string("a").string("b").string("c", (m, s, i) -> i + m);
+		PatternMatcher<String> optimized = matcher.optimize();
+
+		assertEquals(Grammar.of(optimized).toString(), "#0 LITERAL \"abc\" !\n");
+		same(matcher, "abcd", "x");
+		same(matcher, "abd", "x");
+	}
+
+	public void testFuse002() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.regex("[0-9]+", (m, s, i) -> m).string("e").string("x").string("p");
+
+		assertEquals(Grammar.of(matcher.optimize()).toString(),
+				"#0 SEQ #1 #2\n" +
+				"#1 REGEX \"[0-9]+\" !\n" +
+				"#2 LITERAL \"exp\" !\n");
+		same(matcher, "12exp", "");
+		same(matcher, "12ex", "");
+	}
+
+	public void testFuse003() {
+		Rena<String> r = new Rena<String>(" ");
+		PatternMatcher<String> matcher = r.string("a").string("b");
+
+		assertEquals(find(matcher.optimize(), Grammar.Kind.SEQ), 1);
+		same(matcher, "a b", "");
+		same(matcher, "ab", "");
+	}
+
+	public void testChoice001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.or(r.string("a", (m, s, i) -> "1"),
+				r.string("ab", (m, s, i) -> "2"),
+				r.or(r.string("abc", (m, s, i) -> "3"), r.string("b", (m, s, i) -> "4")));
+		String[] inputs = { "a", "ab", "abc", "b", "c", "" };
+
+		assertTrue(matcher.optimize() instanceof Node.Literals);
+		for(String input : inputs) {
+			same(matcher, input, "");
+		}
+	}
+
+	public void testChoice002() {
+		Rena<String> r = new Rena<String>(" *");
+		PatternMatcher<String> matcher = r.then(r.or(r.string("+"), r.string("-"), r.regex("[0-9]"), r.string("*"))
+				.or(r.string("/")))
+				.string("=");
+		Grammar grammar = Grammar.of(matcher.optimize());
+
+		assertEquals(find(matcher.optimize(), Grammar.Kind.CHOICE), 3);
+		assertEquals(grammar.getRoot().getChildren().get(0).getChildren().get(0).getChildren().size(), 3);
+		for(String input : new String[] { "+ =", "1=", "* =", "/=", "%=", "- -" }) {
+			same(matcher, input, "");
+		}
+	}
+
+	public void testKeys001() {
+		Rena<String> r = new Rena<String>(" ", new String[] { "if", "ifdef", "for", "while", "+" });
+		PatternMatcher<String> matcher = r.or(r.key("if"), r.key("ifdef"), r.key("while"), r.key("for"))
+				.or(r.string("x")).or(r.key("+"));
+		PatternMatcher<String> optimized = matcher.optimize();
+		String[] inputs = { "if", "ifdef", "ifde", "while", "for", "x", "+", "ifx", "fo", "" };
+
+		assertEquals(find(optimized, Grammar.Kind.CHOICE), 2);
+		assertEquals(find(optimized, Grammar.Kind.KEYWORD), 5);
+		for(String input : inputs) {
+			same(matcher, input, "");
+		}
+		assertTrue(r.or(r.key("if"), r.key("for")).optimize() instanceof Node.Keys);
+	}
+
+	public void testIdentity001() {
+		Rena<Integer> r = new Rena<Integer>();
+		PatternMatcher<Integer> matcher = r.then(r.regex("[0-9]", (m, s, i) -> Integer.parseInt(m)), r.I);
+
+		assertEquals(Grammar.of(matcher.optimize()).getRoot().getKind(), Grammar.Kind.WRAP);
+		same(matcher, "7", 0);
+		same(matcher, "x", 0);
+	}
+
+	public void testRule001() {
+		Rena<Integer> r = new Rena<Integer>(" *");
+		RuleSet<Integer> rules = new RuleSet<Integer>();
+
+		rules.define("e", r.or(r.string("x", (m, s, i) -> 0),
+				r.string("(").then(rules.ref("e"), (m, s, i) -> s + 1).string(")")));
+		for(String input : new String[] { "x", "(x)", "( ( x ) )", "((x)" }) {
+			same(rules.get("e"), input, 0);
+		}
+	}
+
+	public void testRule002() {
+		Rena<String> r = new Rena<String>();
+		RuleSet<String> rules = new RuleSet<String>();
+		PatternMatcher<String> matcher;
+
+		rules.define("e", r.or(r.string("z"), r.then(r.or(r.string("(").then(rules.ref("e")), r.string("x")))));
+		matcher = rules.get("e");
+		for(String input : new String[] { "z", "x", "(z", "((x", "(", "y" }) {
+			same(matcher, input, "");
+			assertEquals(matcher.predictive(1).matchLength(input, 0), matcher.matchLength(input, 0));
+			assertEquals(matcher.lexer().matchLength(input, 0), matcher.matchLength(input, 0));
+		}
+	}
+
+	private static int find(PatternMatcher<?> matcher, Grammar.Kind kind) {
+		int result = 0;
+
+		for(Grammar.Element element : Grammar.of(matcher).getElements()) {
+			result += element.getKind() == kind ? 1 : 0;
+		}
+		return result;
+	}
+
+}
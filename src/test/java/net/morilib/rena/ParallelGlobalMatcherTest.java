@@ -0,0 +1,76 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.util.List;
+import java.util.Random;
+
+public class ParallelGlobalMatcherTest extends TestCaseBase {
+
+	private String records(int count) {
+		StringBuilder builder = new StringBuilder();
+		Random random = new Random(765);
+
+		for(int i = 0; i < count; i++) {
+			builder.append("k").append(i).append("=").append(random.nextInt(1000)).append("\n");
+		}
+		return builder.toString();
+	}
+
+	public void testList001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.regex("k[0-9]+=([0-9]+)", (x, a, b) -> x);
+		String input = records(3000);
+		List<String> expected = matcher.parsePartGlobalList(input);
+
+		assertEquals(matcher.parsePartGlobalListParallel(input, 0, r.br(), 100), expected);
+		assertEquals(matcher.parsePartGlobalListParallel(input, r.br()), expected);
+		assertEquals(expected.size(), 3000);
+	}
+
+	public void testStraddle001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.regex("x[^y]*y", (x, a, b) -> x);
+		StringBuilder builder = new StringBuilder();
+		Random random = new Random(346);
+
+		for(int i = 0; i < 5000; i++) {
+			int c = random.nextInt(10);
+
+			builder.append(c < 2 ? 'x' : c < 4 ? 'y' : c < 5 ? '\n' : 'a');
+		}
+		String input = builder.toString();
+		List<String> expected = matcher.parsePartGlobalList(input);
+
+		for(int size = 1; size < 200; size += 17) {
+			assertEquals(matcher.parsePartGlobalListParallel(input, 0, r.br(), size), expected);
+		}
+		assertEquals(matcher.parsePartGlobalListParallel(input, 10, r.br(), 50),
+				matcher.parsePartGlobalList(input, 10));
+	}
+
+	public void testParallel001() {
+		Rena<Integer> r = new Rena<Integer>();
+		PatternMatcher<Integer> matcher = r.regex("k[0-9]+=", (x, a, b) -> 0)
+				.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x.substring(x.indexOf('=') + 1)));
+		String input = records(3000);
+		int expected = 0;
+
+		for(Integer value : matcher.parsePartGlobalList(input)) {
+			expected += value;
+		}
+		assertEquals(matcher.parsePartGlobalParallel(input, 0, r.br(), 64, 0, (x, a) -> x + a),
+				Integer.valueOf(expected));
+		assertEquals(matcher.parsePartGlobalParallel(input, r.br(), 0, (x, a) -> x + a),
+				Integer.valueOf(expected));
+		assertEquals(matcher.parsePartGlobalParallel("", r.br(), 0, (x, a) -> x + a),
+				Integer.valueOf(0));
+	}
+
+}
@@ -8,22 +8,25 @@
  */
 package net.morilib.rena;
 
+import java.io.StringReader;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class PatternMatcherTest extends TestCaseBase {
 
 	static PatternMatcher<String> MATCHER = (str, index, attr) -> {
-		if(str.startsWith("765", index) || str.startsWith("346", index)) {
-			return new PatternResult<String>(str.substring(index, index + 3), index + 3, attr);
+		if(str.toString().startsWith("765", index) || str.toString().startsWith("346", index)) {
+			return new PatternResult<String>(str.subSequence(index, index + 3).toString(), index + 3, attr);
 		} else {
 			return null;
 		}
 	};
 
 	static PatternMatcher<String> MATCHER2 = (str, index, attr) -> {
-		if(str.startsWith("765", index) || str.startsWith("346", index)) {
+		if(str.toString().startsWith("765", index) || str.toString().startsWith("346", index)) {
 			return new PatternResult<String>(
-					str.substring(index, index + 3), index + 3, str.substring(index, index + 3));
+					str.subSequence(index, index + 3).toString(), index + 3, str.subSequence(index, index + 3).toString());
 		} else {
 			return null;
 		}
@@ -78,6 +81,22 @@ public class PatternMatcherTest extends TestCaseBase {
 		assertEquals(MATCHER2.parsePartGlobal("aaaaaaaaaaa", "", (b, a) -> a + b), "");
 	}
 
+	public void testMatchRegion001() {
+		testMatch(MATCHER.match("aa765aa", 2, 5, ""), "765", 5, "");
+		assertNull(MATCHER.match("aa765aa", 2, 4, ""));
+		testMatch(MATCHER.match(new StringBuilder("aa765"), 2, 5, ""), "765", 5, "");
+	}
+
+	public void testParsePartRegion001() {
+		testMatch(MATCHER.parsePart("aa765aa346", 1, 8, ""), "765", 5, "");
+		assertNull(MATCHER.parsePart("aa765aa346", 6, 9, ""));
+	}
+
+	public void testParsePartGlobalRegion001() {
+		assertEquals(MATCHER2.parsePartGlobal("765aa346aa765", 1, 12, "", (b, a) -> a + b), "346");
+		assertEquals(MATCHER2.parsePartGlobalList("765aa346aa765", 0, 12).size(), 2);
+	}
+
 	public void testParsePartGlobalList001() {
 		List<String> list;
 
@@ -103,4 +122,56 @@ public class PatternMatcherTest extends TestCaseBase {
 		assertEquals(list.size(), 0);
 	}
 
+	public void testParsePartGlobalStream001() {
+		List<String> list;
+
+		list = MATCHER2.parsePartGlobalStream("aa765aaaa346aaaa765", "")
+				.map(PatternResult::getAttribute)
+				.collect(Collectors.toList());
+		assertEquals(list.size(), 3);
+		assertEquals(list.get(1), "346");
+
+		list = MATCHER2.parsePartGlobalStream("aa765aaaa346aaaa765", 3, "")
+				.map(PatternResult::getAttribute)
+				.collect(Collectors.toList());
+		assertEquals(list.size(), 2);
+		assertEquals(MATCHER2.parsePartGlobalStream("aaaaaaaaa", "").count(), 0);
+	}
+
+	public void testParsePartGlobalStream002() {
+		final int[] count = new int[1];
+		PatternMatcher<String> matcher = (str, index, attr) -> {
+			count[0]++;
+			return MATCHER2.match(str, index, attr);
+		};
+
+		assertEquals(matcher.parsePartGlobalStream("765aa346aa765aa346", "")
+				.limit(1)
+				.findFirst().get().getLastIndex(), 3);
+		assertEquals(count[0], 1);
+	}
+
+	public void testParsePartGlobalStream003() {
+		Rena<String> r = new Rena<String>();
+		StringBuilder builder = new StringBuilder();
+
+		for(int i = 0; i < 10000; i++) {
+			builder.append("a765b");
+		}
+		assertEquals(r.string("765").parsePartGlobalStream(new StringReader(builder.toString()), 16, "")
+				.filter(x -> x.getStartIndex() > 100)
+				.count(), 9980);
+		assertEquals(r.string("").parsePartGlobalStream("abc", "").count(), 3);
+	}
+
+	public void testParsePartGlobalIterator001() {
+		Iterator<PatternResult<String>> iterator = MATCHER2.parsePartGlobalIterator("aa765aaaa346", "");
+
+		assertTrue(iterator.hasNext());
+		assertEquals(iterator.next().getAttribute(), "765");
+		assertEquals(iterator.next().getAttribute(), "346");
+		assertFalse(iterator.hasNext());
+		assertFalse(MATCHER2.parsePartGlobalIterator("aa765aaaa346", 10, "").hasNext());
+	}
+
 }
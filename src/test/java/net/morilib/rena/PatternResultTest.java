@@ -0,0 +1,111 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class PatternResultTest extends TestCaseBase {
+
+	public void testLazy001() {
+		PatternResult<String> result = new PatternResult<String>("abcde", 1, 4, "x");
+
+		assertEquals(result.getStartIndex(), 1);
+		assertEquals(result.getLastIndex(), 4);
+		assertEquals(result.getMatch(), "bcd");
+		assertSame(result.getMatch(), result.getMatch());
+		assertEquals(new PatternResult<String>("bcd", 4, "x").getStartIndex(), 1);
+	}
+
+	public void testSpanAction001() {
+		Rena<Integer> r = new Rena<Integer>(" *");
+		PatternMatcher<Integer> number = r.regex("[0-9]+", SpanAction.of((input, start, end, s, i) -> {
+			int value = 0;
+
+			for(int k = start; k < end; k++) {
+				value = value * 10 + (input.charAt(k) - '0');
+			}
+			return value;
+		}));
+		PatternMatcher<Integer> matcher = r.delimit(number, r.string(","),
+				SpanAction.of((input, start, end, s, i) -> i + s + end - start), 0);
+
+		match("12, 345,6", matcher, "12, 345,6", 9, 0, 369);
+		match("12, 345,6", matcher.compile(), "12, 345,6", 9, 0, 369);
+		match("12", number.compile(), "12", 0, 12);
+	}
+
+	public void testSpanAction002() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.then(r.string("a"))
+				.then(r.regex("[0-9]+"), SpanAction.of((input, start, end, s, i) -> start + ":" + end))
+				.then(r.string("b"), (m, s, i) -> i + m);
+
+		match("a12b", matcher, "a12b", 4, "", "0:3a12b");
+		match("a12b", matcher.compile(), "a12b", 4, "", "0:3a12b");
+		match("a12b", matcher, "a12b", "", "0:3a12b");
+		assertEquals(matcher.match(new StringBuilder("a12b"), 0, "").getAttribute(), "0:3a12b");
+	}
+
+	private static class StableInput implements Input {
+
+		private final String string;
+		private int copied;
+
+		private StableInput(String string) {
+			this.string = string;
+		}
+
+		public int length() {
+			return string.length();
+		}
+
+		public char charAt(int index) {
+			return string.charAt(index);
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			copied++;
+			return string.subSequence(start, end);
+		}
+
+		public String toString() {
+			copied++;
+			return string;
+		}
+
+		public boolean isStable() {
+			return true;
+		}
+
+	}
+
+	public void testInput001() {
+		Rena<String> r = new Rena<String>();
+		StableInput input = new StableInput("abc def");
+		PatternResult<String> result = r.regex("[a-z]+").match(input, 4, 7, "");
+
+		assertEquals(input.copied, 0);
+		assertEquals(result.getMatch(), "def");
+		assertEquals(input.copied, 1);
+		assertTrue(CharSequences.isStable(CharSequences.region("abc def", 0, 3)));
+		assertFalse(CharSequences.isStable(CharSequences.region(new StringBuilder("abc def"), 0, 3)));
+	}
+
+	public void testNone001() {
+		Rena<String> r = new Rena<String>(" *");
+		StableInput input = new StableInput("a b 12 c");
+		ThenMatcher<String> matcher = r.then(r.string("a")).string("b").regex("[0-9]+").string("c");
+		PatternResult<String> result = matcher.match(input, 0, "x");
+
+		assertEquals(result.getAttribute(), "x");
+		assertEquals(result.getLastIndex(), 8);
+		assertEquals(input.copied, 0);
+		assertEquals(matcher.then(r.attr("y"), r.I).match(input, 0, "x").getAttribute(), "y");
+		assertEquals(input.copied, 0);
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.ToIntFunction;
+
+/**
+ * compares the arithmetic grammar of README with Rena&lt;Integer&gt;
+ * and the same grammar with IntRena.<br>
+ * Run by the main method.
+ */
+public class PrimitiveBenchmark {
+
+	private static final int ROUNDS = 5;
+	private static final int REPEAT = 20;
+
+	private static PatternMatcher<Integer> boxed() {
+		Rena<Integer> r = new Rena<Integer>();
+
+		return r.then(Rena.letrec(
+				(t, f, e) -> r.then(f).thenZeroOrMore(r.or(
+						r.string("+").then(f, (x, a, b) -> b + a),
+						r.string("-").then(f, (x, a, b) -> b - a))),
+				(t, f, e) -> r.then(e).thenZeroOrMore(r.or(
+						r.string("*").then(e, (x, a, b) -> b * a),
+						r.string("/").then(e, (x, a, b) -> b / a))),
+				(t, f, e) -> r.or(r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x)),
+						r.string("(").then(t).then(r.string(")"))))).end();
+	}
+
+	private static IntMatcher primitive() {
+		IntRena r = new IntRena();
+
+		return IntRena.letrec(
+				(t, f, e) -> r.then(f).thenZeroOrMore(r.or(
+						r.string("+").then(f, (x, a, b) -> b + a),
+						r.string("-").then(f, (x, a, b) -> b - a))),
+				(t, f, e) -> r.then(e).thenZeroOrMore(r.or(
+						r.string("*").then(e, (x, a, b) -> b * a),
+						r.string("/").then(e, (x, a, b) -> b / a))),
+				(t, f, e) -> r.or(r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x)),
+						r.string("(").then(t).string(")"))).end();
+	}
+
+	private static String input() {
+		StringBuilder builder = new StringBuilder("1000");
+
+		for(int i = 0; i < 100000; i++) {
+			builder.append("+200*3-(400+500)/6*7");
+		}
+		return builder.toString();
+	}
+
+	private static long allocated() {
+		return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static void run(String name, ToIntFunction<String> matcher, String input) {
+		long time, bytes;
+		int result = 0;
+
+		for(int round = 0; round < ROUNDS; round++) {
+			time = System.nanoTime();
+			bytes = allocated();
+			for(int i = 0; i < REPEAT; i++) {
+				result += matcher.applyAsInt(input);
+			}
+			System.out.printf("%s: %d ms, %,d bytes%n", name,
+					(System.nanoTime() - time) / 1000000, (allocated() - bytes) / REPEAT);
+		}
+		System.out.println(result);
+	}
+
+	public static void main(String[] args) {
+		PatternMatcher<Integer> boxed = boxed();
+		IntMatcher primitive = primitive();
+		String input = input();
+
+		run("Rena<Integer>", s -> boxed.match(s, 0, null).getAttribute(), input);
+		run("IntRena", s -> primitive.parseInt(s, 0).getAttribute(), input);
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class PrimitiveRenaTest extends TestCaseBase {
+
+	private static IntMatcher calc() {
+		IntRena r = new IntRena(" *");
+
+		return IntRena.letrec((t, f, e) -> r.then(f).thenZeroOrMore(r.or(
+				r.string("+").then(f, (x, a, b) -> b + a),
+				r.string("-").then(f, (x, a, b) -> b - a))),
+				(t, f, e) -> r.then(e).thenZeroOrMore(r.or(
+						r.string("*").then(e, (x, a, b) -> b * a),
+						r.string("/").then(e, (x, a, b) -> b / a))),
+				(t, f, e) -> r.or(r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x)),
+						r.string("(").then(t).string(")")));
+	}
+
+	public void testCalc001() {
+		IntMatcher matcher = calc().end();
+
+		assertEquals(matcher.parseInt("1+2*3", 0).getAttribute(), 7);
+		assertEquals(matcher.parseInt("4-6/2", 0).getAttribute(), 1);
+		assertEquals(matcher.parseInt("(1 + 2) * 3", 0).getAttribute(), 9);
+		assertEquals(matcher.parseInt("(1 + 2) * 3", 0).getMatch(), "(1 + 2) * 3");
+		assertNull(matcher.parseInt("(1+2", 0));
+		match("2*(3+4)", matcher, 0, 14);
+		assertEquals(matcher.matchLength("1+2*3", 0), 5);
+		assertEquals(matcher.recognize("(1+2"), -1);
+	}
+
+	public void testTimes001() {
+		LongRena r = new LongRena();
+		LongMatcher digit = r.regex("[0-9]", (x, a, b) -> Long.parseLong(x));
+		LongMatcher matcher = r.oneOrMore(digit, (x, a, b) -> b * 10 + a, 0L);
+
+		assertEquals(matcher.parseLong("9876543210", 0).getAttribute(), 9876543210L);
+		assertEquals(r.times(2, 3, digit, (x, a, b) -> b * 10 + a, 0L).parseLong("12345", 0).getLastIndex(), 3);
+		assertNull(r.times(2, 3, digit).parseLong("1", 0));
+		assertArgumentException(() -> r.times(3, 2, digit));
+	}
+
+	public void testDelimit001() {
+		DoubleRena r = new DoubleRena(" *");
+		DoubleMatcher number = r.regex("[0-9]+(\\.[0-9]+)?", (x, a, b) -> Double.parseDouble(x));
+		DoubleMatcher matcher = r.string("[").then(r.delimit(number, r.string(","), (x, a, b) -> a + b, 0.0)).string("]");
+
+		assertEquals(matcher.parseDouble("[1.5, 2, 0.25]", 0).getAttribute(), 3.75);
+		assertEquals(matcher.parseDouble("[-1]", 0), null);
+		match("[0.5,0.5]", matcher, 0.0, 1.0);
+	}
+
+	public void testInherit001() {
+		IntRena r = new IntRena();
+		IntMatcher matcher = r.string("a", (x, a, b) -> b + 1).string("b", (x, a, b) -> b * 2);
+
+		assertEquals(matcher.parseInt("ab", 3).getAttribute(), 8);
+		assertEquals(r.then(matcher).lookahead(r.string("c")).parseInt("abc", 3).getLastIndex(), 2);
+		assertNull(r.then(matcher).lookaheadNot(r.string("c")).parseInt("abc", 3));
+	}
+
+	public void testGeneric001() {
+		Rena<Integer> g = new Rena<Integer>();
+		IntRena r = new IntRena();
+		PatternMatcher<Integer> boxed = g.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x) + b);
+		IntMatcher matcher = r.attr(10).then(boxed).string("!", (x, a, b) -> b * 2);
+
+		assertEquals(matcher.parseInt("5!", 0).getAttribute(), 30);
+		assertEquals(matcher.matchLength("5!", 0), 2);
+		match("x5!", g.string("x").then(matcher), 0, 30);
+		match("12", g.then(r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x))), null, 12);
+	}
+
+	public void testOr001() {
+		IntRena r = new IntRena();
+
+		assertArgumentException(() -> r.or(java.util.Collections.emptyList()));
+		assertEquals(r.or(r.string("a", (x, a, b) -> 1), r.string("b", (x, a, b) -> 2))
+				.parseInt("b", 0).getAttribute(), 2);
+		assertEquals(r.string("a", (x, a, b) -> 1).or(r.string("b", (x, a, b) -> 2)).maybe()
+				.parseInt("c", 0).getLastIndex(), 0);
+	}
+
+}
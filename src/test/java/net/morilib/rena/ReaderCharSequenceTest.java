@@ -0,0 +1,126 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+public class ReaderCharSequenceTest extends TestCaseBase {
+
+	/**
+	 * A reader which reads one character at once.
+	 */
+	private static class SlowReader extends Reader {
+
+		private final Reader reader;
+
+		private SlowReader(String string) {
+			reader = new StringReader(string);
+		}
+
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			return reader.read(cbuf, off, Math.min(len, 1));
+		}
+
+		public void close() throws IOException {
+			reader.close();
+		}
+
+	}
+
+	public void testString001() throws IOException {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.string("765").string("pro").end();
+
+		assertEquals(matcher.parse(new SlowReader("765pro"), "").getMatch(), "765pro");
+		assertNull(matcher.parse(new SlowReader("765pr"), ""));
+		assertNull(matcher.parse(new SlowReader("765proo"), ""));
+	}
+
+	public void testRegex001() throws IOException {
+		Rena<String> r = new Rena<String>(" +");
+		PatternMatcher<String> matcher = r.regex("[0-9]+", (m, s, i) -> m).regex("[a-z]+$").end();
+
+		assertEquals(matcher.parse(new SlowReader("765   pro"), "").getAttribute(), "765");
+		assertNull(matcher.parse(new SlowReader("765   pro1"), ""));
+	}
+
+	public void testKey001() throws IOException {
+		Rena<String> r = new Rena<String>(new String[] { "+", "++", "+++" });
+		PatternMatcher<String> matcher = r.key("++").end();
+
+		assertNotNull(matcher.parse(new SlowReader("++"), ""));
+		assertNull(matcher.parse(new SlowReader("+++"), ""));
+	}
+
+	public void testTimesDelimitLookahead001() throws IOException {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.then(r.then(r.string("(").times(1, 3))
+				.then(r.delimit(r.regex("[0-9]+"), r.string(","))))
+				.lookahead(r.string(")"));
+
+		assertEquals(matcher.parse(new SlowReader("((1,22,333)"), "").getMatch(), "((1,22,333");
+		assertNull(matcher.parse(new SlowReader("((1,22,333"), ""));
+	}
+
+	public void testParsePartGlobal001() throws IOException {
+		Rena<Integer> r = new Rena<Integer>();
+		PatternMatcher<Integer> matcher = r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x));
+		StringBuilder builder = new StringBuilder();
+
+		for(int i = 0; i < 20000; i++) {
+			builder.append("a1b2c");
+		}
+		assertEquals(matcher.parsePartGlobal(new StringReader(builder.toString()), 16, 0, (x, a) -> x + a),
+				Integer.valueOf(60000));
+
+		List<Integer> list = matcher.parsePartGlobalList(new SlowReader("a1b22c333"), 4);
+		assertEquals(list.size(), 3);
+		assertEquals(list.get(2), Integer.valueOf(333));
+	}
+
+	public void testMaxLookback001() throws IOException {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.regex("[a-z]+").then(r.string("!"));
+		StringBuilder builder = new StringBuilder();
+
+		for(int i = 0; i < 20000; i++) {
+			builder.append("a");
+		}
+		builder.append("!");
+		assertNotNull(matcher.parse(new StringReader(builder.toString()), ""));
+		try {
+			matcher.parse(new StringReader(builder.toString()), 100, "");
+			fail();
+		} catch(IllegalStateException e) {
+			// ok
+		}
+	}
+
+	public void testIOException001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.string("765");
+
+		try {
+			matcher.parse(new Reader() {
+				public int read(char[] cbuf, int off, int len) throws IOException {
+					throw new IOException("error");
+				}
+
+				public void close() {}
+			}, "");
+			fail();
+		} catch(IOException e) {
+			assertEquals(e.getMessage(), "error");
+		}
+	}
+
+}
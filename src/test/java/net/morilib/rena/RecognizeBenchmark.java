@@ -0,0 +1,136 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * compares recognizing by matchLength with matching by match
+ * on the arithmetic grammar of README and a JSON grammar.<br>
+ * Run by the main method.
+ */
+public class RecognizeBenchmark {
+
+	private static final int ROUNDS = 5;
+	private static final int REPEAT = 20;
+
+	private static PatternMatcher<Integer> arithmetic() {
+		Rena<Integer> r = new Rena<Integer>();
+
+		return r.then(Rena.letrec(
+				(t, f, e) -> r.then(f).thenZeroOrMore(r.or(
+						r.string("+").then(f, (x, a, b) -> b + a),
+						r.string("-").then(f, (x, a, b) -> b - a))),
+				(t, f, e) -> r.then(e).thenZeroOrMore(r.or(
+						r.string("*").then(e, (x, a, b) -> b * a),
+						r.string("/").then(e, (x, a, b) -> b / a))),
+				(t, f, e) -> r.or(r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x)),
+						r.string("(").then(t).then(r.string(")"))))).end();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static PatternMatcher<Object> json() {
+		Rena<Object> r = new Rena<Object>("[ \t\n\r]+");
+		RuleSet<Object> rules = new RuleSet<Object>();
+
+		rules.define("value", r.or(Arrays.<PatternMatcher<Object>>asList(
+				rules.ref("object"),
+				rules.ref("array"),
+				rules.ref("string"),
+				r.regex("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?", (m, s, i) -> Double.parseDouble(m)),
+				r.string("true", (m, s, i) -> Boolean.TRUE),
+				r.string("false", (m, s, i) -> Boolean.FALSE),
+				r.string("null", (m, s, i) -> null))));
+		rules.define("string", r.regex("\"([^\"\\\\]|\\\\.)*\"", (m, s, i) -> m.substring(1, m.length() - 1)));
+		rules.define("object", r.then(r.string("{"))
+				.then(r.attr(null), (m, s, i) -> new HashMap<String, Object>())
+				.then(r.maybe(r.delimit(r.then(rules.ref("string"))
+						.then(r.string(":"))
+						.then(rules.ref("value"), (m, s, i) -> new Object[] { i, s }),
+						r.string(","),
+						(m, s, i) -> {
+							Object[] pair = (Object[])s;
+
+							((Map<String, Object>)i).put((String)pair[0], pair[1]);
+							return i;
+						})))
+				.string("}"));
+		rules.define("array", r.then(r.string("["))
+				.then(r.attr(null), (m, s, i) -> new ArrayList<Object>())
+				.then(r.maybe(r.delimit(rules.ref("value"),
+						r.string(","),
+						(m, s, i) -> {
+							((List<Object>)i).add(s);
+							return i;
+						})))
+				.string("]"));
+		return r.then(rules.get("value")).end();
+	}
+
+	private static String arithmeticInput() {
+		StringBuilder builder = new StringBuilder("1");
+
+		for(int i = 0; i < 100000; i++) {
+			builder.append("+2*3-(4+5)/6*7");
+		}
+		return builder.toString();
+	}
+
+	private static String jsonInput() {
+		StringBuilder builder = new StringBuilder("[");
+
+		for(int i = 0; i < 20000; i++) {
+			builder.append(i > 0 ? ",\n  " : "\n  ");
+			builder.append("{ \"id\": ").append(i)
+					.append(", \"name\": \"item \\\"").append(i).append("\\\"\"")
+					.append(", \"price\": ").append(i * 0.25)
+					.append(", \"tags\": [\"a\", \"b\", true, false, null] }");
+		}
+		return builder.append("\n]").toString();
+	}
+
+	private static long allocated() {
+		return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static void run(String name, PatternMatcher<?> matcher, String input) {
+		long time, bytes;
+		int end = 0;
+
+		for(int round = 0; round < ROUNDS; round++) {
+			time = System.nanoTime();
+			bytes = allocated();
+			for(int i = 0; i < REPEAT; i++) {
+				end += matcher.match(input, 0, null).getLastIndex();
+			}
+			System.out.printf("%s: match %d ms, %,d bytes%n", name,
+					(System.nanoTime() - time) / 1000000, (allocated() - bytes) / REPEAT);
+			time = System.nanoTime();
+			bytes = allocated();
+			for(int i = 0; i < REPEAT; i++) {
+				end += matcher.matchLength(input, 0);
+			}
+			System.out.printf("%s: matchLength %d ms, %,d bytes%n", name,
+					(System.nanoTime() - time) / 1000000, (allocated() - bytes) / REPEAT);
+		}
+		System.out.println(end);
+	}
+
+	public static void main(String[] args) {
+		run("arithmetic", arithmetic(), arithmeticInput());
+		run("json", json(), jsonInput());
+	}
+
+}
@@ -9,7 +9,9 @@
 package net.morilib.rena;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class RenaTest extends TestCaseBase {
 
@@ -33,10 +35,22 @@ public class RenaTest extends TestCaseBase {
 		nomatch("p961", matcher);
 	}
 
+	public void testRegionCharSequence001() {
+		Rena<String> r = new Rena<String>("[ \t]+");
+		PatternMatcher<String> matcher = r.regex("[0-9]+", (match, attr, inherit) -> match)
+				.string("pro").end();
+		StringBuilder buffer = new StringBuilder("xx765  proxx");
+
+		assertEquals(matcher.match(buffer, 2, 10, "").getAttribute(), "765");
+		assertEquals(matcher.match(buffer, 2, 10, "").getLastIndex(), 10);
+		assertNull(matcher.match(buffer, 2, 11, ""));
+		assertNull(matcher.match(buffer, 2, 9, ""));
+	}
+
 	public void testMatcher1() {
 		Rena<String> r = new Rena<String>();
 		OperationMatcher<String> matcher = r.then(
-				(match, ind, a) -> match.startsWith("765", ind) ? new PatternResult<String>("765", ind + 3, a) : null,
+				(match, ind, a) -> match.toString().startsWith("765", ind) ? new PatternResult<String>("765", ind + 3, a) : null,
 				(match, attr, inherit) -> match);
 
 		match("765pro", matcher, "765", 3, "", "765");
@@ -48,7 +62,7 @@ public class RenaTest extends TestCaseBase {
 	public void testMatcher2() {
 		Rena<String> r = new Rena<String>();
 		OperationMatcher<String> matcher = r.then(
-				(match, ind, a) -> match.startsWith("765", ind) ? new PatternResult<String>("765", ind + 3, a) : null);
+				(match, ind, a) -> match.toString().startsWith("765", ind) ? new PatternResult<String>("765", ind + 3, a) : null);
 
 		match("765pro", matcher, "765", 3, "", "");
 		nomatch("961pro", matcher);
@@ -86,6 +100,46 @@ public class RenaTest extends TestCaseBase {
 		nomatch("-", matcher);
 	}
 
+	public void testKeys001() {
+		Rena<String> r = new Rena<String>(new String[] { "+", "++", "-", "//" });
+		Map<String, PatternAction<String>> keys = new LinkedHashMap<String, PatternAction<String>>();
+		OperationMatcher<String> matcher;
+
+		keys.put("+", (m, s, i) -> i + "add");
+		keys.put("++", (m, s, i) -> i + "inc");
+		keys.put("-", null);
+		matcher = r.keys(keys);
+		match("+", matcher, "+", 1, "", "add");
+		match("+++", matcher, "++", 2, "", "inc");
+		match("-", matcher, "-", 1, "x", "x");
+		nomatch("//", matcher);
+		nomatch("*", matcher);
+		assertArgumentException(() -> r.keys(new LinkedHashMap<String, PatternAction<String>>()));
+	}
+
+	public void testKey004() {
+		Rena<String> r = new Rena<String>(new String[] { "+", "+++", "if", "ifdef" });
+
+		match("+", r.key("+"), "+", 1, "", "");
+		match("+++", r.key("+++"), "+++", 3, "", "");
+		match("if x", r.key("if"), "if", 2, "", "");
+		match("ifdef", r.key("ifdef"), "ifdef", 5, "", "");
+		nomatch("ifdef", r.key("if"));
+		// the keyword of the deepest node of the walk is matched
+		nomatch("++", r.key("+"));
+		nomatch("ifde", r.key("if"));
+		match("ifd", r.notKey(), "", 0, "", "");
+	}
+
+	public void testKey005() {
+		Rena<String> r = new Rena<String>(new String[] { "ab", "abc", "a", "abcab" });
+
+		nomatch("abca", r.key("abc"));
+		match("abca", r.notKey(), "", 0, "", "");
+		match("abcx", r.key("abc"), "abc", 3, "", "");
+		nomatch("abcx", r.notKey());
+	}
+
 	public void testNotKey001() {
 		Rena<String> r = new Rena<String>(new String[] { "+", "++", "//" });
 		OperationMatcher<String> matcher = r.notKey();
@@ -475,6 +529,16 @@ public class RenaTest extends TestCaseBase {
 		match("", matcher, "961", "765");
 	}
 
+	public void testAttr002() {
+		Rena<String> r = new Rena<String>();
+		PatternResult<String> result = r.attr("765").match("abc", 1, "961");
+
+		assertEquals(result.getMatch(), "");
+		assertEquals(result.getStartIndex(), 1);
+		assertEquals(result.getLastIndex(), 1);
+		assertEquals(result.getAttribute(), "765");
+	}
+
 	public void testLetrec001() {
 		final Rena<String> r = new Rena<String>();
 		PatternMatcher<String> matcher =
@@ -0,0 +1,85 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class RuleSetTest extends TestCaseBase {
+
+	private static final String[] OPEN = { "(", "[", "{", "<", "|", "/" };
+	private static final String[] CLOSE = { ")", "]", "}", ">", "|", "/" };
+
+	public void testRuleSet001() {
+		final Rena<String> r = new Rena<String>();
+		RuleSet<String> rules = new RuleSet<String>();
+
+		for(int i = 0; i < OPEN.length; i++) {
+			rules.define("r" + i, r.then(r.string(OPEN[i])
+					.then(rules.ref("r" + ((i + 1) % OPEN.length)))
+					.then(r.string(CLOSE[i]))).maybe());
+		}
+
+		PatternMatcher<String> matcher = rules.get("r0");
+		match("()", matcher, "()", 2, "", "");
+		match("([{<|//|>}])", matcher, "([{<|//|>}])", 12, "", "");
+		match("([{<|/()/|>}])", matcher, "([{<|/()/|>}])", 14, "", "");
+		match("", matcher, "", 0, "", "");
+		match("([)", matcher, "", 0, "", "");
+	}
+
+	public void testRuleSet002() {
+		final Rena<Integer> r = new Rena<Integer>();
+		RuleSet<Integer> rules = new RuleSet<Integer>();
+
+		rules.define("expr", r.then(rules.ref("term")).thenZeroOrMore(r.or(
+				r.string("+").then(rules.ref("term"), (x, a, b) -> b + a),
+				r.string("-").then(rules.ref("term"), (x, a, b) -> b - a))));
+		rules.define("term", r.then(rules.ref("factor")).thenZeroOrMore(r.or(
+				r.string("*").then(rules.ref("factor"), (x, a, b) -> b * a),
+				r.string("/").then(rules.ref("factor"), (x, a, b) -> b / a))));
+		rules.define("factor", r.or(r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x)),
+				r.string("(").then(rules.ref("expr")).then(r.string(")"))));
+
+		PatternMatcher<Integer> expr = r.then(rules.get("expr")).end();
+		assertEquals(expr.parse("1+2*3", 0).getAttribute(), Integer.valueOf(7));
+		assertEquals(expr.parse("(1+2)*3", 0).getAttribute(), Integer.valueOf(9));
+		assertEquals(expr.parse("4-6/2", 0).getAttribute(), Integer.valueOf(1));
+		assertNull(expr.parse("(1+2", 0));
+	}
+
+	public void testRuleSet003() {
+		RuleSet<String> rules = new RuleSet<String>();
+
+		rules.define("a", rules.ref("b"));
+		assertFalse(rules.isDefined("b"));
+		try {
+			rules.get("a");
+			fail();
+		} catch(IllegalStateException e) {
+			// ok
+		}
+		try {
+			rules.define("a", rules.ref("b"));
+			fail();
+		} catch(IllegalStateException e) {
+			// ok
+		}
+	}
+
+	public void testLetrecOnce001() {
+		final Rena<String> r = new Rena<String>();
+		final int[] count = new int[1];
+		PatternMatcher<String> matcher = Rena.letrec(x -> {
+			count[0]++;
+			return r.then(r.string("(").then(x).then(r.string(")"))).maybe();
+		});
+
+		match("((((()))))", matcher, "((((()))))", 10, "", "");
+		assertEquals(count[0], 1);
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class SkipPolicyTest extends TestCaseBase {
+
+	public void testWhitespace001() {
+		SkipPolicy policy = SkipPolicy.whitespace();
+
+		assertEquals(policy.skip(" \t\r\n\u000b\fa", 0), 6);
+		assertEquals(policy.skip("a ", 0), 0);
+		assertEquals(policy.skip("  ", 1), 2);
+		assertEquals(policy.skip("　a", 0), 0);
+		assertEquals(SkipPolicy.unicodeWhitespace().skip("　  a", 0), 3);
+		assertTrue(policy.matches(" ", 0));
+		assertFalse(policy.matches("a", 0));
+	}
+
+	public void testLineComment001() {
+		SkipPolicy policy = SkipPolicy.lineComment("//");
+
+		assertEquals(policy.skip("// abc\ndef", 0), 6);
+		assertEquals(policy.skip("// abc", 0), 6);
+		assertEquals(policy.skip("/ abc", 0), 0);
+		assertArgumentException(() -> SkipPolicy.lineComment(""));
+	}
+
+	public void testBlockComment001() {
+		SkipPolicy policy = SkipPolicy.blockComment("/*", "*/", false);
+		SkipPolicy nested = SkipPolicy.blockComment("(*", "*)", true);
+
+		assertEquals(policy.skip("/* a /* b */ c */", 0), 12);
+		assertEquals(policy.skip("/**/a", 0), 4);
+		assertEquals(policy.skip("/* a", 0), 0);
+		assertEquals(nested.skip("(* a (* b *) c *)d", 0), 17);
+		assertEquals(nested.skip("(* a (* b *) c", 0), 0);
+		assertArgumentException(() -> SkipPolicy.blockComment("/*", "", false));
+	}
+
+	public void testAny001() {
+		SkipPolicy policy = SkipPolicy.any(SkipPolicy.whitespace(),
+				SkipPolicy.lineComment("#"),
+				SkipPolicy.blockComment("/*", "*/", false));
+
+		assertEquals(policy.skip(" # a\n /* b */\n  c", 0), 16);
+		assertEquals(policy.skip("c", 0), 0);
+		assertTrue(policy.matches("#", 0));
+	}
+
+	public void testRegex001() {
+		SkipPolicy policy = SkipPolicy.regex(" *");
+
+		assertEquals(policy.skip("  a", 0), 2);
+		assertEquals(policy.skip("a", 0), 0);
+		assertTrue(policy.matches("a", 0));
+	}
+
+	public void testCached001() {
+		int[] count = new int[1];
+		SkipPolicy policy = SkipPolicy.cached((match, index) -> {
+			count[0]++;
+			return SkipPolicy.whitespace().skip(match, index);
+		});
+		String input = "   a";
+
+		assertEquals(policy.skip(input, 0), 3);
+		assertEquals(policy.skip(input, 0), 3);
+		assertEquals(count[0], 1);
+		assertEquals(policy.skip(input, 1), 3);
+		assertEquals(policy.skip(new String(input), 0), 3);
+		assertEquals(count[0], 3);
+		assertEquals(policy.skip(new StringBuilder(input), 0), 3);
+		assertEquals(policy.skip(new StringBuilder(input), 0), 3);
+		assertEquals(count[0], 5);
+		assertSame(SkipPolicy.cached(policy), policy);
+	}
+
+	public void testCached002() {
+		int[] count = new int[1];
+		SkipPolicy policy = SkipPolicy.cached((match, index) -> {
+			count[0]++;
+			return SkipPolicy.whitespace().skip(match, index);
+		});
+		CharSequence region = CharSequences.region("a   b c", 1, 5);
+		Rena<String> r = new Rena<String>(policy);
+
+		assertEquals(policy.skip(region, 1), 4);
+		assertEquals(policy.skip(region, 1), 4);
+		assertEquals(count[0], 1);
+		assertEquals(r.then(r.string("a")).then(r.string("b")).match("xa  by", 1, 5, null).getMatch(), "a  b");
+		assertEquals(count[0], 2);
+	}
+
+	public void testCached003() throws Exception {
+		SkipPolicy policy = SkipPolicy.cached(SkipPolicy.whitespace());
+		String input = new String(new char[] { ' ', ' ', 'a' });
+		java.lang.ref.WeakReference<String> reference = new java.lang.ref.WeakReference<String>(input);
+
+		assertEquals(policy.skip(input, 0), 2);
+		input = null;
+		for(int i = 0; i < 20 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+		assertEquals(policy.skip("  a", 0), 2);
+	}
+
+	public void testRena001() {
+		Rena<String> r = new Rena<String>(SkipPolicy.any(SkipPolicy.whitespace(),
+				SkipPolicy.blockComment("{", "}", true)), new String[] { "begin", "end" });
+		PatternMatcher<String> matcher = r.then(r.key("begin"))
+				.then(r.zeroOrMore(r.then(r.notKey()).regex("[a-z]+", (m, s, i) -> i + m)))
+				.then(r.key("end"))
+				.end();
+
+		match("begin { a {nested} } x\n  y {z} end", matcher, "", "xy");
+		nomatch("begin { a x end", matcher);
+		match("begin x end", r.then(r.equalsId("begin")).then(r.regex("[a-z]+")).then(r.equalsId("end")),
+				"begin x end", "", "");
+	}
+
+}
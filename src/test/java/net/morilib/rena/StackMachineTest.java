@@ -0,0 +1,103 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+public class StackMachineTest extends TestCaseBase {
+
+	private static String nest(int depth) {
+		StringBuilder b = new StringBuilder();
+
+		for(int i = 0; i < depth; i++) {
+			b.append('(');
+		}
+		b.append('x');
+		for(int i = 0; i < depth; i++) {
+			b.append(')');
+		}
+		return b.toString();
+	}
+
+	private static PatternMatcher<Integer> depth() {
+		Rena<Integer> r = new Rena<Integer>(" *");
+		RuleSet<Integer> rules = new RuleSet<Integer>();
+
+		rules.define("e", r.or(r.string("x", (m, s, i) -> 0),
+				r.string("(").then(rules.ref("e"), (m, s, i) -> s + 1).string(")")));
+		return r.then(rules.get("e")).end();
+	}
+
+	public void testDeep001() {
+		String input = nest(30000);
+		PatternMatcher<Integer> matcher = depth();
+
+		assertEquals(matcher.iterative().parse(input, 0).getAttribute().intValue(), 30000);
+		assertNull(matcher.iterative().parse(input + ")", 0));
+	}
+
+	public void testExpr001() {
+		PatternMatcher<Integer> matcher = expr();
+		String[] inputs = { "1+2*3", "(1 + 2) * 3", "4-6/2", "(1+2", "((7))", "1+", "" };
+
+		for(String input : inputs) {
+			PatternResult<Integer> expected = matcher.parse(input, 0);
+			PatternResult<Integer> actual = matcher.iterative().parse(input, 0);
+
+			if(expected == null) {
+				assertNull(actual);
+			} else {
+				assertEquals(actual.getAttribute(), expected.getAttribute());
+				assertEquals(actual.getLastIndex(), expected.getLastIndex());
+				assertEquals(actual.getMatch(), expected.getMatch());
+			}
+		}
+	}
+
+	public void testTimes001() {
+		Rena<String> r = new Rena<String>(" ");
+		PatternMatcher<String> matcher = r.times(2, 3, r.regex("[a-z]", (m, s, i) -> m), (m, s, i) -> i + s).iterative();
+
+		assertNull(matcher.match("a", ""));
+		assertEquals(matcher.match("a b", "").getAttribute(), "ab");
+		assertEquals(matcher.match("a b c d", "").getAttribute(), "abc");
+		assertEquals(matcher.match("a b c d", "").getLastIndex(), 5);
+	}
+
+	public void testDelimit001() {
+		Rena<String> r = new Rena<String>(" *");
+		PatternMatcher<String> matcher = r.delimit(r.regex("[a-z]+"), r.string(","),
+				(m, s, i) -> i + "[" + m + "]", "").iterative();
+
+		assertEquals(matcher.match("a, bc ,d,", "").getAttribute(), "[a][bc][d]");
+		assertEquals(matcher.match("a, bc ,d,", "").getLastIndex(), 8);
+		assertEquals(matcher.match("a", "").getAttribute(), "[a]");
+		assertNull(matcher.match(",", ""));
+	}
+
+	public void testLookahead001() {
+		Rena<String> r = new Rena<String>();
+		PatternMatcher<String> matcher = r.string("a").lookahead(r.string("b")).iterative();
+		PatternMatcher<String> matcherNot = r.string("a").lookaheadNot(r.string("b")).iterative();
+
+		match("ab", matcher, "a", "", "");
+		nomatch("ac", matcher);
+		match("ac", matcherNot, "a", "", "");
+		nomatch("ab", matcherNot);
+	}
+
+	public void testCond001() {
+		Rena<Integer> r = new Rena<Integer>();
+		PatternMatcher<Integer> matcher = r.regex("[0-9]+", (m, s, i) -> Integer.parseInt(m))
+				.cond(x -> x > 10)
+				.iterative();
+
+		match("11", matcher, 0, 11);
+		nomatch("9", matcher);
+	}
+
+}
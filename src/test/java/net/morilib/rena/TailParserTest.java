@@ -0,0 +1,106 @@
+/*
+ * rena-java
+ *
+ * Copyright (c) 2018 Yuichiro MORIGUCHI
+ *
+ * This software is released under the MIT License.
+ * http://opensource.org/licenses/mit-license.php
+ **/
+package net.morilib.rena;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class TailParserTest extends TestCaseBase {
+
+	private Path dir;
+
+	protected void setUp() throws IOException {
+		dir = Files.createTempDirectory("rena");
+	}
+
+	protected void tearDown() throws IOException {
+		for(Path path : Files.newDirectoryStream(dir)) {
+			Files.delete(path);
+		}
+		Files.delete(dir);
+	}
+
+	private static void append(Path path, String string) throws IOException {
+		Files.write(path, string.getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	private static TailParser<Integer> sum(Path path) {
+		Rena<Integer> r = new Rena<Integer>();
+
+		return new TailParser<Integer>(path,
+				r.regex("[0-9]+", (m, s, i) -> Integer.parseInt(m)),
+				r.br(),
+				0,
+				(x, y) -> x + y);
+	}
+
+	public void testPoll001() throws IOException {
+		Path path = dir.resolve("log");
+		TailParser<Integer> parser = sum(path);
+
+		append(path, "1 2\n3 4");
+		assertEquals(parser.poll().intValue(), 3);
+		assertEquals(parser.getOffset(), 4);
+		append(path, "5\n");
+		assertEquals(parser.poll().intValue(), 51);
+		assertEquals(parser.getOffset(), 9);
+		assertEquals(parser.poll().intValue(), 51);
+	}
+
+	public void testPoll002() throws IOException {
+		Path path = dir.resolve("log");
+		TailParser<Integer> parser = sum(path);
+		byte[] bytes = "あ1\nい2\n".getBytes(StandardCharsets.UTF_8);
+
+		// a partial character at the end
+		Files.write(path, java.util.Arrays.copyOf(bytes, 6));
+		assertEquals(parser.poll().intValue(), 1);
+		assertEquals(parser.getOffset(), 5);
+		Files.write(path, bytes);
+		assertEquals(parser.poll().intValue(), 3);
+		assertEquals(parser.getOffset(), 10);
+	}
+
+	public void testCheckpoint001() throws IOException {
+		Path path = dir.resolve("log");
+		Path checkpoint = dir.resolve("checkpoint");
+		TailParser<Integer> parser = sum(path);
+
+		parser.setCheckpoint(checkpoint, String::valueOf, Integer::valueOf);
+		append(path, "1\n2\n3");
+		assertEquals(parser.poll().intValue(), 3);
+
+		parser = sum(path);
+		parser.setCheckpoint(checkpoint, String::valueOf, Integer::valueOf);
+		assertEquals(parser.getOffset(), 4);
+		assertEquals(parser.getAttribute().intValue(), 3);
+		append(path, "\n");
+		assertEquals(parser.poll().intValue(), 6);
+	}
+
+	public void testTruncated001() throws IOException {
+		Path path = dir.resolve("log");
+		TailParser<Integer> parser = sum(path);
+
+		append(path, "1\n");
+		parser.poll();
+		Files.write(path, new byte[0]);
+		try {
+			parser.poll();
+			fail();
+		} catch(IllegalStateException e) {
+			// ok
+		}
+	}
+
+}
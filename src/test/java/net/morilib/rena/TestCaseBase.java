@@ -35,6 +35,38 @@ public class TestCaseBase extends TestCase {
 		assertNull(result);
 	}
 
+	protected static<A> void same(PatternMatcher<A> expected, PatternMatcher<A> actual, String input, A attribute) {
+		PatternResult<A> expectedResult = expected.match(input, 0, attribute);
+		PatternResult<A> actualResult = actual.match(input, 0, attribute);
+
+		if(expectedResult == null) {
+			assertNull(actualResult);
+		} else {
+			assertEquals(actualResult.getAttribute(), expectedResult.getAttribute());
+			assertEquals(actualResult.getLastIndex(), expectedResult.getLastIndex());
+			assertEquals(actualResult.getMatch(), expectedResult.getMatch());
+		}
+	}
+
+	protected static RuleSet<Integer> exprRules() {
+		Rena<Integer> r = new Rena<Integer>(" *");
+		RuleSet<Integer> rules = new RuleSet<Integer>();
+
+		rules.define("expr", r.then(rules.ref("term")).thenZeroOrMore(r.or(
+				r.string("+").then(rules.ref("term"), (x, a, b) -> b + a),
+				r.string("-").then(rules.ref("term"), (x, a, b) -> b - a))));
+		rules.define("term", r.then(rules.ref("factor")).thenZeroOrMore(r.or(
+				r.string("*").then(rules.ref("factor"), (x, a, b) -> b * a),
+				r.string("/").then(rules.ref("factor"), (x, a, b) -> b / a))));
+		rules.define("factor", r.or(r.regex("[0-9]+", (x, a, b) -> Integer.parseInt(x)),
+				r.string("(").then(rules.ref("expr")).string(")")));
+		return rules;
+	}
+
+	protected static PatternMatcher<Integer> expr() {
+		return new Rena<Integer>(" *").then(exprRules().get("expr")).end();
+	}
+
 	protected void assertArgumentException(Runnable runnable) {
 		try {
 			runnable.run();
@@ -39,6 +39,16 @@ public class ThenMatcherTest extends TestCaseBase {
 		nomatch("pro", matcher);
 	}
 
+	public void testThen004() {
+		Rena<String> r = new Rena<String>(" +");
+		OperationMatcher<String> matcher = r.string("x").regex("[0-9]+")
+				.then(r.regex("[a-z]+"), (m, b, a) -> "<" + m + ">");
+
+		match("x 765 pro!!", matcher, "x 765 pro", 9, "", "<x 765 pro>");
+		match("765 pro!!", r.regex("[0-9]+").then(r.regex("[a-z]+"), (m, b, a) -> "<" + m + ">"),
+				"765 pro", 7, "", "<765 pro>");
+	}
+
 	public void testRegex001() {
 		Rena<String> r = new Rena<String>();
 		OperationMatcher<String> matcher = r.regex("[0-9]+").regex("[a-z]+");
@@ -57,6 +67,13 @@ public class ThenMatcherTest extends TestCaseBase {
 		nomatch("pro", matcher);
 	}
 
+	public void testRegex004() {
+		Rena<String> r = new Rena<String>(" +");
+		OperationMatcher<String> matcher = r.string("x").regex("[0-9]+", (m, b, a) -> "<" + m + ">");
+
+		match("x 765 pro", matcher, "x 765", 5, "", "<x 765>");
+	}
+
 	public void testRegex003() {
 		Rena<String> r = new Rena<String>("[ \t]+");
 		OperationMatcher<String> matcher = r.regex("[0-9]+").regex("[a-z]+", (m, b, a) -> a + m);